@@ -0,0 +1,135 @@
+package ru.joke.cache.bus.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import ru.joke.cache.bus.core.CacheEntryEvent;
+import ru.joke.cache.bus.core.CacheEntryEventType;
+import ru.joke.cache.bus.core.impl.ImmutableCacheEntryEvent;
+import ru.joke.cache.bus.core.transport.CacheEntryEventConverter;
+import ru.joke.cache.bus.jdk.serialization.JdkCacheEntryEventConverter;
+import ru.joke.cache.bus.kryo.serialization.KryoCacheEntryEventConverter;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the Kryo converter against the JDK serialization converter for the events with the complex keys
+ * and without the values (as the invalidation caches send them) and for the events with the large values
+ * (as the replicated caches send them). The Kryo converter is measured with the class names written to the body
+ * ({@code KRYO}), with the registered classes ({@code KRYO_REGISTERED}) and with the registered classes and the unsafe
+ * streams ({@code KRYO_UNSAFE}).<br>
+ * The allocations of the conversion can be compared with the GC profiler:
+ * {@code java -jar benchmarks/target/benchmarks.jar KryoConverterBenchmark -prof gc}.
+ *
+ * @author Alik
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KryoConverterBenchmark {
+
+    private static final String CACHE_NAME = "benchmark";
+    private static final int LARGE_VALUE_ITEMS = 256;
+
+    @Param({ "JDK", "KRYO", "KRYO_REGISTERED", "KRYO_UNSAFE" })
+    public Converter converterType;
+
+    @Param({ "SMALL_KEY", "LARGE_VALUE" })
+    public Payload payload;
+
+    private CacheEntryEventConverter converter;
+    private CacheEntryEvent<Key, Value> event;
+    private boolean serializeValueFields;
+    private byte[] message;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.converter = this.converterType.create();
+        this.serializeValueFields = this.payload == Payload.LARGE_VALUE;
+        this.event = new ImmutableCacheEntryEvent<>(
+                new Key("tenant", 1L),
+                createValue("old", this.payload),
+                createValue("new", this.payload),
+                CacheEntryEventType.UPDATED,
+                CACHE_NAME
+        );
+        this.message = this.converter.toBinary(this.event, this.serializeValueFields);
+    }
+
+    @Benchmark
+    public byte[] toBinary() {
+        return this.converter.toBinary(this.event, this.serializeValueFields);
+    }
+
+    @Benchmark
+    public CacheEntryEvent<Key, Value> fromBinary() {
+        return this.converter.fromBinary(this.message);
+    }
+
+    private static Value createValue(final String prefix, final Payload payload) {
+        final int itemsCount = payload == Payload.SMALL_KEY ? 0 : LARGE_VALUE_ITEMS;
+        final ArrayList<String> items = new ArrayList<>(itemsCount);
+        for (int i = 0; i < itemsCount; i++) {
+            items.add(prefix + "-item-" + i);
+        }
+
+        return new Value(prefix, items);
+    }
+
+    public enum Converter {
+
+        JDK {
+            @Override
+            CacheEntryEventConverter create() {
+                return new JdkCacheEntryEventConverter();
+            }
+        },
+
+        KRYO {
+            @Override
+            CacheEntryEventConverter create() {
+                return KryoCacheEntryEventConverter.create();
+            }
+        },
+
+        KRYO_REGISTERED {
+            @Override
+            CacheEntryEventConverter create() {
+                return registeringBuilder().build();
+            }
+        },
+
+        KRYO_UNSAFE {
+            @Override
+            CacheEntryEventConverter create() {
+                return registeringBuilder().useUnsafeStreams(true).build();
+            }
+        };
+
+        abstract CacheEntryEventConverter create();
+
+        private static KryoCacheEntryEventConverter.Builder registeringBuilder() {
+            return KryoCacheEntryEventConverter.builder()
+                                                    .registerClass(Key.class, 10)
+                                                    .registerClass(Value.class, 11)
+                                                    .registerClass(ArrayList.class, 12)
+                                                    .useRegistrationRequired(true);
+        }
+    }
+
+    public enum Payload {
+
+        SMALL_KEY,
+
+        LARGE_VALUE
+    }
+
+    public record Key(String tenant, long id) implements Serializable {
+    }
+
+    public record Value(String name, ArrayList<String> items) implements Serializable {
+    }
+}
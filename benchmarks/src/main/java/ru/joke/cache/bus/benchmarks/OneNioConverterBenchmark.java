@@ -0,0 +1,114 @@
+package ru.joke.cache.bus.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import ru.joke.cache.bus.core.CacheEntryEvent;
+import ru.joke.cache.bus.core.CacheEntryEventType;
+import ru.joke.cache.bus.core.impl.ImmutableCacheEntryEvent;
+import ru.joke.cache.bus.core.transport.CacheEntryEventConverter;
+import ru.joke.cache.bus.core.transport.LazyCacheEntryEvent;
+import ru.joke.cache.bus.onenio.serialization.OneNioCacheEntryEventConverter;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the OneNio converter: the single-pass serialization into the thread-local buffers
+ * ({@code singlePass = true}) against the two-pass serialization into the exactly sized arrays ({@code singlePass = false}),
+ * for the events with the small keys and without the values (as the invalidation caches send them) and for the events
+ * with the large values (as the replicated caches send them).<br>
+ * Both the time and the allocation rate should be compared:
+ * {@code java -jar benchmarks/target/benchmarks.jar OneNioConverterBenchmark -prof gc}.
+ *
+ * @author Alik
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OneNioConverterBenchmark {
+
+    private static final String CACHE_NAME = "benchmark";
+    private static final int LARGE_VALUE_ITEMS = 256;
+
+    @Param({ "false", "true" })
+    public boolean singlePass;
+
+    @Param({ "SMALL_KEY", "LARGE_VALUE" })
+    public Payload payload;
+
+    private CacheEntryEventConverter converter;
+    private CacheEntryEvent<String, Value> event;
+    private boolean serializeValueFields;
+    private byte[] message;
+    private LazyCacheEntryEvent<String, Value> flyweight;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // The converter with the zero max retained buffer size is the previous two-pass implementation
+        this.converter = this.singlePass ? new OneNioCacheEntryEventConverter() : new OneNioCacheEntryEventConverter(0);
+        this.serializeValueFields = this.payload == Payload.LARGE_VALUE;
+        this.event = new ImmutableCacheEntryEvent<>(
+                "key-1",
+                createValue("old", this.payload),
+                createValue("new", this.payload),
+                CacheEntryEventType.UPDATED,
+                CACHE_NAME
+        );
+        this.message = this.converter.toBinary(this.event, this.serializeValueFields);
+        this.flyweight = new LazyCacheEntryEvent<>();
+    }
+
+    @Benchmark
+    public byte[] toBinary() {
+        return this.converter.toBinary(this.event, this.serializeValueFields);
+    }
+
+    @Benchmark
+    public int toBuffer() {
+        final ByteBuffer buffer = this.converter.toBuffer(this.event, this.serializeValueFields);
+        return buffer.remaining();
+    }
+
+    @Benchmark
+    public CacheEntryEvent<String, Value> fromBinary() {
+        return this.converter.fromBinary(this.message);
+    }
+
+    @Benchmark
+    public Value fromBinaryIntoFlyweight() {
+        final CacheEntryEvent<String, Value> result = this.converter.fromBinary(this.message, this.flyweight);
+        try {
+            return result.newValue();
+        } finally {
+            this.flyweight.clear();
+        }
+    }
+
+    private static Value createValue(final String prefix, final Payload payload) {
+        if (payload == Payload.SMALL_KEY) {
+            return new Value(prefix, List.of());
+        }
+
+        final List<String> items = new ArrayList<>(LARGE_VALUE_ITEMS);
+        for (int i = 0; i < LARGE_VALUE_ITEMS; i++) {
+            items.add(prefix + "-item-" + i);
+        }
+
+        return new Value(prefix, items);
+    }
+
+    public enum Payload {
+
+        SMALL_KEY,
+
+        LARGE_VALUE
+    }
+
+    public record Value(String name, List<String> items) implements Serializable {
+    }
+}
@@ -0,0 +1,196 @@
+package ru.joke.cache.bus.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import ru.joke.cache.bus.core.Cache;
+import ru.joke.cache.bus.core.CacheBus;
+import ru.joke.cache.bus.core.CacheEntryEventType;
+import ru.joke.cache.bus.core.CacheEventListenerRegistrar;
+import ru.joke.cache.bus.core.ExtendedCacheBus;
+import ru.joke.cache.bus.core.configuration.*;
+import ru.joke.cache.bus.core.impl.DefaultCacheBus;
+import ru.joke.cache.bus.core.impl.ImmutableCacheEntryEvent;
+import ru.joke.cache.bus.core.impl.configuration.*;
+import ru.joke.cache.bus.core.impl.resolvers.StaticHostNameResolver;
+import ru.joke.cache.bus.core.impl.test.FakeCache;
+import ru.joke.cache.bus.core.impl.test.FakeCacheBusMessageChannel;
+import ru.joke.cache.bus.core.impl.test.FakeCacheManager;
+import ru.joke.cache.bus.core.transport.CacheEntryEventConverter;
+import ru.joke.cache.bus.core.transport.HostNameResolver;
+import ru.joke.cache.bus.jdk.serialization.JdkCacheEntryEventConverter;
+
+import javax.annotation.Nonnull;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the receiving path of the bus: the deserialization of the messages received from the channel
+ * and the application of the events to the local cache, with and without the flyweights of the received events
+ * ({@linkplain CacheBusTransportConfiguration#useFlyweightReceiving()}).<br>
+ * The difference is mostly in the allocation rate, so the benchmark should be run with the GC profiler:
+ * {@code java -jar benchmarks/target/benchmarks.jar ReceivePathBenchmark -prof gc}
+ * and the {@code gc.alloc.rate.norm} metric (bytes per received message) should be compared.<br>
+ * With {@code foreignCache = true} the messages belong to the cache that isn't configured locally,
+ * so only the header of the messages should be decoded.<br>
+ * With {@code receiveBuffers = true} the messages are received as the slices of the shared heap buffer
+ * ({@linkplain CacheBus#receive(ByteBuffer)}), as the buffer-based channels do it, so the messages are decoded without copying.
+ *
+ * @author Alik
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReceivePathBenchmark {
+
+    private static final String CACHE_NAME = "benchmark";
+    private static final String FOREIGN_CACHE_NAME = "foreign";
+    private static final int MESSAGES_COUNT = 1024;
+
+    @Param({ "false", "true" })
+    public boolean useFlyweightReceiving;
+
+    @Param({ "INVALIDATED", "REPLICATED" })
+    public CacheType cacheType;
+
+    @Param({ "false", "true" })
+    public boolean foreignCache;
+
+    @Param({ "false", "true" })
+    public boolean receiveBuffers;
+
+    private ExecutorService processingPool;
+    private ExtendedCacheBus cacheBus;
+    private byte[][] messages;
+    private ByteBuffer[] messageBuffers;
+    private int position;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final CacheEntryEventConverter converter = new JdkCacheEntryEventConverter();
+
+        this.processingPool = Executors.newSingleThreadExecutor();
+        this.cacheBus = new DefaultCacheBus(createConfiguration(converter));
+        this.cacheBus.start();
+
+        // Invalidation events are sent without values, as the bus does it for the invalidation caches
+        final boolean serializeValueFields = this.cacheType == CacheType.REPLICATED;
+        this.messages = new byte[MESSAGES_COUNT][];
+        for (int i = 0; i < MESSAGES_COUNT; i++) {
+            final ImmutableCacheEntryEvent<String, Value> event = new ImmutableCacheEntryEvent<>(
+                    "key-" + i,
+                    new Value("value-" + i, i),
+                    new Value("value-" + i, i + 1),
+                    CacheEntryEventType.UPDATED,
+                    this.foreignCache ? FOREIGN_CACHE_NAME : CACHE_NAME
+            );
+            this.messages[i] = converter.toBinary(event, serializeValueFields);
+        }
+
+        this.messageBuffers = createMessageBuffers(this.messages);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.cacheBus.stop();
+        this.processingPool.shutdownNow();
+    }
+
+    @Benchmark
+    public void receive() {
+        final int index = this.position++ & (MESSAGES_COUNT - 1);
+        if (this.receiveBuffers) {
+            this.cacheBus.receive(this.messageBuffers[index]);
+        } else {
+            this.cacheBus.receive(this.messages[index]);
+        }
+    }
+
+    private static ByteBuffer[] createMessageBuffers(final byte[][] messages) {
+
+        int size = 0;
+        for (final byte[] message : messages) {
+            size += message.length;
+        }
+
+        final ByteBuffer buffer = ByteBuffer.allocate(size);
+        final ByteBuffer[] result = new ByteBuffer[messages.length];
+        for (int i = 0; i < messages.length; i++) {
+            result[i] = buffer.slice(buffer.position(), messages[i].length);
+            buffer.put(messages[i]);
+        }
+
+        return result;
+    }
+
+    private CacheBusConfiguration createConfiguration(final CacheEntryEventConverter converter) {
+
+        final CacheBusTransportConfiguration transportConfiguration =
+                ImmutableCacheBusTransportConfiguration
+                        .builder()
+                            .setConverter(converter)
+                            .setMessageChannel(new FakeCacheBusMessageChannel())
+                            .setMessageChannelConfiguration(new ChannelConfiguration())
+                            .setProcessingPool(this.processingPool)
+                            .setMaxConcurrentReceivingThreads(0)
+                            .useFlyweightReceiving(this.useFlyweightReceiving)
+                        .build();
+
+        final FakeCacheManager cacheManager = new FakeCacheManager(Map.of(CACHE_NAME, new FakeCache<String, Value>(CACHE_NAME)));
+        final CacheEventListenerRegistrar eventListenerRegistrar = new CacheEventListenerRegistrar() {
+            @Override
+            public <K extends Serializable, V extends Serializable> void registerFor(@Nonnull CacheBus cacheBus, @Nonnull Cache<K, V> cache) {
+            }
+
+            @Override
+            public <K extends Serializable, V extends Serializable> void unregisterFor(@Nonnull CacheBus cacheBus, @Nonnull Cache<K, V> cache) {
+            }
+        };
+
+        return ImmutableCacheBusConfiguration
+                    .builder()
+                        .setCacheConfigurationSource(
+                                CacheConfigurationSource.createDefault()
+                                        .add(
+                                                ImmutableCacheConfiguration
+                                                        .builder()
+                                                            .setCacheName(CACHE_NAME)
+                                                            .setCacheType(this.cacheType)
+                                                        .build()
+                                        )
+                        )
+                        .setProviderConfiguration(new CacheProviderConfigurationTemplate(cacheManager, eventListenerRegistrar) {})
+                        .setTransportConfiguration(transportConfiguration)
+                    .build();
+    }
+
+    public record Value(String name, long version) implements Serializable {
+    }
+
+    private static class ChannelConfiguration implements CacheBusMessageChannelConfiguration {
+
+        private final HostNameResolver hostNameResolver = new StaticHostNameResolver("benchmark");
+
+        @Nonnull
+        @Override
+        public String channel() {
+            return "benchmark";
+        }
+
+        @Nonnull
+        @Override
+        public HostNameResolver hostNameResolver() {
+            return this.hostNameResolver;
+        }
+
+        @Override
+        public long reconnectTimeoutMs() {
+            return 0;
+        }
+    }
+}
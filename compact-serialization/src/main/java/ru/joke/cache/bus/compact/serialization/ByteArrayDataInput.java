@@ -0,0 +1,128 @@
+package ru.joke.cache.bus.compact.serialization;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.NotThreadSafe;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+
+/**
+ * Reusable implementation of {@link DataInput} over the part of the array: unlike {@link DataInputStream},
+ * the input can be pointed to the other array without the allocation of the new streams.
+ *
+ * @author Alik
+ */
+@NotThreadSafe
+final class ByteArrayDataInput implements DataInput {
+
+    private byte[] array;
+    private int position;
+    private int end;
+
+    ByteArrayDataInput reset(final byte[] array, final int offset, final int length) {
+        if (offset < 0 || length < 0 || length > array.length - offset) {
+            throw new IllegalArgumentException("Binary representation of event is out of array bounds");
+        }
+
+        this.array = array;
+        this.position = offset;
+        this.end = offset + length;
+        return this;
+    }
+
+    void clear() {
+        this.array = null;
+        this.position = 0;
+        this.end = 0;
+    }
+
+    @Override
+    public void readFully(@Nonnull byte[] b) throws IOException {
+        readFully(b, 0, b.length);
+    }
+
+    @Override
+    public void readFully(@Nonnull byte[] b, int off, int len) throws IOException {
+        System.arraycopy(this.array, advance(len), b, off, len);
+    }
+
+    @Override
+    public int skipBytes(int n) {
+        final int skipped = Math.max(0, Math.min(n, this.end - this.position));
+        this.position += skipped;
+        return skipped;
+    }
+
+    @Override
+    public boolean readBoolean() throws IOException {
+        return readByte() != 0;
+    }
+
+    @Override
+    public byte readByte() throws IOException {
+        return this.array[advance(1)];
+    }
+
+    @Override
+    public int readUnsignedByte() throws IOException {
+        return readByte() & 0xFF;
+    }
+
+    @Override
+    public short readShort() throws IOException {
+        final int index = advance(Short.BYTES);
+        return (short) ((this.array[index] << 8) | (this.array[index + 1] & 0xFF));
+    }
+
+    @Override
+    public int readUnsignedShort() throws IOException {
+        return readShort() & 0xFFFF;
+    }
+
+    @Override
+    public char readChar() throws IOException {
+        return (char) readShort();
+    }
+
+    @Override
+    public int readInt() throws IOException {
+        return (readUnsignedShort() << 16) | readUnsignedShort();
+    }
+
+    @Override
+    public long readLong() throws IOException {
+        return ((long) readInt() << 32) | (readInt() & 0xFFFFFFFFL);
+    }
+
+    @Override
+    public float readFloat() throws IOException {
+        return Float.intBitsToFloat(readInt());
+    }
+
+    @Override
+    public double readDouble() throws IOException {
+        return Double.longBitsToDouble(readLong());
+    }
+
+    @Override
+    public String readLine() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Nonnull
+    @Override
+    public String readUTF() throws IOException {
+        return DataInputStream.readUTF(this);
+    }
+
+    private int advance(final int length) throws EOFException {
+        if (length < 0 || length > this.end - this.position) {
+            throw new EOFException("Unexpected end of binary representation of event");
+        }
+
+        final int index = this.position;
+        this.position += length;
+        return index;
+    }
+}
@@ -0,0 +1,87 @@
+package ru.joke.cache.bus.compact.serialization;
+
+import ru.joke.cache.bus.core.configuration.ConfigurationException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Dictionary of the cache names used to write the names of the caches as the small identifiers.<br>
+ * The identifier of the name is the CRC32 hash of the UTF-8 representation of the name, so it doesn't depend on the other
+ * names of the dictionary: the servers hosting the different sets of the caches write and read the same identifiers
+ * of the shared caches. The dictionary with the names with the same identifier can't be built, so the identifiers
+ * of the names of the dictionary are always unique.
+ *
+ * @author Alik
+ */
+@ThreadSafe
+@Immutable
+final class CacheNameDictionary {
+
+    private final Map<String, Integer> ids;
+    private final Map<Integer, String> names;
+
+    CacheNameDictionary(@Nonnull Collection<String> names) {
+        this.ids = new HashMap<>(names.size());
+        this.names = new HashMap<>(names.size());
+
+        for (final String name : names) {
+            final int id = idOf(name.getBytes(StandardCharsets.UTF_8));
+            final String collidingName = this.names.putIfAbsent(id, name);
+            if (collidingName != null && !collidingName.equals(name)) {
+                throw new ConfigurationException("Identifiers of cache names " + collidingName + " and " + name + " are equal, one of the names must be excluded from dictionary");
+            }
+
+            this.ids.put(name, id);
+        }
+    }
+
+    /**
+     * Returns whether the cache name is in the dictionary.
+     *
+     * @param cacheName the name of the cache, cannot be {@code null}.
+     * @return {@code true} if the name is in the dictionary, {@code false} otherwise.
+     */
+    boolean contains(@Nonnull String cacheName) {
+        return this.ids.containsKey(cacheName);
+    }
+
+    /**
+     * Returns the identifier of the cache name from the dictionary.
+     *
+     * @param cacheName the name of the cache from the dictionary, cannot be {@code null}.
+     * @return the identifier of the name.
+     */
+    int idOf(@Nonnull String cacheName) {
+        return this.ids.get(cacheName);
+    }
+
+    /**
+     * Returns the cache name by the identifier.
+     *
+     * @param id the identifier of the cache name.
+     * @return the name of the cache or {@code null} if the identifier isn't in the dictionary.
+     */
+    @Nullable
+    String nameOf(int id) {
+        return this.names.get(id);
+    }
+
+    @Override
+    public String toString() {
+        return "CacheNameDictionary{" + "size=" + this.ids.size() + '}';
+    }
+
+    private static int idOf(final byte[] name) {
+        final CRC32 crc = new CRC32();
+        crc.update(name);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,381 @@
+package ru.joke.cache.bus.compact.serialization;
+
+import ru.joke.cache.bus.core.CacheEntryEvent;
+import ru.joke.cache.bus.core.CacheEntryEventType;
+import ru.joke.cache.bus.core.configuration.CacheConfiguration;
+import ru.joke.cache.bus.core.configuration.CacheConfigurationSource;
+import ru.joke.cache.bus.core.impl.ImmutableCacheEntryEvent;
+import ru.joke.cache.bus.core.transport.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.NotThreadSafe;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * Dependency-free implementation of a converter with the compact binary format intended for the small events
+ * (first of all, for the invalidation events without the values).<br>
+ * Binary format: {@code [flags: byte][cache][eventTime: unsigned varlong][key][oldValue][newValue]}, where
+ * <ul>
+ * <li>the flags contain the version of the format (2 high bits), the flag of the inline cache name, the flag of the values
+ * and the identifier of the event type (4 low bits);</li>
+ * <li>the cache is written as {@code [cacheId: int]} (the CRC32 hash of the name) if the cache name is in the
+ * {@linkplain Builder#setCacheNames(Collection) dictionary of the cache names} and as {@code [length: unsigned varint][name: UTF-8]} otherwise;</li>
+ * <li>the key and the values (only if the values are serialized) are written with the {@linkplain ValueCodecRegistry registry of the codecs}:
+ * the built-in codecs are used for the strings, the numbers and the UUIDs, the custom codecs can be registered for other types
+ * (including the composite keys as records), the objects of the types without the codecs are written with the JDK serialization.</li>
+ * </ul>
+ * So the invalidation event with the short string key of the cache from the dictionary takes less than 20 bytes.<br>
+ * All servers of the logical cluster must use the same codecs. The identifier of the cache name doesn't depend on the other
+ * names of the dictionary, so the servers can host the different sets of the caches; the event of the cache that isn't
+ * in the dictionary of the receiving server can't be decoded and is rejected.<br>
+ * The converter supports the decoding into the flyweight: the key and the values are decoded only on the first access to them.
+ *
+ * @author Alik
+ * @see CacheEntryEventConverter
+ * @see ValueCodecRegistry
+ */
+@ThreadSafe
+@Immutable
+public final class CompactCacheEntryEventConverter implements CacheEntryEventConverter {
+
+    private static final Logger logger = LoggerFactory.getLogger(CompactCacheEntryEventConverter.class);
+
+    private static final int VERSION = 2;
+    private static final int VERSION_SHIFT = 6;
+    private static final int INLINE_CACHE_NAME_FLAG = 1 << 5;
+    private static final int VALUES_FLAG = 1 << 4;
+    private static final int EVENT_TYPE_MASK = 0x0F;
+
+    private static final int BUF_SIZE = 128;
+    private static final int MAX_RETAINED_BUF_SIZE = 64 * 1024;
+
+    private final ValueCodecRegistry codecRegistry;
+    private final CacheNameDictionary cacheNames;
+    private final ThreadLocal<Output> outputs = ThreadLocal.withInitial(Output::new);
+    private final ThreadLocal<CompactDecoder> decoders = ThreadLocal.withInitial(CompactDecoder::new);
+
+    private CompactCacheEntryEventConverter(@Nonnull ValueCodecRegistry codecRegistry, @Nonnull CacheNameDictionary cacheNames) {
+        this.codecRegistry = codecRegistry;
+        this.cacheNames = cacheNames;
+    }
+
+    @Nonnull
+    @Override
+    public <K extends Serializable, V extends Serializable> byte[] toBinary(@Nonnull CacheEntryEvent<K, V> event, boolean serializeValueFields) {
+        return write(event, serializeValueFields).toByteArray();
+    }
+
+    @Nonnull
+    @Override
+    public <K extends Serializable, V extends Serializable> ByteBuffer toBuffer(@Nonnull CacheEntryEvent<K, V> event, boolean serializeValueFields) {
+        return write(event, serializeValueFields).toByteBuffer();
+    }
+
+    @Nonnull
+    @Override
+    public <K extends Serializable, V extends Serializable> CacheEntryEvent<K, V> fromBinary(@Nonnull byte[] data) {
+        return read(data, 0, data.length);
+    }
+
+    @Nonnull
+    @Override
+    public <K extends Serializable, V extends Serializable> CacheEntryEvent<K, V> fromBuffer(@Nonnull ByteBuffer data) {
+        if (data.hasArray()) {
+            return read(data.array(), data.arrayOffset() + data.position(), data.remaining());
+        }
+
+        final byte[] array = ByteBuffers.toByteArray(data);
+        return read(array, 0, array.length);
+    }
+
+    @Nonnull
+    @Override
+    public <K extends Serializable, V extends Serializable> CacheEntryEvent<K, V> fromBinary(
+            @Nonnull byte[] data,
+            @Nonnull LazyCacheEntryEvent<K, V> flyweight) {
+        return readInto(data, 0, data.length, flyweight);
+    }
+
+    @Nonnull
+    @Override
+    public <K extends Serializable, V extends Serializable> CacheEntryEvent<K, V> fromBuffer(
+            @Nonnull ByteBuffer data,
+            @Nonnull LazyCacheEntryEvent<K, V> flyweight) {
+        if (data.hasArray()) {
+            return readInto(data.array(), data.arrayOffset() + data.position(), data.remaining(), flyweight);
+        }
+
+        final byte[] array = ByteBuffers.toByteArray(data);
+        return readInto(array, 0, array.length, flyweight);
+    }
+
+    @Override
+    public String toString() {
+        return "CompactCacheEntryEventConverter{" +
+                "codecRegistry=" + codecRegistry +
+                ", cacheNames=" + cacheNames +
+                '}';
+    }
+
+    private ReusableByteArrayOutputStream write(final CacheEntryEvent<?, ?> event, final boolean serializeValueFields) {
+
+        final Output output = this.outputs.get();
+        output.bytes.reset();
+
+        try {
+            final DataOutputStream out = output.data;
+            final boolean inlineCacheName = !this.cacheNames.contains(event.cacheName());
+            final int flags = (VERSION << VERSION_SHIFT)
+                    | (inlineCacheName ? INLINE_CACHE_NAME_FLAG : 0)
+                    | (serializeValueFields ? VALUES_FLAG : 0)
+                    | event.eventType().getId();
+            out.writeByte(flags);
+
+            if (inlineCacheName) {
+                ValueCodecs.writeString(event.cacheName(), out);
+            } else {
+                out.writeInt(this.cacheNames.idOf(event.cacheName()));
+            }
+
+            VarInts.writeUnsignedVarLong(out, event.eventTime());
+            this.codecRegistry.write(event.key(), out);
+
+            if (serializeValueFields) {
+                this.codecRegistry.write(event.oldValue(), out);
+                this.codecRegistry.write(event.newValue(), out);
+            }
+
+            return output.bytes;
+        } catch (IOException ex) {
+            logger.error("Unable to serialize event: " + event, ex);
+            throw new RuntimeException(ex);
+        }
+    }
+
+    private <K extends Serializable, V extends Serializable> CacheEntryEvent<K, V> read(
+            final byte[] data,
+            final int offset,
+            final int length) {
+
+        final CompactDecoder decoder = acquireDecoder();
+        try {
+            decoder.open(data, offset, length);
+
+            final K key = decoder.decodeKey(data);
+            final V oldValue = decoder.decodeOldValue(data);
+            final V newValue = decoder.decodeNewValue(data);
+
+            return new ImmutableCacheEntryEvent<>(key, oldValue, newValue, decoder.eventTime, decoder.eventType, decoder.cacheName);
+        } catch (IllegalArgumentException ex) {
+            logger.error("Unable to deserialize event", ex);
+            throw ex;
+        } finally {
+            decoder.release();
+        }
+    }
+
+    private <K extends Serializable, V extends Serializable> CacheEntryEvent<K, V> readInto(
+            final byte[] data,
+            final int offset,
+            final int length,
+            final LazyCacheEntryEvent<K, V> flyweight) {
+
+        final CompactDecoder decoder = acquireDecoder();
+        try {
+            decoder.open(data, offset, length);
+            return flyweight.wrap(data, decoder.eventTime, decoder.eventType, decoder.cacheName, decoder);
+        } catch (RuntimeException ex) {
+            decoder.release();
+            logger.error("Unable to deserialize event", ex);
+            throw ex;
+        }
+    }
+
+    private CompactDecoder acquireDecoder() {
+        final CompactDecoder threadDecoder = this.decoders.get();
+        // The decoder is still used by the flyweight of the outer event
+        return threadDecoder.isInUse() ? new CompactDecoder() : threadDecoder;
+    }
+
+    /**
+     * Returns a builder for constructing the converter.
+     *
+     * @return cannot be {@code null}.
+     * @see Builder
+     */
+    @Nonnull
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @NotThreadSafe
+    public static class Builder {
+
+        private final Set<String> cacheNames = new HashSet<>();
+        private ValueCodecRegistry codecRegistry = ValueCodecRegistry.createDefault();
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the registry of the codecs used to write the keys and the values of the events.
+         * By default, the registry with the built-in codecs only is used (see {@linkplain ValueCodecRegistry#createDefault()}).
+         *
+         * @param codecRegistry the registry of the codecs, cannot be {@code null}.
+         * @return the builder for further configuration, cannot be {@code null}.
+         */
+        @Nonnull
+        public Builder setCodecRegistry(@Nonnull ValueCodecRegistry codecRegistry) {
+            this.codecRegistry = Objects.requireNonNull(codecRegistry, "codecRegistry");
+            return this;
+        }
+
+        /**
+         * Sets the names of the caches that are written to the binary representation as the small identifiers
+         * (the names of other caches are written as strings). The identifier of the name is the hash of the name,
+         * so the servers of the logical cluster can configure the different sets of the names.
+         * The names with the equal identifiers are rejected when the converter is built.
+         *
+         * @param cacheNames the names of the caches, cannot be {@code null}.
+         * @return the builder for further configuration, cannot be {@code null}.
+         * @see #setCacheConfigurationSource(CacheConfigurationSource)
+         */
+        @Nonnull
+        public Builder setCacheNames(@Nonnull Collection<String> cacheNames) {
+            this.cacheNames.clear();
+            this.cacheNames.addAll(cacheNames);
+            return this;
+        }
+
+        /**
+         * Sets the names of the caches from the cache configuration source of the bus: the names of the configured caches
+         * and their aliases are used as the dictionary of the cache names (see {@linkplain #setCacheNames(Collection)}).
+         *
+         * @param configurationSource the cache configuration source of the bus, cannot be {@code null}.
+         * @return the builder for further configuration, cannot be {@code null}.
+         */
+        @Nonnull
+        public Builder setCacheConfigurationSource(@Nonnull CacheConfigurationSource configurationSource) {
+            final Set<String> cacheNames = new HashSet<>();
+            for (final CacheConfiguration cacheConfiguration : configurationSource.pull().cacheConfigurations()) {
+                cacheNames.add(cacheConfiguration.cacheName());
+                cacheNames.addAll(cacheConfiguration.cacheAliases());
+            }
+
+            return setCacheNames(cacheNames);
+        }
+
+        /**
+         * Builds the converter.
+         *
+         * @return cannot be {@code null}.
+         */
+        @Nonnull
+        public CacheEntryEventConverter build() {
+            return new CompactCacheEntryEventConverter(this.codecRegistry, new CacheNameDictionary(this.cacheNames));
+        }
+    }
+
+    @NotThreadSafe
+    private static final class Output {
+
+        private final ReusableByteArrayOutputStream bytes = new ReusableByteArrayOutputStream(BUF_SIZE, MAX_RETAINED_BUF_SIZE);
+        private final DataOutputStream data = new DataOutputStream(this.bytes);
+    }
+
+    @NotThreadSafe
+    private final class CompactDecoder implements LazyCacheEntryEvent.Decoder {
+
+        private final ByteArrayDataInput input = new ByteArrayDataInput();
+        private boolean inUse;
+        private boolean hasValues;
+        private long eventTime;
+        private CacheEntryEventType eventType;
+        private String cacheName;
+
+        private void open(final byte[] data, final int offset, final int length) {
+            this.inUse = true;
+            this.input.reset(data, offset, length);
+
+            try {
+                final int flags = this.input.readUnsignedByte();
+                if (flags >>> VERSION_SHIFT != VERSION) {
+                    throw new IllegalArgumentException("Unsupported event format version: " + (flags >>> VERSION_SHIFT));
+                }
+
+                this.eventType = CacheEntryEventType.valueOf(flags & EVENT_TYPE_MASK);
+                if (this.eventType == null) {
+                    throw new IllegalArgumentException("Unknown event type: " + (flags & EVENT_TYPE_MASK));
+                }
+
+                this.hasValues = (flags & VALUES_FLAG) != 0;
+                this.cacheName = (flags & INLINE_CACHE_NAME_FLAG) != 0 ? ValueCodecs.readString(this.input) : readCacheName();
+                this.eventTime = VarInts.readUnsignedVarLong(this.input);
+            } catch (IOException ex) {
+                throw new IllegalArgumentException("Malformed event", ex);
+            }
+        }
+
+        private String readCacheName() throws IOException {
+            final int cacheId = this.input.readInt();
+            final String cacheName = CompactCacheEntryEventConverter.this.cacheNames.nameOf(cacheId);
+            if (cacheName == null) {
+                throw new IllegalArgumentException("Cache with id isn't in dictionary of cache names: " + cacheId);
+            }
+
+            return cacheName;
+        }
+
+        private boolean isInUse() {
+            return this.inUse;
+        }
+
+        @Nonnull
+        @Override
+        public <K extends Serializable> K decodeKey(@Nonnull byte[] data) {
+            final K key = readObject();
+            if (key == null) {
+                throw new IllegalArgumentException("Key of event must be not null");
+            }
+
+            return key;
+        }
+
+        @Override
+        public <V extends Serializable> V decodeOldValue(@Nonnull byte[] data) {
+            return this.hasValues ? readObject() : null;
+        }
+
+        @Override
+        public <V extends Serializable> V decodeNewValue(@Nonnull byte[] data) {
+            return this.hasValues ? readObject() : null;
+        }
+
+        @Override
+        public void release() {
+            this.inUse = false;
+            this.hasValues = false;
+            this.eventTime = 0;
+            this.eventType = null;
+            this.cacheName = null;
+            this.input.clear();
+        }
+
+        private <T extends Serializable> T readObject() {
+            try {
+                return CompactCacheEntryEventConverter.this.codecRegistry.read(this.input);
+            } catch (IOException ex) {
+                logger.error("Unable to deserialize body of event", ex);
+                throw new RuntimeException(ex);
+            }
+        }
+    }
+}
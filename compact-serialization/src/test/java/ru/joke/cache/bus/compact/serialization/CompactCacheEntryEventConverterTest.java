@@ -0,0 +1,129 @@
+package ru.joke.cache.bus.compact.serialization;
+
+import org.junit.jupiter.api.Test;
+import ru.joke.cache.bus.core.CacheEntryEvent;
+import ru.joke.cache.bus.core.CacheEntryEventType;
+import ru.joke.cache.bus.core.configuration.ConfigurationException;
+import ru.joke.cache.bus.core.impl.ImmutableCacheEntryEvent;
+import ru.joke.cache.bus.core.testing.transport.BaseCacheEntryEventConverterTest;
+import ru.joke.cache.bus.core.transport.CacheEntryEventConverter;
+import ru.joke.cache.bus.core.transport.LazyCacheEntryEvent;
+import ru.joke.cache.bus.core.transport.ValueCodecRegistry;
+import ru.joke.cache.bus.jdk.serialization.JdkCacheEntryEventConverter;
+
+import javax.annotation.Nonnull;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompactCacheEntryEventConverterTest extends BaseCacheEntryEventConverterTest {
+
+    private static final String CACHE_NAME = "users";
+
+    @Test
+    public void testWhenInvalidationEventOfDictionaryCacheThenBinaryIsCompact() {
+        final CacheEntryEventConverter converter = createConverter();
+        final CacheEntryEvent<String, Serializable> event = composeEvent("user-1", CACHE_NAME, CacheEntryEventType.EXPIRED);
+
+        final byte[] data = converter.toBinary(event, false);
+
+        assertEquals(event, converter.fromBinary(data), "Source and deserialized event must be equal");
+        assertTrue(data.length <= 20, "Invalidation event must be written compact, but was " + data.length + " bytes");
+        assertTrue(data.length < converter.toBinary(composeEvent("user-1", "other-cache", CacheEntryEventType.EXPIRED), false).length,
+                "Cache name from dictionary must be written more compact than inline one");
+        assertTrue(data.length < new JdkCacheEntryEventConverter().toBinary(event, false).length,
+                "Event must be written more compact than with JDK serialization");
+    }
+
+    @Test
+    public void testWhenDictionariesOfCacheNamesDifferThenEventsOfSharedCachesDecoded() {
+        final CacheEntryEventConverter converter =
+                CompactCacheEntryEventConverter.builder()
+                                                    .setCacheNames(List.of(CACHE_NAME, "orders"))
+                                                .build();
+        final CacheEntryEventConverter otherConverter =
+                CompactCacheEntryEventConverter.builder()
+                                                    .setCacheNames(List.of("accounts", CACHE_NAME, "payments"))
+                                                .build();
+
+        final CacheEntryEvent<String, Serializable> event = composeEvent("user-1", CACHE_NAME, CacheEntryEventType.ADDED);
+        final byte[] data = converter.toBinary(event, false);
+        final CacheEntryEvent<String, Serializable> otherEvent = composeEvent("user-2", CACHE_NAME, CacheEntryEventType.EVICTED);
+
+        assertEquals(event, otherConverter.fromBinary(data), "Event of shared cache must be decoded with other dictionary");
+        final CacheEntryEvent<String, Serializable> lazyEvent = otherConverter.fromBinary(data, new LazyCacheEntryEvent<>());
+        assertEquals(event.cacheName(), lazyEvent.cacheName(), "Cache name must be decoded with other dictionary");
+        assertEquals(event.key(), lazyEvent.key(), "Cache key must be decoded with other dictionary");
+        assertEquals(otherEvent, converter.fromBinary(otherConverter.toBinary(otherEvent, false)), "Event of shared cache must be decoded with other dictionary");
+
+        final byte[] ordersData = converter.toBinary(composeEvent("order-1", "orders", CacheEntryEventType.ADDED), false);
+        assertThrows(IllegalArgumentException.class, () -> otherConverter.fromBinary(ordersData), "Event of cache not in dictionary must be rejected");
+        assertThrows(IllegalArgumentException.class, () -> converter.fromBinary(Arrays.copyOf(data, 3)), "Truncated event must be rejected");
+    }
+
+    @Test
+    public void testWhenIdsOfCacheNamesCollideThenConverterNotBuilt() {
+        // The names have the same CRC32 hash
+        final CompactCacheEntryEventConverter.Builder builder = CompactCacheEntryEventConverter.builder().setCacheNames(List.of("plumless", "buckeroo"));
+        assertThrows(ConfigurationException.class, builder::build, "Cache names with equal ids must be rejected");
+    }
+
+    @Test
+    public void testWhenRecordKeyRegisteredThenKeyWrittenWithCodec() {
+        final ValueCodecRegistry registry = ValueCodecRegistry.builder().registerRecord(32, OrderKey.class).build();
+        final CacheEntryEventConverter converter =
+                CompactCacheEntryEventConverter.builder()
+                                                    .setCacheNames(List.of(CACHE_NAME))
+                                                    .setCodecRegistry(registry)
+                                                .build();
+
+        final CacheEntryEvent<OrderKey, Serializable> event = composeEvent(new OrderKey("tenant", 15L), CACHE_NAME, CacheEntryEventType.UPDATED);
+        final byte[] data = converter.toBinary(event, false);
+
+        assertEquals(event, converter.fromBinary(data), "Source and deserialized event must be equal");
+        assertTrue(data.length < createConverter().toBinary(event, false).length, "Registered key must be written more compact than serialized one");
+    }
+
+    @Test
+    @Override
+    public void testWhenEventDecodedIntoFlyweightThenBodyDecodedOnlyOnAccess() {
+        final CacheEntryEventConverter converter = createConverter();
+        final CacheEntryEvent<String, String> event = new ImmutableCacheEntryEvent<>("user-1", "v1", "v2", System.currentTimeMillis(), CacheEntryEventType.UPDATED, CACHE_NAME);
+
+        final byte[] data = converter.toBinary(event, true);
+
+        // The values follow the key, so the corrupted values must not affect the decoding of the header and the key
+        Arrays.fill(data, converter.toBinary(event, false).length, data.length, (byte) -1);
+
+        final LazyCacheEntryEvent<String, String> flyweight = new LazyCacheEntryEvent<>();
+        final CacheEntryEvent<String, String> decodedEvent = converter.fromBinary(data, flyweight);
+
+        assertEquals(event.cacheName(), decodedEvent.cacheName(), "Cache name must be equal");
+        assertEquals(event.eventType(), decodedEvent.eventType(), "Event type must be equal");
+        assertEquals(event.eventTime(), decodedEvent.eventTime(), "Event time must be equal");
+        assertEquals(event.key(), decodedEvent.key(), "Cache key must be equal");
+        assertThrows(RuntimeException.class, decodedEvent::oldValue);
+
+        flyweight.clear();
+    }
+
+    @Nonnull
+    @Override
+    protected CacheEntryEventConverter createConverter() {
+        return CompactCacheEntryEventConverter.builder()
+                                                .setCacheNames(List.of(CACHE_NAME, "orders", "accounts"))
+                                              .build();
+    }
+
+    private <K extends Serializable> CacheEntryEvent<K, Serializable> composeEvent(
+            final K key,
+            final String cacheName,
+            final CacheEntryEventType eventType) {
+        return new ImmutableCacheEntryEvent<>(key, null, null, System.currentTimeMillis(), eventType, cacheName);
+    }
+
+    private record OrderKey(String tenant, long id) implements Serializable {
+    }
+}
@@ -0,0 +1,446 @@
+package ru.joke.cache.bus.compression;
+
+import ru.joke.cache.bus.core.CacheEntryEvent;
+import ru.joke.cache.bus.core.configuration.ConfigurationException;
+import ru.joke.cache.bus.core.metrics.CacheBusMetricsRegistry;
+import ru.joke.cache.bus.core.metrics.KnownMetrics;
+import ru.joke.cache.bus.core.metrics.Metrics;
+import ru.joke.cache.bus.core.metrics.NoOpCacheBusMetricsRegistry;
+import ru.joke.cache.bus.core.transport.ByteBuffers;
+import ru.joke.cache.bus.core.transport.CacheEntryEventConverter;
+import ru.joke.cache.bus.core.transport.LazyCacheEntryEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.NotThreadSafe;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.Serializable;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decorator of the converter that compresses the binary representations of the events produced by the delegate converter.<br>
+ * Binary format: {@code [marker: byte][body]}, where the marker is the identifier of the compression codec:
+ * {@code 0} — the body is the binary representation of the delegate converter as is, otherwise the body is
+ * {@code [originalLength: int][compressed representation of the delegate converter]}. The events smaller than the
+ * {@linkplain Builder#setCompressionThreshold(int) threshold} (it can be configured for each cache) and the events that
+ * can't be compressed effectively are sent without the compression, so the small invalidation events aren't compressed
+ * and are still decoded by the delegate converter without the copying (for example, partially into the flyweight).<br>
+ * The receiving side decodes the event by its marker regardless of the configured algorithm, so the servers of the logical
+ * cluster can switch the algorithm one by one; the events compressed with the Zstd dictionary can be decoded only with the same dictionary.<br>
+ * The multi-event frames are compressed as a whole (see {@linkplain #encodeBatchFrame(byte[])}) while the events of the frame
+ * aren't compressed (see {@linkplain #toBatchBinary(CacheEntryEvent, boolean)}), so the cross-event redundancy
+ * of the small events in the batch is used too.<br>
+ * The compression ratio and the time of the compression and the decompression are recorded as metrics
+ * (see {@linkplain KnownMetrics#CONVERTER_COMPRESSION_RATIO}, {@linkplain KnownMetrics#CONVERTER_COMPRESSION_TIME},
+ * {@linkplain KnownMetrics#CONVERTER_DECOMPRESSION_TIME} and {@linkplain KnownMetrics#CONVERTER_UNCOMPRESSED_MESSAGES_COUNT}).
+ * The time is the CPU time of the converting thread ({@linkplain ThreadMXBean#getCurrentThreadCpuTime()}), so the time
+ * of the descheduling of the thread isn't recorded; if the JVM doesn't measure the CPU time of the threads, the time isn't recorded.
+ *
+ * @author Alik
+ * @see CacheEntryEventConverter
+ * @see Builder
+ */
+@ThreadSafe
+@Immutable
+public final class CompressingCacheEntryEventConverter implements CacheEntryEventConverter {
+
+    private static final Logger logger = LoggerFactory.getLogger(CompressingCacheEntryEventConverter.class);
+    private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    private static final byte NONE_MARKER = 0;
+    private static final int COMPRESSED_HEADER_SIZE = Byte.BYTES + Integer.BYTES;
+    private static final int MAX_DECOMPRESSED_SIZE = 128 * 1024 * 1024;
+
+    private static final int BUF_SIZE = 4 * 1024;
+    private static final int MAX_RETAINED_BUF_SIZE = 256 * 1024;
+
+    private final CacheEntryEventConverter delegate;
+    private final Compressor compressor;
+    private final Lz4Compressor lz4Compressor;
+    private final ZstdCompressor zstdCompressor;
+    private final int compressionThreshold;
+    private final Map<String, Integer> cacheCompressionThresholds;
+    private final CacheBusMetricsRegistry metrics;
+    private final boolean cpuTimeMeasured;
+    private final ThreadLocal<Scratch> compressionBuffers = ThreadLocal.withInitial(Scratch::new);
+    private final ThreadLocal<Scratch> decompressionBuffers = ThreadLocal.withInitial(Scratch::new);
+
+    private CompressingCacheEntryEventConverter(@Nonnull Builder builder) {
+        this.delegate = builder.delegate;
+        this.lz4Compressor = new Lz4Compressor();
+        this.zstdCompressor = new ZstdCompressor(builder.zstdLevel, builder.zstdDictionary);
+        this.compressor = builder.algorithm == CompressionAlgorithm.LZ4 ? this.lz4Compressor : this.zstdCompressor;
+        this.compressionThreshold = builder.compressionThreshold;
+        this.cacheCompressionThresholds = Map.copyOf(builder.cacheCompressionThresholds);
+        this.metrics = builder.metrics;
+
+        this.cpuTimeMeasured = threads.isCurrentThreadCpuTimeSupported() && threads.isThreadCpuTimeEnabled();
+
+        this.metrics.registerSummary(new Metrics.Summary(KnownMetrics.CONVERTER_COMPRESSION_RATIO, "ratio"));
+        if (this.cpuTimeMeasured) {
+            this.metrics.registerTimer(new Metrics.Timer(KnownMetrics.CONVERTER_COMPRESSION_TIME));
+            this.metrics.registerTimer(new Metrics.Timer(KnownMetrics.CONVERTER_DECOMPRESSION_TIME));
+        } else {
+            logger.warn("CPU time of threads isn't measured by JVM, time of compression and decompression will not be recorded");
+        }
+        this.metrics.registerCounter(new Metrics.Counter(KnownMetrics.CONVERTER_UNCOMPRESSED_MESSAGES_COUNT));
+    }
+
+    @Nonnull
+    @Override
+    public <K extends Serializable, V extends Serializable> byte[] toBinary(@Nonnull CacheEntryEvent<K, V> event, boolean serializeValueFields) {
+        final ByteBuffer data = toBuffer(event, serializeValueFields);
+        return Arrays.copyOf(data.array(), data.limit());
+    }
+
+    @Nonnull
+    @Override
+    public <K extends Serializable, V extends Serializable> ByteBuffer toBuffer(@Nonnull CacheEntryEvent<K, V> event, boolean serializeValueFields) {
+        final ByteBuffer data = this.delegate.toBuffer(event, serializeValueFields);
+        return encode(data, thresholdOf(event.cacheName()));
+    }
+
+    @Nonnull
+    @Override
+    public <K extends Serializable, V extends Serializable> CacheEntryEvent<K, V> fromBinary(@Nonnull byte[] data) {
+        return fromBuffer(ByteBuffer.wrap(data));
+    }
+
+    @Nonnull
+    @Override
+    public <K extends Serializable, V extends Serializable> CacheEntryEvent<K, V> fromBuffer(@Nonnull ByteBuffer data) {
+        final byte marker = readMarker(data);
+        if (marker == NONE_MARKER) {
+            return this.delegate.fromBuffer(data.slice(data.position() + 1, data.remaining() - 1));
+        }
+
+        // The delegate doesn't retain the data after the full decoding, so the reusable buffer is used
+        final int originalLength = readOriginalLength(data);
+        final byte[] decompressed = this.decompressionBuffers.get().acquire(originalLength);
+        decompress(marker, data, decompressed);
+        return this.delegate.fromBuffer(ByteBuffer.wrap(decompressed, 0, originalLength));
+    }
+
+    @Nonnull
+    @Override
+    public <K extends Serializable, V extends Serializable> CacheEntryEvent<K, V> fromBinary(
+            @Nonnull byte[] data,
+            @Nonnull LazyCacheEntryEvent<K, V> flyweight) {
+        return fromBuffer(ByteBuffer.wrap(data), flyweight);
+    }
+
+    @Nonnull
+    @Override
+    public <K extends Serializable, V extends Serializable> CacheEntryEvent<K, V> fromBuffer(
+            @Nonnull ByteBuffer data,
+            @Nonnull LazyCacheEntryEvent<K, V> flyweight) {
+        final byte marker = readMarker(data);
+        if (marker == NONE_MARKER) {
+            return this.delegate.fromBuffer(data.slice(data.position() + 1, data.remaining() - 1), flyweight);
+        }
+
+        // The flyweight refers to the data until it is cleared, so the decompressed data isn't written to the reusable buffer
+        final byte[] decompressed = new byte[readOriginalLength(data)];
+        decompress(marker, data, decompressed);
+        return this.delegate.fromBinary(decompressed, flyweight);
+    }
+
+    @Nonnull
+    @Override
+    public <K extends Serializable, V extends Serializable> byte[] toBatchBinary(@Nonnull CacheEntryEvent<K, V> event, boolean serializeValueFields) {
+        // The frame is compressed as a whole, so the event of the frame isn't compressed
+        final byte[] data = this.delegate.toBatchBinary(event, serializeValueFields);
+        final byte[] result = new byte[data.length + 1];
+        result[0] = NONE_MARKER;
+        System.arraycopy(data, 0, result, 1, data.length);
+
+        return result;
+    }
+
+    @Nonnull
+    @Override
+    public byte[] encodeBatchFrame(@Nonnull byte[] frame) {
+        final ByteBuffer encodedFrame = encode(ByteBuffer.wrap(this.delegate.encodeBatchFrame(frame)), this.compressionThreshold);
+        return Arrays.copyOf(encodedFrame.array(), encodedFrame.limit());
+    }
+
+    @Nonnull
+    @Override
+    public byte[] decodeBatchFrame(@Nonnull byte[] data) {
+        final ByteBuffer buffer = ByteBuffer.wrap(data);
+        final byte marker = readMarker(buffer);
+        if (marker == NONE_MARKER) {
+            return this.delegate.decodeBatchFrame(Arrays.copyOfRange(data, 1, data.length));
+        }
+
+        // The messages of the frame are retained by the consumer, so the decompressed frame isn't written to the reusable buffer
+        final byte[] frame = new byte[readOriginalLength(buffer)];
+        decompress(marker, buffer, frame);
+        return this.delegate.decodeBatchFrame(frame);
+    }
+
+    @Override
+    public String toString() {
+        return "CompressingCacheEntryEventConverter{" +
+                "delegate=" + delegate +
+                ", compressor=" + compressor +
+                ", compressionThreshold=" + compressionThreshold +
+                ", cacheCompressionThresholds=" + cacheCompressionThresholds +
+                '}';
+    }
+
+    private int thresholdOf(final String cacheName) {
+        final Integer threshold = this.cacheCompressionThresholds.get(cacheName);
+        return threshold == null ? this.compressionThreshold : threshold;
+    }
+
+    private ByteBuffer encode(final ByteBuffer data, final int threshold) {
+
+        final int length = data.remaining();
+        final Scratch scratch = this.compressionBuffers.get();
+
+        if (length >= threshold) {
+            final byte[] source = data.hasArray() ? data.array() : ByteBuffers.toByteArray(data);
+            final int sourceOffset = data.hasArray() ? data.arrayOffset() + data.position() : 0;
+            final byte[] target = scratch.acquire(COMPRESSED_HEADER_SIZE + this.compressor.maxCompressedLength(length));
+
+            final long startTime = currentThreadCpuTime();
+            final int compressedLength = this.compressor.compress(source, sourceOffset, length, target, COMPRESSED_HEADER_SIZE);
+            recordCpuTime(KnownMetrics.CONVERTER_COMPRESSION_TIME, startTime);
+
+            // The data that can't be compressed effectively is sent as is
+            if (COMPRESSED_HEADER_SIZE + compressedLength < length + 1) {
+                this.metrics.putToSummary(KnownMetrics.CONVERTER_COMPRESSION_RATIO, (double) length / compressedLength);
+
+                target[0] = this.compressor.marker();
+                ByteBuffer.wrap(target, 1, Integer.BYTES).putInt(length);
+                return ByteBuffer.wrap(target, 0, COMPRESSED_HEADER_SIZE + compressedLength);
+            }
+        }
+
+        this.metrics.incrementCounter(KnownMetrics.CONVERTER_UNCOMPRESSED_MESSAGES_COUNT);
+
+        final byte[] target = scratch.acquire(length + 1);
+        target[0] = NONE_MARKER;
+        data.get(data.position(), target, 1, length);
+        return ByteBuffer.wrap(target, 0, length + 1);
+    }
+
+    private void decompress(final byte marker, final ByteBuffer data, final byte[] target) {
+
+        final byte[] source = data.hasArray() ? data.array() : ByteBuffers.toByteArray(data);
+        final int sourceOffset = (data.hasArray() ? data.arrayOffset() + data.position() : 0) + COMPRESSED_HEADER_SIZE;
+        final int sourceLength = data.remaining() - COMPRESSED_HEADER_SIZE;
+        final int originalLength = readOriginalLength(data);
+
+        final long startTime = currentThreadCpuTime();
+        try {
+            switch (marker) {
+                case Lz4Compressor.MARKER -> this.lz4Compressor.decompress(source, sourceOffset, sourceLength, target, 0, originalLength);
+                case ZstdCompressor.MARKER -> this.zstdCompressor.decompress(source, sourceOffset, sourceLength, target, 0, originalLength, false);
+                case ZstdCompressor.DICTIONARY_MARKER -> this.zstdCompressor.decompress(source, sourceOffset, sourceLength, target, 0, originalLength, true);
+                default -> throw new IllegalArgumentException("Unknown compression marker: " + marker);
+            }
+        } catch (IllegalArgumentException ex) {
+            logger.error("Unable to decompress binary event", ex);
+            throw ex;
+        } finally {
+            recordCpuTime(KnownMetrics.CONVERTER_DECOMPRESSION_TIME, startTime);
+        }
+    }
+
+    private long currentThreadCpuTime() {
+        return this.cpuTimeMeasured ? threads.getCurrentThreadCpuTime() : 0;
+    }
+
+    private void recordCpuTime(final KnownMetrics metric, final long startTime) {
+        if (this.cpuTimeMeasured) {
+            this.metrics.recordExecutionTime(metric, threads.getCurrentThreadCpuTime() - startTime, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static byte readMarker(final ByteBuffer data) {
+        if (!data.hasRemaining()) {
+            throw new IllegalArgumentException("Binary representation of event is empty");
+        }
+
+        return data.get(data.position());
+    }
+
+    private static int readOriginalLength(final ByteBuffer data) {
+        if (data.remaining() < COMPRESSED_HEADER_SIZE) {
+            throw new IllegalArgumentException("Binary representation of compressed event is truncated");
+        }
+
+        final int originalLength = data.getInt(data.position() + 1);
+        if (originalLength < 0 || originalLength > MAX_DECOMPRESSED_SIZE) {
+            throw new IllegalArgumentException("Invalid size of decompressed event: " + originalLength);
+        }
+
+        return originalLength;
+    }
+
+    /**
+     * Returns a builder for constructing the converter.
+     *
+     * @return cannot be {@code null}.
+     * @see Builder
+     */
+    @Nonnull
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @NotThreadSafe
+    public static class Builder {
+
+        private final Map<String, Integer> cacheCompressionThresholds = new HashMap<>();
+        private CacheEntryEventConverter delegate;
+        private CompressionAlgorithm algorithm = CompressionAlgorithm.LZ4;
+        private int compressionThreshold = 1024;
+        private int zstdLevel = 3;
+        private byte[] zstdDictionary;
+        private CacheBusMetricsRegistry metrics = new NoOpCacheBusMetricsRegistry();
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the delegate converter that produces the binary representations of the events to compress. Required.
+         *
+         * @param delegate the delegate converter, cannot be {@code null}.
+         * @return the builder for further configuration, cannot be {@code null}.
+         */
+        @Nonnull
+        public Builder setDelegate(@Nonnull CacheEntryEventConverter delegate) {
+            this.delegate = Objects.requireNonNull(delegate, "delegate");
+            return this;
+        }
+
+        /**
+         * Sets the compression algorithm. By default, {@linkplain CompressionAlgorithm#LZ4} is used.
+         *
+         * @param algorithm the compression algorithm, cannot be {@code null}.
+         * @return the builder for further configuration, cannot be {@code null}.
+         */
+        @Nonnull
+        public Builder setAlgorithm(@Nonnull CompressionAlgorithm algorithm) {
+            this.algorithm = Objects.requireNonNull(algorithm, "algorithm");
+            return this;
+        }
+
+        /**
+         * Sets the minimum size in bytes of the binary representation of the event (and of the multi-event frame)
+         * that is compressed. By default, it's 1 KB.
+         *
+         * @param compressionThreshold the minimum size of the compressed data.
+         * @return the builder for further configuration, cannot be {@code null}.
+         * @see #setCompressionThreshold(String, int)
+         */
+        @Nonnull
+        public Builder setCompressionThreshold(@Nonnegative int compressionThreshold) {
+            this.compressionThreshold = compressionThreshold;
+            return this;
+        }
+
+        /**
+         * Sets the minimum size in bytes of the binary representation of the event of the given cache that is compressed.
+         * For other caches the common threshold is used (see {@linkplain #setCompressionThreshold(int)}).
+         *
+         * @param cacheName            the name of the cache, cannot be {@code null}.
+         * @param compressionThreshold the minimum size of the compressed data.
+         * @return the builder for further configuration, cannot be {@code null}.
+         */
+        @Nonnull
+        public Builder setCompressionThreshold(@Nonnull String cacheName, @Nonnegative int compressionThreshold) {
+            this.cacheCompressionThresholds.put(Objects.requireNonNull(cacheName, "cacheName"), compressionThreshold);
+            return this;
+        }
+
+        /**
+         * Sets the level of the Zstd compression. By default, it's {@code 3}.
+         *
+         * @param zstdLevel the level of the compression.
+         * @return the builder for further configuration, cannot be {@code null}.
+         */
+        @Nonnull
+        public Builder setZstdLevel(int zstdLevel) {
+            this.zstdLevel = zstdLevel;
+            return this;
+        }
+
+        /**
+         * Sets the Zstd dictionary (see {@link ZstdDictionaries#train(java.util.Collection, int)}). The dictionary is used
+         * for the compression if {@linkplain CompressionAlgorithm#ZSTD} is used and for the decompression of the events
+         * compressed with the dictionary regardless of the algorithm.
+         *
+         * @param zstdDictionary the dictionary, can be {@code null}.
+         * @return the builder for further configuration, cannot be {@code null}.
+         */
+        @Nonnull
+        public Builder setZstdDictionary(byte[] zstdDictionary) {
+            this.zstdDictionary = zstdDictionary == null ? null : zstdDictionary.clone();
+            return this;
+        }
+
+        /**
+         * Sets the metrics registry to record the compression metrics. By default, the metrics aren't recorded.
+         *
+         * @param metrics the metrics registry, cannot be {@code null}.
+         * @return the builder for further configuration, cannot be {@code null}.
+         */
+        @Nonnull
+        public Builder setMetricsRegistry(@Nonnull CacheBusMetricsRegistry metrics) {
+            this.metrics = Objects.requireNonNull(metrics, "metrics");
+            return this;
+        }
+
+        /**
+         * Builds the converter.
+         *
+         * @return cannot be {@code null}.
+         */
+        @Nonnull
+        public CacheEntryEventConverter build() {
+            if (this.delegate == null) {
+                throw new ConfigurationException("Delegate converter must be set");
+            }
+
+            if (this.compressionThreshold < 0 || this.cacheCompressionThresholds.values().stream().anyMatch(t -> t < 0)) {
+                throw new ConfigurationException("Compression threshold must be not negative");
+            }
+
+            return new CompressingCacheEntryEventConverter(this);
+        }
+    }
+
+    @NotThreadSafe
+    private static final class Scratch {
+
+        private byte[] array = new byte[BUF_SIZE];
+
+        private byte[] acquire(final int size) {
+            if (size <= this.array.length) {
+                return this.array;
+            }
+
+            // The buffer for the large data isn't retained
+            final byte[] result = new byte[size];
+            if (size <= MAX_RETAINED_BUF_SIZE) {
+                this.array = result;
+            }
+
+            return result;
+        }
+    }
+}
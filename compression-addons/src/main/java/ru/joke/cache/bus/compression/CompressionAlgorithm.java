@@ -0,0 +1,21 @@
+package ru.joke.cache.bus.compression;
+
+/**
+ * Compression algorithms supported by {@link CompressingCacheEntryEventConverter}.
+ *
+ * @author Alik
+ * @see CompressingCacheEntryEventConverter.Builder#setAlgorithm(CompressionAlgorithm)
+ */
+public enum CompressionAlgorithm {
+
+    /**
+     * <a href="https://github.com/lz4/lz4-java">LZ4</a>: the fastest compression and decompression with the moderate compression ratio.
+     */
+    LZ4,
+
+    /**
+     * <a href="https://github.com/luben/zstd-jni">Zstd</a>: the better compression ratio for the same CPU time,
+     * supports the dictionaries trained on the typical messages (see {@link ZstdDictionaries}).
+     */
+    ZSTD
+}
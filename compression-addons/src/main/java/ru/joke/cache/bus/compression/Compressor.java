@@ -0,0 +1,55 @@
+package ru.joke.cache.bus.compression;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Block compressor used by {@link CompressingCacheEntryEventConverter}: compresses and decompresses the part of the array
+ * into the part of the other array without the intermediate allocations.
+ *
+ * @author Alik
+ */
+@ThreadSafe
+interface Compressor {
+
+    /**
+     * Returns the one-byte marker of the compressed binary representation.
+     *
+     * @return the marker.
+     */
+    byte marker();
+
+    /**
+     * Returns the maximum size of the compressed representation of the data of the given size.
+     *
+     * @param length the size of the data.
+     * @return the maximum size of the compressed data.
+     */
+    int maxCompressedLength(@Nonnegative int length);
+
+    /**
+     * Compresses the data.
+     *
+     * @param src       the source array, cannot be {@code null}.
+     * @param srcOffset the offset of the data in the source array.
+     * @param srcLength the size of the data.
+     * @param dst       the destination array, cannot be {@code null}.
+     * @param dstOffset the offset of the compressed data in the destination array.
+     * @return the size of the compressed data.
+     */
+    int compress(@Nonnull byte[] src, int srcOffset, int srcLength, @Nonnull byte[] dst, int dstOffset);
+
+    /**
+     * Decompresses the data.
+     *
+     * @param src            the source array, cannot be {@code null}.
+     * @param srcOffset      the offset of the compressed data in the source array.
+     * @param srcLength      the size of the compressed data.
+     * @param dst            the destination array, cannot be {@code null}.
+     * @param dstOffset      the offset of the decompressed data in the destination array.
+     * @param originalLength the size of the decompressed data.
+     * @throws IllegalArgumentException if the compressed data is malformed.
+     */
+    void decompress(@Nonnull byte[] src, int srcOffset, int srcLength, @Nonnull byte[] dst, int dstOffset, int originalLength);
+}
@@ -0,0 +1,66 @@
+package ru.joke.cache.bus.compression;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4SafeDecompressor;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * LZ4 block compressor: the fastest available implementation of LZ4 (native or unsafe) is used.
+ * The received data is decompressed with the safe decompressor, so the malformed data can't cause the reading out of the bounds.
+ *
+ * @author Alik
+ */
+@ThreadSafe
+@Immutable
+final class Lz4Compressor implements Compressor {
+
+    static final byte MARKER = 1;
+
+    private final LZ4Compressor compressor;
+    private final LZ4SafeDecompressor decompressor;
+
+    Lz4Compressor() {
+        final LZ4Factory factory = LZ4Factory.fastestInstance();
+        this.compressor = factory.fastCompressor();
+        this.decompressor = factory.safeDecompressor();
+    }
+
+    @Override
+    public byte marker() {
+        return MARKER;
+    }
+
+    @Override
+    public int maxCompressedLength(int length) {
+        return this.compressor.maxCompressedLength(length);
+    }
+
+    @Override
+    public int compress(@Nonnull byte[] src, int srcOffset, int srcLength, @Nonnull byte[] dst, int dstOffset) {
+        return this.compressor.compress(src, srcOffset, srcLength, dst, dstOffset, dst.length - dstOffset);
+    }
+
+    @Override
+    public void decompress(@Nonnull byte[] src, int srcOffset, int srcLength, @Nonnull byte[] dst, int dstOffset, int originalLength) {
+        final int decompressedLength;
+        try {
+            decompressedLength = this.decompressor.decompress(src, srcOffset, srcLength, dst, dstOffset, originalLength);
+        } catch (LZ4Exception ex) {
+            throw new IllegalArgumentException("Malformed LZ4 compressed data", ex);
+        }
+
+        if (decompressedLength != originalLength) {
+            throw new IllegalArgumentException("Unexpected size of LZ4 decompressed data: " + decompressedLength + ", expected: " + originalLength);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Lz4Compressor{" + "compressor=" + compressor + '}';
+    }
+}
@@ -0,0 +1,92 @@
+package ru.joke.cache.bus.compression;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdDictCompress;
+import com.github.luben.zstd.ZstdDictDecompress;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Zstd block compressor with the optional dictionary. The data compressed with the dictionary has the other marker
+ * than the data compressed without it, so the receiving side without the dictionary rejects such data explicitly.
+ *
+ * @author Alik
+ * @see ZstdDictionaries
+ */
+@ThreadSafe
+@Immutable
+final class ZstdCompressor implements Compressor {
+
+    static final byte MARKER = 2;
+    static final byte DICTIONARY_MARKER = 3;
+
+    private final int level;
+    private final ZstdDictCompress compressionDictionary;
+    private final ZstdDictDecompress decompressionDictionary;
+
+    ZstdCompressor(final int level, @Nullable final byte[] dictionary) {
+        this.level = level;
+        this.compressionDictionary = dictionary == null ? null : new ZstdDictCompress(dictionary, level);
+        this.decompressionDictionary = dictionary == null ? null : new ZstdDictDecompress(dictionary);
+    }
+
+    @Override
+    public byte marker() {
+        return this.compressionDictionary == null ? MARKER : DICTIONARY_MARKER;
+    }
+
+    @Override
+    public int maxCompressedLength(int length) {
+        return (int) Zstd.compressBound(length);
+    }
+
+    @Override
+    public int compress(@Nonnull byte[] src, int srcOffset, int srcLength, @Nonnull byte[] dst, int dstOffset) {
+        final long result = this.compressionDictionary == null
+                ? Zstd.compressByteArray(dst, dstOffset, dst.length - dstOffset, src, srcOffset, srcLength, this.level)
+                : Zstd.compressFastDict(dst, dstOffset, src, srcOffset, srcLength, this.compressionDictionary);
+        if (Zstd.isError(result)) {
+            throw new IllegalStateException("Unable to compress data with Zstd: " + Zstd.getErrorName(result));
+        }
+
+        return (int) result;
+    }
+
+    @Override
+    public void decompress(@Nonnull byte[] src, int srcOffset, int srcLength, @Nonnull byte[] dst, int dstOffset, int originalLength) {
+        decompress(src, srcOffset, srcLength, dst, dstOffset, originalLength, false);
+    }
+
+    void decompress(
+            final byte[] src,
+            final int srcOffset,
+            final int srcLength,
+            final byte[] dst,
+            final int dstOffset,
+            final int originalLength,
+            final boolean useDictionary) {
+
+        if (useDictionary && this.decompressionDictionary == null) {
+            throw new IllegalArgumentException("Data is compressed with Zstd dictionary, but dictionary isn't configured");
+        }
+
+        final long result = useDictionary
+                ? Zstd.decompressFastDict(dst, dstOffset, src, srcOffset, srcLength, this.decompressionDictionary)
+                : Zstd.decompressByteArray(dst, dstOffset, originalLength, src, srcOffset, srcLength);
+        if (Zstd.isError(result)) {
+            throw new IllegalArgumentException("Malformed Zstd compressed data: " + Zstd.getErrorName(result));
+        }
+
+        if (result != originalLength) {
+            throw new IllegalArgumentException("Unexpected size of Zstd decompressed data: " + result + ", expected: " + originalLength);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ZstdCompressor{" + "level=" + level + ", dictionary=" + (compressionDictionary != null) + '}';
+    }
+}
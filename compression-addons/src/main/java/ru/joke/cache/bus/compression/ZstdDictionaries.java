@@ -0,0 +1,46 @@
+package ru.joke.cache.bus.compression;
+
+import com.github.luben.zstd.Zstd;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Utility methods for the Zstd dictionaries used by {@link CompressingCacheEntryEventConverter}.<br>
+ * The dictionary is trained on the sample of the typical messages (for example, the binary representations of the events
+ * produced by the delegate converter of the compressing converter) and improves the compression ratio of the small messages
+ * that have the common structure. The same dictionary must be configured on all servers of the logical cluster.
+ *
+ * @author Alik
+ * @see CompressingCacheEntryEventConverter.Builder#setZstdDictionary(byte[])
+ */
+public abstract class ZstdDictionaries {
+
+    /**
+     * Trains the Zstd dictionary on the sample of the messages.
+     *
+     * @param samples        the sample of the messages, cannot be {@code null} or empty.
+     * @param dictionarySize the maximum size of the dictionary in bytes, must be positive.
+     * @return the trained dictionary, cannot be {@code null}.
+     * @throws IllegalArgumentException if the dictionary can't be trained on the sample (for example, the sample is too small).
+     */
+    @Nonnull
+    public static byte[] train(@Nonnull Collection<byte[]> samples, @Nonnegative int dictionarySize) {
+        if (samples.isEmpty() || dictionarySize <= 0) {
+            throw new IllegalArgumentException("Samples must be not empty and dictionary size must be positive");
+        }
+
+        final byte[] dictionary = new byte[dictionarySize];
+        final long result = Zstd.trainFromBuffer(samples.toArray(new byte[0][]), dictionary);
+        if (Zstd.isError(result)) {
+            throw new IllegalArgumentException("Unable to train Zstd dictionary: " + Zstd.getErrorName(result));
+        }
+
+        return Arrays.copyOf(dictionary, (int) result);
+    }
+
+    private ZstdDictionaries() {
+    }
+}
@@ -0,0 +1,229 @@
+package ru.joke.cache.bus.compression;
+
+import org.junit.jupiter.api.Test;
+import ru.joke.cache.bus.core.CacheEntryEvent;
+import ru.joke.cache.bus.core.CacheEntryEventType;
+import ru.joke.cache.bus.core.configuration.ConfigurationException;
+import ru.joke.cache.bus.core.impl.ImmutableCacheEntryEvent;
+import ru.joke.cache.bus.core.metrics.CacheBusMetricsRegistry;
+import ru.joke.cache.bus.core.metrics.KnownMetrics;
+import ru.joke.cache.bus.core.testing.transport.BaseCacheEntryEventConverterTest;
+import ru.joke.cache.bus.core.transport.CacheEntryBatchFrame;
+import ru.joke.cache.bus.core.transport.CacheEntryEventConverter;
+import ru.joke.cache.bus.core.transport.CacheEntryEventHeader;
+import ru.joke.cache.bus.core.transport.LazyCacheEntryEvent;
+import ru.joke.cache.bus.core.transport.CacheEntryOutputMessage;
+import ru.joke.cache.bus.jdk.serialization.JdkCacheEntryEventConverter;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class CompressingCacheEntryEventConverterTest extends BaseCacheEntryEventConverterTest {
+
+    private static final String CACHE_NAME = "test";
+
+    @Test
+    public void testWhenEventIsSmallerThanThresholdThenEventIsNotCompressed() {
+        final CacheEntryEventConverter converter =
+                CompressingCacheEntryEventConverter.builder()
+                                                        .setDelegate(new JdkCacheEntryEventConverter())
+                                                        .setCompressionThreshold(1024)
+                                                        .setCompressionThreshold("large", 0)
+                                                   .build();
+
+        final CacheEntryEvent<String, String> event = composeEvent(CACHE_NAME, "value");
+        final byte[] data = converter.toBinary(event, true);
+
+        assertEquals(0, data[0], "Small event must not be compressed");
+        assertArrayEquals(new JdkCacheEntryEventConverter().toBinary(event, true), Arrays.copyOfRange(data, 1, data.length), "Event must be written by delegate as is");
+        assertEquals(event, converter.fromBinary(data), "Source and deserialized event must be equal");
+
+        final CacheEntryEvent<String, String> largeCacheEvent = composeEvent("large", "value".repeat(100));
+        final byte[] largeCacheData = converter.toBinary(largeCacheEvent, true);
+
+        assertNotEquals(0, largeCacheData[0], "Event of cache with zero threshold must be compressed");
+        assertEquals(largeCacheEvent, converter.fromBinary(largeCacheData), "Source and deserialized event must be equal");
+    }
+
+    @Test
+    public void testWhenEventsCompressedWithOtherAlgorithmThenEventsAreDecoded() {
+        final CacheEntryEventConverter lz4Converter = createConverter(CompressionAlgorithm.LZ4, null);
+        final CacheEntryEventConverter zstdConverter = createConverter(CompressionAlgorithm.ZSTD, null);
+
+        final CacheEntryEvent<String, String> event = composeEvent(CACHE_NAME, "value".repeat(500));
+
+        final byte[] lz4Data = lz4Converter.toBinary(event, true);
+        final byte[] zstdData = zstdConverter.toBinary(event, true);
+
+        assertNotEquals(lz4Data[0], zstdData[0], "Codec markers must be different");
+        assertTrue(zstdData.length < new JdkCacheEntryEventConverter().toBinary(event, true).length / 10, "Repetitive value must be compressed");
+        assertEquals(event, lz4Converter.fromBinary(zstdData), "Event compressed with other algorithm must be decoded");
+        assertEquals(event, zstdConverter.fromBinary(lz4Data), "Event compressed with other algorithm must be decoded");
+    }
+
+    @Test
+    public void testWhenZstdDictionaryUsedThenSmallEventsCompressedBetter() {
+        final List<byte[]> samples = new ArrayList<>();
+        final JdkCacheEntryEventConverter jdkConverter = new JdkCacheEntryEventConverter();
+        for (int i = 0; i < 2000; i++) {
+            samples.add(jdkConverter.toBinary(composeEvent(CACHE_NAME, "user-" + i + ";status=active;region=eu-" + (i % 7)), true));
+        }
+
+        final byte[] dictionary = ZstdDictionaries.train(samples, 4 * 1024);
+        final CacheEntryEventConverter dictionaryConverter = createConverter(CompressionAlgorithm.ZSTD, dictionary);
+        final CacheEntryEventConverter converter = createConverter(CompressionAlgorithm.ZSTD, null);
+
+        final CacheEntryEvent<String, String> event = composeEvent(CACHE_NAME, "user-100500;status=active;region=eu-3");
+        final byte[] dictionaryData = dictionaryConverter.toBinary(event, true);
+
+        assertTrue(dictionaryData.length < converter.toBinary(event, true).length, "Event must be compressed better with dictionary");
+        assertEquals(event, dictionaryConverter.fromBinary(dictionaryData), "Source and deserialized event must be equal");
+        assertThrows(IllegalArgumentException.class, () -> converter.fromBinary(dictionaryData), "Event compressed with dictionary must be rejected without dictionary");
+        assertThrows(IllegalArgumentException.class, () -> ZstdDictionaries.train(List.of(), 1024));
+    }
+
+    @Test
+    public void testWhenBatchFrameEncodedThenFrameCompressedAsWhole() {
+        final CacheEntryEventConverter converter = createConverter();
+        final JdkCacheEntryEventConverter jdkConverter = new JdkCacheEntryEventConverter();
+
+        final List<CacheEntryOutputMessage> messages = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            final CacheEntryEvent<String, String> event = composeEvent(CACHE_NAME, "value-" + i);
+            // The small events are not compressed one by one
+            final byte[] body = createConverter(CompressionAlgorithm.LZ4, null).toBinary(event, true);
+            assertEquals(0, body[0], "Small event must not be compressed");
+
+            messages.add(outputMessage(i, body));
+        }
+
+        final byte[] frame = CacheEntryBatchFrame.encode(messages);
+        final byte[] encodedFrame = converter.encodeBatchFrame(frame);
+
+        assertTrue(encodedFrame.length < frame.length / 2, "Frame of similar events must be compressed");
+        assertArrayEquals(frame, converter.decodeBatchFrame(encodedFrame), "Decoded frame must be equal to source frame");
+
+        final List<CacheEntryEvent<?, ?>> events = new ArrayList<>();
+        CacheEntryBatchFrame.split(converter.decodeBatchFrame(encodedFrame), (hash, body) -> events.add(converter.fromBinary(body)));
+        assertEquals(messages.size(), events.size(), "All events of frame must be decoded");
+        assertEquals(jdkConverter.fromBinary(Arrays.copyOfRange(messages.get(7).cacheEntryMessageBody(), 1, messages.get(7).cacheEntryMessageBody().length)), events.get(7), "Events of frame must be equal");
+
+        final byte[] smallFrame = CacheEntryBatchFrame.encode(messages.subList(0, 1));
+        final byte[] encodedSmallFrame = createConverter(CompressionAlgorithm.LZ4, null).encodeBatchFrame(smallFrame);
+        assertEquals(0, encodedSmallFrame[0], "Small frame must not be compressed");
+        assertArrayEquals(smallFrame, converter.decodeBatchFrame(encodedSmallFrame), "Decoded frame must be equal to source frame");
+    }
+
+    @Test
+    public void testWhenLargeEventOfBatchFrameConvertedThenOnlyFrameCompressed() {
+        final CacheEntryEventConverter converter = createConverter(CompressionAlgorithm.LZ4, null);
+        final CacheEntryEvent<String, String> event = composeEvent(CACHE_NAME, "value".repeat(500));
+
+        final byte[] body = converter.toBatchBinary(event, true);
+        assertEquals(0, body[0], "Event of frame must not be compressed");
+        assertNotEquals(0, converter.toBinary(event, true)[0], "Single event must be compressed");
+        assertEquals(event, converter.fromBinary(body), "Source and deserialized event must be equal");
+
+        final byte[] frame = CacheEntryBatchFrame.encode(List.of(outputMessage(1, body)));
+        final byte[] encodedFrame = converter.encodeBatchFrame(frame);
+        assertNotEquals(0, encodedFrame[0], "Frame must be compressed");
+
+        final List<CacheEntryEvent<?, ?>> events = new ArrayList<>();
+        CacheEntryBatchFrame.split(converter.decodeBatchFrame(encodedFrame), (hash, data) -> events.add(converter.fromBinary(data)));
+        assertEquals(List.of(event), events, "Event of frame must be decoded");
+    }
+
+    @Test
+    public void testWhenEventCompressedThenMetricsRecorded() {
+        final CacheBusMetricsRegistry metrics = mock(CacheBusMetricsRegistry.class);
+        final CacheEntryEventConverter converter =
+                CompressingCacheEntryEventConverter.builder()
+                                                        .setDelegate(new JdkCacheEntryEventConverter())
+                                                        .setCompressionThreshold(512)
+                                                        .setMetricsRegistry(metrics)
+                                                   .build();
+
+        converter.fromBinary(converter.toBinary(composeEvent(CACHE_NAME, "value".repeat(500)), true));
+        converter.toBinary(composeEvent(CACHE_NAME, "value"), true);
+
+        verify(metrics).putToSummary(eq(KnownMetrics.CONVERTER_COMPRESSION_RATIO), doubleThat(ratio -> ratio > 10));
+        verify(metrics).recordExecutionTime(eq(KnownMetrics.CONVERTER_COMPRESSION_TIME), anyLong(), eq(TimeUnit.NANOSECONDS));
+        verify(metrics).recordExecutionTime(eq(KnownMetrics.CONVERTER_DECOMPRESSION_TIME), anyLong(), eq(TimeUnit.NANOSECONDS));
+        verify(metrics).incrementCounter(KnownMetrics.CONVERTER_UNCOMPRESSED_MESSAGES_COUNT);
+    }
+
+    @Test
+    public void testWhenInvalidConfigurationOrDataThenException() {
+        assertThrows(ConfigurationException.class, () -> CompressingCacheEntryEventConverter.builder().build());
+        assertThrows(ConfigurationException.class, () -> CompressingCacheEntryEventConverter.builder().setDelegate(new JdkCacheEntryEventConverter()).setCompressionThreshold(-1).build());
+
+        final CacheEntryEventConverter converter = createConverter();
+        assertThrows(IllegalArgumentException.class, () -> converter.fromBinary(new byte[0]));
+        assertThrows(IllegalArgumentException.class, () -> converter.fromBinary(new byte[] { 9, 0, 0, 0, 1, 1 }));
+        assertThrows(IllegalArgumentException.class, () -> converter.fromBinary(new byte[] { 1, 0, 0, 0, 100, 1, 2, 3 }));
+        assertThrows(IllegalArgumentException.class, () -> converter.fromBinary(new byte[] { 2, -1, -1, -1, -1, 1 }));
+    }
+
+    @Test
+    @Override
+    public void testWhenEventDecodedIntoFlyweightThenBodyDecodedOnlyOnAccess() {
+        final CacheEntryEventConverter converter =
+                CompressingCacheEntryEventConverter.builder()
+                                                        .setDelegate(new JdkCacheEntryEventConverter())
+                                                        .setCompressionThreshold(Integer.MAX_VALUE)
+                                                   .build();
+        final CacheEntryEvent<String, String> event = composeEvent(CACHE_NAME, "value");
+
+        final byte[] data = converter.toBinary(event, true);
+        final CacheEntryEventHeader header = new CacheEntryEventHeader().read(data, 1, data.length - 1);
+
+        // The uncompressed event is decoded by the delegate in place, so the corrupted body must not affect the decoding of the header and the key
+        Arrays.fill(data, header.bodyOffset(), data.length, (byte) -1);
+
+        final LazyCacheEntryEvent<String, String> flyweight = new LazyCacheEntryEvent<>();
+        final CacheEntryEvent<String, String> decodedEvent = converter.fromBinary(data, flyweight);
+
+        assertEquals(event.cacheName(), decodedEvent.cacheName(), "Cache name must be equal");
+        assertEquals(event.eventTime(), decodedEvent.eventTime(), "Event time must be equal");
+        assertEquals(event.key(), decodedEvent.key(), "Cache key must be equal");
+        assertThrows(RuntimeException.class, decodedEvent::newValue);
+
+        flyweight.clear();
+    }
+
+    @Nonnull
+    @Override
+    protected CacheEntryEventConverter createConverter() {
+        return CompressingCacheEntryEventConverter.builder()
+                                                    .setDelegate(new JdkCacheEntryEventConverter())
+                                                    .setCompressionThreshold(0)
+                                                  .build();
+    }
+
+    private CacheEntryEventConverter createConverter(final CompressionAlgorithm algorithm, final byte[] dictionary) {
+        return CompressingCacheEntryEventConverter.builder()
+                                                    .setDelegate(new JdkCacheEntryEventConverter())
+                                                    .setAlgorithm(algorithm)
+                                                    .setCompressionThreshold(algorithm == CompressionAlgorithm.ZSTD ? 0 : 1024)
+                                                    .setZstdDictionary(dictionary)
+                                                  .build();
+    }
+
+    private static CacheEntryEvent<String, String> composeEvent(final String cacheName, final String value) {
+        return new ImmutableCacheEntryEvent<>("key", null, value, System.currentTimeMillis(), CacheEntryEventType.ADDED, cacheName);
+    }
+
+    private static CacheEntryOutputMessage outputMessage(final int hash, final byte[] body) {
+        final CacheEntryOutputMessage message = mock(CacheEntryOutputMessage.class);
+        when(message.messageHashKey()).thenReturn(hash);
+        when(message.cacheEntryMessageBody()).thenReturn(body);
+        return message;
+    }
+}
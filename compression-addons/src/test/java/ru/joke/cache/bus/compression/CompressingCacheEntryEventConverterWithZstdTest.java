@@ -0,0 +1,51 @@
+package ru.joke.cache.bus.compression;
+
+import org.junit.jupiter.api.Test;
+import ru.joke.cache.bus.core.CacheEntryEvent;
+import ru.joke.cache.bus.core.CacheEntryEventType;
+import ru.joke.cache.bus.core.impl.ImmutableCacheEntryEvent;
+import ru.joke.cache.bus.core.testing.transport.BaseCacheEntryEventConverterTest;
+import ru.joke.cache.bus.core.transport.CacheEntryEventConverter;
+import ru.joke.cache.bus.core.transport.LazyCacheEntryEvent;
+import ru.joke.cache.bus.jdk.serialization.JdkCacheEntryEventConverter;
+
+import javax.annotation.Nonnull;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+public class CompressingCacheEntryEventConverterWithZstdTest extends BaseCacheEntryEventConverterTest {
+
+    @Test
+    @Override
+    public void testWhenEventDecodedIntoFlyweightThenBodyDecodedOnlyOnAccess() {
+        final CacheEntryEventConverter converter = createConverter();
+        final CacheEntryEvent<String, String> event = new ImmutableCacheEntryEvent<>("key", "v1".repeat(100), "v2".repeat(100), System.currentTimeMillis(), CacheEntryEventType.UPDATED, "test");
+
+        final byte[] data = converter.toBinary(event, true);
+        assertNotEquals(0, data[0], "Event must be compressed");
+
+        // The compressed event is decompressed before the wrapping into the flyweight
+        final LazyCacheEntryEvent<String, String> flyweight = new LazyCacheEntryEvent<>();
+        final CacheEntryEvent<String, String> decodedEvent = converter.fromBinary(data, flyweight);
+
+        assertEquals(event.cacheName(), decodedEvent.cacheName(), "Cache name must be equal");
+        assertEquals(event.eventTime(), decodedEvent.eventTime(), "Event time must be equal");
+        assertEquals(event.key(), decodedEvent.key(), "Cache key must be equal");
+        assertEquals(event.oldValue(), decodedEvent.oldValue(), "Old value must be equal");
+        assertEquals(event.newValue(), decodedEvent.newValue(), "New value must be equal");
+
+        flyweight.clear();
+    }
+
+    @Nonnull
+    @Override
+    protected CacheEntryEventConverter createConverter() {
+        return CompressingCacheEntryEventConverter.builder()
+                                                    .setDelegate(new JdkCacheEntryEventConverter())
+                                                    .setAlgorithm(CompressionAlgorithm.ZSTD)
+                                                    .setZstdLevel(6)
+                                                    .setCompressionThreshold(0)
+                                                  .build();
+    }
+}
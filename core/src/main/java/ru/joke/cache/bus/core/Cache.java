@@ -116,6 +116,23 @@ public interface Cache<K extends Serializable, V extends Serializable> {
     @Nonnull
     Optional<V> computeIfAbsent(@Nonnull K key, @Nonnull Function<? super K, ? extends V> valueFunction);
 
+    /**
+     * Computes the new value of an element in the cache only if the element exists in the cache.
+     * The element is never added to the cache by this operation.
+     * The semantics of this operation are similar to the {@linkplain ConcurrentMap#computeIfPresent(Object, BiFunction)} method:
+     * if the function returns {@code null}, the element is removed from the cache.<br>
+     * The implementation of this operation should be thread-safe and take into account the possibility of
+     * concurrent modification of the element in the cache by another thread: the new value replaces only the value
+     * passed to the function.
+     *
+     * @param key           the key of the element in the cache; cannot {@code null}.
+     * @param valueFunction the function to compute the new value of the element from the existing value; cannot be {@code null}.
+     * @return the value of the element after the operation, wrapped in {@link Optional};
+     * empty if the element is absent or removed.
+     */
+    @Nonnull
+    Optional<V> computeIfPresent(@Nonnull K key, @Nonnull BiFunction<? super K, ? super V, ? extends V> valueFunction);
+
     /**
      * Registers a cache event listener.
      *
@@ -3,9 +3,12 @@ package ru.joke.cache.bus.core;
 import ru.joke.cache.bus.core.configuration.CacheBusConfiguration;
 import ru.joke.cache.bus.core.state.CacheBusState;
 import ru.joke.cache.bus.core.state.ComponentState;
+import ru.joke.cache.bus.core.transport.ByteBuffers;
 
 import javax.annotation.Nonnull;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.List;
 
 /**
  * The basic abstraction of the cache change bus that propagates events across servers.
@@ -20,7 +23,9 @@ import java.io.Serializable;
 public interface CacheBus {
 
     /**
-     * Sends events about changes in local cache items to other servers interested in the changes.
+     * Sends events about changes in local cache items to other servers interested in the changes.<br>
+     * The bus doesn't retain the event after the return from the method, so the caller can reuse the event object
+     * (see {@linkplain ru.joke.cache.bus.core.impl.MutableCacheEntryEvent}) for the next changes.
      *
      * @param event the event of changing a local cache item, cannot be {@code null}.
      * @param <K>   the type of the cache key
@@ -28,6 +33,23 @@ public interface CacheBus {
      */
     <K extends Serializable, V extends Serializable> void send(@Nonnull CacheEntryEvent<K, V> event);
 
+    /**
+     * Applies the element-level modification to the collection-valued element of the local cache and sends
+     * only the modification to other servers interested in the changes instead of the whole new value of the element.<br>
+     * The modification is applied only if the version of the value of the element is equal to the base version
+     * of the modification, the servers with the other version of the element remove it from their local caches.
+     *
+     * @param cacheName the name of the cache, cannot be {@code null}.
+     * @param key       the key of the element, cannot be {@code null}.
+     * @param delta     the modification of the element, cannot be {@code null}.
+     * @param <K>       the type of the cache key
+     * @return {@code true} if the modification applied, {@code false} if the element is absent in the local cache
+     * or the version of its value doesn't match the base version of the modification.
+     * @see CacheEntryDelta
+     * @see CacheEntryEventType#DELTA
+     */
+    <K extends Serializable> boolean applyDelta(@Nonnull String cacheName, @Nonnull K key, @Nonnull CacheEntryDelta delta);
+
     /**
      * Retrieves the serialized binary representation of the cache item change event from other servers
      * and applies it to the local cache.
@@ -36,6 +58,31 @@ public interface CacheBus {
      */
     void receive(@Nonnull byte[] binaryEventData);
 
+    /**
+     * Retrieves the serialized binary representation of the cache item change event from other servers in the buffer
+     * (the bytes between its position and limit) and applies it to the local cache.<br>
+     * The buffer is owned by the caller and can be reused after the return from the method, the bus doesn't retain it
+     * and doesn't change its position. By default, the bytes of the buffer are copied and passed to {@linkplain CacheBus#receive(byte[])},
+     * implementations may decode the event directly from the buffer.
+     *
+     * @param binaryEventData the buffer with the serialized binary representation of the remote cache item change event, cannot be {@code null}.
+     */
+    default void receive(@Nonnull ByteBuffer binaryEventData) {
+        receive(ByteBuffers.toByteArray(binaryEventData));
+    }
+
+    /**
+     * Retrieves the serialized binary representations of several cache item change events from other servers
+     * and applies them to the local cache in the order of the list.<br>
+     * By default, events are processed one by one via {@linkplain CacheBus#receive(byte[])}, implementations
+     * may process the whole list in one pass to reduce the per-event overhead.
+     *
+     * @param binaryEventsData the serialized binary representations of the remote cache item change events, cannot be {@code null}.
+     */
+    default void receiveAll(@Nonnull List<byte[]> binaryEventsData) {
+        binaryEventsData.forEach(this::receive);
+    }
+
     /**
      * Sets the cache bus configuration.
      *
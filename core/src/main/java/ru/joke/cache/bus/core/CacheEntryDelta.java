@@ -0,0 +1,256 @@
+package ru.joke.cache.bus.core;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * Element-level modification of the collection-valued element of the cache (the addition of the element to the collection,
+ * the removal of the element from the collection or of the key from the map, the put of the key to the map).<br>
+ * The modification is applied to the elements which values are stored as {@link VersionedValue} with the collection or the map
+ * as the wrapped value, and only if the version of the value is equal to the {@linkplain #baseVersion() base version}
+ * of the modification, i.e. the value is exactly the value the modification was made for. The modified value gets
+ * the {@linkplain #version() next version}.<br>
+ * The modification is applied to the local element via {@linkplain CacheBus#applyDelta(String, Serializable, CacheEntryDelta)}
+ * and only the modification is sent to other servers with the event of the type {@linkplain CacheEntryEventType#DELTA},
+ * so the cost of the change of the large collection doesn't depend on the size of the collection.
+ * The servers with the other version of the element (or with the unsupported value) fall back to the invalidation
+ * and remove the element from their local caches.<br>
+ * The modification never changes the value in the local cache in place: the collection or the map is copied
+ * ({@link TreeSet}/{@link TreeMap} with the same comparator for the sorted collections and maps,
+ * {@link LinkedHashSet}/{@link LinkedHashMap} for other sets and maps, {@link ArrayList} for other collections)
+ * and the copy is modified.
+ *
+ * @author Alik
+ * @see CacheEntryEventType#DELTA
+ * @see VersionedValue
+ */
+public sealed interface CacheEntryDelta extends Serializable permits CacheEntryDelta.Add, CacheEntryDelta.Remove, CacheEntryDelta.Put {
+
+    /**
+     * Creates the modification that adds the element to the collection.
+     *
+     * @param element     the element to add, can be {@code null} if the collection permits {@code null} elements.
+     * @param baseVersion the version of the value the modification is made for, cannot be negative.
+     * @return cannot be {@code null}.
+     */
+    @Nonnull
+    static Add add(@Nullable Serializable element, @Nonnegative long baseVersion) {
+        return new Add(element, baseVersion);
+    }
+
+    /**
+     * Creates the modification that removes the element from the collection or the key from the map.
+     *
+     * @param elementOrKey the element of the collection or the key of the map to remove, can be {@code null}.
+     * @param baseVersion  the version of the value the modification is made for, cannot be negative.
+     * @return cannot be {@code null}.
+     */
+    @Nonnull
+    static Remove remove(@Nullable Serializable elementOrKey, @Nonnegative long baseVersion) {
+        return new Remove(elementOrKey, baseVersion);
+    }
+
+    /**
+     * Creates the modification that puts the value with the key to the map.
+     *
+     * @param key         the key of the map, can be {@code null} if the map permits {@code null} keys.
+     * @param value       the value of the key, can be {@code null} if the map permits {@code null} values.
+     * @param baseVersion the version of the value the modification is made for, cannot be negative.
+     * @return cannot be {@code null}.
+     */
+    @Nonnull
+    static Put put(@Nullable Serializable key, @Nullable Serializable value, @Nonnegative long baseVersion) {
+        return new Put(key, value, baseVersion);
+    }
+
+    /**
+     * Returns the version of the value the modification is made for.
+     *
+     * @return the base version, cannot be negative.
+     */
+    @Nonnegative
+    long baseVersion();
+
+    /**
+     * Returns the version of the value after the modification.
+     *
+     * @return the version of the modified value, cannot be negative.
+     */
+    @Nonnegative
+    default long version() {
+        return baseVersion() + 1;
+    }
+
+    /**
+     * Applies the modification to the copy of the collection or the map.
+     *
+     * @param value the collection or the map, cannot be {@code null}.
+     * @return the modified copy of the collection or the map, cannot be {@code null}.
+     * @throws IllegalArgumentException if the modification can't be applied to the value of this type
+     */
+    @Nonnull
+    Serializable apply(@Nonnull Serializable value);
+
+    /**
+     * Applies the modification to the element of the cache through {@linkplain Cache#computeIfPresent}:
+     * the modified value replaces the value in the cache only if the element is still present in the cache
+     * and the version of its value is still equal to the base version of the modification at the moment of the replacement.
+     *
+     * @param cache the cache, cannot be {@code null}.
+     * @param key   the key of the element, cannot be {@code null}.
+     * @param <K>   the type of the cache key
+     * @param <V>   the type of the cache value
+     * @return {@code true} if the modification applied, {@code false} if the element is absent in the cache
+     * or the version of its value doesn't match the base version of the modification.
+     * @throws IllegalArgumentException if the value of the element isn't the {@link VersionedValue} with the collection or the map
+     */
+    default <K extends Serializable, V extends Serializable> boolean applyTo(@Nonnull Cache<K, V> cache, @Nonnull K key) {
+        final V localValue = cache.get(key).orElse(null);
+        if (localValue == null) {
+            return false;
+        }
+
+        if (!(localValue instanceof VersionedValue<?> versionedValue)) {
+            throw new IllegalArgumentException("Modification can be applied only to the value of type " + VersionedValue.class.getName() + ": " + localValue.getClass());
+        }
+
+        if (versionedValue.version() != baseVersion()) {
+            return false;
+        }
+
+        @SuppressWarnings("unchecked")
+        final V modifiedValue = (V) new VersionedValue<>(apply(versionedValue.value()), version());
+
+        // The value could be modified or removed concurrently after the reading, so the version is checked again
+        // and the absent element is never added
+        return cache.computeIfPresent(
+                        key,
+                        (k, currentValue) -> currentValue instanceof Versioned versioned && versioned.version() == baseVersion()
+                                ? modifiedValue
+                                : currentValue
+                    )
+                    .filter(modifiedValue::equals)
+                    .isPresent();
+    }
+
+    /**
+     * Addition of the element to the collection.
+     *
+     * @param element     the element to add, can be {@code null}.
+     * @param baseVersion the version of the value the modification is made for, cannot be negative.
+     */
+    @ThreadSafe
+    @Immutable
+    record Add(@Nullable Serializable element, @Nonnegative long baseVersion) implements CacheEntryDelta {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        public Add {
+            checkBaseVersion(baseVersion);
+        }
+
+        @Nonnull
+        @Override
+        public Serializable apply(@Nonnull Serializable value) {
+            final Collection<Object> result = copyOfCollection(value);
+            result.add(this.element);
+            return (Serializable) result;
+        }
+    }
+
+    /**
+     * Removal of the element from the collection or of the key from the map.
+     *
+     * @param elementOrKey the element or the key to remove, can be {@code null}.
+     * @param baseVersion  the version of the value the modification is made for, cannot be negative.
+     */
+    @ThreadSafe
+    @Immutable
+    record Remove(@Nullable Serializable elementOrKey, @Nonnegative long baseVersion) implements CacheEntryDelta {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        public Remove {
+            checkBaseVersion(baseVersion);
+        }
+
+        @Nonnull
+        @Override
+        public Serializable apply(@Nonnull Serializable value) {
+            if (value instanceof Map<?, ?>) {
+                final Map<Object, Object> result = copyOfMap(value);
+                result.remove(this.elementOrKey);
+                return (Serializable) result;
+            }
+
+            final Collection<Object> result = copyOfCollection(value);
+            result.remove(this.elementOrKey);
+            return (Serializable) result;
+        }
+    }
+
+    /**
+     * Put of the value with the key to the map.
+     *
+     * @param key         the key of the map, can be {@code null}.
+     * @param value       the value of the key, can be {@code null}.
+     * @param baseVersion the version of the value the modification is made for, cannot be negative.
+     */
+    @ThreadSafe
+    @Immutable
+    record Put(@Nullable Serializable key, @Nullable Serializable value, @Nonnegative long baseVersion) implements CacheEntryDelta {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        public Put {
+            checkBaseVersion(baseVersion);
+        }
+
+        @Nonnull
+        @Override
+        public Serializable apply(@Nonnull Serializable map) {
+            final Map<Object, Object> result = copyOfMap(map);
+            result.put(this.key, this.value);
+            return (Serializable) result;
+        }
+    }
+
+    private static void checkBaseVersion(final long baseVersion) {
+        if (baseVersion < 0) {
+            throw new IllegalArgumentException("baseVersion cannot be negative");
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Collection<Object> copyOfCollection(final Serializable value) {
+        if (value instanceof SortedSet<?> set) {
+            return new TreeSet<>((SortedSet<Object>) set);
+        } else if (value instanceof Set<?> set) {
+            return new LinkedHashSet<>(set);
+        } else if (value instanceof Collection<?> collection) {
+            return new ArrayList<>(collection);
+        }
+
+        throw new IllegalArgumentException("Modification can be applied only to the collection: " + value.getClass());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<Object, Object> copyOfMap(final Serializable value) {
+        if (value instanceof SortedMap<?, ?> map) {
+            return new TreeMap<>((SortedMap<Object, Object>) map);
+        } else if (value instanceof Map<?, ?> map) {
+            return new LinkedHashMap<>(map);
+        }
+
+        throw new IllegalArgumentException("Modification can be applied only to the map: " + value.getClass());
+    }
+}
@@ -1,5 +1,8 @@
 package ru.joke.cache.bus.core;
 
+import ru.joke.cache.bus.core.transport.ValueCodecRegistry;
+import ru.joke.cache.bus.core.transport.ValueFingerprint;
+
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.io.Serializable;
@@ -101,29 +104,94 @@ public interface CacheEntryEvent<K extends Serializable, V extends Serializable>
      * In normal situations, this should be a rare scenario.</li>
      * <li>If the event is a delete or expiration event (i.e., the new value is absent general),
      * we remove the item from the current local cache.</li>
+     * <li>If both the value in the local cache and the new value from the event are {@linkplain Versioned versioned},
+     * the versions are compared instead of the values: the value with the greater version is kept in the cache;
+     * if the versions are equal, the local value is kept when it matches the new value, otherwise there is a conflict and the item is removed.</li>
+     * <li>If the event is an element-level modification event ({@linkplain CacheEntryEventType#DELTA}), the {@linkplain CacheEntryDelta modification}
+     * from the event is applied to the value in the local cache only if the version of the local value is equal to the base version
+     * of the modification; otherwise we remove the item from the local cache as the invalidation cache does.</li>
      * <ul>
      *
      * @param cache the replicated cache, cannot be {@code null}.
      */
     default void applyToReplicatedCache(@Nonnull Cache<K, V> cache) {
+        applyToReplicatedCache(cache, ValueCodecRegistry.createDefault());
+    }
+
+    /**
+     * Applies the cache change event to the replicated cache as {@linkplain #applyToReplicatedCache(Cache)}.<br>
+     * If the event carries the {@linkplain ValueFingerprint fingerprint} of the old value instead of the old value
+     * (see {@linkplain ru.joke.cache.bus.core.configuration.CacheConfiguration#useOldValueFingerprints()}),
+     * the fingerprint is compared with the fingerprint of the value in the local cache computed with the registry of the codecs.
+     *
+     * @param cache                the replicated cache, cannot be {@code null}.
+     * @param fingerprintsRegistry the registry of the codecs used to compute the fingerprints of the local values, cannot be {@code null}.
+     */
+    default void applyToReplicatedCache(@Nonnull Cache<K, V> cache, @Nonnull ValueCodecRegistry fingerprintsRegistry) {
         final V newVal = newValue();
-        if (newVal == null) {
+        if (eventType() == CacheEntryEventType.DELTA) {
+            processDelta(cache, newVal);
+        } else if (newVal == null) {
             processEviction(cache);
         } else {
-            final V oldValueFromEvent = oldValue();
+            // The old value may be replaced by its fingerprint on the sending side
+            final Serializable oldValueFromEvent = oldValue();
             cache.merge(
                     key(),
                     newVal,
-                    (oldLocalValue, newValueFromEvent) ->
-                            newValueFromEvent.equals(oldLocalValue)
-                                    ? oldLocalValue
-                                    : oldLocalValue.equals(oldValueFromEvent)
-                                        ? newValueFromEvent
-                                        : null
+                    (oldLocalValue, newValueFromEvent) -> mergeWithLocalValue(oldLocalValue, newValueFromEvent, oldValueFromEvent, fingerprintsRegistry)
             );
         }
     }
 
+    /**
+     * Returns the version of the new value of the element if the value is {@linkplain Versioned versioned}.
+     *
+     * For the element-level modification events the version of the value after the modification is returned.
+     *
+     * @return the version of the new value or {@linkplain Versioned#NO_VERSION} if the new value is absent or isn't versioned.
+     * @see Versioned
+     * @see CacheEntryDelta#version()
+     */
+    default long version() {
+        final V newVal = newValue();
+        return newVal instanceof Versioned versioned
+                ? versioned.version()
+                : newVal instanceof CacheEntryDelta delta ? delta.version() : Versioned.NO_VERSION;
+    }
+
+    private void processDelta(final Cache<K, V> cache, final V delta) {
+        // The modification is carried by the new value of the event
+        if (!(delta instanceof CacheEntryDelta entryDelta) || !entryDelta.applyTo(cache, key())) {
+            processEviction(cache);
+        }
+    }
+
+    private V mergeWithLocalValue(
+            final V oldLocalValue,
+            final V newValueFromEvent,
+            final Serializable oldValueFromEvent,
+            final ValueCodecRegistry fingerprintsRegistry) {
+
+        // The versions are compared instead of the values, the equal versions mean the same modification or the conflict
+        if (newValueFromEvent instanceof Versioned newVersioned && oldLocalValue instanceof Versioned localVersioned) {
+            final int versionComparison = Long.compare(newVersioned.version(), localVersioned.version());
+            return versionComparison > 0
+                    ? newValueFromEvent
+                    : versionComparison < 0 || newValueFromEvent.equals(oldLocalValue)
+                        ? oldLocalValue
+                        : null;
+        }
+
+        return newValueFromEvent.equals(oldLocalValue)
+                ? oldLocalValue
+                : oldValueFromEvent instanceof ValueFingerprint fingerprint
+                    ? fingerprint.matches(oldLocalValue, fingerprintsRegistry) ? newValueFromEvent : null
+                    : oldLocalValue.equals(oldValueFromEvent)
+                        ? newValueFromEvent
+                        : null;
+    }
+
     private void processEviction(@Nonnull Cache<K, V> cache) {
         if (ALL_ENTRIES_KEY.equals(key())) {
             cache.clear();
@@ -25,4 +25,11 @@ public interface CacheEntryEventTimestampStore {
      * @see CacheConfiguration#useTimestampBasedComparison()
      */
     boolean save(@Nonnull CacheEntryEvent<?, ?> event);
+
+    /**
+     * Releases the resources of the storage (for example, stops the background expiration of timestamps).
+     * The storage must not be used after closure.
+     */
+    default void close() {
+    }
 }
@@ -33,7 +33,13 @@ public enum CacheEntryEventType {
     /**
      * Modification of an existing cache element
      */
-    UPDATED(4);
+    UPDATED(4),
+
+    /**
+     * Element-level modification of the collection-valued cache element,
+     * the event carries only the modification ({@link CacheEntryDelta}) instead of the new value of the element
+     */
+    DELTA(5);
 
     private static final Map<Integer, CacheEntryEventType> eventsById =
             Arrays.stream(values())
@@ -1,9 +1,12 @@
 package ru.joke.cache.bus.core;
 
 import ru.joke.cache.bus.core.state.ComponentState;
+import ru.joke.cache.bus.core.transport.ByteBuffers;
+import ru.joke.cache.bus.core.transport.CacheEntryBatchFrame;
 
 import javax.annotation.Nonnull;
 import java.io.Closeable;
+import java.nio.ByteBuffer;
 
 /**
  * The consumer of cache element change messages from other servers,
@@ -22,6 +25,46 @@ public interface CacheEventMessageConsumer extends Closeable {
      */
     void accept(int messageHash, @Nonnull byte[] messageBody);
 
+    /**
+     * Consumes the message hash key and the message body in the buffer (the bytes between its position and limit)
+     * and applies the change to the local cache.<br>
+     * The buffer is owned by the channel and can be reused by it after the return from the method, so the consumer
+     * must not retain the buffer; the position of the buffer isn't changed. By default, the bytes of the buffer are copied
+     * and passed to {@linkplain CacheEventMessageConsumer#accept(int, byte[])}, the consumers that process the message
+     * in the calling thread override this method to decode the message directly from the buffer.
+     *
+     * @param messageHash the hash key of the message
+     * @param messageBody the buffer with the message body in binary format, cannot be {@code null}.
+     */
+    default void accept(int messageHash, @Nonnull ByteBuffer messageBody) {
+        accept(messageHash, ByteBuffers.toByteArray(messageBody));
+    }
+
+    /**
+     * Consumes the multi-event frame received from the channel and applies the changes of all its events to the local cache.<br>
+     * By default, the frame is split and each message is passed to {@linkplain CacheEventMessageConsumer#accept(int, byte[])};
+     * the frames encoded by the converter (see {@linkplain ru.joke.cache.bus.core.transport.CacheEntryEventConverter#encodeBatchFrame(byte[])})
+     * are decoded only by the consumers of the bus that know the converter.
+     *
+     * @param batchMessageBody the multi-event frame in binary format, cannot be {@code null}.
+     * @see CacheEntryBatchFrame
+     */
+    default void acceptBatch(@Nonnull byte[] batchMessageBody) {
+        CacheEntryBatchFrame.split(batchMessageBody, this::accept);
+    }
+
+    /**
+     * Consumes the multi-event frame in the buffer (the bytes between its position and limit) received from the channel
+     * and applies the changes of all its events to the local cache. The buffer must not be retained by the consumer.<br>
+     * By default, the bytes of the buffer are copied and passed to {@linkplain CacheEventMessageConsumer#acceptBatch(byte[])}.
+     *
+     * @param batchMessageBody the buffer with the multi-event frame in binary format, cannot be {@code null}.
+     * @see CacheEntryBatchFrame
+     */
+    default void acceptBatch(@Nonnull ByteBuffer batchMessageBody) {
+        acceptBatch(ByteBuffers.toByteArray(batchMessageBody));
+    }
+
     /**
      * Returns information about the state of the consumer of incoming messages from other servers.
      *
@@ -0,0 +1,33 @@
+package ru.joke.cache.bus.core;
+
+/**
+ * Cache value with the version of its modification.<br>
+ * If the values of the replicated cache implement this interface, the changes from other servers are merged
+ * with the local values by the comparison of the versions instead of the comparison of the values
+ * (see {@linkplain CacheEntryEvent#applyToReplicatedCache(Cache)}): the value with the greater version wins,
+ * so the conflict resolution doesn't depend on the cost of {@code equals} of the values and is deterministic
+ * when the equal values are written several times. In this case the events don't carry the old values of the elements.<br>
+ * The version must grow monotonically with each modification of the element and must be unique for the modifications
+ * of the element on the different servers (for example, the hybrid timestamp with the identifier of the server in the low bits);
+ * the concurrent modifications with the same version are detected as the conflict and the element is evicted
+ * if the values are not equal.<br>
+ * The values that can't implement this interface can be wrapped into {@link VersionedValue}.
+ *
+ * @author Alik
+ * @see VersionedValue
+ * @see CacheEntryEvent#version()
+ */
+public interface Versioned {
+
+    /**
+     * Version which denotes the absence of the version of the value.
+     */
+    long NO_VERSION = -1;
+
+    /**
+     * Returns the version of the value.
+     *
+     * @return the version of the value, cannot be negative.
+     */
+    long version();
+}
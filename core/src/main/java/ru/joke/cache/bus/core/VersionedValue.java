@@ -0,0 +1,37 @@
+package ru.joke.cache.bus.core;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Wrapper of the cache value which stores the version of the value alongside the value, so the cache adapters
+ * can store the versions of the values without the changes of the value classes.<br>
+ * For the compact serialization the wrapper can be registered as the record
+ * ({@code ValueCodecRegistry.Builder#registerRecord(int, Class)}).
+ *
+ * @param value   the value, cannot be {@code null}.
+ * @param version the version of the value, cannot be negative.
+ * @param <V>     the type of the value
+ * @author Alik
+ * @see Versioned
+ */
+@ThreadSafe
+@Immutable
+public record VersionedValue<V extends Serializable>(@Nonnull V value, @Nonnegative long version) implements Versioned, Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public VersionedValue {
+        Objects.requireNonNull(value, "value");
+
+        if (version < 0) {
+            throw new IllegalArgumentException("version cannot be negative");
+        }
+    }
+}
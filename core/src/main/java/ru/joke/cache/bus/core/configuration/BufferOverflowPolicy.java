@@ -0,0 +1,48 @@
+package ru.joke.cache.bus.core.configuration;
+
+import ru.joke.cache.bus.core.CacheEntryEvent;
+
+/**
+ * Policy of handling a local cache event when the buffer of the asynchronous sending thread is full,
+ * i.e. when the channel (or the broker) cannot keep up with the rate of changes in caches.<br>
+ * The policy is applied in the thread that modifies the cache (the application thread), so all policies except
+ * {@linkplain BufferOverflowPolicy#BLOCK} guarantee that the application thread is never blocked indefinitely by a slow broker.
+ *
+ * @author Alik
+ * @see CacheBusTransportConfiguration#bufferOverflowPolicy()
+ * @see CacheConfiguration#bufferOverflowPolicy()
+ */
+public enum BufferOverflowPolicy {
+
+    /**
+     * The application thread blocks until there is free space in the buffer. Used by default.
+     */
+    BLOCK,
+
+    /**
+     * The application thread blocks until there is free space in the buffer, but no longer than
+     * {@linkplain CacheBusTransportConfiguration#bufferOfferTimeoutMs()}; if the timeout elapses, the event is dropped
+     * and escalated as with {@linkplain BufferOverflowPolicy#DROP_AND_CLEAR_CACHE}.
+     */
+    BLOCK_WITH_TIMEOUT,
+
+    /**
+     * The event is dropped immediately and the event for all entries of the cache ({@linkplain CacheEntryEvent#ALL_ENTRIES_KEY})
+     * is sent instead of it, so other servers clear the whole cache. Drops in one cache are coalesced: one clearing
+     * event is sent after all events queued before the drop, regardless of the count of events dropped in the meantime.
+     */
+    DROP_AND_CLEAR_CACHE,
+
+    /**
+     * The event is sent to the channel synchronously in the application thread. The thread is not blocked by the buffer,
+     * but it waits for the channel; the event can overtake the events with the same key that are still in the buffer.
+     */
+    SYNC_SEND,
+
+    /**
+     * The event is put into the overflow queue of the sending thread, which is drained after the buffer;
+     * once the overflow queue reaches {@linkplain CacheBusTransportConfiguration#overflowQueueCapacity()}, the event is dropped
+     * and escalated as with {@linkplain BufferOverflowPolicy#DROP_AND_CLEAR_CACHE}.
+     */
+    SPILL_TO_OVERFLOW_QUEUE
+}
@@ -0,0 +1,37 @@
+package ru.joke.cache.bus.core.configuration;
+
+/**
+ * Strategy of waiting used by the internal ring buffers of the cache bus when a thread has to wait
+ * for data to appear in the buffer (a reading thread) or for free space in the buffer (a writing thread).<br>
+ * The strategy defines the trade-off between the latency of the handoff between threads and CPU consumption.
+ *
+ * @author Alik
+ * @see CacheBusTransportConfiguration#bufferWaitStrategy()
+ */
+public enum BufferWaitStrategy {
+
+    /**
+     * The waiting thread spins in a loop without releasing the CPU core.
+     * Provides the lowest latency, but occupies a CPU core completely for each waiting thread,
+     * so it should be used only if the count of sending and processing threads is smaller than the count of available cores.
+     */
+    BUSY_SPIN,
+
+    /**
+     * The waiting thread spins in a loop and yields the CPU to other threads on each iteration.
+     * Provides low latency with slightly lower CPU consumption than {@linkplain BufferWaitStrategy#BUSY_SPIN}.
+     */
+    YIELD,
+
+    /**
+     * The waiting thread spins for a short time, then yields, and then parks with an exponentially growing
+     * timeout (up to {@code 1 ms}). Provides a balance between latency and CPU consumption.
+     */
+    PARK_WITH_BACKOFF,
+
+    /**
+     * The waiting thread blocks until it is signaled by the counterpart thread. Provides the lowest CPU consumption
+     * at the cost of the highest latency of the handoff. Used by default.
+     */
+    BLOCKING
+}
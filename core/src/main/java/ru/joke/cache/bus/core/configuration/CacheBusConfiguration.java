@@ -2,7 +2,10 @@ package ru.joke.cache.bus.core.configuration;
 
 import ru.joke.cache.bus.core.metrics.CacheBusMetricsRegistry;
 
+import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.nio.file.Path;
 
 /**
  * Configuration of cache bus.
@@ -49,4 +52,76 @@ public interface CacheBusConfiguration {
      * @see CacheBusMetricsRegistry
      */
     CacheBusMetricsRegistry metricsRegistry();
+
+    /**
+     * Returns the configuration of the compact storage of modification timestamps of cache elements
+     * used for caches with timestamp based comparison ({@linkplain CacheConfiguration#useTimestampBasedComparison()}).<br>
+     * If the configuration is not specified, the storage based on the associative array
+     * with the strong references to the keys of the cache elements is used.
+     *
+     * @return configuration of the compact timestamp storage, can be {@code null}.
+     * @see TimestampStoreConfiguration
+     */
+    @Nullable
+    TimestampStoreConfiguration timestampStoreConfiguration();
+
+    /**
+     * Configuration of the compact storage of modification timestamps of cache elements.<br>
+     * The compact storage keeps only the 64-bit fingerprints of the keys of the cache elements
+     * instead of the keys themselves and the primitive timestamps in the striped open-addressing tables,
+     * so the memory consumed per cache element is fixed ({@code 16} bytes per slot of the table).
+     *
+     * @author Alik
+     */
+    interface TimestampStoreConfiguration {
+
+        /**
+         * Returns whether the tables of the storage should be allocated in off-heap memory.
+         *
+         * @return {@code true} if the tables should be allocated in off-heap memory, {@code false} if in the heap.
+         */
+        boolean useOffHeapMemory();
+
+        /**
+         * Returns the maximum amount of memory in bytes that can be allocated for the tables of all caches.
+         * The limit is divided equally between the stripes of the tables of all caches. When the stripe is full
+         * (its load factor reaches {@code 0.75}), the expired timestamps are removed from the whole stripe first;
+         * if the stripe is still more than half-full and it can't be doubled within the limit, the timestamps
+         * of the whole stripe older than the bound estimated by the sample of the timestamps of the stripe
+         * are evicted until the stripe is half-full.
+         *
+         * @return the maximum amount of memory in bytes.
+         */
+        @Nonnegative
+        long maxMemoryBytes();
+
+        /**
+         * Returns the number of independently locked stripes of the table of each cache.
+         *
+         * @return the number of stripes, the power of two.
+         */
+        @Nonnegative
+        int concurrencyLevel();
+
+        /**
+         * Returns the directory of the snapshot of the storage. If the directory is specified, the timestamps
+         * are periodically saved to the snapshot file in this directory and are used after the restart of the bus
+         * to reject the replayed or late events; the snapshot is loaded lazily, as the keys are accessed.
+         *
+         * @return the directory of the snapshot, can be {@code null}.
+         * @see #snapshotIntervalMs()
+         */
+        @Nullable
+        Path snapshotDirectory();
+
+        /**
+         * Returns the interval in milliseconds between the snapshots of the storage.
+         * Used only if the directory of the snapshot is specified.
+         *
+         * @return the interval in milliseconds between the snapshots.
+         * @see #snapshotDirectory()
+         */
+        @Nonnegative
+        long snapshotIntervalMs();
+    }
 }
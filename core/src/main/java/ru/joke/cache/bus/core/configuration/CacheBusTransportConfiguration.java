@@ -2,10 +2,14 @@ package ru.joke.cache.bus.core.configuration;
 
 import ru.joke.cache.bus.core.transport.CacheBusMessageChannel;
 import ru.joke.cache.bus.core.transport.CacheEntryEventConverter;
+import ru.joke.cache.bus.core.transport.ValueCodecRegistry;
 import ru.joke.cache.bus.core.CacheEntryEvent;
 
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.nio.file.Path;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
 
 /**
@@ -29,6 +33,31 @@ public interface CacheBusTransportConfiguration {
     @Nonnull
     CacheEntryEventConverter converter();
 
+    /**
+     * Returns the additional converters by the codec identifiers, which are used for the events of the caches
+     * with the configured {@linkplain CacheConfiguration#codecId() codec identifier} instead of the default {@linkplain #converter() converter}.<br>
+     * If the additional converters are registered, each event is sent with the one-byte codec identifier of its converter
+     * (the identifier {@code 0} denotes the default converter), and the receiving bus decodes the event with the converter
+     * registered with this identifier. Therefore, all servers of the logical cluster must register the same converters
+     * with the same identifiers. The batch frames are always encoded by the default converter.
+     *
+     * @return the additional converters by the codec identifiers in range {@code [1, 255]}, cannot be {@code null}.
+     * @see CacheConfiguration#codecId()
+     */
+    @Nonnull
+    Map<Integer, CacheEntryEventConverter> codecConverters();
+
+    /**
+     * Returns the registry of the value codecs used by the bus to compute the fingerprints of the old values
+     * of the elements of the replicated caches (see {@linkplain CacheConfiguration#useOldValueFingerprints()}).
+     * The registries must contain the same codecs on all servers of the logical cluster.
+     *
+     * @return the registry of the value codecs, cannot be {@code null}.
+     * @see ru.joke.cache.bus.core.transport.ValueFingerprint
+     */
+    @Nonnull
+    ValueCodecRegistry valueCodecRegistry();
+
     /**
      * Returns the message channel used for interaction with other servers.
      *
@@ -52,6 +81,7 @@ public interface CacheBusTransportConfiguration {
      * to local caches) from other servers is performed.
      *
      * @return cannot be {@code null}.
+     * @see #useVirtualThreads()
      */
     @Nonnull
     ExecutorService processingPool();
@@ -89,6 +119,21 @@ public interface CacheBusTransportConfiguration {
         return maxConcurrentProcessingThreads() == 0;
     }
 
+    /**
+     * Returns whether the messages received from the channel should be decoded into the reusable per-thread flyweights
+     * of the events instead of the new event objects.<br>
+     * In this mode the key and the values of the event are deserialized only when they are needed for applying the event
+     * to the local caches (for example, the values of the outdated events and of the invalidation events are not deserialized),
+     * and the binary representation of the message is released right after the event is applied. This significantly reduces
+     * the garbage produced on the receiving servers, if the converter supports the partial decoding
+     * (see {@linkplain CacheEntryEventConverter#fromBinary(byte[], ru.joke.cache.bus.core.transport.LazyCacheEntryEvent)});
+     * otherwise, the events are fully deserialized as usual.
+     *
+     * @return {@code true} if the flyweights of the events should be used for the received messages, {@code false} otherwise.
+     * @see ru.joke.cache.bus.core.transport.LazyCacheEntryEvent
+     */
+    boolean useFlyweightReceiving();
+
     /**
      * Returns whether asynchronous message sending to the channel should be used.
      * If enabled, message sending to the channel will be performed in a separate thread,
@@ -139,4 +184,179 @@ public interface CacheBusTransportConfiguration {
      */
     @Nonnegative
     int maxAsyncSendingThreadBufferCapacity();
+
+    /**
+     * Returns the maximum number of events that a single asynchronous sending thread can pack into one multi-event frame
+     * before sending it to the channel, if {@code useAsyncSending() == true}.<br>
+     * Sending events in batches significantly reduces the number of round trips to the broker and the overhead of
+     * the message headers at high event rates, at the cost of a small delay of the events.
+     *
+     * @return the maximum count of events in a batch, cannot be negative; if the value is {@code 0} or {@code 1},
+     * then batching is not used and every event is sent as a separate message.
+     * @see #useBatchSending()
+     * @see CacheBusMessageChannel#sendBatch(ru.joke.cache.bus.core.transport.CacheEntryOutputBatchMessage)
+     */
+    @Nonnegative
+    int maxAsyncSendingBatchSize();
+
+    /**
+     * Returns the maximum time in milliseconds that the asynchronous sending thread waits for new events
+     * to fill the batch before sending it to the channel. It is used only if {@code useBatchSending() == true}.
+     *
+     * @return the linger time in milliseconds, cannot be negative; if the value is {@code 0},
+     * then only the events already available in the buffer are included into the batch.
+     */
+    @Nonnegative
+    long asyncSendingBatchLingerTimeMs();
+
+    /**
+     * Returns whether events should be sent to the channel in batches (multi-event frames).
+     *
+     * @return {@code true} if batch sending should be used, otherwise {@code false}.
+     * @see #maxAsyncSendingBatchSize()
+     */
+    default boolean useBatchSending() {
+        return useAsyncSending() && maxAsyncSendingBatchSize() > 1;
+    }
+
+    /**
+     * Returns the coalescing window in milliseconds of the asynchronous sending, if {@code useAsyncSending() == true}.<br>
+     * Within this window the sending thread collapses pending events with the same key in one cache into a single event:
+     * for invalidation caches only the last invalidation is sent, for replicated caches only the latest value is sent;
+     * updates that do not change the value are dropped, and the pending events of a cache are discarded
+     * once the event for all cache entries ({@linkplain CacheEntryEvent#ALL_ENTRIES_KEY}) is queued for it.<br>
+     * Coalescing greatly reduces the traffic on hot keys, at the cost of delaying events up to the window size.
+     *
+     * @return the coalescing window in milliseconds, cannot be negative; if the value is {@code 0}, coalescing is not used.
+     * @see #useAsyncSendingCoalescing()
+     */
+    @Nonnegative
+    long asyncSendingCoalescingWindowMs();
+
+    /**
+     * Returns whether pending outgoing events should be coalesced before sending them to the channel.
+     *
+     * @return {@code true} if coalescing should be used, otherwise {@code false}.
+     * @see #asyncSendingCoalescingWindowMs()
+     */
+    default boolean useAsyncSendingCoalescing() {
+        return useAsyncSending() && asyncSendingCoalescingWindowMs() > 0;
+    }
+
+    /**
+     * Returns the strategy of waiting used by the internal buffers of the asynchronous processing and sending threads
+     * when a thread waits for data in the buffer or for free space in the buffer.<br>
+     * The strategies that do not release the CPU core ({@linkplain BufferWaitStrategy#BUSY_SPIN},
+     * {@linkplain BufferWaitStrategy#YIELD}) reduce the handoff latency between threads, but should be used only if
+     * there are enough CPU cores for all the processing and sending threads.
+     *
+     * @return the wait strategy of the buffers, cannot be {@code null}; by default {@linkplain BufferWaitStrategy#BLOCKING}.
+     * @see BufferWaitStrategy
+     */
+    @Nonnull
+    BufferWaitStrategy bufferWaitStrategy();
+
+    /**
+     * Returns whether the asynchronous processing and sending tasks of the bus should be executed on virtual threads.<br>
+     * Each stripe worker of the bus waits for data most of the time, so with platform threads every stripe permanently
+     * occupies a thread; with virtual threads the waiting workers do not hold platform (carrier) threads, which matters
+     * when there are many buses (and stripes) in one JVM.<br>
+     * If enabled and the pools ({@linkplain #processingPool()}, {@linkplain #asyncSendingPool()}) are not set explicitly,
+     * the pools that start a new virtual thread for each task are used.
+     *
+     * @return {@code true} if virtual threads should be used, {@code false} otherwise.
+     */
+    boolean useVirtualThreads();
+
+    /**
+     * Returns the policy of handling local cache events when the buffer of the asynchronous sending thread is full,
+     * if {@code useAsyncSending() == true}. The policy can be overridden for a cache by
+     * {@linkplain CacheConfiguration#bufferOverflowPolicy()}.
+     *
+     * @return the buffer overflow policy, cannot be {@code null}; by default {@linkplain BufferOverflowPolicy#BLOCK}.
+     * @see BufferOverflowPolicy
+     */
+    @Nonnull
+    BufferOverflowPolicy bufferOverflowPolicy();
+
+    /**
+     * Returns the maximum time in milliseconds that the application thread waits for free space in the buffer
+     * of the asynchronous sending thread when the {@linkplain BufferOverflowPolicy#BLOCK_WITH_TIMEOUT} policy is used.
+     *
+     * @return the offer timeout in milliseconds, cannot be negative.
+     */
+    @Nonnegative
+    long bufferOfferTimeoutMs();
+
+    /**
+     * Returns the maximum count of events in the overflow queue of a single asynchronous sending thread
+     * when the {@linkplain BufferOverflowPolicy#SPILL_TO_OVERFLOW_QUEUE} policy is used.
+     *
+     * @return the capacity of the overflow queue, must be positive if the policy is used.
+     */
+    @Nonnegative
+    int overflowQueueCapacity();
+
+    /**
+     * Returns the configuration of the outbox of outgoing events, if {@code useAsyncSending() == true}.<br>
+     * If the outbox is configured, the application thread appends the serialized event to the durable journal
+     * on the local disk instead of the in-memory sending buffer, and the dedicated sending thread ships the journaled events
+     * to the channel in the order of appending. The events not acknowledged by the channel (not sent without errors)
+     * are sent again after the reconnection to the broker or after the restart of the application,
+     * so the events are not lost on the broker outage, on the closure of the bus, or on the crash of the application.<br>
+     * In this mode the in-memory sending buffers and their settings (capacity, overflow policy, coalescing) are not used.
+     *
+     * @return the outbox configuration, can be {@code null} if the outbox is not used.
+     * @see OutboxConfiguration
+     * @see #useOutbox()
+     */
+    @Nullable
+    OutboxConfiguration outboxConfiguration();
+
+    /**
+     * Returns whether the outbox of outgoing events is used.
+     *
+     * @return {@code true} if the outbox is used, {@code false} otherwise.
+     * @see #outboxConfiguration()
+     */
+    default boolean useOutbox() {
+        return useAsyncSending() && outboxConfiguration() != null;
+    }
+
+    /**
+     * Configuration of the outbox of outgoing events: the segmented append-only journal of the serialized events
+     * on the local disk; each segment of the journal is a memory-mapped file of a fixed size.
+     *
+     * @author Alik
+     */
+    interface OutboxConfiguration {
+
+        /**
+         * Returns the directory where the segments of the journal and the checkpoint of the sent events are stored.<br>
+         * The directory must be used by a single bus only.
+         *
+         * @return cannot be {@code null}.
+         */
+        @Nonnull
+        Path directory();
+
+        /**
+         * Returns the size in bytes of a single segment of the journal.<br>
+         * A segment is deleted once all its events are sent to the channel; an event that doesn't fit into a segment
+         * is stored in the dedicated segment with the size of the event.
+         *
+         * @return the segment size in bytes, must be positive.
+         */
+        @Nonnegative
+        int segmentSize();
+
+        /**
+         * Returns the interval in milliseconds between attempts to send the journaled events
+         * if the previous attempt failed (for example, if the reconnection timeout of the channel elapsed).
+         *
+         * @return the retry interval in milliseconds, cannot be negative.
+         */
+        @Nonnegative
+        long retryIntervalMs();
+    }
 }
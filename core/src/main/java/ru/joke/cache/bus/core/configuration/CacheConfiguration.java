@@ -68,6 +68,51 @@ public interface CacheConfiguration {
     @Nonnull
     Optional<TimestampCacheConfiguration> timestampConfiguration();
 
+    /**
+     * Returns the policy of handling the events of this cache when the buffer of the asynchronous sending thread is full.
+     * If the policy is not set, the bus policy {@linkplain CacheBusTransportConfiguration#bufferOverflowPolicy()} is used.
+     *
+     * @return the buffer overflow policy of the cache, cannot be {@code null}.
+     * @see BufferOverflowPolicy
+     */
+    @Nonnull
+    Optional<BufferOverflowPolicy> bufferOverflowPolicy();
+
+    /**
+     * Returns the identifier of the converter used for the events of this cache. The converter with this identifier
+     * must be registered in the transport configuration of the bus ({@linkplain CacheBusTransportConfiguration#codecConverters()}).
+     * If the identifier is not set, the default converter of the bus {@linkplain CacheBusTransportConfiguration#converter()} is used.<br>
+     * The per-cache converters allow to use, for example, the compact converter for the caches with the small invalidation events
+     * and the general-purpose converter for the replicated caches with the complex values within the same bus and channel.
+     *
+     * @return the codec identifier of the converter of the cache, cannot be {@code null}.
+     * @see CacheBusTransportConfiguration#codecConverters()
+     */
+    @Nonnull
+    Optional<Integer> codecId();
+
+    /**
+     * Returns whether the events of the replicated cache should carry the 128-bit content fingerprint of the old value
+     * of the element instead of the old value itself.<br>
+     * The old value of the element is used by the receiving servers only to detect the conflicting modifications
+     * (see {@linkplain ru.joke.cache.bus.core.CacheEntryEvent#applyToReplicatedCache(ru.joke.cache.bus.core.Cache)}),
+     * so the fingerprint gives the equivalent conflict detection and the update events become about half as large.
+     * The receiving server compares the fingerprint with the fingerprint of the local value computed with the same
+     * registry of the codecs ({@linkplain CacheBusTransportConfiguration#valueCodecRegistry()}), so the registries must be the same
+     * on all servers. If the binary representation of the value isn't deterministic (for example, the value contains
+     * the hash-based collections), the fingerprints of the equal values may differ; in this case the element is evicted
+     * from the local cache as on any other conflict.<br>
+     * The fingerprint is computed on each modification of the element, so the codecs of the types of the values
+     * of the cache should be registered in the registry: the values without the registered codec are written with the JDK
+     * serialization to compute the fingerprint, which may cost more than the sending of the old value itself
+     * (the bus logs the warning on the first such value of each type).<br>
+     * Only allowed for the replicated caches.
+     *
+     * @return {@code true} if the fingerprints of the old values are sent, {@code false} otherwise.
+     * @see ru.joke.cache.bus.core.transport.ValueFingerprint
+     */
+    boolean useOldValueFingerprints();
+
     /**
      * Configuration timestamps of cache item changes.
      *
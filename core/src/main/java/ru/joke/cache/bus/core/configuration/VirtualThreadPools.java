@@ -0,0 +1,31 @@
+package ru.joke.cache.bus.core.configuration;
+
+import javax.annotation.Nonnull;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Factory of the thread pools based on virtual threads.<br>
+ * Each task submitted to such a pool is executed in its own virtual thread, so the long-living tasks
+ * of the bus (stripe workers, channel listeners) that block most of the time do not hold platform threads.
+ *
+ * @author Alik
+ */
+public abstract class VirtualThreadPools {
+
+    /**
+     * Creates a new thread pool that starts a new named virtual thread for each submitted task.
+     *
+     * @param threadNamePrefix the prefix of the thread names, the sequence number of the thread is appended to the prefix; cannot be {@code null}.
+     * @return cannot be {@code null}.
+     */
+    @Nonnull
+    public static ExecutorService create(@Nonnull final String threadNamePrefix) {
+        Objects.requireNonNull(threadNamePrefix, "threadNamePrefix");
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(threadNamePrefix, 0).factory());
+    }
+
+    private VirtualThreadPools() {
+    }
+}
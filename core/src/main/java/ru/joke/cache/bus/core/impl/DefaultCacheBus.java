@@ -11,6 +11,9 @@ import ru.joke.cache.bus.core.state.CacheBusState;
 import ru.joke.cache.bus.core.state.ComponentState;
 import ru.joke.cache.bus.core.transport.CacheBusMessageChannel;
 import ru.joke.cache.bus.core.transport.CacheEntryEventConverter;
+import ru.joke.cache.bus.core.transport.LazyCacheEntryEvent;
+import ru.joke.cache.bus.core.transport.ValueCodecRegistry;
+import ru.joke.cache.bus.core.transport.ValueFingerprint;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import ru.joke.cache.bus.core.*;
@@ -18,7 +21,9 @@ import ru.joke.cache.bus.core.*;
 import javax.annotation.Nonnull;
 import javax.annotation.concurrent.ThreadSafe;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
@@ -41,6 +46,7 @@ public final class DefaultCacheBus implements ExtendedCacheBus {
     private static final String CACHE_BUS_LABEL = "cache-bus";
 
     private final ThreadLocal<Boolean> locked = new ThreadLocal<>();
+    private final ThreadLocal<LazyCacheEntryEvent<Serializable, Serializable>> receivedEvents = ThreadLocal.withInitial(LazyCacheEntryEvent::new);
 
     private final String id;
     private final CacheBusConfiguration configuration;
@@ -48,11 +54,17 @@ public final class DefaultCacheBus implements ExtendedCacheBus {
     private final Map<String, Set<String>> cachesByAliases;
     private final CompositeCacheBusState state;
     private final CacheBusMetricsRegistry metrics;
-    private final CacheEntryEventTimestampStore eventTimestampStore;
+    private final Set<CacheConfiguration> cacheConfigurationsWithStampBasedComparison;
+    private final boolean useAsyncTimestampsCleaning;
+    private final CacheEntryEventConverter receivingConverter;
+    private final ValueCodecRegistry valueCodecRegistry;
+    private final Set<Class<?>> fingerprintedTypesWithoutCodecs = ConcurrentHashMap.newKeySet();
 
     private volatile boolean started;
     private volatile CacheEventMessageConsumer messageConsumer;
     private volatile CacheEventMessageProducer cacheEventMessageProducer;
+    private volatile CacheEntryEventTimestampStore eventTimestampStore;
+    private volatile Map<String, CacheRoute> routingTable = Collections.emptyMap();
 
     public DefaultCacheBus(@Nonnull CacheBusConfiguration configuration) {
         this.id = CACHE_BUS_LABEL + "_" + UUID.randomUUID();
@@ -62,15 +74,20 @@ public final class DefaultCacheBus implements ExtendedCacheBus {
 
         final CacheSetConfiguration cacheSetConfiguration = configuration.cacheConfigurationSource().pull();
         final Set<CacheConfiguration> cacheConfigurations = cacheSetConfiguration.cacheConfigurations();
-        final Set<CacheConfiguration> cacheConfigurationsWithStampBasedComparison =
+        this.cacheConfigurationsWithStampBasedComparison =
                 cacheConfigurations
                         .stream()
                         .filter(CacheConfiguration::useTimestampBasedComparison)
                         .collect(Collectors.toSet());
-        this.eventTimestampStore = new InMemoryCacheEntryEventTimestampStore(cacheConfigurationsWithStampBasedComparison, cacheSetConfiguration.useAsyncCleaning());
+        this.useAsyncTimestampsCleaning = cacheSetConfiguration.useAsyncCleaning();
         this.cacheConfigurationsByName = cacheConfigurations
                                             .stream()
                                             .collect(Collectors.toUnmodifiableMap(CacheConfiguration::cacheName, Function.identity()));
+
+        final CacheEntryEventCodecRouter codecRouter = new CacheEntryEventCodecRouter(configuration.transportConfiguration());
+        codecRouter.checkConverters(cacheConfigurations);
+        this.receivingConverter = codecRouter.receivingConverter();
+        this.valueCodecRegistry = configuration.transportConfiguration().valueCodecRegistry();
         this.cachesByAliases =
                 cacheConfigurations
                         .stream()
@@ -92,9 +109,10 @@ public final class DefaultCacheBus implements ExtendedCacheBus {
     @Override
     public <K extends Serializable, V extends Serializable> void send(@Nonnull CacheEntryEvent<K, V> event) {
 
-        final CacheConfiguration cacheConfiguration = this.cacheConfigurationsByName.get(event.cacheName());
+        final CacheRoute route = this.routingTable.get(event.cacheName());
+        final CacheConfiguration cacheConfiguration = route == null ? null : route.configuration();
         // Flag 'locked' used to prevent calls from the receiving execution thread
-        if (!started || cacheConfiguration == null || locked.get() != null && locked.get()) {
+        if (!started || cacheConfiguration == null || Boolean.TRUE.equals(locked.get())) {
             return;
         }
 
@@ -103,19 +121,45 @@ public final class DefaultCacheBus implements ExtendedCacheBus {
         }
 
         this.metrics.incrementCounter(KnownMetrics.LOCAL_EVENTS_COMMON_COUNT);
-        if (!needToSendEvent(cacheConfiguration, event.eventType())) {
+        if (!route.needToSend(event.eventType())) {
             return;
         }
 
         logger.debug("Event {} will be sent to endpoint", event);
 
-        this.metrics.incrementCounter(
-                cacheConfiguration.cacheType() == CacheType.INVALIDATED
-                        ? KnownMetrics.FILTERED_INV_LOCAL_EVENTS_COUNT
-                        : KnownMetrics.FILTERED_REPL_LOCAL_EVENTS_COUNT
+        this.metrics.incrementCounter(route.filteredEventsMetric());
+        this.cacheEventMessageProducer.produce(
+                cacheConfiguration,
+                cacheConfiguration.cacheType() == CacheType.REPLICATED ? withCompactOldValue(cacheConfiguration, event) : event
         );
+    }
+
+    @Override
+    public <K extends Serializable> boolean applyDelta(@Nonnull String cacheName, @Nonnull K key, @Nonnull CacheEntryDelta delta) {
+        if (!this.started) {
+            throw new LifecycleException("CacheBus must be in started state");
+        }
+
+        final CacheRoute route = this.routingTable.get(cacheName);
+        final Cache<Serializable, Serializable> cache = route == null || route.configuration() == null ? null : route.cache();
+        if (cache == null) {
+            throw new IllegalArgumentException("Cache isn't managed by the bus: " + cacheName);
+        }
 
-        this.cacheEventMessageProducer.produce(cacheConfiguration, event);
+        // The events of the local modification of the element aren't sent, only the modification itself is sent
+        final boolean applied;
+        locked.set(Boolean.TRUE);
+        try {
+            applied = delta.applyTo(cache, key);
+        } finally {
+            locked.set(Boolean.FALSE);
+        }
+
+        if (applied) {
+            send(new ImmutableCacheEntryEvent<Serializable, Serializable>(key, null, delta, CacheEntryEventType.DELTA, cacheName));
+        }
+
+        return applied;
     }
 
     @Override
@@ -125,32 +169,32 @@ public final class DefaultCacheBus implements ExtendedCacheBus {
             return;
         }
 
-        this.metrics.putToSummary(KnownMetrics.CONSUMED_BYTES, binaryEventData.length);
         this.metrics.incrementCounter(KnownMetrics.REMOTE_EVENTS_COMMON_COUNT);
+        receiveEvent(binaryEventData);
+    }
 
-        final CacheEntryEvent<Serializable, Serializable> event = convertFromSerializedEvent(binaryEventData);
-        if (event == null) {
-            this.metrics.incrementCounter(KnownMetrics.ERROR_EVENTS_COUNT);
+    @Override
+    public void receive(@Nonnull ByteBuffer binaryEventData) {
+
+        if (!this.started) {
             return;
         }
 
-        final CacheConfiguration cacheConfiguration = this.cacheConfigurationsByName.get(event.cacheName());
-        if (cacheConfiguration != null) {
-            applyEvent(event, cacheConfiguration);
-        }
+        this.metrics.incrementCounter(KnownMetrics.REMOTE_EVENTS_COMMON_COUNT);
+        receiveEvent(binaryEventData);
+    }
 
-        // Processing cache changes from additional cache invalidation aliases
-        final Set<String> cachesByAlias = this.cachesByAliases.getOrDefault(event.cacheName(), Collections.emptySet());
-        if (cachesByAlias.isEmpty()) {
+    @Override
+    public void receiveAll(@Nonnull List<byte[]> binaryEventsData) {
+
+        if (!this.started) {
             return;
         }
 
-        cachesByAlias
-                .stream()
-                .map(this.cacheConfigurationsByName::get)
-                .filter(Objects::nonNull)
-                .filter(config -> config.cacheType() == CacheType.INVALIDATED)
-                .forEach(config -> applyEvent(event, config));
+        this.metrics.increaseCounter(KnownMetrics.REMOTE_EVENTS_COMMON_COUNT, binaryEventsData.size());
+        for (final byte[] binaryEventData : binaryEventsData) {
+            receiveEvent(binaryEventData);
+        }
     }
 
     @Override
@@ -177,6 +221,12 @@ public final class DefaultCacheBus implements ExtendedCacheBus {
         logger.info("Cache bus starting with configuration {}", this.configuration);
 
         registerMetrics();
+        this.routingTable = CacheRoute.createRoutingTable(
+                this.cacheConfigurationsByName.values(),
+                this.cachesByAliases,
+                this.configuration.providerConfiguration().cacheManager()
+        );
+        this.eventTimestampStore = createEventTimestampStore();
         initializeCacheEventProducer();
         initializeInputMessageChannelSubscriber();
         initializeCacheEventListeners();
@@ -201,6 +251,7 @@ public final class DefaultCacheBus implements ExtendedCacheBus {
         this.cacheEventMessageProducer.close();
         messageChannel.close();
         this.messageConsumer.close();
+        this.eventTimestampStore.close();
 
         this.started = false;
 
@@ -213,22 +264,52 @@ public final class DefaultCacheBus implements ExtendedCacheBus {
         return this.state;
     }
 
-    private boolean needToSendEvent(final CacheConfiguration cacheConfiguration, final CacheEntryEventType eventType) {
-        return eventType != CacheEntryEventType.EXPIRED && eventType != CacheEntryEventType.ADDED || cacheConfiguration.cacheType() != CacheType.INVALIDATED;
+    private void receiveEvent(final byte[] binaryEventData) {
+        this.metrics.putToSummary(KnownMetrics.CONSUMED_BYTES, binaryEventData.length);
+        applyReceivedEvent(convertFromSerializedEvent(binaryEventData));
+    }
+
+    private void receiveEvent(final ByteBuffer binaryEventData) {
+        this.metrics.putToSummary(KnownMetrics.CONSUMED_BYTES, binaryEventData.remaining());
+        applyReceivedEvent(convertFromSerializedEvent(binaryEventData));
     }
 
-    private void applyEvent(final CacheEntryEvent<Serializable, Serializable> event, final CacheConfiguration cacheConfiguration) {
+    private void applyReceivedEvent(final CacheEntryEvent<Serializable, Serializable> event) {
 
-        final CacheProviderConfiguration providerConfiguration = this.configuration.providerConfiguration();
-        final Optional<Cache<Serializable, Serializable>> cache = providerConfiguration.cacheManager().getCache(cacheConfiguration.cacheName());
-        cache.ifPresent(c -> processEvent(cacheConfiguration, c, event));
+        if (event == null) {
+            this.metrics.incrementCounter(KnownMetrics.ERROR_EVENTS_COUNT);
+            return;
+        }
+
+        try {
+            final CacheRoute route = this.routingTable.get(event.cacheName());
+            if (route == null) {
+                return;
+            }
+
+            // The cache itself and the invalidation caches with the alias equal to the name of the cache of the event
+            for (final CacheRoute receiver : route.receivers()) {
+                final Cache<Serializable, Serializable> cache = receiver.cache();
+                if (cache != null) {
+                    processEvent(receiver, cache, event);
+                }
+            }
+        } catch (RuntimeException ex) {
+            // The failure of the single event must not break the processing of the following events
+            logger.warn("Unable to apply received event " + event, ex);
+            this.metrics.incrementCounter(KnownMetrics.ERROR_EVENTS_COUNT);
+        } finally {
+            // The flyweight of the event releases the message body and the decoded key and values
+            releaseFlyweight(event);
+        }
     }
 
     private void processEvent(
-            final CacheConfiguration cacheConfiguration,
+            final CacheRoute route,
             final Cache<Serializable, Serializable> cache,
             final CacheEntryEvent<Serializable, Serializable> event) {
 
+        final CacheConfiguration cacheConfiguration = route.configuration();
         logger.debug("Process event {} with cacheType {}", event, cacheConfiguration.cacheType().name());
 
         /*
@@ -249,46 +330,145 @@ public final class DefaultCacheBus implements ExtendedCacheBus {
         try {
 
             switch (cacheConfiguration.cacheType()) {
-                case INVALIDATED -> {
-                    event.applyToInvalidatedCache(cache);
-                    this.metrics.incrementCounter(KnownMetrics.APPLIED_INV_EVENTS_COUNT);
-                }
-                case REPLICATED -> {
-                    event.applyToReplicatedCache(cache);
-                    this.metrics.incrementCounter(KnownMetrics.APPLIED_REPL_EVENTS_COUNT);
-                }
+                case INVALIDATED -> event.applyToInvalidatedCache(cache);
+                case REPLICATED -> event.applyToReplicatedCache(cache, this.valueCodecRegistry);
             }
+
+            this.metrics.incrementCounter(route.appliedEventsMetric());
         } catch (RuntimeException ex) {
             logger.info("Exception while processing of event, will be applied like to invalidated cache; event: " + event, ex);
             // If fail then we should remove value from cache by key and ack receiving of message
             event.applyToInvalidatedCache(cache);
             this.metrics.incrementCounter(KnownMetrics.APPLIED_AS_INV_EVENT_FALLBACK_COUNT);
         } finally {
-            locked.remove();
+            // The flag is reset instead of removal, so the entry of the thread local isn't recreated for each event
+            locked.set(Boolean.FALSE);
+        }
+    }
+
+    private CacheEntryEvent<?, ?> withCompactOldValue(
+            final CacheConfiguration cacheConfiguration,
+            final CacheEntryEvent<?, ?> event) {
+
+        final Serializable oldValue = event.oldValue();
+        if (oldValue == null) {
+            return event;
+        }
+
+        /*
+         * The old value is used by the receivers only to detect the conflicts: the conflicts of the versioned values
+         * are detected by the versions, so the old value isn't sent at all, otherwise its fingerprint can be sent instead of the value.
+         */
+        final Serializable newValue = event.newValue();
+        final Serializable oldValueToSend;
+        if (newValue instanceof Versioned) {
+            oldValueToSend = null;
+        } else if (cacheConfiguration.useOldValueFingerprints()) {
+            checkCodecOfFingerprintedValue(cacheConfiguration, oldValue);
+            oldValueToSend = ValueFingerprint.of(oldValue, this.valueCodecRegistry);
+        } else {
+            return event;
+        }
+
+        return new ImmutableCacheEntryEvent<Serializable, Serializable>(
+                event.key(),
+                oldValueToSend,
+                newValue,
+                event.eventTime(),
+                event.eventType(),
+                event.cacheName()
+        );
+    }
+
+    private void checkCodecOfFingerprintedValue(final CacheConfiguration cacheConfiguration, final Serializable value) {
+        final Class<?> valueType = value.getClass();
+        if (this.valueCodecRegistry.findByType(valueType) == null && this.fingerprintedTypesWithoutCodecs.add(valueType)) {
+            logger.warn("Codec isn't registered for values of type {} of cache {}: fingerprints of these values are computed "
+                    + "over their JDK serialization on each modification, register the codec to reduce the cost of the fingerprints",
+                    valueType.getName(), cacheConfiguration.cacheName());
         }
     }
 
     private CacheEntryEvent<Serializable, Serializable> convertFromSerializedEvent(final byte[] binaryEventData) {
 
         final CacheBusTransportConfiguration transportConfiguration = this.configuration.transportConfiguration();
-        final CacheEntryEventConverter converter = transportConfiguration.converter();
+        final CacheEntryEventConverter converter = this.receivingConverter;
+        CacheEntryEvent<Serializable, Serializable> event = null;
+        try {
+            event = transportConfiguration.useFlyweightReceiving()
+                    ? converter.fromBinary(binaryEventData, this.receivedEvents.get())
+                    : converter.fromBinary(binaryEventData);
+            // The key of the lazily decoded event is decoded here, so the malformed key is handled as the malformed message
+            event.key();
+            return event;
+        } catch (RuntimeException ex) {
+            logger.warn("Unable to deserialize message", ex);
+            releaseFlyweight(event);
+            return null;
+        }
+    }
+
+    private CacheEntryEvent<Serializable, Serializable> convertFromSerializedEvent(final ByteBuffer binaryEventData) {
+
+        final CacheBusTransportConfiguration transportConfiguration = this.configuration.transportConfiguration();
+        final CacheEntryEventConverter converter = this.receivingConverter;
+        CacheEntryEvent<Serializable, Serializable> event = null;
         try {
-            return converter.fromBinary(binaryEventData);
+            // The flyweight refers to the buffer only until it is cleared at the end of the processing of the event
+            event = transportConfiguration.useFlyweightReceiving()
+                    ? converter.fromBuffer(binaryEventData, this.receivedEvents.get())
+                    : converter.fromBuffer(binaryEventData);
+            // The key of the lazily decoded event is decoded here, so the malformed key is handled as the malformed message
+            event.key();
+            return event;
         } catch (RuntimeException ex) {
             logger.warn("Unable to deserialize message", ex);
+            releaseFlyweight(event);
             return null;
         }
     }
 
+    private static void releaseFlyweight(final CacheEntryEvent<?, ?> event) {
+        if (event instanceof LazyCacheEntryEvent<?, ?> flyweight) {
+            flyweight.clear();
+        }
+    }
+
+    private CacheEntryEventTimestampStore createEventTimestampStore() {
+
+        final CacheBusConfiguration.TimestampStoreConfiguration storeConfiguration = this.configuration.timestampStoreConfiguration();
+        if (storeConfiguration == null) {
+            return new InMemoryCacheEntryEventTimestampStore(
+                    this.cacheConfigurationsWithStampBasedComparison,
+                    this.useAsyncTimestampsCleaning,
+                    this.metrics
+            );
+        }
+
+        logger.debug(
+                "Compact timestamp store will be used: off-heap = {}, memory limit = {} bytes, snapshot directory = {}",
+                storeConfiguration.useOffHeapMemory(),
+                storeConfiguration.maxMemoryBytes(),
+                storeConfiguration.snapshotDirectory()
+        );
+        return storeConfiguration.snapshotDirectory() == null
+                ? new CompactCacheEntryEventTimestampStore(this.cacheConfigurationsWithStampBasedComparison, storeConfiguration)
+                : new PersistentCacheEntryEventTimestampStore(this.cacheConfigurationsWithStampBasedComparison, storeConfiguration);
+    }
+
     private void initializeCacheEventProducer() {
 
         logger.debug("Cache event producer initializing...");
 
         final CacheBusTransportConfiguration transportConfiguration = this.configuration.transportConfiguration();
-        if (transportConfiguration.useAsyncSending()) {
+        if (transportConfiguration.useOutbox()) {
+            this.cacheEventMessageProducer = new OutboxCacheEventMessageProducer(this.metrics, transportConfiguration);
+            logger.debug("Cache event producer initialized with outbox mode: directory = {}", transportConfiguration.outboxConfiguration().directory());
+        } else if (transportConfiguration.useAsyncSending()) {
             final var eventBuffers = new StripedRingBuffersContainer<CacheEntryEvent<?, ?>>(
                     transportConfiguration.maxAsyncSendingThreads(),
-                    transportConfiguration.maxAsyncSendingThreadBufferCapacity()
+                    transportConfiguration.maxAsyncSendingThreadBufferCapacity(),
+                    transportConfiguration.bufferWaitStrategy()
             );
             this.cacheEventMessageProducer = new AsynchronousCacheEventMessageProducer(this.metrics, transportConfiguration, this.cacheConfigurationsByName, eventBuffers);
 
@@ -349,8 +529,8 @@ public final class DefaultCacheBus implements ExtendedCacheBus {
         logger.debug("Message channel consumer will be {}", transportConfiguration.useSynchronousProcessing() ? "sync" : "async");
 
         this.messageConsumer = transportConfiguration.useSynchronousProcessing()
-                ? new SynchronousCacheEventMessageConsumer(this)
-                : new AsynchronousCacheEventMessageConsumer(this, this.metrics, new StripedRingBuffersContainer<>(buffersCount, bufferCapacity), processingPool);
+                ? new SynchronousCacheEventMessageConsumer(this, transportConfiguration.converter())
+                : new AsynchronousCacheEventMessageConsumer(this, this.metrics, new StripedRingBuffersContainer<>(buffersCount, bufferCapacity, transportConfiguration.bufferWaitStrategy()), processingPool, transportConfiguration.converter());
 
         channel.subscribe(this.messageConsumer);
 
@@ -0,0 +1,161 @@
+package ru.joke.cache.bus.core.impl;
+
+import ru.joke.cache.bus.core.CacheBus;
+import ru.joke.cache.bus.core.CacheEntryEvent;
+import ru.joke.cache.bus.core.CacheEntryEventType;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Reusable carrier of a cache element change event.<br>
+ * The carrier is intended for the cache event listeners: a listener keeps one carrier per thread,
+ * fills it with the data of each local change and passes it to {@linkplain CacheBus#send(CacheEntryEvent)},
+ * so sending of the local events does not require an allocation of the event object.
+ * The bus does not retain the carrier after the return from {@linkplain CacheBus#send(CacheEntryEvent)}: if the event
+ * must be kept longer (for example, in the buffers of the asynchronous sending), the bus copies it with {@linkplain #toImmutable()}.<br>
+ * If the carrier is filled again while it is still in use on the same thread (i.e. the sending of the event caused
+ * another local change of the cache), {@linkplain #fill(Serializable, Serializable, Serializable, long, CacheEntryEventType, String)}
+ * returns a new carrier, so the data of the outer event is never overwritten.
+ *
+ * @param <K> the type of the cache element key
+ * @param <V> the type of the cache element value
+ * @author Alik
+ * @see CacheEntryEvent
+ * @see ImmutableCacheEntryEvent
+ */
+@NotThreadSafe
+public final class MutableCacheEntryEvent<K extends Serializable, V extends Serializable> implements CacheEntryEvent<K, V> {
+
+    private K key;
+    private V oldValue;
+    private V newValue;
+    private long eventTime;
+    private CacheEntryEventType eventType;
+    private String cacheName;
+
+    /**
+     * Fills the carrier with the data of the cache element change event.
+     *
+     * @param key       the key of the modified element, cannot be {@code null}.
+     * @param oldValue  the old value the modified element, can be {@code null}.
+     * @param newValue  the new value of the modified element, can be {@code null}.
+     * @param eventTime the time of cache element change in milliseconds, must be positive.
+     * @param eventType the type of event (change), cannot be {@code null}.
+     * @param cacheName the name of the cache where the change occurred, cannot be {@code null} or empty.
+     * @return the filled carrier: this carrier or a new one if this carrier is still in use, cannot be {@code null}.
+     */
+    @Nonnull
+    public MutableCacheEntryEvent<K, V> fill(
+            @Nonnull K key,
+            @Nullable V oldValue,
+            @Nullable V newValue,
+            @Nonnegative long eventTime,
+            @Nonnull CacheEntryEventType eventType,
+            @Nonnull String cacheName) {
+
+        if (this.key != null) {
+            return new MutableCacheEntryEvent<K, V>().fill(key, oldValue, newValue, eventTime, eventType, cacheName);
+        }
+
+        Objects.requireNonNull(key, "key");
+        Objects.requireNonNull(eventType, "eventType");
+
+        if (cacheName == null || cacheName.isEmpty()) {
+            throw new IllegalArgumentException("cacheName must be not empty");
+        }
+
+        if (eventTime <= 0) {
+            throw new IllegalArgumentException("eventTime must be positive");
+        }
+
+        this.key = key;
+        this.oldValue = oldValue;
+        this.newValue = newValue;
+        this.eventTime = eventTime;
+        this.eventType = eventType;
+        this.cacheName = cacheName;
+
+        return this;
+    }
+
+    /**
+     * Clears the carrier after the sending of the event, so the carrier doesn't hold the references
+     * to the keys and values of the cache and can be filled again.
+     */
+    public void clear() {
+        this.key = null;
+        this.oldValue = null;
+        this.newValue = null;
+        this.eventType = null;
+        this.cacheName = null;
+        this.eventTime = 0;
+    }
+
+    /**
+     * Creates the immutable copy of the event held by the carrier.
+     *
+     * @return cannot be {@code null}.
+     */
+    @Nonnull
+    public ImmutableCacheEntryEvent<K, V> toImmutable() {
+        return new ImmutableCacheEntryEvent<>(this.key, this.oldValue, this.newValue, this.eventTime, this.eventType, this.cacheName);
+    }
+
+    @Nonnull
+    @Override
+    public K key() {
+        return this.key;
+    }
+
+    @Nullable
+    @Override
+    public V oldValue() {
+        return this.oldValue;
+    }
+
+    @Nullable
+    @Override
+    public V newValue() {
+        return this.newValue;
+    }
+
+    @Override
+    public long eventTime() {
+        return this.eventTime;
+    }
+
+    @Nonnull
+    @Override
+    public CacheEntryEventType eventType() {
+        return this.eventType;
+    }
+
+    @Nonnull
+    @Override
+    public String cacheName() {
+        return this.cacheName;
+    }
+
+    @Override
+    public int computeEventHashKey() {
+        final int result = 31 + this.cacheName.hashCode();
+        return 31 * result + this.key.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "MutableCacheEntryEvent{" +
+                "key=" + key +
+                ", oldValue=" + oldValue +
+                ", newValue=" + newValue +
+                ", eventTime=" + eventTime +
+                ", eventType=" + eventType +
+                ", cacheName='" + cacheName + '\'' +
+                '}';
+    }
+}
@@ -5,6 +5,7 @@ import ru.joke.cache.bus.core.metrics.CacheBusMetricsRegistry;
 import ru.joke.cache.bus.core.metrics.NoOpCacheBusMetricsRegistry;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.Immutable;
 import javax.annotation.concurrent.NotThreadSafe;
 import javax.annotation.concurrent.ThreadSafe;
@@ -25,7 +26,8 @@ public record ImmutableCacheBusConfiguration(
         @Nonnull CacheConfigurationSource cacheConfigurationSource,
         @Nonnull CacheBusTransportConfiguration transportConfiguration,
         @Nonnull CacheProviderConfiguration providerConfiguration,
-        @Nonnull CacheBusMetricsRegistry metricsRegistry) implements CacheBusConfiguration {
+        @Nonnull CacheBusMetricsRegistry metricsRegistry,
+        @Nullable CacheBusConfiguration.TimestampStoreConfiguration timestampStoreConfiguration) implements CacheBusConfiguration {
 
     public ImmutableCacheBusConfiguration {
         Objects.requireNonNull(cacheConfigurationSource, "cacheConfigurationSource");
@@ -41,6 +43,14 @@ public record ImmutableCacheBusConfiguration(
         this(cacheConfigurationSource, transportConfiguration, providerConfiguration, new NoOpCacheBusMetricsRegistry());
     }
 
+    public ImmutableCacheBusConfiguration(
+            @Nonnull CacheConfigurationSource cacheConfigurationSource,
+            @Nonnull CacheBusTransportConfiguration transportConfiguration,
+            @Nonnull CacheProviderConfiguration providerConfiguration,
+            @Nonnull CacheBusMetricsRegistry metricsRegistry) {
+        this(cacheConfigurationSource, transportConfiguration, providerConfiguration, metricsRegistry, null);
+    }
+
     /**
      * Returns a builder object for constructing a configuration object.
      *
@@ -58,6 +68,7 @@ public record ImmutableCacheBusConfiguration(
         private CacheBusTransportConfiguration transportConfiguration;
         private CacheProviderConfiguration providerConfiguration;
         private CacheBusMetricsRegistry metricsRegistry = new NoOpCacheBusMetricsRegistry();
+        private TimestampStoreConfiguration timestampStoreConfiguration;
 
         /**
          * Sets the builder for constructing cache configurations connected to the bus.
@@ -113,6 +124,20 @@ public record ImmutableCacheBusConfiguration(
             return this;
         }
 
+        /**
+         * Sets the configuration of the compact storage of modification timestamps of cache elements.
+         * If not specified, the storage based on the associative array with the keys of the cache elements is used.
+         *
+         * @param timestampStoreConfiguration configuration of the compact timestamp storage, can be {@code null}.
+         * @return cannot be {@code null}.
+         * @see TimestampStoreConfiguration
+         */
+        @Nonnull
+        public Builder setTimestampStoreConfiguration(@Nullable TimestampStoreConfiguration timestampStoreConfiguration) {
+            this.timestampStoreConfiguration = timestampStoreConfiguration;
+            return this;
+        }
+
         /**
          * Constructs a cache bus configuration object based the provided data.
          *
@@ -125,7 +150,8 @@ public record ImmutableCacheBusConfiguration(
                     this.cacheConfigurationSource,
                     this.transportConfiguration,
                     this.providerConfiguration,
-                    this.metricsRegistry
+                    this.metricsRegistry,
+                    this.timestampStoreConfiguration
             );
         }
     }
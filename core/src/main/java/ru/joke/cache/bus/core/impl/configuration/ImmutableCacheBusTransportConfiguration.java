@@ -1,10 +1,14 @@
 package ru.joke.cache.bus.core.impl.configuration;
 
+import ru.joke.cache.bus.core.configuration.BufferOverflowPolicy;
+import ru.joke.cache.bus.core.configuration.BufferWaitStrategy;
 import ru.joke.cache.bus.core.configuration.CacheBusMessageChannelConfiguration;
 import ru.joke.cache.bus.core.configuration.CacheBusTransportConfiguration;
 import ru.joke.cache.bus.core.configuration.ConfigurationException;
+import ru.joke.cache.bus.core.configuration.VirtualThreadPools;
 import ru.joke.cache.bus.core.transport.CacheBusMessageChannel;
 import ru.joke.cache.bus.core.transport.CacheEntryEventConverter;
+import ru.joke.cache.bus.core.transport.ValueCodecRegistry;
 
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
@@ -12,6 +16,8 @@ import javax.annotation.Nullable;
 import javax.annotation.concurrent.Immutable;
 import javax.annotation.concurrent.NotThreadSafe;
 import javax.annotation.concurrent.ThreadSafe;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ExecutorService;
 
@@ -22,8 +28,23 @@ import java.util.concurrent.ExecutorService;
  * @param converter                      the converter used to transform data before sending it over the message channel and when receiving it, cannot be {@code null}.
  * @param messageChannel                 the implementation of the message channel for interacting with remote caches, cannot be {@code null}.
  * @param messageChannelConfiguration    the configuration of the message channel, cannot {@code null}.
- * @param processingPool                 the thread pool on which the received messages from other servers should be processed, cannot be {@code null}.
+ * @param processingPool                 the thread pool on which the received messages from other servers should be processed,
+ *                                       cannot be {@code null} if virtual threads are not used.
  * @param maxConcurrentProcessingThreads the maximum number of threads that can be used to process messages from other servers, cannot be negative.
+ * @param useFlyweightReceiving          whether the received messages should be decoded into the reusable flyweights of the events.
+ * @param maxAsyncSendingBatchSize       the maximum count of events in a single batch sent to the channel, cannot be negative.
+ * @param asyncSendingBatchLingerTimeMs  the maximum time in milliseconds to wait for new events to fill the batch, cannot be negative.
+ * @param asyncSendingCoalescingWindowMs the window in milliseconds within which pending events with the same key are collapsed, cannot be negative.
+ * @param bufferWaitStrategy             the strategy of waiting used by the internal buffers, cannot be {@code null}.
+ * @param useVirtualThreads              whether the processing and sending tasks should be executed on virtual threads;
+ *                                       if enabled, the pools that are not set are created automatically.
+ * @param bufferOverflowPolicy           the policy of handling local events when the sending buffer is full, cannot be {@code null}.
+ * @param bufferOfferTimeoutMs           the maximum time in milliseconds to wait for free space in the sending buffer, cannot be negative.
+ * @param overflowQueueCapacity          the maximum count of events in the overflow queue of a sending thread, cannot be negative.
+ * @param outboxConfiguration            the configuration of the outbox of outgoing events, can be {@code null} if the outbox is not used.
+ * @param codecConverters                the additional converters by the codec identifiers used for the caches with the configured codec identifier,
+ *                                       cannot be {@code null}.
+ * @param valueCodecRegistry             the registry of the value codecs used to compute the fingerprints of the old values, cannot be {@code null}.
  * @author Alik
  * @see CacheBusTransportConfiguration
  * @see CacheBusTransportConfiguration
@@ -40,16 +61,52 @@ public record ImmutableCacheBusTransportConfiguration(
         @Nonnull ExecutorService processingPool,
         @Nonnegative int maxConcurrentProcessingThreads,
         @Nonnegative int maxProcessingThreadBufferCapacity,
+        boolean useFlyweightReceiving,
         boolean useAsyncSending,
         @Nullable ExecutorService asyncSendingPool,
         int maxAsyncSendingThreads,
-        int maxAsyncSendingThreadBufferCapacity) implements CacheBusTransportConfiguration {
+        int maxAsyncSendingThreadBufferCapacity,
+        @Nonnegative int maxAsyncSendingBatchSize,
+        @Nonnegative long asyncSendingBatchLingerTimeMs,
+        @Nonnegative long asyncSendingCoalescingWindowMs,
+        @Nonnull BufferWaitStrategy bufferWaitStrategy,
+        boolean useVirtualThreads,
+        @Nonnull BufferOverflowPolicy bufferOverflowPolicy,
+        @Nonnegative long bufferOfferTimeoutMs,
+        @Nonnegative int overflowQueueCapacity,
+        @Nullable OutboxConfiguration outboxConfiguration,
+        @Nonnull Map<Integer, CacheEntryEventConverter> codecConverters,
+        @Nonnull ValueCodecRegistry valueCodecRegistry) implements CacheBusTransportConfiguration {
+
+    private static final String PROCESSING_THREAD_NAME_PREFIX = "cache-bus-processing-";
+    private static final String SENDING_THREAD_NAME_PREFIX = "cache-bus-sending-";
 
     public ImmutableCacheBusTransportConfiguration {
+        if (useVirtualThreads) {
+            if (bufferWaitStrategy == BufferWaitStrategy.BUSY_SPIN) {
+                throw new ConfigurationException("Busy spin wait strategy cannot be used with virtual threads: it occupies the carrier thread");
+            }
+
+            processingPool = processingPool == null ? VirtualThreadPools.create(PROCESSING_THREAD_NAME_PREFIX) : processingPool;
+            asyncSendingPool = asyncSendingPool == null && useAsyncSending ? VirtualThreadPools.create(SENDING_THREAD_NAME_PREFIX) : asyncSendingPool;
+        }
+
         Objects.requireNonNull(converter, "converter");
         Objects.requireNonNull(messageChannel, "messageChannel");
         Objects.requireNonNull(messageChannelConfiguration, "messageChannelConfiguration");
         Objects.requireNonNull(processingPool, "processingPool");
+        Objects.requireNonNull(bufferWaitStrategy, "bufferWaitStrategy");
+        Objects.requireNonNull(bufferOverflowPolicy, "bufferOverflowPolicy");
+        Objects.requireNonNull(codecConverters, "codecConverters");
+        Objects.requireNonNull(valueCodecRegistry, "valueCodecRegistry");
+
+        codecConverters.forEach((codecId, codecConverter) -> {
+            if (codecId == null || codecId <= 0 || codecId > ImmutableCacheConfiguration.MAX_CODEC_ID) {
+                throw new ConfigurationException("Codec id must be in range [1, " + ImmutableCacheConfiguration.MAX_CODEC_ID + "]: " + codecId);
+            }
+
+            Objects.requireNonNull(codecConverter, "codecConverter");
+        });
 
         if (maxConcurrentProcessingThreads < 0) {
             throw new ConfigurationException("maxConcurrentProcessingThreads cannot be negative");
@@ -69,6 +126,32 @@ public record ImmutableCacheBusTransportConfiguration(
             }
 
             Objects.requireNonNull(asyncSendingPool, "Async sending thread pool must be not null when async sending enabled");
+
+            if (maxAsyncSendingBatchSize < 0) {
+                throw new ConfigurationException("maxAsyncSendingBatchSize cannot be negative");
+            }
+
+            if (asyncSendingBatchLingerTimeMs < 0) {
+                throw new ConfigurationException("asyncSendingBatchLingerTimeMs cannot be negative");
+            }
+
+            if (asyncSendingCoalescingWindowMs < 0) {
+                throw new ConfigurationException("asyncSendingCoalescingWindowMs cannot be negative");
+            }
+
+            if (bufferOfferTimeoutMs < 0) {
+                throw new ConfigurationException("bufferOfferTimeoutMs cannot be negative");
+            }
+
+            if (overflowQueueCapacity < 0) {
+                throw new ConfigurationException("overflowQueueCapacity cannot be negative");
+            }
+
+            if (bufferOverflowPolicy == BufferOverflowPolicy.SPILL_TO_OVERFLOW_QUEUE && overflowQueueCapacity == 0) {
+                throw new ConfigurationException("overflowQueueCapacity must be positive when spilling to overflow queue is used");
+            }
+        } else if (outboxConfiguration != null) {
+            throw new ConfigurationException("Outbox can be used only when async sending enabled");
         }
     }
 
@@ -91,10 +174,22 @@ public record ImmutableCacheBusTransportConfiguration(
         private ExecutorService processingPool;
         private int maxConcurrentProcessingThreads = 1;
         private int maxProcessingThreadBufferCapacity = 0;
+        private boolean useFlyweightReceiving;
         private boolean useAsyncSending;
         private int maxAsyncSendingThreads = 1;
         private ExecutorService asyncSendingPool;
         private int maxAsyncSendingThreadBufferCapacity = 0;
+        private int maxAsyncSendingBatchSize = 0;
+        private long asyncSendingBatchLingerTimeMs = 0;
+        private long asyncSendingCoalescingWindowMs = 0;
+        private BufferWaitStrategy bufferWaitStrategy = BufferWaitStrategy.BLOCKING;
+        private boolean useVirtualThreads;
+        private BufferOverflowPolicy bufferOverflowPolicy = BufferOverflowPolicy.BLOCK;
+        private long bufferOfferTimeoutMs = 100;
+        private int overflowQueueCapacity = 1024;
+        private OutboxConfiguration outboxConfiguration;
+        private final Map<Integer, CacheEntryEventConverter> codecConverters = new HashMap<>();
+        private ValueCodecRegistry valueCodecRegistry = ValueCodecRegistry.createDefault();
 
         /**
          * Sets the implementation of the message converter for messages transmitted over the bus.
@@ -176,6 +271,21 @@ public record ImmutableCacheBusTransportConfiguration(
             return this;
         }
 
+        /**
+         * Sets the flag indicating whether the messages received from the channel should be decoded into the reusable
+         * per-thread flyweights of the events with the lazy deserialization of the keys and the values.
+         * By default, the flyweights are not used.
+         *
+         * @param useFlyweightReceiving the flag indicating whether to use the flyweights of the received events.
+         * @return cannot be {@code null}.
+         * @see CacheBusTransportConfiguration#useFlyweightReceiving()
+         */
+        @Nonnull
+        public Builder useFlyweightReceiving(final boolean useFlyweightReceiving) {
+            this.useFlyweightReceiving = useFlyweightReceiving;
+            return this;
+        }
+
         /**
          * Sets the flag indicating whether to use asynchronous sending of cache element change messages to the channel.<br>
          * Before using this feature, all risks should be considered, see {@linkplain CacheBusTransportConfiguration#useAsyncSending()}.
@@ -233,6 +343,174 @@ public record ImmutableCacheBusTransportConfiguration(
             return this;
         }
 
+        /**
+         * Sets the maximum count of events that a single sending thread can pack into one multi-event frame.<br>
+         * Only applicable if asynchronous sending is enabled, {@code useAsyncSending(true)}.
+         * By default, the value {@code 0} is used, meaning that batching is disabled.
+         *
+         * @param maxAsyncSendingBatchSize the maximum count of events in a batch, cannot be {@code maxAsyncSendingBatchSize < 0}.
+         * @return cannot be {@code null}.
+         * @see CacheBusTransportConfiguration#maxAsyncSendingBatchSize()
+         */
+        @Nonnull
+        public Builder setMaxAsyncSendingBatchSize(@Nonnegative final int maxAsyncSendingBatchSize) {
+            this.maxAsyncSendingBatchSize = maxAsyncSendingBatchSize;
+            return this;
+        }
+
+        /**
+         * Sets the maximum time in milliseconds that a sending thread waits for new events to fill the batch.
+         * By default, the value {@code 0} is used, meaning that only already buffered events are included into the batch.
+         *
+         * @param asyncSendingBatchLingerTimeMs the linger time in milliseconds, cannot be {@code asyncSendingBatchLingerTimeMs < 0}.
+         * @return cannot be {@code null}.
+         * @see CacheBusTransportConfiguration#asyncSendingBatchLingerTimeMs()
+         */
+        @Nonnull
+        public Builder setAsyncSendingBatchLingerTimeMs(@Nonnegative final long asyncSendingBatchLingerTimeMs) {
+            this.asyncSendingBatchLingerTimeMs = asyncSendingBatchLingerTimeMs;
+            return this;
+        }
+
+        /**
+         * Sets the window in milliseconds within which the sending thread collapses pending events with the same key.<br>
+         * Only applicable if asynchronous sending is enabled, {@code useAsyncSending(true)}.
+         * By default, the value {@code 0} is used, meaning that coalescing is disabled.
+         *
+         * @param asyncSendingCoalescingWindowMs the coalescing window in milliseconds, cannot be {@code asyncSendingCoalescingWindowMs < 0}.
+         * @return cannot be {@code null}.
+         * @see CacheBusTransportConfiguration#asyncSendingCoalescingWindowMs()
+         */
+        @Nonnull
+        public Builder setAsyncSendingCoalescingWindowMs(@Nonnegative final long asyncSendingCoalescingWindowMs) {
+            this.asyncSendingCoalescingWindowMs = asyncSendingCoalescingWindowMs;
+            return this;
+        }
+
+        /**
+         * Sets the strategy of waiting used by the internal buffers of the asynchronous processing and sending threads.
+         * By default, the value {@linkplain BufferWaitStrategy#BLOCKING} is used.
+         *
+         * @param bufferWaitStrategy the wait strategy of the buffers, cannot be {@code null}.
+         * @return cannot be {@code null}.
+         * @see CacheBusTransportConfiguration#bufferWaitStrategy()
+         */
+        @Nonnull
+        public Builder setBufferWaitStrategy(@Nonnull final BufferWaitStrategy bufferWaitStrategy) {
+            this.bufferWaitStrategy = bufferWaitStrategy;
+            return this;
+        }
+
+        /**
+         * Sets the flag indicating whether the processing and sending tasks of the bus should be executed on virtual threads.<br>
+         * If enabled, the processing pool and the asynchronous sending pool can be omitted: the pools
+         * that start a new virtual thread for each task will be used. By default, virtual threads are not used.
+         *
+         * @param useVirtualThreads the flag indicating whether to use virtual threads.
+         * @return cannot be {@code null}.
+         * @see CacheBusTransportConfiguration#useVirtualThreads()
+         */
+        @Nonnull
+        public Builder useVirtualThreads(final boolean useVirtualThreads) {
+            this.useVirtualThreads = useVirtualThreads;
+            return this;
+        }
+
+        /**
+         * Sets the policy of handling local events when the buffer of the asynchronous sending thread is full.<br>
+         * Only applicable if asynchronous sending is enabled, {@code useAsyncSending(true)}.
+         * By default, the value {@linkplain BufferOverflowPolicy#BLOCK} is used.
+         *
+         * @param bufferOverflowPolicy the buffer overflow policy, cannot be {@code null}.
+         * @return cannot be {@code null}.
+         * @see CacheBusTransportConfiguration#bufferOverflowPolicy()
+         */
+        @Nonnull
+        public Builder setBufferOverflowPolicy(@Nonnull final BufferOverflowPolicy bufferOverflowPolicy) {
+            this.bufferOverflowPolicy = bufferOverflowPolicy;
+            return this;
+        }
+
+        /**
+         * Sets the maximum time in milliseconds that the application thread waits for free space in the sending buffer
+         * when the {@linkplain BufferOverflowPolicy#BLOCK_WITH_TIMEOUT} policy is used.
+         * By default, the value {@code 100} is used.
+         *
+         * @param bufferOfferTimeoutMs the offer timeout in milliseconds, cannot be {@code bufferOfferTimeoutMs < 0}.
+         * @return cannot be {@code null}.
+         * @see CacheBusTransportConfiguration#bufferOfferTimeoutMs()
+         */
+        @Nonnull
+        public Builder setBufferOfferTimeoutMs(@Nonnegative final long bufferOfferTimeoutMs) {
+            this.bufferOfferTimeoutMs = bufferOfferTimeoutMs;
+            return this;
+        }
+
+        /**
+         * Sets the maximum count of events in the overflow queue of a single sending thread
+         * when the {@linkplain BufferOverflowPolicy#SPILL_TO_OVERFLOW_QUEUE} policy is used.
+         * By default, the value {@code 1024} is used.
+         *
+         * @param overflowQueueCapacity the capacity of the overflow queue, cannot be {@code overflowQueueCapacity < 0}.
+         * @return cannot be {@code null}.
+         * @see CacheBusTransportConfiguration#overflowQueueCapacity()
+         */
+        @Nonnull
+        public Builder setOverflowQueueCapacity(@Nonnegative final int overflowQueueCapacity) {
+            this.overflowQueueCapacity = overflowQueueCapacity;
+            return this;
+        }
+
+        /**
+         * Sets the configuration of the outbox of outgoing events.<br>
+         * Only applicable if asynchronous sending is enabled, {@code useAsyncSending(true)}.
+         * By default, the outbox is not used.
+         *
+         * @param outboxConfiguration the outbox configuration, can be {@code null}.
+         * @return cannot be {@code null}.
+         * @see CacheBusTransportConfiguration#outboxConfiguration()
+         */
+        @Nonnull
+        public Builder setOutboxConfiguration(@Nullable final OutboxConfiguration outboxConfiguration) {
+            this.outboxConfiguration = outboxConfiguration;
+            return this;
+        }
+
+        /**
+         * Registers the additional converter with the codec identifier. The converter is used for the events of the caches
+         * with this {@linkplain ru.joke.cache.bus.core.configuration.CacheConfiguration#codecId() codec identifier}.
+         * By default, only the default converter is used for all caches.
+         *
+         * @param codecId   the codec identifier of the converter in range {@code [1, 255]}.
+         * @param converter the converter, cannot be {@code null}.
+         * @return cannot be {@code null}.
+         * @throws ConfigurationException if the converter with the same identifier is already registered
+         * @see CacheBusTransportConfiguration#codecConverters()
+         */
+        @Nonnull
+        public Builder addCodecConverter(final int codecId, @Nonnull final CacheEntryEventConverter converter) {
+            if (this.codecConverters.putIfAbsent(codecId, Objects.requireNonNull(converter, "converter")) != null) {
+                throw new ConfigurationException("Converter with codec id " + codecId + " is already registered");
+            }
+
+            return this;
+        }
+
+        /**
+         * Sets the registry of the value codecs used to compute the fingerprints of the old values of the elements
+         * of the replicated caches. By default, the registry with the built-in codecs is used
+         * ({@linkplain ValueCodecRegistry#createDefault()}).
+         *
+         * @param valueCodecRegistry the registry of the value codecs, cannot be {@code null}.
+         * @return cannot be {@code null}.
+         * @see CacheBusTransportConfiguration#valueCodecRegistry()
+         */
+        @Nonnull
+        public Builder setValueCodecRegistry(@Nonnull final ValueCodecRegistry valueCodecRegistry) {
+            this.valueCodecRegistry = valueCodecRegistry;
+            return this;
+        }
+
         /**
          * Creates a transport bus configuration object based on the provided data.
          *
@@ -248,10 +526,22 @@ public record ImmutableCacheBusTransportConfiguration(
                     this.processingPool,
                     this.maxConcurrentProcessingThreads,
                     this.maxProcessingThreadBufferCapacity,
+                    this.useFlyweightReceiving,
                     this.useAsyncSending,
                     this.asyncSendingPool,
                     this.maxAsyncSendingThreads,
-                    this.maxAsyncSendingThreadBufferCapacity
+                    this.maxAsyncSendingThreadBufferCapacity,
+                    this.maxAsyncSendingBatchSize,
+                    this.asyncSendingBatchLingerTimeMs,
+                    this.asyncSendingCoalescingWindowMs,
+                    this.bufferWaitStrategy,
+                    this.useVirtualThreads,
+                    this.bufferOverflowPolicy,
+                    this.bufferOfferTimeoutMs,
+                    this.overflowQueueCapacity,
+                    this.outboxConfiguration,
+                    Map.copyOf(this.codecConverters),
+                    this.valueCodecRegistry
             );
         }
     }
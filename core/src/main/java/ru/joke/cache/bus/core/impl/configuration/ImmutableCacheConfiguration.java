@@ -1,5 +1,6 @@
 package ru.joke.cache.bus.core.impl.configuration;
 
+import ru.joke.cache.bus.core.configuration.BufferOverflowPolicy;
 import ru.joke.cache.bus.core.configuration.CacheConfiguration;
 import ru.joke.cache.bus.core.configuration.CacheType;
 import ru.joke.cache.bus.core.configuration.InvalidCacheConfigurationException;
@@ -21,6 +22,11 @@ import java.util.concurrent.TimeUnit;
  * @param useTimestampBasedComparison indicates whether timestamps should be used to determine the need for applying changes to the local cache.
  * @param timestampConfiguration      configuration for working with cache element timestamps, cannot be omitted
  *                                    if {@code useTimestampBasedComparison == true}.
+ * @param bufferOverflowPolicy        the policy of handling the events of the cache when the sending buffer is full;
+ *                                    if empty, the bus policy is used; cannot be {@code null}.
+ * @param codecId                     the identifier of the converter of the events of the cache;
+ *                                    if empty, the default converter of the bus is used; cannot be {@code null}.
+ * @param useOldValueFingerprints     indicates whether the fingerprints of the old values are sent instead of the old values.
  * @author Alik
  * @see CacheConfiguration
  */
@@ -31,14 +37,55 @@ public record ImmutableCacheConfiguration(
         @Nonnull CacheType cacheType,
         @Nonnull Set<String> cacheAliases,
         boolean useTimestampBasedComparison,
-        @Nonnegative Optional<TimestampCacheConfiguration> timestampConfiguration) implements CacheConfiguration {
+        @Nonnegative Optional<TimestampCacheConfiguration> timestampConfiguration,
+        @Nonnull Optional<BufferOverflowPolicy> bufferOverflowPolicy,
+        @Nonnull Optional<Integer> codecId,
+        boolean useOldValueFingerprints) implements CacheConfiguration {
+
+    /**
+     * Maximal identifier of the converter: the identifier is written as a single byte, the identifier {@code 0} is reserved
+     * for the default converter of the bus.
+     */
+    public static final int MAX_CODEC_ID = 255;
 
     public ImmutableCacheConfiguration(@Nonnull String cacheName, @Nonnull CacheType cacheType) {
         this(cacheName, cacheType, Collections.emptySet(), false, Optional.empty());
     }
 
+    public ImmutableCacheConfiguration(
+            @Nonnull String cacheName,
+            @Nonnull CacheType cacheType,
+            @Nonnull Set<String> cacheAliases,
+            boolean useTimestampBasedComparison,
+            @Nonnull Optional<TimestampCacheConfiguration> timestampConfiguration) {
+        this(cacheName, cacheType, cacheAliases, useTimestampBasedComparison, timestampConfiguration, Optional.empty());
+    }
+
+    public ImmutableCacheConfiguration(
+            @Nonnull String cacheName,
+            @Nonnull CacheType cacheType,
+            @Nonnull Set<String> cacheAliases,
+            boolean useTimestampBasedComparison,
+            @Nonnull Optional<TimestampCacheConfiguration> timestampConfiguration,
+            @Nonnull Optional<BufferOverflowPolicy> bufferOverflowPolicy) {
+        this(cacheName, cacheType, cacheAliases, useTimestampBasedComparison, timestampConfiguration, bufferOverflowPolicy, Optional.empty());
+    }
+
+    public ImmutableCacheConfiguration(
+            @Nonnull String cacheName,
+            @Nonnull CacheType cacheType,
+            @Nonnull Set<String> cacheAliases,
+            boolean useTimestampBasedComparison,
+            @Nonnull Optional<TimestampCacheConfiguration> timestampConfiguration,
+            @Nonnull Optional<BufferOverflowPolicy> bufferOverflowPolicy,
+            @Nonnull Optional<Integer> codecId) {
+        this(cacheName, cacheType, cacheAliases, useTimestampBasedComparison, timestampConfiguration, bufferOverflowPolicy, codecId, false);
+    }
+
     public ImmutableCacheConfiguration {
         Objects.requireNonNull(cacheType, "cacheType");
+        Objects.requireNonNull(bufferOverflowPolicy, "bufferOverflowPolicy");
+        Objects.requireNonNull(codecId, "codecId");
 
         if (cacheName == null || cacheName.isEmpty()) {
             throw new InvalidCacheConfigurationException("cacheName must be not empty");
@@ -51,6 +98,14 @@ public record ImmutableCacheConfiguration(
         if (useTimestampBasedComparison && timestampConfiguration.isEmpty()) {
             throw new InvalidCacheConfigurationException("When stamp based comparison enabled then timestamp configuration must present");
         }
+
+        if (codecId.isPresent() && (codecId.get() <= 0 || codecId.get() > MAX_CODEC_ID)) {
+            throw new InvalidCacheConfigurationException("codecId must be in range [1, " + MAX_CODEC_ID + "]");
+        }
+
+        if (useOldValueFingerprints && cacheType != CacheType.REPLICATED) {
+            throw new InvalidCacheConfigurationException("Old value fingerprints allowed only for replicated cache");
+        }
     }
 
     @Override
@@ -90,6 +145,9 @@ public record ImmutableCacheConfiguration(
         private boolean useTimestampBasedComparison;
         private TimestampCacheConfiguration timestampConfiguration = new ImmutableTimestampCacheConfiguration(128, TimeUnit.MINUTES.toMillis(30));
         private final Set<String> cacheAliases = new HashSet<>();
+        private BufferOverflowPolicy bufferOverflowPolicy;
+        private Integer codecId;
+        private boolean useOldValueFingerprints;
 
         /**
          * Sets the name of the local cache.
@@ -173,6 +231,51 @@ public record ImmutableCacheConfiguration(
             return this;
         }
 
+        /**
+         * Sets the policy of handling the events of the cache when the buffer of the asynchronous sending thread is full.
+         * By default, the policy is not set and the bus policy is used.
+         *
+         * @param bufferOverflowPolicy the buffer overflow policy of the cache, can be {@code null}.
+         * @return cannot be {@code null}.
+         * @see CacheConfiguration#bufferOverflowPolicy()
+         */
+        @Nonnull
+        public Builder setBufferOverflowPolicy(final BufferOverflowPolicy bufferOverflowPolicy) {
+            this.bufferOverflowPolicy = bufferOverflowPolicy;
+            return this;
+        }
+
+        /**
+         * Sets the identifier of the converter used for the events of the cache. The converter must be registered
+         * in the transport configuration of the bus with this identifier. By default, the identifier is not set
+         * and the default converter of the bus is used.
+         *
+         * @param codecId the identifier of the converter in range {@code [1, 255]}, can be {@code null}.
+         * @return cannot be {@code null}.
+         * @see CacheConfiguration#codecId()
+         */
+        @Nonnull
+        public Builder setCodecId(final Integer codecId) {
+            this.codecId = codecId;
+            return this;
+        }
+
+        /**
+         * Sets the flag indicating whether the events of the replicated cache should carry the fingerprints of the old values
+         * of the elements instead of the old values.<br>
+         * Before setting the value, carefully review the documentation for {@linkplain CacheConfiguration#useOldValueFingerprints()}.<br>
+         * By default, {@code false}.
+         *
+         * @param useOldValueFingerprints the flag indicating whether the fingerprints of the old values should be used.
+         * @return cannot be {@code null}.
+         * @see CacheConfiguration#useOldValueFingerprints()
+         */
+        @Nonnull
+        public Builder useOldValueFingerprints(final boolean useOldValueFingerprints) {
+            this.useOldValueFingerprints = useOldValueFingerprints;
+            return this;
+        }
+
         /**
          * Creates a cache configuration object based on the provided data.
          *
@@ -185,7 +288,10 @@ public record ImmutableCacheConfiguration(
                     this.cacheType,
                     new HashSet<>(this.cacheAliases),
                     this.useTimestampBasedComparison,
-                    Optional.ofNullable(this.timestampConfiguration)
+                    Optional.ofNullable(this.timestampConfiguration),
+                    Optional.ofNullable(this.bufferOverflowPolicy),
+                    Optional.ofNullable(this.codecId),
+                    this.useOldValueFingerprints
             );
         }
     }
@@ -0,0 +1,53 @@
+package ru.joke.cache.bus.core.impl.configuration;
+
+import ru.joke.cache.bus.core.configuration.CacheBusTransportConfiguration;
+import ru.joke.cache.bus.core.configuration.ConfigurationException;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * Immutable implementation of the outbox configuration.
+ *
+ * @param directory       the directory of the journal, cannot be {@code null}.
+ * @param segmentSize     the size in bytes of a single segment of the journal, must be not less than {@code 4096}.
+ * @param retryIntervalMs the interval in milliseconds between attempts to send the journaled events, cannot be negative.
+ * @author Alik
+ * @see CacheBusTransportConfiguration.OutboxConfiguration
+ */
+@ThreadSafe
+@Immutable
+public record ImmutableOutboxConfiguration(
+        @Nonnull Path directory,
+        @Nonnegative int segmentSize,
+        @Nonnegative long retryIntervalMs) implements CacheBusTransportConfiguration.OutboxConfiguration {
+
+    private static final int MIN_SEGMENT_SIZE = 4096;
+    private static final int DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024;
+    private static final long DEFAULT_RETRY_INTERVAL_MS = 1_000;
+
+    public ImmutableOutboxConfiguration {
+        Objects.requireNonNull(directory, "directory");
+
+        if (segmentSize < MIN_SEGMENT_SIZE) {
+            throw new ConfigurationException("segmentSize must be not less than " + MIN_SEGMENT_SIZE + " bytes");
+        }
+
+        if (retryIntervalMs < 0) {
+            throw new ConfigurationException("retryIntervalMs cannot be negative");
+        }
+    }
+
+    /**
+     * Creates the configuration with the default segment size ({@code 16} MB) and retry interval ({@code 1} second).
+     *
+     * @param directory the directory of the journal, cannot be {@code null}.
+     */
+    public ImmutableOutboxConfiguration(@Nonnull Path directory) {
+        this(directory, DEFAULT_SEGMENT_SIZE, DEFAULT_RETRY_INTERVAL_MS);
+    }
+}
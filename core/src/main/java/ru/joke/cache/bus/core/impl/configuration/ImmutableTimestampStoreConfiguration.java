@@ -0,0 +1,70 @@
+package ru.joke.cache.bus.core.impl.configuration;
+
+import ru.joke.cache.bus.core.configuration.CacheBusConfiguration;
+import ru.joke.cache.bus.core.configuration.ConfigurationException;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.nio.file.Path;
+
+/**
+ * Immutable implementation of the compact timestamp storage configuration.
+ *
+ * @param useOffHeapMemory   whether the tables of the storage should be allocated in off-heap memory.
+ * @param maxMemoryBytes     the maximum amount of memory in bytes for the tables of all caches, must be positive.
+ * @param concurrencyLevel   the number of stripes of the table of each cache, must be the positive power of two.
+ * @param snapshotDirectory  the directory of the snapshot of the storage, can be {@code null}.
+ * @param snapshotIntervalMs the interval in milliseconds between the snapshots, must be positive if the directory is specified.
+ * @author Alik
+ * @see CacheBusConfiguration.TimestampStoreConfiguration
+ */
+@ThreadSafe
+@Immutable
+public record ImmutableTimestampStoreConfiguration(
+        boolean useOffHeapMemory,
+        @Nonnegative long maxMemoryBytes,
+        @Nonnegative int concurrencyLevel,
+        @Nullable Path snapshotDirectory,
+        @Nonnegative long snapshotIntervalMs) implements CacheBusConfiguration.TimestampStoreConfiguration {
+
+    private static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+    public ImmutableTimestampStoreConfiguration {
+        if (maxMemoryBytes <= 0) {
+            throw new ConfigurationException("maxMemoryBytes must be positive");
+        }
+
+        if (concurrencyLevel <= 0 || Integer.bitCount(concurrencyLevel) != 1) {
+            throw new ConfigurationException("concurrencyLevel must be the positive power of two");
+        }
+
+        if (snapshotDirectory != null && snapshotIntervalMs <= 0) {
+            throw new ConfigurationException("snapshotIntervalMs must be positive when snapshot directory is specified");
+        }
+    }
+
+    /**
+     * Creates the configuration of the storage without snapshots.
+     *
+     * @param useOffHeapMemory whether the tables of the storage should be allocated in off-heap memory.
+     * @param maxMemoryBytes   the maximum amount of memory in bytes for the tables of all caches, must be positive.
+     * @param concurrencyLevel the number of stripes of the table of each cache, must be the positive power of two.
+     */
+    public ImmutableTimestampStoreConfiguration(
+            boolean useOffHeapMemory,
+            @Nonnegative long maxMemoryBytes,
+            @Nonnegative int concurrencyLevel) {
+        this(useOffHeapMemory, maxMemoryBytes, concurrencyLevel, null, 0);
+    }
+
+    /**
+     * Creates the configuration of the storage in the heap without snapshots with the default concurrency level ({@code 16}).
+     *
+     * @param maxMemoryBytes the maximum amount of memory in bytes for the tables of all caches, must be positive.
+     */
+    public ImmutableTimestampStoreConfiguration(@Nonnegative long maxMemoryBytes) {
+        this(false, maxMemoryBytes, DEFAULT_CONCURRENCY_LEVEL);
+    }
+}
@@ -46,6 +46,9 @@ public final class XmlCacheConfigurationSource implements CacheConfigurationSour
     private static final String CACHE_NAME_ATTR = "name";
     private static final String CACHE_TYPE_ATTR = "type";
     private static final String CACHE_STAMP_BASED_COMPARISON_ATTR = "timestamp-based-comparison";
+    private static final String CACHE_BUFFER_OVERFLOW_POLICY_ATTR = "buffer-overflow-policy";
+    private static final String CACHE_CODEC_ID_ATTR = "codec-id";
+    private static final String CACHE_OLD_VALUE_FINGERPRINTS_ATTR = "old-value-fingerprints";
     private static final String CACHE_TSC_ELEMENT = "timestamp-configuration";
     private static final String CACHE_TSC_AVG_ELEMENTS_COUNT_ATTR = "probable-avg-elements-count";
     private static final String CACHE_TSC_TIMESTAMP_EXPIRATION_ATTR = "timestamp-expiration";
@@ -115,6 +118,15 @@ public final class XmlCacheConfigurationSource implements CacheConfigurationSour
             final boolean stampBasedComparison = Boolean.parseBoolean(cacheElement.getAttribute(CACHE_STAMP_BASED_COMPARISON_ATTR));
 
             final CacheConfiguration.TimestampCacheConfiguration timestampCacheConfiguration = createTimestampConfiguration(cacheElement);
+            final String bufferOverflowPolicyString = cacheElement.getAttribute(CACHE_BUFFER_OVERFLOW_POLICY_ATTR);
+            final BufferOverflowPolicy bufferOverflowPolicy =
+                    bufferOverflowPolicyString.isEmpty()
+                            ? null
+                            : BufferOverflowPolicy.valueOf(bufferOverflowPolicyString.toUpperCase().replace('-', '_'));
+
+            final String codecIdString = cacheElement.getAttribute(CACHE_CODEC_ID_ATTR);
+            final Integer codecId = codecIdString.isEmpty() ? null : Integer.valueOf(codecIdString);
+            final boolean useOldValueFingerprints = Boolean.parseBoolean(cacheElement.getAttribute(CACHE_OLD_VALUE_FINGERPRINTS_ATTR));
 
             final ImmutableCacheConfiguration.Builder builder = ImmutableCacheConfiguration.builder();
             if (stampBasedComparison && timestampCacheConfiguration != null) {
@@ -127,6 +139,9 @@ public final class XmlCacheConfigurationSource implements CacheConfigurationSour
                             .setCacheType(cacheType)
                             .setCacheAliases(aliases)
                             .useTimestampBasedComparison(stampBasedComparison)
+                            .setBufferOverflowPolicy(bufferOverflowPolicy)
+                            .setCodecId(codecId)
+                            .useOldValueFingerprints(useOldValueFingerprints)
                     .build();
             result.add(cacheConfiguration);
         }
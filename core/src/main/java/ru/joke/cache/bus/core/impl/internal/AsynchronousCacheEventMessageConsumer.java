@@ -8,6 +8,8 @@ import ru.joke.cache.bus.core.metrics.CacheBusMetricsRegistry;
 import ru.joke.cache.bus.core.metrics.KnownMetrics;
 import ru.joke.cache.bus.core.metrics.Metrics;
 import ru.joke.cache.bus.core.state.ComponentState;
+import ru.joke.cache.bus.core.transport.CacheEntryBatchFrame;
+import ru.joke.cache.bus.core.transport.CacheEntryEventConverter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -19,12 +21,15 @@ import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.function.UnaryOperator;
 
 /**
  * Implementation of an asynchronous message consumer from a channel based on circular buffers.
  * The receiving thread from the channel puts the message into the corresponding circular buffer,
  * calculated based on the hash key of the message (to ensure sequential processing of messages with
- * the same key in one cache).
+ * the same key in one cache).<br>
+ * Multi-event frames are split once, and their messages are put into the circular buffers in groups, one group per buffer,
+ * preserving the order of messages within the frame.
  *
  * @author Alik
  * @see RingBuffer
@@ -42,12 +47,32 @@ public final class AsynchronousCacheEventMessageConsumer implements CacheEventMe
     private final StripedRingBuffersContainer<byte[]> messageBuffers;
     private final List<Future<?>> processingTasks;
     private final AsyncMessageProcessingState state;
+    private final UnaryOperator<byte[]> frameDecoder;
 
     public AsynchronousCacheEventMessageConsumer(
             @Nonnull final CacheBus cacheBus,
             @Nonnull CacheBusMetricsRegistry metrics,
             @Nonnull final StripedRingBuffersContainer<byte[]> messageBuffers,
             @Nonnull final ExecutorService processingPool) {
+        this(cacheBus, metrics, messageBuffers, processingPool, UnaryOperator.identity());
+    }
+
+    public AsynchronousCacheEventMessageConsumer(
+            @Nonnull final CacheBus cacheBus,
+            @Nonnull CacheBusMetricsRegistry metrics,
+            @Nonnull final StripedRingBuffersContainer<byte[]> messageBuffers,
+            @Nonnull final ExecutorService processingPool,
+            @Nonnull final CacheEntryEventConverter converter) {
+        this(cacheBus, metrics, messageBuffers, processingPool, (UnaryOperator<byte[]>) converter::decodeBatchFrame);
+    }
+
+    private AsynchronousCacheEventMessageConsumer(
+            final CacheBus cacheBus,
+            final CacheBusMetricsRegistry metrics,
+            final StripedRingBuffersContainer<byte[]> messageBuffers,
+            final ExecutorService processingPool,
+            final UnaryOperator<byte[]> frameDecoder) {
+        this.frameDecoder = frameDecoder;
         this.messageBuffers = Objects.requireNonNull(messageBuffers, "messageBuffers");
         this.metrics = metrics;
         this.state = new AsyncMessageProcessingState(CONSUMER_ID, "Count of interrupted threads on processing messages from channel: %d", messageBuffers.size());
@@ -68,6 +93,35 @@ public final class AsynchronousCacheEventMessageConsumer implements CacheEventMe
         );
     }
 
+    @Override
+    public void acceptBatch(@Nonnull byte[] batchMessageBody) {
+
+        @SuppressWarnings("unchecked")
+        final List<byte[]>[] messagesByBuffers = new List[this.messageBuffers.size()];
+        CacheEntryBatchFrame.split(this.frameDecoder.apply(batchMessageBody), (messageHash, messageBody) -> {
+            final int bufferIndex = computeBufferIndexByHash(messageHash);
+            List<byte[]> bufferMessages = messagesByBuffers[bufferIndex];
+            if (bufferMessages == null) {
+                messagesByBuffers[bufferIndex] = bufferMessages = new ArrayList<>();
+            }
+
+            bufferMessages.add(messageBody);
+        });
+
+        for (int i = 0; i < messagesByBuffers.length; i++) {
+            final List<byte[]> bufferMessages = messagesByBuffers[i];
+            if (bufferMessages == null) {
+                continue;
+            }
+
+            final RingBuffer<byte[]> ringBuffer = this.messageBuffers.get(i);
+            this.metrics.recordExecutionTime(
+                    KnownMetrics.CONSUMER_BUFFER_BLOCKING_OFFER_TIME,
+                    () -> offerAllToBuffer(ringBuffer, bufferMessages)
+            );
+        }
+    }
+
     @Nonnull
     @Override
     public ComponentState state() {
@@ -92,6 +146,20 @@ public final class AsynchronousCacheEventMessageConsumer implements CacheEventMe
         }
     }
 
+    private void offerAllToBuffer(final RingBuffer<byte[]> ringBuffer, final List<byte[]> messages) {
+
+        try {
+            if (ringBuffer.offerAll(messages)) {
+                logger.info("Buffer of messages to processing is full: maybe you should increase count of threads or buffers capacity?");
+                this.state.onBufferFull();
+            }
+        } catch (InterruptedException ex) {
+            logger.info("Thread was interrupted", ex);
+            this.metrics.incrementCounter(KnownMetrics.CONSUMER_INTERRUPTED_THREADS);
+            Thread.currentThread().interrupt();
+        }
+    }
+
     @Override
     public void close() {
         logger.info("Consumer closure was called");
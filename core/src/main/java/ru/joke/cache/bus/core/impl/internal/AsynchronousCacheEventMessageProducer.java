@@ -1,8 +1,10 @@
 package ru.joke.cache.bus.core.impl.internal;
 
 import ru.joke.cache.bus.core.CacheEntryEvent;
+import ru.joke.cache.bus.core.configuration.BufferOverflowPolicy;
 import ru.joke.cache.bus.core.configuration.CacheBusTransportConfiguration;
 import ru.joke.cache.bus.core.configuration.CacheConfiguration;
+import ru.joke.cache.bus.core.impl.MutableCacheEntryEvent;
 import ru.joke.cache.bus.core.impl.internal.util.RingBuffer;
 import ru.joke.cache.bus.core.impl.internal.util.StripedRingBuffersContainer;
 import ru.joke.cache.bus.core.metrics.CacheBusMetricsRegistry;
@@ -14,28 +16,46 @@ import javax.annotation.Nonnull;
 import javax.annotation.concurrent.Immutable;
 import javax.annotation.concurrent.ThreadSafe;
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Implementation of an asynchronous event sender to a channel based on circular buffers.
  * The sending thread to the channel puts the message into the corresponding circular buffer, calculated
- * based the hash key of the message (to ensure sequential sending of events with the same key in one cache).
+ * based the hash key of the message (to ensure sequential sending of events with the same key in one cache).<br>
+ * If batch sending is enabled ({@linkplain CacheBusTransportConfiguration#useBatchSending()}), each sending thread drains
+ * up to {@linkplain CacheBusTransportConfiguration#maxAsyncSendingBatchSize()} events from its buffer (waiting for new events
+ * no longer than {@linkplain CacheBusTransportConfiguration#asyncSendingBatchLingerTimeMs()}) and sends them to the channel
+ * as a single multi-event frame. The index of the buffer is used as the hash key of the batch, so the batches with events
+ * for the same key are always sent with the same hash.<br>
+ * If coalescing is enabled ({@linkplain CacheBusTransportConfiguration#useAsyncSendingCoalescing()}), each sending thread
+ * collects events from its buffer during the coalescing window and collapses pending events with the same key
+ * (see {@linkplain CacheEntryEventsCoalescer}) before sending them (in batches if batching is also enabled;
+ * in this case the coalescing window is used instead of the batch linger time).<br>
+ * If the buffer is full, the event is handled according to the {@linkplain BufferOverflowPolicy} of the cache
+ * ({@linkplain CacheConfiguration#bufferOverflowPolicy()}) or of the bus ({@linkplain CacheBusTransportConfiguration#bufferOverflowPolicy()}).
+ * The events dropped on overflow are escalated to the event for all entries of the cache, which is sent after
+ * all events queued before the drop (see {@linkplain ProducerStripe}).
  *
  * @author Alik
  * @see RingBuffer
  * @see StripedRingBuffersContainer
+ * @see BufferOverflowPolicy
  */
 @ThreadSafe
 @Immutable
 public final class AsynchronousCacheEventMessageProducer extends CacheEventMessageProducer {
 
     private static final String PRODUCER_ID = "async-message-producer";
+    private static final int MAX_COALESCED_EVENTS = 4096;
 
-    private final StripedRingBuffersContainer<CacheEntryEvent<?, ?>> eventBuffers;
+    private final List<ProducerStripe> stripes;
     private final List<Future<?>> sendingTasks;
     private final AsyncMessageProcessingState state;
 
@@ -45,24 +65,41 @@ public final class AsynchronousCacheEventMessageProducer extends CacheEventMessa
             @Nonnull final Map<String, CacheConfiguration> cacheConfigurations,
             @Nonnull final StripedRingBuffersContainer<CacheEntryEvent<?, ?>> eventBuffers) {
         super(metrics, transportConfiguration);
-        this.eventBuffers = Objects.requireNonNull(eventBuffers, "eventBuffers");
+        Objects.requireNonNull(eventBuffers, "eventBuffers");
+
+        final Set<BufferOverflowPolicy> overflowPolicies = collectOverflowPolicies(transportConfiguration, cacheConfigurations);
+        this.stripes = createStripes(eventBuffers, overflowPolicies);
         this.state = new AsyncMessageProcessingState(PRODUCER_ID, "Count of interrupted on produce to channel threads: %d", eventBuffers.size());
-        this.sendingTasks = startProcessingTasks(cacheConfigurations, eventBuffers);
+        this.sendingTasks = startProcessingTasks(cacheConfigurations);
 
         this.metrics.registerCounter(new Metrics.Counter(KnownMetrics.PRODUCER_INTERRUPTED_THREADS));
         this.metrics.registerTimer(new Metrics.Timer(KnownMetrics.PRODUCER_BUFFER_BLOCKING_OFFER_TIME));
+        if (transportConfiguration.useBatchSending()) {
+            this.metrics.registerSummary(new Metrics.Summary(KnownMetrics.PRODUCED_BATCH_SIZE, "events"));
+        }
+        if (transportConfiguration.useAsyncSendingCoalescing()) {
+            this.metrics.registerCounter(new Metrics.Counter(KnownMetrics.PRODUCER_COALESCED_EVENTS_COUNT));
+        }
+
+        registerOverflowMetrics(overflowPolicies);
     }
 
     @Override
     public void produce(@Nonnull CacheConfiguration cacheConfiguration, @Nonnull CacheEntryEvent<?, ?> event) {
 
-        final int bufferIndex = computeBufferIndexByHash(event.computeEventHashKey());
-        final RingBuffer<CacheEntryEvent<?, ?>> ringBuffer = this.eventBuffers.get(bufferIndex);
+        // The reusable carrier of the listener can't be kept in the buffer after the return from the method
+        final CacheEntryEvent<?, ?> bufferedEvent = event instanceof MutableCacheEntryEvent<?, ?> carrier ? carrier.toImmutable() : event;
+        final int bufferIndex = computeBufferIndexByHash(bufferedEvent.computeEventHashKey());
+        final ProducerStripe stripe = this.stripes.get(bufferIndex);
+        final BufferOverflowPolicy overflowPolicy = cacheConfiguration.bufferOverflowPolicy().orElse(this.transportConfiguration.bufferOverflowPolicy());
 
-        this.metrics.recordExecutionTime(
-                KnownMetrics.PRODUCER_BUFFER_BLOCKING_OFFER_TIME,
-                () -> offerToBuffer(ringBuffer, event)
-        );
+        if (overflowPolicy == BufferOverflowPolicy.BLOCK) {
+            final long startTime = System.nanoTime();
+            offerToBuffer(stripe.buffer(), bufferedEvent);
+            this.metrics.recordExecutionTime(KnownMetrics.PRODUCER_BUFFER_BLOCKING_OFFER_TIME, System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+        } else {
+            offerToBuffer(cacheConfiguration, stripe, bufferedEvent, overflowPolicy);
+        }
     }
 
     @Nonnull
@@ -79,7 +116,7 @@ public final class AsynchronousCacheEventMessageProducer extends CacheEventMessa
     }
 
     private int computeBufferIndexByHash(final int hash) {
-        return hash & (this.eventBuffers.size() - 1);
+        return hash & (this.stripes.size() - 1);
     }
 
     private void offerToBuffer(final RingBuffer<CacheEntryEvent<?, ?>> ringBuffer, final CacheEntryEvent<?, ?> event) {
@@ -95,29 +132,96 @@ public final class AsynchronousCacheEventMessageProducer extends CacheEventMessa
         }
     }
 
-    private List<Future<?>> startProcessingTasks(
-            @Nonnull final Map<String, CacheConfiguration> cacheConfigurations,
-            @Nonnull final StripedRingBuffersContainer<CacheEntryEvent<?, ?>> eventBuffers) {
+    private void offerToBuffer(
+            final CacheConfiguration cacheConfiguration,
+            final ProducerStripe stripe,
+            final CacheEntryEvent<?, ?> event,
+            final BufferOverflowPolicy overflowPolicy) {
+
+        try {
+            if (overflowPolicy == BufferOverflowPolicy.SPILL_TO_OVERFLOW_QUEUE) {
+                spillToOverflowQueue(stripe, event);
+                return;
+            }
+
+            if (stripe.buffer().offer(event, 0, TimeUnit.NANOSECONDS)) {
+                return;
+            }
+
+            this.state.onBufferFull();
+
+            switch (overflowPolicy) {
+                case BLOCK_WITH_TIMEOUT -> {
+                    if (!offerWithTimeout(stripe.buffer(), event)) {
+                        this.metrics.incrementCounter(KnownMetrics.PRODUCER_BUFFER_OFFER_TIMEOUTS_COUNT);
+                        dropAndEscalate(stripe, event);
+                    }
+                }
+                case SYNC_SEND -> {
+                    this.metrics.incrementCounter(KnownMetrics.PRODUCER_SYNC_FALLBACK_SENDS_COUNT);
+                    super.produce(cacheConfiguration, event);
+                }
+                default -> dropAndEscalate(stripe, event);
+            }
+        } catch (InterruptedException ex) {
+            this.logger.info("Thread was interrupted", ex);
+            Thread.currentThread().interrupt();
+            dropAndEscalate(stripe, event);
+        }
+    }
+
+    private boolean offerWithTimeout(
+            final RingBuffer<CacheEntryEvent<?, ?>> ringBuffer,
+            final CacheEntryEvent<?, ?> event) throws InterruptedException {
+
+        final long startTime = System.nanoTime();
+        try {
+            return ringBuffer.offer(event, this.transportConfiguration.bufferOfferTimeoutMs(), TimeUnit.MILLISECONDS);
+        } finally {
+            this.metrics.recordExecutionTime(KnownMetrics.PRODUCER_BUFFER_BLOCKING_OFFER_TIME, System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void spillToOverflowQueue(final ProducerStripe stripe, final CacheEntryEvent<?, ?> event) throws InterruptedException {
+
+        switch (stripe.spill(event)) {
+            case SPILLED -> {
+                this.state.onBufferFull();
+                this.metrics.incrementCounter(KnownMetrics.PRODUCER_SPILLED_EVENTS_COUNT);
+            }
+            case REJECTED -> {
+                this.state.onBufferFull();
+                dropAndEscalate(stripe, event);
+            }
+        }
+    }
+
+    private void dropAndEscalate(final ProducerStripe stripe, final CacheEntryEvent<?, ?> event) {
+
+        this.metrics.incrementCounter(KnownMetrics.PRODUCER_DROPPED_EVENTS_COUNT);
+        if (stripe.markForClear(event.cacheName())) {
+            this.logger.warn("Buffer of messages for producing to channel is full, events of cache {} are dropped and the cache will be cleared on other servers", event.cacheName());
+            this.metrics.incrementCounter(KnownMetrics.PRODUCER_CLEAR_CACHE_ESCALATIONS_COUNT);
+        }
+    }
+
+    private List<Future<?>> startProcessingTasks(@Nonnull final Map<String, CacheConfiguration> cacheConfigurations) {
 
         final ExecutorService sendingPool = this.transportConfiguration.asyncSendingPool();
         final List<Future<?>> futures = new ArrayList<>();
-        for (int i = 0; i < eventBuffers.size(); i++) {
-            final RingBuffer<CacheEntryEvent<?, ?>> eventBuffer = eventBuffers.get(i);
+        for (int i = 0; i < this.stripes.size(); i++) {
+            final ProducerStripe stripe = this.stripes.get(i);
 
-            registerBuffersGauge(i, eventBuffer);
+            registerBuffersGauge(i, stripe.buffer());
 
+            final int batchHashKey = i;
             final Future<?> future = sendingPool.submit(() -> {
-                while (!Thread.currentThread().isInterrupted()) {
-                    try {
-                        final CacheEntryEvent<?, ?> event = eventBuffer.poll();
-                        super.produce(cacheConfigurations.get(event.cacheName()), event);
-                    } catch (InterruptedException ex) {
-                        this.logger.info("Thread was interrupted", ex);
-                        this.state.increaseCountOfInterruptedThreads();
-                        this.metrics.incrementCounter(KnownMetrics.PRODUCER_INTERRUPTED_THREADS);
-
-                        return;
-                    }
+                if (this.transportConfiguration.useAsyncSendingCoalescing()) {
+                    sendCoalescedUntilInterrupted(cacheConfigurations, stripe, batchHashKey);
+                } else if (this.transportConfiguration.useBatchSending()) {
+                    sendBatchesUntilInterrupted(cacheConfigurations, stripe, batchHashKey);
+                } else {
+                    sendUntilInterrupted(cacheConfigurations, stripe);
                 }
             });
             futures.add(future);
@@ -126,6 +230,201 @@ public final class AsynchronousCacheEventMessageProducer extends CacheEventMessa
         return futures;
     }
 
+    private void sendUntilInterrupted(
+            final Map<String, CacheConfiguration> cacheConfigurations,
+            final ProducerStripe stripe) {
+
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                final CacheEntryEvent<?, ?> event = stripe.poll();
+                super.produce(cacheConfigurations.get(event.cacheName()), event);
+            } catch (InterruptedException ex) {
+                onInterruption(ex);
+                return;
+            }
+        }
+    }
+
+    private void sendBatchesUntilInterrupted(
+            final Map<String, CacheConfiguration> cacheConfigurations,
+            final ProducerStripe stripe,
+            final int batchHashKey) {
+
+        final int maxBatchSize = this.transportConfiguration.maxAsyncSendingBatchSize();
+        final long lingerTimeNanos = TimeUnit.MILLISECONDS.toNanos(this.transportConfiguration.asyncSendingBatchLingerTimeMs());
+        final List<CacheEntryEvent<?, ?>> batch = new ArrayList<>(maxBatchSize);
+
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(stripe.poll());
+                fillBatch(stripe, batch, maxBatchSize, System.nanoTime() + lingerTimeNanos);
+
+                super.produceBatch(cacheConfigurations, batch, batchHashKey);
+            } catch (InterruptedException ex) {
+                onInterruption(ex);
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void fillBatch(
+            final ProducerStripe stripe,
+            final List<CacheEntryEvent<?, ?>> batch,
+            final int maxBatchSize,
+            final long deadline) throws InterruptedException {
+
+        while (batch.size() < maxBatchSize) {
+            if (stripe.drainTo(batch, maxBatchSize - batch.size()) > 0) {
+                continue;
+            }
+
+            final long remaining = deadline - System.nanoTime();
+            final CacheEntryEvent<?, ?> event;
+            if (remaining <= 0 || (event = stripe.poll(remaining, TimeUnit.NANOSECONDS)) == null) {
+                return;
+            }
+
+            batch.add(event);
+        }
+    }
+
+    private void sendCoalescedUntilInterrupted(
+            final Map<String, CacheConfiguration> cacheConfigurations,
+            final ProducerStripe stripe,
+            final int batchHashKey) {
+
+        final CacheEntryEventsCoalescer coalescer = new CacheEntryEventsCoalescer(cacheConfigurations);
+        final long windowNanos = TimeUnit.MILLISECONDS.toNanos(this.transportConfiguration.asyncSendingCoalescingWindowMs());
+        final List<CacheEntryEvent<?, ?>> events = new ArrayList<>();
+
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                coalescer.add(stripe.poll());
+                collectWithinWindow(stripe, coalescer, events, System.nanoTime() + windowNanos);
+
+                this.metrics.increaseCounter(KnownMetrics.PRODUCER_COALESCED_EVENTS_COUNT, coalescer.resetAbsorbedEventsCount());
+
+                coalescer.drainTo(events);
+                sendCoalesced(cacheConfigurations, events, batchHashKey);
+            } catch (InterruptedException ex) {
+                onInterruption(ex);
+                return;
+            } finally {
+                events.clear();
+            }
+        }
+    }
+
+    private void collectWithinWindow(
+            final ProducerStripe stripe,
+            final CacheEntryEventsCoalescer coalescer,
+            final List<CacheEntryEvent<?, ?>> drainedEvents,
+            final long deadline) throws InterruptedException {
+
+        while (coalescer.size() < MAX_COALESCED_EVENTS) {
+            if (stripe.drainTo(drainedEvents, MAX_COALESCED_EVENTS) > 0) {
+                drainedEvents.forEach(coalescer::add);
+                drainedEvents.clear();
+                continue;
+            }
+
+            final long remaining = deadline - System.nanoTime();
+            final CacheEntryEvent<?, ?> event;
+            if (remaining <= 0 || (event = stripe.poll(remaining, TimeUnit.NANOSECONDS)) == null) {
+                return;
+            }
+
+            coalescer.add(event);
+        }
+    }
+
+    private void sendCoalesced(
+            final Map<String, CacheConfiguration> cacheConfigurations,
+            final List<CacheEntryEvent<?, ?>> events,
+            final int batchHashKey) {
+
+        if (!this.transportConfiguration.useBatchSending()) {
+            events.forEach(event -> super.produce(cacheConfigurations.get(event.cacheName()), event));
+            return;
+        }
+
+        final int maxBatchSize = this.transportConfiguration.maxAsyncSendingBatchSize();
+        for (int from = 0; from < events.size(); from += maxBatchSize) {
+            final List<CacheEntryEvent<?, ?>> batch = events.subList(from, Math.min(from + maxBatchSize, events.size()));
+            super.produceBatch(cacheConfigurations, batch, batchHashKey);
+        }
+    }
+
+    private void onInterruption(final InterruptedException ex) {
+        this.logger.info("Thread was interrupted", ex);
+        this.state.increaseCountOfInterruptedThreads();
+        this.metrics.incrementCounter(KnownMetrics.PRODUCER_INTERRUPTED_THREADS);
+    }
+
+    private static Set<BufferOverflowPolicy> collectOverflowPolicies(
+            final CacheBusTransportConfiguration transportConfiguration,
+            final Map<String, CacheConfiguration> cacheConfigurations) {
+
+        final Set<BufferOverflowPolicy> policies = EnumSet.of(transportConfiguration.bufferOverflowPolicy());
+        cacheConfigurations.values().forEach(config -> config.bufferOverflowPolicy().ifPresent(policies::add));
+
+        return policies;
+    }
+
+    private List<ProducerStripe> createStripes(
+            final StripedRingBuffersContainer<CacheEntryEvent<?, ?>> eventBuffers,
+            final Set<BufferOverflowPolicy> overflowPolicies) {
+
+        final int overflowQueueCapacity =
+                overflowPolicies.contains(BufferOverflowPolicy.SPILL_TO_OVERFLOW_QUEUE)
+                        ? this.transportConfiguration.overflowQueueCapacity()
+                        : 0;
+        final boolean escalationsPossible = overflowPolicies.stream().anyMatch(this::isEscalationPossible);
+
+        final List<ProducerStripe> result = new ArrayList<>(eventBuffers.size());
+        for (int i = 0; i < eventBuffers.size(); i++) {
+            result.add(new ProducerStripe(eventBuffers.get(i), overflowQueueCapacity, escalationsPossible));
+        }
+
+        return result;
+    }
+
+    private boolean isEscalationPossible(final BufferOverflowPolicy policy) {
+        return policy != BufferOverflowPolicy.BLOCK && policy != BufferOverflowPolicy.SYNC_SEND;
+    }
+
+    private void registerOverflowMetrics(final Set<BufferOverflowPolicy> overflowPolicies) {
+
+        if (overflowPolicies.contains(BufferOverflowPolicy.BLOCK_WITH_TIMEOUT)) {
+            this.metrics.registerCounter(new Metrics.Counter(KnownMetrics.PRODUCER_BUFFER_OFFER_TIMEOUTS_COUNT));
+        }
+
+        if (overflowPolicies.contains(BufferOverflowPolicy.SYNC_SEND)) {
+            this.metrics.registerCounter(new Metrics.Counter(KnownMetrics.PRODUCER_SYNC_FALLBACK_SENDS_COUNT));
+        }
+
+        if (overflowPolicies.contains(BufferOverflowPolicy.SPILL_TO_OVERFLOW_QUEUE)) {
+            this.metrics.registerCounter(new Metrics.Counter(KnownMetrics.PRODUCER_SPILLED_EVENTS_COUNT));
+            for (int i = 0; i < this.stripes.size(); i++) {
+                final Metrics.Gauge<ProducerStripe> overflowQueueSizeGauge = new Metrics.Gauge<>(
+                        KnownMetrics.PRODUCER_OVERFLOW_QUEUE_SIZE.id() + "." + i,
+                        this.stripes.get(i),
+                        ProducerStripe::overflowQueueSize,
+                        KnownMetrics.PRODUCER_OVERFLOW_QUEUE_SIZE.description(),
+                        KnownMetrics.PRODUCER_OVERFLOW_QUEUE_SIZE.tags()
+                );
+                this.metrics.registerGauge(overflowQueueSizeGauge);
+            }
+        }
+
+        if (overflowPolicies.stream().anyMatch(this::isEscalationPossible)) {
+            this.metrics.registerCounter(new Metrics.Counter(KnownMetrics.PRODUCER_DROPPED_EVENTS_COUNT));
+            this.metrics.registerCounter(new Metrics.Counter(KnownMetrics.PRODUCER_CLEAR_CACHE_ESCALATIONS_COUNT));
+        }
+    }
+
     private void registerBuffersGauge(final int bufferIdx, final RingBuffer<CacheEntryEvent<?, ?>> buffer) {
 
         final Metrics.Gauge<RingBuffer<CacheEntryEvent<?, ?>>> gaugeReadIndex = new Metrics.Gauge<>(
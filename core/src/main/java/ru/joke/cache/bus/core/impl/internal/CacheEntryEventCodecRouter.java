@@ -0,0 +1,257 @@
+package ru.joke.cache.bus.core.impl.internal;
+
+import ru.joke.cache.bus.core.CacheEntryEvent;
+import ru.joke.cache.bus.core.configuration.CacheBusTransportConfiguration;
+import ru.joke.cache.bus.core.configuration.CacheConfiguration;
+import ru.joke.cache.bus.core.configuration.ConfigurationException;
+import ru.joke.cache.bus.core.impl.configuration.ImmutableCacheConfiguration;
+import ru.joke.cache.bus.core.transport.CacheEntryEventConverter;
+import ru.joke.cache.bus.core.transport.LazyCacheEntryEvent;
+import ru.joke.cache.bus.core.transport.ReusableByteArrayOutputStream;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Router of the cache entry events between the converters of the bus by the codec identifiers.<br>
+ * If the additional converters are registered in the transport configuration ({@linkplain CacheBusTransportConfiguration#codecConverters()}),
+ * the binary representation of each event is prefixed with the one-byte identifier of the converter of the cache
+ * of the event ({@linkplain CacheConfiguration#codecId()}) or with {@code 0} for the default converter of the bus,
+ * and the received events are decoded by the converter of the identifier from the prefix. The decoders are looked up
+ * in the array by the identifier, so the routing doesn't add the lookups of the maps to the receiving path.<br>
+ * If no additional converters are registered, the events are converted by the default converter as is.
+ *
+ * @author Alik
+ * @see CacheBusTransportConfiguration#codecConverters()
+ * @see CacheConfiguration#codecId()
+ */
+@ThreadSafe
+@Immutable
+public final class CacheEntryEventCodecRouter {
+
+    private static final int DEFAULT_CODEC_ID = 0;
+    private static final int BUF_SIZE = 512;
+    private static final int MAX_RETAINED_BUF_SIZE = 64 * 1024;
+
+    private final CacheEntryEventConverter defaultConverter;
+    private final CacheEntryEventConverter[] convertersByCodecId;
+    private final ThreadLocal<ReusableByteArrayOutputStream> outputs = ThreadLocal.withInitial(() -> new ReusableByteArrayOutputStream(BUF_SIZE, MAX_RETAINED_BUF_SIZE));
+
+    public CacheEntryEventCodecRouter(@Nonnull CacheBusTransportConfiguration transportConfiguration) {
+        this.defaultConverter = transportConfiguration.converter();
+
+        final Map<Integer, CacheEntryEventConverter> codecConverters = transportConfiguration.codecConverters();
+        if (codecConverters.isEmpty()) {
+            this.convertersByCodecId = null;
+            return;
+        }
+
+        final CacheEntryEventConverter[] delegates = new CacheEntryEventConverter[ImmutableCacheConfiguration.MAX_CODEC_ID + 1];
+        delegates[DEFAULT_CODEC_ID] = this.defaultConverter;
+        codecConverters.forEach((codecId, converter) -> delegates[codecId] = converter);
+
+        this.convertersByCodecId = new CacheEntryEventConverter[delegates.length];
+        for (int codecId = 0; codecId < delegates.length; codecId++) {
+            if (delegates[codecId] != null) {
+                this.convertersByCodecId[codecId] = new CodecConverter(codecId, delegates, this.outputs);
+            }
+        }
+    }
+
+    /**
+     * Returns whether the events are prefixed with the codec identifiers.
+     *
+     * @return {@code true} if the additional converters are registered, {@code false} otherwise.
+     */
+    public boolean isRoutingEnabled() {
+        return this.convertersByCodecId != null;
+    }
+
+    /**
+     * Returns the converter of the events of the cache.
+     *
+     * @param cacheConfiguration the configuration of the cache, cannot be {@code null}.
+     * @return cannot be {@code null}.
+     */
+    @Nonnull
+    public CacheEntryEventConverter converterOf(@Nonnull CacheConfiguration cacheConfiguration) {
+        if (this.convertersByCodecId == null) {
+            return this.defaultConverter;
+        }
+
+        final CacheEntryEventConverter converter = this.convertersByCodecId[cacheConfiguration.codecId().orElse(DEFAULT_CODEC_ID)];
+        if (converter == null) {
+            throw new ConfigurationException("Converter with codec id " + cacheConfiguration.codecId().orElseThrow() + " isn't registered, cache: " + cacheConfiguration.cacheName());
+        }
+
+        return converter;
+    }
+
+    /**
+     * Returns the converter of the received events: the converter routes the decoding of the event
+     * to the converter of the codec identifier of the event.
+     *
+     * @return cannot be {@code null}.
+     */
+    @Nonnull
+    public CacheEntryEventConverter receivingConverter() {
+        return this.convertersByCodecId == null ? this.defaultConverter : this.convertersByCodecId[DEFAULT_CODEC_ID];
+    }
+
+    /**
+     * Checks that the converters of all caches are registered.
+     *
+     * @param cacheConfigurations the configurations of the caches, cannot be {@code null}.
+     * @throws ConfigurationException if the converter of any cache isn't registered
+     */
+    public void checkConverters(@Nonnull Collection<CacheConfiguration> cacheConfigurations) {
+        cacheConfigurations.forEach(this::converterOf);
+    }
+
+    private static final class CodecConverter implements CacheEntryEventConverter {
+
+        private final byte codecId;
+        private final CacheEntryEventConverter delegate;
+        private final CacheEntryEventConverter[] delegates;
+        private final ThreadLocal<ReusableByteArrayOutputStream> outputs;
+
+        private CodecConverter(
+                final int codecId,
+                final CacheEntryEventConverter[] delegates,
+                final ThreadLocal<ReusableByteArrayOutputStream> outputs) {
+            this.codecId = (byte) codecId;
+            this.delegate = delegates[codecId];
+            this.delegates = delegates;
+            this.outputs = outputs;
+        }
+
+        @Nonnull
+        @Override
+        public <K extends Serializable, V extends Serializable> byte[] toBinary(@Nonnull CacheEntryEvent<K, V> event, boolean serializeValueFields) {
+            final byte[] body = this.delegate.toBinary(event, serializeValueFields);
+
+            final byte[] result = new byte[body.length + 1];
+            result[0] = this.codecId;
+            System.arraycopy(body, 0, result, 1, body.length);
+
+            return result;
+        }
+
+        @Nonnull
+        @Override
+        public <K extends Serializable, V extends Serializable> byte[] toBatchBinary(@Nonnull CacheEntryEvent<K, V> event, boolean serializeValueFields) {
+            // The frame is encoded by the default converter, so only its events can skip the transformations applied to the frame
+            final byte[] body = this.delegate == this.delegates[DEFAULT_CODEC_ID]
+                    ? this.delegate.toBatchBinary(event, serializeValueFields)
+                    : this.delegate.toBinary(event, serializeValueFields);
+
+            final byte[] result = new byte[body.length + 1];
+            result[0] = this.codecId;
+            System.arraycopy(body, 0, result, 1, body.length);
+
+            return result;
+        }
+
+        @Nonnull
+        @Override
+        public <K extends Serializable, V extends Serializable> ByteBuffer toBuffer(@Nonnull CacheEntryEvent<K, V> event, boolean serializeValueFields) {
+            final ByteBuffer body = this.delegate.toBuffer(event, serializeValueFields);
+
+            final ReusableByteArrayOutputStream output = this.outputs.get();
+            output.reset();
+            output.write(this.codecId);
+
+            if (body.hasArray()) {
+                output.write(body.array(), body.arrayOffset() + body.position(), body.remaining());
+            } else {
+                final int position = body.position();
+                while (body.hasRemaining()) {
+                    output.write(body.get());
+                }
+
+                body.position(position);
+            }
+
+            return output.toByteBuffer();
+        }
+
+        @Nonnull
+        @Override
+        public <K extends Serializable, V extends Serializable> CacheEntryEvent<K, V> fromBinary(@Nonnull byte[] data) {
+            return decoderOf(data).fromBuffer(ByteBuffer.wrap(data, 1, data.length - 1).slice());
+        }
+
+        @Nonnull
+        @Override
+        public <K extends Serializable, V extends Serializable> CacheEntryEvent<K, V> fromBuffer(@Nonnull ByteBuffer data) {
+            return decoderOf(data).fromBuffer(bodyOf(data));
+        }
+
+        @Nonnull
+        @Override
+        public <K extends Serializable, V extends Serializable> CacheEntryEvent<K, V> fromBinary(
+                @Nonnull byte[] data,
+                @Nonnull LazyCacheEntryEvent<K, V> flyweight) {
+            return decoderOf(data).fromBuffer(ByteBuffer.wrap(data, 1, data.length - 1).slice(), flyweight);
+        }
+
+        @Nonnull
+        @Override
+        public <K extends Serializable, V extends Serializable> CacheEntryEvent<K, V> fromBuffer(
+                @Nonnull ByteBuffer data,
+                @Nonnull LazyCacheEntryEvent<K, V> flyweight) {
+            return decoderOf(data).fromBuffer(bodyOf(data), flyweight);
+        }
+
+        @Nonnull
+        @Override
+        public byte[] encodeBatchFrame(@Nonnull byte[] frame) {
+            return this.delegates[DEFAULT_CODEC_ID].encodeBatchFrame(frame);
+        }
+
+        @Nonnull
+        @Override
+        public byte[] decodeBatchFrame(@Nonnull byte[] data) {
+            return this.delegates[DEFAULT_CODEC_ID].decodeBatchFrame(data);
+        }
+
+        private CacheEntryEventConverter decoderOf(final ByteBuffer data) {
+            if (!data.hasRemaining()) {
+                throw new IllegalArgumentException("Event data is empty");
+            }
+
+            return decoderOf(data.get(data.position()) & 0xFF);
+        }
+
+        private CacheEntryEventConverter decoderOf(final byte[] data) {
+            if (data.length == 0) {
+                throw new IllegalArgumentException("Event data is empty");
+            }
+
+            return decoderOf(data[0] & 0xFF);
+        }
+
+        private CacheEntryEventConverter decoderOf(final int codecId) {
+            final CacheEntryEventConverter decoder = this.delegates[codecId];
+            if (decoder == null) {
+                throw new IllegalArgumentException("Converter with codec id " + codecId + " isn't registered");
+            }
+
+            return decoder;
+        }
+
+        private static ByteBuffer bodyOf(final ByteBuffer data) {
+            return data.slice(data.position() + 1, data.remaining() - 1);
+        }
+
+        @Override
+        public String toString() {
+            return "CodecConverter{" + "codecId=" + (this.codecId & 0xFF) + ", delegate=" + this.delegate + '}';
+        }
+    }
+}
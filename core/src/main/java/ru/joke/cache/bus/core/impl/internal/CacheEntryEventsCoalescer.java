@@ -0,0 +1,180 @@
+package ru.joke.cache.bus.core.impl.internal;
+
+import ru.joke.cache.bus.core.CacheEntryEvent;
+import ru.joke.cache.bus.core.CacheEntryEventType;
+import ru.joke.cache.bus.core.configuration.CacheConfiguration;
+import ru.joke.cache.bus.core.configuration.CacheType;
+import ru.joke.cache.bus.core.impl.ImmutableCacheEntryEvent;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.NotThreadSafe;
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * Coalescing stage of the pending outgoing cache element change events.<br>
+ * Collapses pending events with the same key in one cache into a single event:
+ * <ul>
+ * <li>for invalidation caches, only the last event is kept, since only the last invalidation matters;</li>
+ * <li>for replicated caches, the collapsed event has the old value of the first pending event and the new value
+ * of the last one, so that the conflict check on the receiving side still compares against the value before the burst;</li>
+ * <li>{@linkplain CacheEntryEventType#UPDATED} events whose new value is equal to the old value are dropped;</li>
+ * <li>once the event with key {@linkplain CacheEntryEvent#ALL_ENTRIES_KEY} is added for a cache,
+ * all pending events of that cache are discarded;</li>
+ * <li>{@linkplain CacheEntryEventType#DELTA} events are never collapsed, since each element-level modification
+ * must be applied on the receiving side in turn: the event is a barrier that flushes the pending event with the same key
+ * (together with the events pending before it, so the order relative to the clearing of the cache is kept).</li>
+ * </ul>
+ * The order of events for the same key (and relative to the clearing of the cache) is preserved.<br>
+ * Each instance is intended to be used by a single sending thread.
+ *
+ * @author Alik
+ * @see AsynchronousCacheEventMessageProducer
+ */
+@NotThreadSafe
+final class CacheEntryEventsCoalescer {
+
+    private final Map<String, CacheConfiguration> cacheConfigurations;
+    private final Map<CoalescingKey, CacheEntryEvent<?, ?>> pendingEvents = new LinkedHashMap<>();
+    private final List<CacheEntryEvent<?, ?>> flushedEvents = new ArrayList<>();
+
+    private int absorbedEventsCount;
+
+    CacheEntryEventsCoalescer(@Nonnull final Map<String, CacheConfiguration> cacheConfigurations) {
+        this.cacheConfigurations = Objects.requireNonNull(cacheConfigurations, "cacheConfigurations");
+    }
+
+    /**
+     * Adds the event to the pending events, collapsing it with the pending event with the same key.
+     *
+     * @param event the event to add, cannot be {@code null}.
+     */
+    void add(@Nonnull final CacheEntryEvent<?, ?> event) {
+
+        if (isNoOpUpdate(event)) {
+            this.absorbedEventsCount++;
+            return;
+        }
+
+        if (CacheEntryEvent.ALL_ENTRIES_KEY.equals(event.key())) {
+            discardPendingEventsOfCache(event.cacheName());
+        }
+
+        final CoalescingKey key = new CoalescingKey(event.cacheName(), event.key());
+        final CacheEntryEvent<?, ?> pendingEvent = this.pendingEvents.get(key);
+        if (pendingEvent == null) {
+            this.pendingEvents.put(key, event);
+            return;
+        }
+
+        if (pendingEvent.eventType() == CacheEntryEventType.DELTA || event.eventType() == CacheEntryEventType.DELTA) {
+            flushPendingEventsUpTo(key);
+            this.pendingEvents.put(key, event);
+            return;
+        }
+
+        this.absorbedEventsCount++;
+
+        final CacheEntryEvent<?, ?> collapsedEvent = collapse(pendingEvent, event);
+        if (collapsedEvent == null) {
+            this.pendingEvents.remove(key);
+            this.absorbedEventsCount++;
+        } else {
+            this.pendingEvents.put(key, collapsedEvent);
+        }
+    }
+
+    /**
+     * Moves all pending events to the target list in the order in which they should be sent.
+     *
+     * @param target the target list, cannot be {@code null}.
+     */
+    void drainTo(@Nonnull final List<CacheEntryEvent<?, ?>> target) {
+        target.addAll(this.flushedEvents);
+        target.addAll(this.pendingEvents.values());
+        this.flushedEvents.clear();
+        this.pendingEvents.clear();
+    }
+
+    /**
+     * Returns the count of pending events (including the events flushed by the barriers).
+     *
+     * @return the count of pending events.
+     */
+    @Nonnegative
+    int size() {
+        return this.flushedEvents.size() + this.pendingEvents.size();
+    }
+
+    /**
+     * Returns the count of events absorbed (collapsed or dropped) since the previous call and resets the counter.
+     *
+     * @return the count of absorbed events.
+     */
+    @Nonnegative
+    int resetAbsorbedEventsCount() {
+        final int result = this.absorbedEventsCount;
+        this.absorbedEventsCount = 0;
+        return result;
+    }
+
+    private void discardPendingEventsOfCache(final String cacheName) {
+        final Iterator<CoalescingKey> iterator = this.pendingEvents.keySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().cacheName().equals(cacheName)) {
+                iterator.remove();
+                this.absorbedEventsCount++;
+            }
+        }
+
+        final int flushedEventsCount = this.flushedEvents.size();
+        this.flushedEvents.removeIf(event -> event.cacheName().equals(cacheName));
+        this.absorbedEventsCount += flushedEventsCount - this.flushedEvents.size();
+    }
+
+    private void flushPendingEventsUpTo(final CoalescingKey key) {
+        final Iterator<Map.Entry<CoalescingKey, CacheEntryEvent<?, ?>>> iterator = this.pendingEvents.entrySet().iterator();
+        while (iterator.hasNext()) {
+            final Map.Entry<CoalescingKey, CacheEntryEvent<?, ?>> entry = iterator.next();
+            this.flushedEvents.add(entry.getValue());
+            iterator.remove();
+
+            if (entry.getKey().equals(key)) {
+                return;
+            }
+        }
+    }
+
+    private CacheEntryEvent<?, ?> collapse(final CacheEntryEvent<?, ?> pendingEvent, final CacheEntryEvent<?, ?> event) {
+
+        final CacheConfiguration cacheConfiguration = this.cacheConfigurations.get(event.cacheName());
+        if (cacheConfiguration == null || cacheConfiguration.cacheType() == CacheType.INVALIDATED || event.newValue() == null) {
+            return event;
+        }
+
+        final CacheEntryEventType eventType =
+                pendingEvent.eventType() == CacheEntryEventType.ADDED
+                        ? CacheEntryEventType.ADDED
+                        : event.eventType();
+        final CacheEntryEvent<?, ?> collapsedEvent = new ImmutableCacheEntryEvent<>(
+                event.key(),
+                pendingEvent.oldValue(),
+                event.newValue(),
+                event.eventTime(),
+                eventType,
+                event.cacheName()
+        );
+
+        return isNoOpUpdate(collapsedEvent) ? null : collapsedEvent;
+    }
+
+    private static boolean isNoOpUpdate(final CacheEntryEvent<?, ?> event) {
+        return event.eventType() == CacheEntryEventType.UPDATED
+                && event.newValue() != null
+                && event.newValue().equals(event.oldValue());
+    }
+
+    private record CoalescingKey(@Nonnull String cacheName, @Nonnull Serializable key) {
+    }
+}
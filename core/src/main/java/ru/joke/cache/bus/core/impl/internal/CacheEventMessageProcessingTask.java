@@ -8,16 +8,20 @@ import org.slf4j.LoggerFactory;
 import javax.annotation.Nonnull;
 import javax.annotation.concurrent.Immutable;
 import javax.annotation.concurrent.ThreadSafe;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 
 /**
  * Task of processing incoming messages from other servers about cache element changes.
  * The task retrieves messages for processing from the circular buffer where the receiving thread from the channel puts them.
- * If there are no messages in the buffer, the thread blocks (contract of this circular buffer implementation).
+ * If there are no messages in the buffer, the thread blocks (contract of this circular buffer implementation),
+ * otherwise all available messages are drained from the buffer and processed in one pass.
  *
  * @author Alik
- * @see CacheBus#receive(byte[])
+ * @see CacheBus#receiveAll(List)
  * @see RingBuffer#poll()
+ * @see RingBuffer#drainTo(java.util.Collection, int)
  */
 @ThreadSafe
 @Immutable
@@ -41,14 +45,22 @@ final class CacheEventMessageProcessingTask implements Runnable {
     @Override
     public void run() {
 
+        final List<byte[]> messages = new ArrayList<>();
         while (!Thread.currentThread().isInterrupted()) {
             try {
-                final byte[] message = this.messageBuffer.poll();
-                this.cacheBus.receive(message);
+                messages.add(this.messageBuffer.poll());
+                this.messageBuffer.drainTo(messages, Integer.MAX_VALUE);
+
+                this.cacheBus.receiveAll(messages);
             } catch (InterruptedException ex) {
                 logger.info("Thread was interrupted", ex);
                 this.interruptionHandler.run();
                 return;
+            } catch (RuntimeException ex) {
+                // The processing thread must survive the failure of the single batch of messages
+                logger.error("Unable to process messages", ex);
+            } finally {
+                messages.clear();
             }
         }
     }
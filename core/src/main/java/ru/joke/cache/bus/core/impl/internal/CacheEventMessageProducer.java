@@ -10,6 +10,7 @@ import ru.joke.cache.bus.core.metrics.Metrics;
 import ru.joke.cache.bus.core.state.ComponentState;
 import ru.joke.cache.bus.core.transport.CacheBusMessageChannel;
 import ru.joke.cache.bus.core.transport.CacheEntryEventConverter;
+import ru.joke.cache.bus.core.transport.CacheEntryOutputBatchMessage;
 import ru.joke.cache.bus.core.transport.CacheEntryOutputMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -17,6 +18,9 @@ import org.slf4j.LoggerFactory;
 import javax.annotation.Nonnull;
 import javax.annotation.concurrent.Immutable;
 import javax.annotation.concurrent.ThreadSafe;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 /**
@@ -34,23 +38,79 @@ public abstract class CacheEventMessageProducer implements AutoCloseable {
     protected final CacheBusMetricsRegistry metrics;
     protected final CacheBusTransportConfiguration transportConfiguration;
 
+    private final CacheEntryEventCodecRouter codecRouter;
+
+    private final ThreadLocal<MutableCacheEntryOutputMessage> outputMessages = ThreadLocal.withInitial(MutableCacheEntryOutputMessage::new);
+
     protected CacheEventMessageProducer(
             @Nonnull CacheBusMetricsRegistry metrics,
             @Nonnull CacheBusTransportConfiguration transportConfiguration) {
         this.metrics = Objects.requireNonNull(metrics, "metrics");
         this.transportConfiguration = Objects.requireNonNull(transportConfiguration, "transportConfiguration");
+        this.codecRouter = new CacheEntryEventCodecRouter(transportConfiguration);
 
         this.metrics.registerSummary(new Metrics.Summary(KnownMetrics.PRODUCED_BYTES, "bytes"));
     }
 
+    /**
+     * Converts the event to the binary representation by the converter of the cache and sends it to the channel.<br>
+     * The outgoing message is reused by the calling thread, so apart from the binary representation
+     * of the event the sending doesn't allocate objects. The event is converted to the buffer or to the array
+     * depending on what the channel requests from the message (see {@linkplain CacheEntryOutputMessage#cacheEntryMessageBuffer()}).
+     *
+     * @param cacheConfiguration the configuration of the cache of the event, cannot be {@code null}.
+     * @param event              the event to send, cannot be {@code null}.
+     * @see CacheBusMessageChannel#send(CacheEntryOutputMessage)
+     */
     public void produce(
             @Nonnull final CacheConfiguration cacheConfiguration,
             @Nonnull final CacheEntryEvent<?, ?> event) {
 
-        final CacheEntryEventConverter converter = this.transportConfiguration.converter();
-        final byte[] binaryEventData = converter.toBinary(event, cacheConfiguration.cacheType().serializeValueFields());
+        final CacheEntryEventConverter converter = this.codecRouter.converterOf(cacheConfiguration);
+        final MutableCacheEntryOutputMessage outputMessage = this.outputMessages.get().fill(
+                event,
+                converter,
+                cacheConfiguration.cacheType().serializeValueFields()
+        );
+
+        try {
+            this.transportConfiguration.messageChannel().send(outputMessage);
+            // The message is converted on demand of the channel, so the size is known only after the sending
+            this.metrics.putToSummary(KnownMetrics.PRODUCED_BYTES, outputMessage.messageSize());
+        } finally {
+            outputMessage.clear();
+        }
+    }
+
+    /**
+     * Converts the events to the binary representation and sends them to the channel as a single multi-event frame.
+     *
+     * @param cacheConfigurations the configurations of the caches by cache names, cannot be {@code null}.
+     * @param events              the events to send in the order of their occurrence, cannot be {@code null}.
+     * @param batchHashKey        the hash key of the batch message.
+     * @see CacheBusMessageChannel#sendBatch(CacheEntryOutputBatchMessage)
+     */
+    protected void produceBatch(
+            @Nonnull final Map<String, CacheConfiguration> cacheConfigurations,
+            @Nonnull final List<CacheEntryEvent<?, ?>> events,
+            final int batchHashKey) {
+
+        final List<CacheEntryOutputMessage> outputMessages = new ArrayList<>(events.size());
+        for (final CacheEntryEvent<?, ?> event : events) {
+            outputMessages.add(createBatchOutputMessage(cacheConfigurations.get(event.cacheName()), event));
+        }
+
+        sendBatchToChannel(outputMessages, batchHashKey);
+    }
+
+    /**
+     * Sends the already converted message to the channel.
+     *
+     * @param outputMessage the message to send, cannot be {@code null}.
+     * @see CacheBusMessageChannel#send(CacheEntryOutputMessage)
+     */
+    protected void sendToChannel(@Nonnull final CacheEntryOutputMessage outputMessage) {
 
-        final CacheEntryOutputMessage outputMessage = new ImmutableCacheEntryOutputMessage(event, binaryEventData);
         final CacheBusMessageChannel<CacheBusMessageChannelConfiguration> messageChannel = this.transportConfiguration.messageChannel();
 
         this.metrics.putToSummary(KnownMetrics.PRODUCED_BYTES, outputMessage.cacheEntryMessageBody().length);
@@ -58,6 +118,64 @@ public abstract class CacheEventMessageProducer implements AutoCloseable {
         messageChannel.send(outputMessage);
     }
 
+    /**
+     * Sends the already converted messages to the channel as a single multi-event frame.
+     *
+     * @param outputMessages the messages to send in the order of their occurrence, cannot be {@code null}.
+     * @param batchHashKey   the hash key of the batch message.
+     * @see CacheBusMessageChannel#sendBatch(CacheEntryOutputBatchMessage)
+     */
+    protected void sendBatchToChannel(
+            @Nonnull final List<CacheEntryOutputMessage> outputMessages,
+            final int batchHashKey) {
+
+        final CacheEntryOutputBatchMessage batchMessage = new ImmutableCacheEntryOutputBatchMessage(outputMessages, batchHashKey, this.transportConfiguration.converter());
+        final CacheBusMessageChannel<CacheBusMessageChannelConfiguration> messageChannel = this.transportConfiguration.messageChannel();
+
+        this.metrics.putToSummary(KnownMetrics.PRODUCED_BYTES, batchMessage.batchMessageBody().length);
+        this.metrics.putToSummary(KnownMetrics.PRODUCED_BATCH_SIZE, outputMessages.size());
+
+        messageChannel.sendBatch(batchMessage);
+    }
+
+    /**
+     * Converts the event to the binary representation.
+     *
+     * @param cacheConfiguration the configuration of the cache of the event, cannot be {@code null}.
+     * @param event              the event to convert, cannot be {@code null}.
+     * @return cannot be {@code null}.
+     * @see CacheEntryEventConverter
+     */
+    @Nonnull
+    protected CacheEntryOutputMessage createOutputMessage(
+            @Nonnull final CacheConfiguration cacheConfiguration,
+            @Nonnull final CacheEntryEvent<?, ?> event) {
+
+        final CacheEntryEventConverter converter = this.codecRouter.converterOf(cacheConfiguration);
+        final byte[] binaryEventData = converter.toBinary(event, cacheConfiguration.cacheType().serializeValueFields());
+
+        return new ImmutableCacheEntryOutputMessage(event, binaryEventData);
+    }
+
+    /**
+     * Converts the event to the binary representation of the event of the multi-event frame.
+     *
+     * @param cacheConfiguration the configuration of the cache of the event, cannot be {@code null}.
+     * @param event              the event to convert, cannot be {@code null}.
+     * @return cannot be {@code null}.
+     * @see CacheEntryEventConverter#toBatchBinary(CacheEntryEvent, boolean)
+     */
+    @Nonnull
+    protected CacheEntryOutputMessage createBatchOutputMessage(
+            @Nonnull final CacheConfiguration cacheConfiguration,
+            @Nonnull final CacheEntryEvent<?, ?> event) {
+
+        final CacheEntryEventConverter converter = this.codecRouter.converterOf(cacheConfiguration);
+        final byte[] binaryEventData = converter.toBatchBinary(event, cacheConfiguration.cacheType().serializeValueFields());
+
+        return new ImmutableCacheEntryOutputMessage(event, binaryEventData);
+    }
+
     /**
      * Returns information about the state of the message producer in the channel.
      *
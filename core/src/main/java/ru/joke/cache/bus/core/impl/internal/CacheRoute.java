@@ -0,0 +1,196 @@
+package ru.joke.cache.bus.core.impl.internal;
+
+import ru.joke.cache.bus.core.Cache;
+import ru.joke.cache.bus.core.CacheEntryEventType;
+import ru.joke.cache.bus.core.CacheManager;
+import ru.joke.cache.bus.core.configuration.CacheConfiguration;
+import ru.joke.cache.bus.core.configuration.CacheType;
+import ru.joke.cache.bus.core.metrics.KnownMetrics;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * Precompiled route of the cache element change events for the single cache name.<br>
+ * The route of the cache connected to the bus contains its configuration, the resolved cache
+ * and the mask of the event types that must be sent to other servers. The route of each name
+ * (of the connected cache or of the alias) also contains the precomputed array of the routes
+ * of the caches to which the events received with this name must be applied: the cache itself
+ * (if it is connected to the bus) and the invalidation caches with this alias.<br>
+ * The routing table is built once on start of the bus, so the routing of the events does not require
+ * the lookups of the configurations, caches and aliases.
+ *
+ * @author Alik
+ * @see #createRoutingTable(Collection, Map, CacheManager)
+ */
+@ThreadSafe
+public final class CacheRoute {
+
+    private static final int INVALIDATED_CACHE_SEND_MASK = ~(maskOf(CacheEntryEventType.ADDED) | maskOf(CacheEntryEventType.EXPIRED));
+    private static final int REPLICATED_CACHE_SEND_MASK = ~0;
+
+    private final String cacheName;
+    private final CacheConfiguration configuration;
+    private final CacheManager cacheManager;
+    private final int sendEventTypesMask;
+    private final KnownMetrics filteredEventsMetric;
+    private final KnownMetrics appliedEventsMetric;
+    private final CacheRoute[] receivers;
+
+    private volatile Cache<Serializable, Serializable> cache;
+
+    private CacheRoute(
+            final String cacheName,
+            final CacheConfiguration configuration,
+            final CacheManager cacheManager,
+            final CacheRoute[] receivers) {
+        this.cacheName = cacheName;
+        this.configuration = configuration;
+        this.cacheManager = cacheManager;
+        this.receivers = receivers;
+
+        final boolean invalidated = configuration != null && configuration.cacheType() == CacheType.INVALIDATED;
+        this.sendEventTypesMask = configuration == null ? 0 : invalidated ? INVALIDATED_CACHE_SEND_MASK : REPLICATED_CACHE_SEND_MASK;
+        this.filteredEventsMetric = invalidated ? KnownMetrics.FILTERED_INV_LOCAL_EVENTS_COUNT : KnownMetrics.FILTERED_REPL_LOCAL_EVENTS_COUNT;
+        this.appliedEventsMetric = invalidated ? KnownMetrics.APPLIED_INV_EVENTS_COUNT : KnownMetrics.APPLIED_REPL_EVENTS_COUNT;
+
+        if (configuration != null) {
+            this.cache = cacheManager.<Serializable, Serializable> getCache(cacheName).orElse(null);
+        }
+    }
+
+    /**
+     * Returns the configuration of the cache of the route.
+     *
+     * @return the configuration of the cache or {@code null} if the name of the route is only an alias of other caches.
+     */
+    @Nullable
+    public CacheConfiguration configuration() {
+        return this.configuration;
+    }
+
+    /**
+     * Returns whether the event of the given type must be sent to other servers.
+     *
+     * @param eventType the type of the event, cannot be {@code null}.
+     * @return {@code true} if the event must be sent, {@code false} otherwise.
+     */
+    public boolean needToSend(@Nonnull CacheEntryEventType eventType) {
+        return (this.sendEventTypesMask & maskOf(eventType)) != 0;
+    }
+
+    /**
+     * Returns the metric of the local events of the cache that must be sent to other servers.
+     *
+     * @return cannot be {@code null}.
+     */
+    @Nonnull
+    public KnownMetrics filteredEventsMetric() {
+        return this.filteredEventsMetric;
+    }
+
+    /**
+     * Returns the metric of the remote events applied to the cache.
+     *
+     * @return cannot be {@code null}.
+     */
+    @Nonnull
+    public KnownMetrics appliedEventsMetric() {
+        return this.appliedEventsMetric;
+    }
+
+    /**
+     * Returns the routes of the caches to which the events received with the name of this route must be applied.
+     * The returned array must not be modified.
+     *
+     * @return cannot be {@code null}.
+     */
+    @Nonnull
+    public CacheRoute[] receivers() {
+        return this.receivers;
+    }
+
+    /**
+     * Returns the cache of the route. If the cache wasn't created in the cache manager on the start of the bus,
+     * it is resolved again.
+     *
+     * @return the cache or {@code null} if the cache is absent in the cache manager.
+     */
+    @Nullable
+    public Cache<Serializable, Serializable> cache() {
+        final Cache<Serializable, Serializable> cache = this.cache;
+        if (cache != null) {
+            return cache;
+        }
+
+        return this.cache = this.cacheManager.<Serializable, Serializable> getCache(this.cacheName).orElse(null);
+    }
+
+    @Override
+    public String toString() {
+        return "CacheRoute{" +
+                "cacheName='" + cacheName + '\'' +
+                ", configuration=" + configuration +
+                ", receivers=" + receivers.length +
+                '}';
+    }
+
+    /**
+     * Builds the immutable routing table of the cache element change events for the connected caches and their aliases.
+     *
+     * @param cacheConfigurations the configurations of the caches connected to the bus, cannot be {@code null}.
+     * @param cachesByAliases     the names of the caches by their aliases, cannot be {@code null}.
+     * @param cacheManager        the cache manager, cannot be {@code null}.
+     * @return the routes by names of the caches and aliases, cannot be {@code null}.
+     */
+    @Nonnull
+    public static Map<String, CacheRoute> createRoutingTable(
+            @Nonnull Collection<CacheConfiguration> cacheConfigurations,
+            @Nonnull Map<String, Set<String>> cachesByAliases,
+            @Nonnull CacheManager cacheManager) {
+
+        final Map<String, CacheConfiguration> configurationsByName = new HashMap<>(cacheConfigurations.size() + 1, 1);
+        cacheConfigurations.forEach(config -> configurationsByName.put(config.cacheName(), config));
+
+        final Set<String> names = new HashSet<>(configurationsByName.keySet());
+        names.addAll(cachesByAliases.keySet());
+
+        final Map<String, CacheRoute> routes = new HashMap<>(names.size() + 1, 1);
+        final Map<String, List<String>> receiversByName = new HashMap<>(names.size() + 1, 1);
+        for (final String name : names) {
+            final List<String> receiverNames = new ArrayList<>();
+            if (configurationsByName.containsKey(name)) {
+                receiverNames.add(name);
+            }
+
+            // Only invalidation caches are processed by aliases
+            cachesByAliases.getOrDefault(name, Collections.emptySet())
+                    .stream()
+                    .filter(cacheName -> !cacheName.equals(name))
+                    .map(configurationsByName::get)
+                    .filter(Objects::nonNull)
+                    .filter(config -> config.cacheType() == CacheType.INVALIDATED)
+                    .map(CacheConfiguration::cacheName)
+                    .forEach(receiverNames::add);
+
+            receiversByName.put(name, receiverNames);
+            routes.put(name, new CacheRoute(name, configurationsByName.get(name), cacheManager, new CacheRoute[receiverNames.size()]));
+        }
+
+        receiversByName.forEach((name, receiverNames) -> {
+            final CacheRoute[] receivers = routes.get(name).receivers;
+            for (int i = 0; i < receivers.length; i++) {
+                receivers[i] = routes.get(receiverNames.get(i));
+            }
+        });
+
+        return Collections.unmodifiableMap(routes);
+    }
+
+    private static int maskOf(final CacheEntryEventType eventType) {
+        return 1 << eventType.ordinal();
+    }
+}
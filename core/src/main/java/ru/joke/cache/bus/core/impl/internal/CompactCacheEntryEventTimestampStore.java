@@ -0,0 +1,455 @@
+package ru.joke.cache.bus.core.impl.internal;
+
+import ru.joke.cache.bus.core.CacheEntryEvent;
+import ru.joke.cache.bus.core.CacheEntryEventTimestampStore;
+import ru.joke.cache.bus.core.configuration.CacheBusConfiguration;
+import ru.joke.cache.bus.core.configuration.CacheConfiguration;
+import ru.joke.cache.bus.core.configuration.ConfigurationException;
+import ru.joke.cache.bus.core.configuration.InvalidCacheConfigurationException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Compact storage of cache element change timestamps.<br>
+ * Instead of the keys of the cache elements the storage keeps only their 64-bit fingerprints and the primitive timestamps
+ * in the open-addressing (linear probing) tables, {@code 16} bytes per slot. The table of each cache is divided into
+ * {@linkplain CacheBusConfiguration.TimestampStoreConfiguration#concurrencyLevel()} independently locked stripes;
+ * the tables can be allocated in off-heap memory ({@linkplain CacheBusConfiguration.TimestampStoreConfiguration#useOffHeapMemory()}).<br>
+ * See the documentation of {@linkplain CacheEntryEventTimestampStore#save(CacheEntryEvent)} for requirements
+ * on the storage implementation.
+ *
+ * @author Alik
+ * @implNote The memory limit ({@linkplain CacheBusConfiguration.TimestampStoreConfiguration#maxMemoryBytes()}) is divided equally
+ * between the stripes of all caches. When the load factor of the stripe reaches {@code 0.75}, the expired timestamps
+ * (according to the settings of the corresponding cache) are removed from the stripe; if that is not enough, the stripe is doubled
+ * while the limit allows it, otherwise the oldest timestamps are evicted from the stripe. During doubling of the stripe
+ * the old and the new tables of the stripe coexist for a short time. The evicted timestamp means that the older event for
+ * the corresponding key can be applied later, as after the expiration of the timestamp.<br>
+ * Fingerprints of string, integer and {@linkplain UUID} keys are calculated from their values, fingerprints of other keys
+ * are calculated from their {@linkplain Object#hashCode()} and {@linkplain Object#toString()}, so the string representation
+ * of such keys must be consistent with {@linkplain Object#equals(Object)}. Different keys with the same fingerprint
+ * share the timestamp; the probability of such collision is negligible for the 64-bit fingerprints.
+ * @see CacheEntryEventTimestampStore
+ * @see CacheBusConfiguration.TimestampStoreConfiguration
+ */
+@ThreadSafe
+public final class CompactCacheEntryEventTimestampStore implements CacheEntryEventTimestampStore {
+
+    private static final int SLOT_SIZE = 2 * Long.BYTES;
+    private static final int MIN_STRIPE_CAPACITY = 16;
+    private static final int MAX_STRIPE_CAPACITY = 1 << 26;
+    private static final int EVICTION_SAMPLE_SIZE = 64;
+    private static final long EMPTY = 0;
+
+    private final Map<String, CacheTable> tablesByCacheMap;
+
+    public CompactCacheEntryEventTimestampStore(
+            @Nonnull Set<CacheConfiguration> configurations,
+            @Nonnull CacheBusConfiguration.TimestampStoreConfiguration storeConfiguration) {
+
+        final int stripesCount = storeConfiguration.concurrencyLevel();
+        final long maxStripeSlots = storeConfiguration.maxMemoryBytes() / Math.max(configurations.size(), 1) / stripesCount / SLOT_SIZE;
+        if (maxStripeSlots < MIN_STRIPE_CAPACITY) {
+            throw new ConfigurationException(
+                    "Timestamp store memory limit is too small, at least "
+                            + (long) MIN_STRIPE_CAPACITY * SLOT_SIZE * stripesCount * Math.max(configurations.size(), 1)
+                            + " bytes required"
+            );
+        }
+
+        final int maxStripeCapacity = (int) Long.highestOneBit(Math.min(maxStripeSlots, MAX_STRIPE_CAPACITY));
+        final Map<String, CacheTable> tablesMap = new HashMap<>(configurations.size() + 1, 1);
+        configurations.forEach(
+                config -> tablesMap.put(config.cacheName(), createTable(config, storeConfiguration, maxStripeCapacity))
+        );
+
+        this.tablesByCacheMap = Collections.unmodifiableMap(tablesMap);
+    }
+
+    @Override
+    public boolean save(@Nonnull CacheEntryEvent<?, ?> event) {
+
+        final Object key = event.key();
+        // The case of mass clearing the cache is handled in a special way, because here the key is fictitious:
+        // we always return true, because will still be a complete cleanup
+        if (key.equals(CacheEntryEvent.ALL_ENTRIES_KEY)) {
+            return true;
+        }
+
+        final CacheTable table = this.tablesByCacheMap.get(event.cacheName());
+        final long fingerprint = fingerprint(key);
+        final Stripe stripe = table.stripes()[(int) (fingerprint >>> 40) & (table.stripes().length - 1)];
+
+        stripe.lock.lock();
+        try {
+            return stripe.save(fingerprint, event.eventTime(), table.timestampExpiration());
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the count of timestamps stored for the cache.
+     *
+     * @param cacheName the name of the cache, cannot be {@code null}.
+     * @return the count of timestamps.
+     */
+    long size(@Nonnull String cacheName) {
+        long result = 0;
+        for (final Stripe stripe : this.tablesByCacheMap.get(cacheName).stripes()) {
+            stripe.lock.lock();
+            try {
+                result += stripe.size;
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Passes the stored fingerprints and timestamps of the cache to the consumer. Each stripe is locked
+     * while its timestamps are passed, so the consumer must not call the storage.
+     *
+     * @param cacheName the name of the cache, cannot be {@code null}.
+     * @param consumer  the consumer of the fingerprints and timestamps, cannot be {@code null}.
+     */
+    void forEachTimestamp(@Nonnull String cacheName, @Nonnull TimestampConsumer consumer) {
+        for (final Stripe stripe : this.tablesByCacheMap.get(cacheName).stripes()) {
+            stripe.lock.lock();
+            try {
+                for (int i = 0; i < stripe.capacity; i++) {
+                    final long fingerprint = stripe.slots.fingerprint(i);
+                    if (fingerprint != EMPTY) {
+                        consumer.accept(fingerprint, stripe.slots.timestamp(i));
+                    }
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+    }
+
+    long allocatedMemory() {
+        long result = 0;
+        for (final CacheTable table : this.tablesByCacheMap.values()) {
+            for (final Stripe stripe : table.stripes()) {
+                stripe.lock.lock();
+                try {
+                    result += (long) stripe.capacity * SLOT_SIZE;
+                } finally {
+                    stripe.lock.unlock();
+                }
+            }
+        }
+
+        return result;
+    }
+
+    static long fingerprint(final Object key) {
+
+        final long hash;
+        if (key instanceof String str) {
+            hash = hash(str);
+        } else if (key instanceof Long || key instanceof Integer || key instanceof Short || key instanceof Byte) {
+            hash = ((Number) key).longValue();
+        } else if (key instanceof UUID uuid) {
+            hash = uuid.getMostSignificantBits() ^ mix(uuid.getLeastSignificantBits());
+        } else {
+            hash = ((long) key.hashCode() << 32) ^ hash(key.toString());
+        }
+
+        final long result = mix(hash);
+        return result == EMPTY ? 1 : result;
+    }
+
+    private static long hash(final String str) {
+        // FNV-1a
+        long result = 0xcbf29ce484222325L;
+        for (int i = 0; i < str.length(); i++) {
+            result ^= str.charAt(i);
+            result *= 0x100000001b3L;
+        }
+
+        return result;
+    }
+
+    private static long mix(final long value) {
+        // Finalization mix of MurmurHash3, bijective
+        long result = value;
+        result ^= result >>> 33;
+        result *= 0xff51afd7ed558ccdL;
+        result ^= result >>> 33;
+        result *= 0xc4ceb9fe1a85ec53L;
+        result ^= result >>> 33;
+
+        return result;
+    }
+
+    private static CacheTable createTable(
+            final CacheConfiguration cacheConfiguration,
+            final CacheBusConfiguration.TimestampStoreConfiguration storeConfiguration,
+            final int maxStripeCapacity) {
+
+        final CacheConfiguration.TimestampCacheConfiguration timestampCacheConfiguration =
+                cacheConfiguration.timestampConfiguration()
+                        .orElseThrow(() -> new InvalidCacheConfigurationException("Timestamp configuration must present in cache with timestamp based comparison"));
+
+        final int stripesCount = storeConfiguration.concurrencyLevel();
+        final long expectedStripeSize = timestampCacheConfiguration.probableAverageElementsCount() / stripesCount;
+        final long expectedStripeCapacity = Long.highestOneBit(expectedStripeSize * 4 / 3 + 1) << 1;
+        final int initialStripeCapacity = (int) Math.min(maxStripeCapacity, Math.max(MIN_STRIPE_CAPACITY, expectedStripeCapacity));
+
+        final Stripe[] stripes = new Stripe[stripesCount];
+        for (int i = 0; i < stripesCount; i++) {
+            stripes[i] = new Stripe(storeConfiguration.useOffHeapMemory(), initialStripeCapacity, maxStripeCapacity);
+        }
+
+        return new CacheTable(stripes, timestampCacheConfiguration.timestampExpiration());
+    }
+
+    @FunctionalInterface
+    interface TimestampConsumer {
+
+        void accept(long fingerprint, long timestamp);
+    }
+
+    private record CacheTable(Stripe[] stripes, long timestampExpiration) {
+    }
+
+    private static final class Stripe {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final boolean offHeap;
+        private final int maxCapacity;
+
+        @GuardedBy("lock")
+        private Slots slots;
+        @GuardedBy("lock")
+        private int capacity;
+        @GuardedBy("lock")
+        private int size;
+
+        private Stripe(final boolean offHeap, final int capacity, final int maxCapacity) {
+            this.offHeap = offHeap;
+            this.maxCapacity = maxCapacity;
+            this.capacity = capacity;
+            this.slots = createSlots(capacity);
+        }
+
+        private boolean save(final long fingerprint, final long timestamp, final long timestampExpiration) {
+
+            final int mask = this.capacity - 1;
+            int index = (int) fingerprint & mask;
+            long current;
+            while ((current = this.slots.fingerprint(index)) != EMPTY) {
+                if (current == fingerprint) {
+                    if (timestamp > this.slots.timestamp(index)) {
+                        this.slots.setTimestamp(index, timestamp);
+                        return true;
+                    }
+
+                    return false;
+                }
+
+                index = (index + 1) & mask;
+            }
+
+            if (this.size >= this.capacity - (this.capacity >>> 2)) {
+                makeRoom(timestampExpiration);
+                index = findFreeSlot(this.slots, this.capacity, fingerprint);
+            }
+
+            this.slots.set(index, fingerprint, timestamp);
+            this.size++;
+
+            return true;
+        }
+
+        private void makeRoom(final long timestampExpiration) {
+
+            removeOlderThan(System.currentTimeMillis() - timestampExpiration);
+            if (this.size <= this.capacity >>> 1) {
+                return;
+            }
+
+            if (this.capacity < this.maxCapacity) {
+                resize(this.capacity << 1);
+                return;
+            }
+
+            while (this.size > this.capacity >>> 1) {
+                removeOlderThan(evictionBound());
+            }
+        }
+
+        private void resize(final int newCapacity) {
+
+            final Slots newSlots = createSlots(newCapacity);
+            for (int i = 0; i < this.capacity; i++) {
+                final long fingerprint = this.slots.fingerprint(i);
+                if (fingerprint != EMPTY) {
+                    newSlots.set(findFreeSlot(newSlots, newCapacity, fingerprint), fingerprint, this.slots.timestamp(i));
+                }
+            }
+
+            this.slots = newSlots;
+            this.capacity = newCapacity;
+        }
+
+        private long evictionBound() {
+
+            final long[] samples = new long[EVICTION_SAMPLE_SIZE];
+            final int step = Math.max(this.capacity / EVICTION_SAMPLE_SIZE, 1);
+            int count = 0;
+            for (int i = 0; i < this.capacity && count < samples.length; i += step) {
+                if (this.slots.fingerprint(i) != EMPTY) {
+                    samples[count++] = this.slots.timestamp(i);
+                }
+            }
+
+            if (count == 0) {
+                return Long.MAX_VALUE;
+            }
+
+            Arrays.sort(samples, 0, count);
+            // Fraction of timestamps to evict to make the stripe half-full
+            final int boundIndex = (int) ((long) count * (this.size - (this.capacity >>> 1)) / this.size);
+            final long bound = samples[Math.min(boundIndex, count - 1)];
+            return bound == Long.MAX_VALUE ? bound : bound + 1;
+        }
+
+        private void removeOlderThan(final long bound) {
+
+            int index = 0;
+            while (index < this.capacity) {
+                if (this.slots.fingerprint(index) != EMPTY && this.slots.timestamp(index) < bound) {
+                    // The slot is filled by the shifted entry (if any), so it is checked again
+                    remove(index);
+                } else {
+                    index++;
+                }
+            }
+        }
+
+        private void remove(final int index) {
+
+            // Backward shift deletion: entries of the probe sequence are moved to the freed slot
+            // if the freed slot is located between their home slot and the current one
+            final int mask = this.capacity - 1;
+            int hole = index;
+            int current = index;
+            long fingerprint;
+            while ((fingerprint = this.slots.fingerprint(current = (current + 1) & mask)) != EMPTY) {
+                final int home = (int) fingerprint & mask;
+                final boolean homeBetween = hole <= current
+                        ? hole < home && home <= current
+                        : hole < home || home <= current;
+                if (!homeBetween) {
+                    this.slots.set(hole, fingerprint, this.slots.timestamp(current));
+                    hole = current;
+                }
+            }
+
+            this.slots.set(hole, EMPTY, 0);
+            this.size--;
+        }
+
+        private Slots createSlots(final int capacity) {
+            return this.offHeap ? new OffHeapSlots(capacity) : new HeapSlots(capacity);
+        }
+
+        private static int findFreeSlot(final Slots slots, final int capacity, final long fingerprint) {
+            final int mask = capacity - 1;
+            int index = (int) fingerprint & mask;
+            while (slots.fingerprint(index) != EMPTY) {
+                index = (index + 1) & mask;
+            }
+
+            return index;
+        }
+    }
+
+    private interface Slots {
+
+        long fingerprint(int index);
+
+        long timestamp(int index);
+
+        void setTimestamp(int index, long timestamp);
+
+        void set(int index, long fingerprint, long timestamp);
+    }
+
+    private static final class HeapSlots implements Slots {
+
+        private final long[] data;
+
+        private HeapSlots(final int capacity) {
+            this.data = new long[capacity << 1];
+        }
+
+        @Override
+        public long fingerprint(int index) {
+            return this.data[index << 1];
+        }
+
+        @Override
+        public long timestamp(int index) {
+            return this.data[(index << 1) + 1];
+        }
+
+        @Override
+        public void setTimestamp(int index, long timestamp) {
+            this.data[(index << 1) + 1] = timestamp;
+        }
+
+        @Override
+        public void set(int index, long fingerprint, long timestamp) {
+            this.data[index << 1] = fingerprint;
+            this.data[(index << 1) + 1] = timestamp;
+        }
+    }
+
+    private static final class OffHeapSlots implements Slots {
+
+        private final ByteBuffer data;
+
+        private OffHeapSlots(final int capacity) {
+            this.data = ByteBuffer.allocateDirect(capacity * SLOT_SIZE).order(ByteOrder.nativeOrder());
+        }
+
+        @Override
+        public long fingerprint(int index) {
+            return this.data.getLong(index * SLOT_SIZE);
+        }
+
+        @Override
+        public long timestamp(int index) {
+            return this.data.getLong(index * SLOT_SIZE + Long.BYTES);
+        }
+
+        @Override
+        public void setTimestamp(int index, long timestamp) {
+            this.data.putLong(index * SLOT_SIZE + Long.BYTES, timestamp);
+        }
+
+        @Override
+        public void set(int index, long fingerprint, long timestamp) {
+            this.data.putLong(index * SLOT_SIZE, fingerprint);
+            this.data.putLong(index * SLOT_SIZE + Long.BYTES, timestamp);
+        }
+    }
+}
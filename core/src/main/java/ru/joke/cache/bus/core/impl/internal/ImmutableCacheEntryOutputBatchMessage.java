@@ -0,0 +1,68 @@
+package ru.joke.cache.bus.core.impl.internal;
+
+import ru.joke.cache.bus.core.transport.CacheEntryBatchFrame;
+import ru.joke.cache.bus.core.transport.CacheEntryEventConverter;
+import ru.joke.cache.bus.core.transport.CacheEntryOutputBatchMessage;
+import ru.joke.cache.bus.core.transport.CacheEntryOutputMessage;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+@ThreadSafe
+@Immutable
+public final class ImmutableCacheEntryOutputBatchMessage implements CacheEntryOutputBatchMessage {
+
+    private final List<CacheEntryOutputMessage> messages;
+    private final byte[] batchMessageBody;
+    private final int hashKey;
+
+    public ImmutableCacheEntryOutputBatchMessage(
+            @Nonnull final List<CacheEntryOutputMessage> messages,
+            final int hashKey) {
+        this(messages, hashKey, UnaryOperator.identity());
+    }
+
+    public ImmutableCacheEntryOutputBatchMessage(
+            @Nonnull final List<CacheEntryOutputMessage> messages,
+            final int hashKey,
+            @Nonnull final CacheEntryEventConverter converter) {
+        this(messages, hashKey, converter::encodeBatchFrame);
+    }
+
+    private ImmutableCacheEntryOutputBatchMessage(
+            final List<CacheEntryOutputMessage> messages,
+            final int hashKey,
+            final UnaryOperator<byte[]> frameEncoder) {
+        this.messages = List.copyOf(messages);
+        this.batchMessageBody = frameEncoder.apply(CacheEntryBatchFrame.encode(this.messages));
+        this.hashKey = hashKey;
+    }
+
+    @Nonnull
+    @Override
+    public List<CacheEntryOutputMessage> messages() {
+        return this.messages;
+    }
+
+    @Nonnull
+    @Override
+    public byte[] batchMessageBody() {
+        return this.batchMessageBody;
+    }
+
+    @Override
+    public int messageHashKey() {
+        return this.hashKey;
+    }
+
+    @Override
+    public String toString() {
+        return "ImmutableCacheEntryOutputBatchMessage{" +
+                "messages=" + messages.size() +
+                ", hashKey=" + hashKey +
+                '}';
+    }
+}
@@ -24,6 +24,15 @@ public final class ImmutableCacheEntryOutputMessage implements CacheEntryOutputM
         this.hashKey = sourceEvent.computeEventHashKey();
     }
 
+    public ImmutableCacheEntryOutputMessage(
+            @Nonnull final String cacheName,
+            @Nonnull final byte[] messageBody,
+            final int hashKey) {
+        this.cacheName = cacheName;
+        this.messageBody = messageBody;
+        this.hashKey = hashKey;
+    }
+
     @Nonnull
     @Override
     public String cacheName() {
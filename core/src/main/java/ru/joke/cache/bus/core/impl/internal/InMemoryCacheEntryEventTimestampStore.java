@@ -4,14 +4,19 @@ import ru.joke.cache.bus.core.CacheEntryEvent;
 import ru.joke.cache.bus.core.CacheEntryEventTimestampStore;
 import ru.joke.cache.bus.core.configuration.CacheConfiguration;
 import ru.joke.cache.bus.core.configuration.InvalidCacheConfigurationException;
+import ru.joke.cache.bus.core.metrics.CacheBusMetricsRegistry;
+import ru.joke.cache.bus.core.metrics.KnownMetrics;
+import ru.joke.cache.bus.core.metrics.Metrics;
+import ru.joke.cache.bus.core.metrics.NoOpCacheBusMetricsRegistry;
 
 import javax.annotation.Nonnull;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Storage of cache element change timestamps based on {@linkplain ConcurrentHashMap} in memory.<br>
@@ -19,40 +24,66 @@ import java.util.concurrent.ConcurrentHashMap;
  * on the storage implementation.
  *
  * @author Alik
- * @implNote When the threshold ({@code 128}) of the associative array size for each cache is exceeded
- * and more than 30 seconds have passed since the last cleaning, it triggers cleanup
- * of expired timestamps according to the settings of the corresponding cache.
+ * @implNote The keys of each cache are additionally grouped into time-bucketed generations: the generation
+ * covers {@code 1/16} of the timestamp expiration interval of the cache, and the key is added to the generation
+ * of its timestamp when the timestamp is stored or moves to the newer generation. The generations that are
+ * entirely older than the expiration interval are retired in bounded steps (at most {@code 1024} keys per step),
+ * so expiration never scans the whole storage. With asynchronous cleaning the steps of each cache are scheduled
+ * independently on the dedicated low-priority daemon thread, otherwise the step is performed by the thread
+ * that stores the timestamp, at most once per generation interval of the cache.
  * @see CacheEntryEventTimestampStore
  */
 public final class InMemoryCacheEntryEventTimestampStore implements CacheEntryEventTimestampStore {
 
-    private static final int CLEANING_SIZE_THRESHOLD = 128;
-    private static final int CLEANING_TIME_THRESHOLD = 30_000;
+    private static final int GENERATIONS_COUNT = 16;
+    private static final int EXPIRATION_STEP_SIZE = 1_024;
+    private static final long MIN_GENERATION_INTERVAL_MS = 10;
+    private static final String EXPIRATION_THREAD_NAME = "cache-bus-timestamps-expiration";
 
-    private final Map<String, Map<Object, Long>> timestampsByCacheMap;
-    private final Map<String, Long> timestampExpirationsByCacheMap;
-    private final boolean useAsyncCleaning;
-
-    private volatile long lastCleaningTime;
-    private volatile boolean cleaningInProgress;
+    private final Map<String, CacheTimestamps> timestampsByCacheMap;
+    private final CacheBusMetricsRegistry metrics;
+    private final ScheduledExecutorService expirationExecutor;
 
     public InMemoryCacheEntryEventTimestampStore(@Nonnull Set<CacheConfiguration> configurations, boolean useAsyncCleaning) {
+        this(configurations, useAsyncCleaning, new NoOpCacheBusMetricsRegistry());
+    }
+
+    public InMemoryCacheEntryEventTimestampStore(
+            @Nonnull Set<CacheConfiguration> configurations,
+            boolean useAsyncCleaning,
+            @Nonnull CacheBusMetricsRegistry metrics) {
         final int cachesCount = configurations.size();
-        final Map<String, Map<Object, Long>> cachesMap = new HashMap<>(cachesCount + 1, 1);
+        final Map<String, CacheTimestamps> cachesMap = new HashMap<>(cachesCount + 1, 1);
         configurations.forEach(
-                config -> cachesMap.put(config.cacheName(), createTimestampMap(config))
+                config -> cachesMap.put(config.cacheName(), createCacheTimestamps(config))
         );
 
-        this.timestampExpirationsByCacheMap = createTimestampExpirationsMap(configurations);
         this.timestampsByCacheMap = Collections.unmodifiableMap(cachesMap);
-        this.useAsyncCleaning = useAsyncCleaning;
+        this.metrics = metrics;
+        this.metrics.registerCounter(new Metrics.Counter(KnownMetrics.EXPIRED_TIMESTAMPS_COUNT));
+        this.metrics.registerTimer(new Metrics.Timer(KnownMetrics.TIMESTAMPS_EXPIRATION_STEP_TIME));
+
+        if (useAsyncCleaning && !cachesMap.isEmpty()) {
+            this.expirationExecutor = Executors.newSingleThreadScheduledExecutor(
+                    Thread.ofPlatform()
+                            .name(EXPIRATION_THREAD_NAME)
+                            .daemon(true)
+                            .priority(Thread.MIN_PRIORITY)
+                          .factory()
+            );
+            this.timestampsByCacheMap.values().forEach(cacheTimestamps -> scheduleExpiration(cacheTimestamps, cacheTimestamps.generationInterval));
+        } else {
+            this.expirationExecutor = null;
+        }
     }
 
     @Override
     public boolean save(@Nonnull CacheEntryEvent<?, ?> event) {
 
-        final Map<Object, Long> timestampsMap = this.timestampsByCacheMap.get(event.cacheName());
-        callCleaningIfNeed(timestampsMap, event.cacheName());
+        final CacheTimestamps cacheTimestamps = this.timestampsByCacheMap.get(event.cacheName());
+        if (this.expirationExecutor == null) {
+            expireIfNeed(cacheTimestamps);
+        }
 
         final Object key = event.key();
         // The case of mass clearing the cache is handled in a special way, because here the key is fictitious:
@@ -61,57 +92,138 @@ public final class InMemoryCacheEntryEventTimestampStore implements CacheEntryEv
             return true;
         }
 
+        final Map<Object, Long> timestampsMap = cacheTimestamps.timestamps;
         final Long oldValue = timestampsMap.get(key);
         final Long newValue = event.eventTime();
         if (oldValue == null) {
-            return timestampsMap.putIfAbsent(key, newValue) == null;
+            if (timestampsMap.putIfAbsent(key, newValue) == null) {
+                cacheTimestamps.addToGeneration(key, newValue);
+                return true;
+            }
+
+            return false;
         }
 
-        return newValue.compareTo(oldValue) > 0 && timestampsMap.replace(key, oldValue, newValue);
-    }
+        if (newValue.compareTo(oldValue) > 0 && timestampsMap.replace(key, oldValue, newValue)) {
+            if (cacheTimestamps.generationOf(oldValue) != cacheTimestamps.generationOf(newValue)) {
+                cacheTimestamps.addToGeneration(key, newValue);
+            }
 
-    private void callCleaningIfNeed(final Map<Object, Long> timestampsMap, final String cacheName) {
+            return true;
+        }
 
-        if (timestampsMap.size() > CLEANING_SIZE_THRESHOLD
-                && !this.cleaningInProgress
-                && (this.cleaningInProgress = (System.currentTimeMillis() - this.lastCleaningTime) >= CLEANING_TIME_THRESHOLD)) {
+        return false;
+    }
 
-            if (this.useAsyncCleaning) {
-                CompletableFuture.runAsync(() -> clear(timestampsMap, cacheName));
-            } else {
-                clear(timestampsMap, cacheName);
-            }
+    @Override
+    public void close() {
+        if (this.expirationExecutor != null) {
+            this.expirationExecutor.shutdownNow();
+        }
+    }
+
+    private void scheduleExpiration(final CacheTimestamps cacheTimestamps, final long delay) {
+        try {
+            // Steps of the other caches that are already due are executed before the next step of this cache
+            this.expirationExecutor.schedule(() -> {
+                final boolean hasMore = expire(cacheTimestamps);
+                scheduleExpiration(cacheTimestamps, hasMore ? 0 : cacheTimestamps.generationInterval);
+            }, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException ex) {
+            // store is closed
         }
     }
 
-    private void clear(final Map<Object, Long> timestampsMap, final String cacheName) {
+    private void expireIfNeed(final CacheTimestamps cacheTimestamps) {
 
-        final Long expiration = this.timestampExpirationsByCacheMap.get(cacheName);
-        final Long currentExpirationTime = (this.lastCleaningTime = System.currentTimeMillis()) - expiration;
-        timestampsMap.forEach((key, ts) -> {
-            if (currentExpirationTime.compareTo(ts) > 0) {
-                timestampsMap.remove(key, ts);
+        if (System.currentTimeMillis() >= cacheTimestamps.nextExpirationTime && cacheTimestamps.expirationLock.tryLock()) {
+            try {
+                final boolean hasMore = expire(cacheTimestamps);
+                cacheTimestamps.nextExpirationTime = hasMore ? 0 : System.currentTimeMillis() + cacheTimestamps.generationInterval;
+            } finally {
+                cacheTimestamps.expirationLock.unlock();
             }
-        });
-
-        this.cleaningInProgress = false;
+        }
     }
 
-    private Map<String, Long> createTimestampExpirationsMap(final Set<CacheConfiguration> cacheConfigurations) {
+    private boolean expire(final CacheTimestamps cacheTimestamps) {
 
-        final Map<String, Long> result = new HashMap<>();
-        cacheConfigurations.forEach(config -> {
-            final CacheConfiguration.TimestampCacheConfiguration timestampConfiguration = config.timestampConfiguration().orElseThrow();
-            result.put(config.cacheName(), timestampConfiguration.timestampExpiration());
-        });
+        this.metrics.recordExecutionTime(KnownMetrics.TIMESTAMPS_EXPIRATION_STEP_TIME, cacheTimestamps::expireStep);
+        if (cacheTimestamps.lastStepExpiredCount > 0) {
+            this.metrics.increaseCounter(KnownMetrics.EXPIRED_TIMESTAMPS_COUNT, cacheTimestamps.lastStepExpiredCount);
+        }
 
-        return result;
+        return cacheTimestamps.lastStepHasMore;
     }
 
-    private Map<Object, Long> createTimestampMap(final CacheConfiguration cacheConfiguration) {
+    private static CacheTimestamps createCacheTimestamps(final CacheConfiguration cacheConfiguration) {
         final CacheConfiguration.TimestampCacheConfiguration timestampCacheConfiguration =
                 cacheConfiguration.timestampConfiguration()
                         .orElseThrow(() -> new InvalidCacheConfigurationException("Timestamp configuration must present in cache with timestamp based comparison"));
-        return new ConcurrentHashMap<>(timestampCacheConfiguration.probableAverageElementsCount());
+        return new CacheTimestamps(
+                new ConcurrentHashMap<>(timestampCacheConfiguration.probableAverageElementsCount()),
+                timestampCacheConfiguration.timestampExpiration()
+        );
+    }
+
+    private static final class CacheTimestamps {
+
+        private final Map<Object, Long> timestamps;
+        private final ConcurrentSkipListMap<Long, Queue<Object>> generations = new ConcurrentSkipListMap<>();
+        private final ReentrantLock expirationLock = new ReentrantLock();
+        private final long expiration;
+        private final long generationInterval;
+
+        private volatile long nextExpirationTime;
+
+        // Results of the last step, accessed only by the thread performing the expiration
+        private int lastStepExpiredCount;
+        private boolean lastStepHasMore;
+
+        private CacheTimestamps(final Map<Object, Long> timestamps, final long expiration) {
+            this.timestamps = timestamps;
+            this.expiration = expiration;
+            this.generationInterval = Math.max(expiration / GENERATIONS_COUNT, MIN_GENERATION_INTERVAL_MS);
+        }
+
+        private long generationOf(final long timestamp) {
+            return Math.floorDiv(timestamp, this.generationInterval);
+        }
+
+        private void addToGeneration(final Object key, final long timestamp) {
+            this.generations.computeIfAbsent(generationOf(timestamp), g -> new ConcurrentLinkedQueue<>()).offer(key);
+        }
+
+        private void expireStep() {
+
+            final long expirationBound = System.currentTimeMillis() - this.expiration;
+            int processed = 0;
+            int expired = 0;
+
+            Map.Entry<Long, Queue<Object>> generation;
+            while (processed < EXPIRATION_STEP_SIZE
+                    && (generation = this.generations.firstEntry()) != null
+                    && (generation.getKey() + 1) * this.generationInterval <= expirationBound) {
+
+                final Queue<Object> keys = generation.getValue();
+                Object key;
+                while (processed < EXPIRATION_STEP_SIZE && (key = keys.poll()) != null) {
+                    processed++;
+
+                    // The key may have a newer timestamp, then it is also contained in the newer generation
+                    final Long timestamp = this.timestamps.get(key);
+                    if (timestamp != null && timestamp < expirationBound && this.timestamps.remove(key, timestamp)) {
+                        expired++;
+                    }
+                }
+
+                if (keys.isEmpty()) {
+                    this.generations.remove(generation.getKey(), keys);
+                }
+            }
+
+            this.lastStepExpiredCount = expired;
+            this.lastStepHasMore = processed == EXPIRATION_STEP_SIZE;
+        }
     }
 }
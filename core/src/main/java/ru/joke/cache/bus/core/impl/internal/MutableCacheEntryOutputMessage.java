@@ -0,0 +1,132 @@
+package ru.joke.cache.bus.core.impl.internal;
+
+import ru.joke.cache.bus.core.CacheEntryEvent;
+import ru.joke.cache.bus.core.transport.ByteBuffers;
+import ru.joke.cache.bus.core.transport.CacheBusMessageChannel;
+import ru.joke.cache.bus.core.transport.CacheEntryEventConverter;
+import ru.joke.cache.bus.core.transport.CacheEntryOutputMessage;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.NotThreadSafe;
+import java.nio.ByteBuffer;
+
+/**
+ * Reusable outgoing message used by the producers to send the single events to the channel
+ * without the allocation of the message object for each event. The channel must not retain the message
+ * after the return from {@linkplain CacheBusMessageChannel#send(CacheEntryOutputMessage)}.<br>
+ * The event is converted to the binary representation on demand of the channel: to the pooled buffer of the converter
+ * if the channel requests the {@linkplain #cacheEntryMessageBuffer() buffer}, or to the array if the channel requests
+ * the {@linkplain #cacheEntryMessageBody() array}, so the channels sending the buffers avoid the copying of the binary representation.
+ *
+ * @author Alik
+ * @see CacheEntryOutputMessage
+ * @see CacheEventMessageProducer
+ */
+@NotThreadSafe
+final class MutableCacheEntryOutputMessage implements CacheEntryOutputMessage {
+
+    private CacheEntryEvent<?, ?> sourceEvent;
+    private CacheEntryEventConverter converter;
+    private boolean serializeValueFields;
+    private String cacheName;
+    private int hashKey;
+    private byte[] messageBody;
+    private ByteBuffer messageBuffer;
+
+    /**
+     * Fills the message with the data of the event that is converted to the binary representation on demand.
+     *
+     * @param sourceEvent          the source event of the message, cannot be {@code null}.
+     * @param converter            the converter of the event to the binary representation, cannot be {@code null}.
+     * @param serializeValueFields indicates whether value fields should be serialized
+     * @return the filled message: this message or a new one if this message is still in use, cannot be {@code null}.
+     */
+    @Nonnull
+    MutableCacheEntryOutputMessage fill(
+            @Nonnull final CacheEntryEvent<?, ?> sourceEvent,
+            @Nonnull final CacheEntryEventConverter converter,
+            final boolean serializeValueFields) {
+
+        if (this.sourceEvent != null) {
+            return new MutableCacheEntryOutputMessage().fill(sourceEvent, converter, serializeValueFields);
+        }
+
+        this.sourceEvent = sourceEvent;
+        this.converter = converter;
+        this.serializeValueFields = serializeValueFields;
+        this.cacheName = sourceEvent.cacheName();
+        this.hashKey = sourceEvent.computeEventHashKey();
+
+        return this;
+    }
+
+    /**
+     * Clears the message after the sending, so it doesn't hold the references to the event and its binary representation.
+     */
+    void clear() {
+        this.sourceEvent = null;
+        this.converter = null;
+        this.serializeValueFields = false;
+        this.cacheName = null;
+        this.hashKey = 0;
+        this.messageBody = null;
+        this.messageBuffer = null;
+    }
+
+    /**
+     * Returns the size of the binary representation of the event produced for the channel.
+     *
+     * @return the size of the binary representation or {@code 0} if the channel didn't request it.
+     */
+    int messageSize() {
+        if (this.messageBody != null) {
+            return this.messageBody.length;
+        }
+
+        return this.messageBuffer == null ? 0 : this.messageBuffer.remaining();
+    }
+
+    @Nonnull
+    @Override
+    public String cacheName() {
+        return this.cacheName;
+    }
+
+    @Nonnull
+    @Override
+    public byte[] cacheEntryMessageBody() {
+        if (this.messageBody == null) {
+            // The buffer can be the pooled buffer of the converter, so the array can be retained by the channel only as a copy
+            this.messageBody = this.messageBuffer == null
+                    ? this.converter.toBinary(this.sourceEvent, this.serializeValueFields)
+                    : ByteBuffers.toByteArray(this.messageBuffer);
+        }
+
+        return this.messageBody;
+    }
+
+    @Nonnull
+    @Override
+    public ByteBuffer cacheEntryMessageBuffer() {
+        if (this.messageBuffer == null) {
+            this.messageBuffer = this.messageBody == null
+                    ? this.converter.toBuffer(this.sourceEvent, this.serializeValueFields)
+                    : ByteBuffer.wrap(this.messageBody);
+        }
+
+        return this.messageBuffer;
+    }
+
+    @Override
+    public int messageHashKey() {
+        return this.hashKey;
+    }
+
+    @Override
+    public String toString() {
+        return "MutableCacheEntryOutputMessage{" +
+                "cacheName='" + cacheName + '\'' +
+                ", hashKey=" + hashKey +
+                '}';
+    }
+}
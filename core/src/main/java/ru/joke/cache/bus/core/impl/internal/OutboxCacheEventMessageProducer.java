@@ -0,0 +1,201 @@
+package ru.joke.cache.bus.core.impl.internal;
+
+import ru.joke.cache.bus.core.CacheEntryEvent;
+import ru.joke.cache.bus.core.configuration.CacheBusTransportConfiguration;
+import ru.joke.cache.bus.core.configuration.CacheConfiguration;
+import ru.joke.cache.bus.core.impl.internal.util.MappedJournal;
+import ru.joke.cache.bus.core.metrics.CacheBusMetricsRegistry;
+import ru.joke.cache.bus.core.metrics.KnownMetrics;
+import ru.joke.cache.bus.core.metrics.Metrics;
+import ru.joke.cache.bus.core.state.ComponentState;
+import ru.joke.cache.bus.core.transport.CacheBusMessageChannel;
+import ru.joke.cache.bus.core.transport.CacheEntryOutputMessage;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Implementation of an asynchronous event sender to a channel based on the durable outbox journal.
+ * The thread that modifies the cache converts the event to the binary representation and appends it
+ * to the memory-mapped journal ({@linkplain MappedJournal}) on the local disk; the single sending thread reads
+ * the journaled events in the order of appending, sends them to the channel and confirms the sent events by the checkpoint
+ * only after the channel confirms their delivery ({@linkplain CacheBusMessageChannel#flush()}).<br>
+ * If the sending fails (for example, the broker is not available longer than the reconnection timeout of the channel),
+ * the events after the last checkpoint are sent again after {@linkplain CacheBusTransportConfiguration.OutboxConfiguration#retryIntervalMs()};
+ * the events not sent before the closure of the producer or the crash of the application are sent after the restart,
+ * so the events are delivered at least once.<br>
+ * The sending thread reads up to {@value #MAX_DRAINED_RECORDS} (or {@linkplain CacheBusTransportConfiguration#maxAsyncSendingBatchSize()}
+ * if batch sending is enabled) available journaled events per iteration and confirms the delivery and makes the checkpoint
+ * once per the read group of the events, so the blocking confirmation of the channel isn't paid for each event.<br>
+ * If batch sending is enabled ({@linkplain CacheBusTransportConfiguration#useBatchSending()}), the sending thread groups
+ * the read events by the hash key into {@linkplain CacheBusTransportConfiguration#maxAsyncSendingThreads()} groups
+ * and sends each group as a single multi-event frame with the index of the group as the hash key of the batch,
+ * so the events with the same key are always sent with the same hash.
+ *
+ * @author Alik
+ * @see MappedJournal
+ * @see CacheBusTransportConfiguration#outboxConfiguration()
+ */
+@ThreadSafe
+public final class OutboxCacheEventMessageProducer extends CacheEventMessageProducer {
+
+    private static final String PRODUCER_ID = "outbox-message-producer";
+    private static final long AWAIT_RECORDS_TIMEOUT_MS = 100;
+    private static final int MAX_DRAINED_RECORDS = 256;
+
+    private final MappedJournal journal;
+    private final long retryIntervalMs;
+    private final AsyncMessageProcessingState state;
+    private final Future<?> sendingTask;
+
+    public OutboxCacheEventMessageProducer(
+            @Nonnull final CacheBusMetricsRegistry metrics,
+            @Nonnull final CacheBusTransportConfiguration transportConfiguration) {
+        super(metrics, transportConfiguration);
+
+        final CacheBusTransportConfiguration.OutboxConfiguration outboxConfiguration = Objects.requireNonNull(transportConfiguration.outboxConfiguration(), "outboxConfiguration");
+        this.journal = new MappedJournal(outboxConfiguration.directory(), outboxConfiguration.segmentSize());
+        this.retryIntervalMs = outboxConfiguration.retryIntervalMs();
+        this.state = new AsyncMessageProcessingState(PRODUCER_ID, "Count of interrupted on produce to channel threads: %d", 1);
+
+        this.metrics.registerCounter(new Metrics.Counter(KnownMetrics.PRODUCER_INTERRUPTED_THREADS));
+        this.metrics.registerCounter(new Metrics.Counter(KnownMetrics.PRODUCER_OUTBOX_SEND_RETRIES_COUNT));
+        this.metrics.registerTimer(new Metrics.Timer(KnownMetrics.PRODUCER_OUTBOX_APPEND_TIME));
+        this.metrics.registerGauge(new Metrics.Gauge<>(KnownMetrics.PRODUCER_OUTBOX_PENDING_BYTES, this.journal, MappedJournal::pendingBytes));
+        if (transportConfiguration.useBatchSending()) {
+            this.metrics.registerSummary(new Metrics.Summary(KnownMetrics.PRODUCED_BATCH_SIZE, "events"));
+        }
+
+        this.sendingTask = transportConfiguration.asyncSendingPool().submit(this::sendUntilInterrupted);
+    }
+
+    @Override
+    public void produce(@Nonnull CacheConfiguration cacheConfiguration, @Nonnull CacheEntryEvent<?, ?> event) {
+
+        // The journaled events are sent only in the multi-event frames if batch sending is enabled
+        final CacheEntryOutputMessage outputMessage = this.transportConfiguration.useBatchSending()
+                ? createBatchOutputMessage(cacheConfiguration, event)
+                : createOutputMessage(cacheConfiguration, event);
+        final byte[] record = toRecord(outputMessage);
+        final long startTime = System.nanoTime();
+        this.journal.append(record);
+        this.metrics.recordExecutionTime(KnownMetrics.PRODUCER_OUTBOX_APPEND_TIME, System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+    }
+
+    @Nonnull
+    @Override
+    public ComponentState state() {
+        return this.state;
+    }
+
+    @Override
+    public void close() {
+        logger.info("Outbox producer closure was called");
+        this.sendingTask.cancel(true);
+        this.journal.close();
+        this.state.toStoppedState();
+    }
+
+    private void sendUntilInterrupted() {
+
+        final int maxDrainedRecords = this.transportConfiguration.useBatchSending() ? this.transportConfiguration.maxAsyncSendingBatchSize() : MAX_DRAINED_RECORDS;
+        final List<CacheEntryOutputMessage> messages = new ArrayList<>(maxDrainedRecords);
+
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                if (!this.journal.awaitRecords(AWAIT_RECORDS_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                    continue;
+                }
+
+                byte[] record;
+                while (messages.size() < maxDrainedRecords && (record = this.journal.readNext()) != null) {
+                    messages.add(fromRecord(record));
+                }
+
+                send(messages);
+                // The channel can send messages asynchronously, so the events are confirmed only after the delivery
+                this.transportConfiguration.messageChannel().flush();
+                this.journal.checkpoint(this.journal.readPosition());
+            } catch (InterruptedException ex) {
+                onInterruption(ex);
+                return;
+            } catch (RuntimeException ex) {
+                logger.warn("Unable to send journaled events to channel, will be retried in " + this.retryIntervalMs + " ms", ex);
+                this.metrics.incrementCounter(KnownMetrics.PRODUCER_OUTBOX_SEND_RETRIES_COUNT);
+                this.journal.rewind();
+
+                if (!sleepBeforeRetry()) {
+                    return;
+                }
+            } finally {
+                messages.clear();
+            }
+        }
+    }
+
+    private void send(final List<CacheEntryOutputMessage> messages) {
+
+        if (!this.transportConfiguration.useBatchSending()) {
+            messages.forEach(this::sendToChannel);
+            return;
+        }
+
+        final int groups = Integer.highestOneBit(Math.max(this.transportConfiguration.maxAsyncSendingThreads(), 1));
+        final Map<Integer, List<CacheEntryOutputMessage>> messagesByGroups = new LinkedHashMap<>(groups);
+        for (final CacheEntryOutputMessage message : messages) {
+            messagesByGroups.computeIfAbsent(message.messageHashKey() & (groups - 1), k -> new ArrayList<>()).add(message);
+        }
+
+        messagesByGroups.forEach((group, groupMessages) -> sendBatchToChannel(groupMessages, group));
+    }
+
+    private boolean sleepBeforeRetry() {
+        try {
+            Thread.sleep(this.retryIntervalMs);
+            return true;
+        } catch (InterruptedException ex) {
+            onInterruption(ex);
+            return false;
+        }
+    }
+
+    private void onInterruption(final InterruptedException ex) {
+        this.logger.info("Thread was interrupted", ex);
+        this.state.increaseCountOfInterruptedThreads();
+        this.metrics.incrementCounter(KnownMetrics.PRODUCER_INTERRUPTED_THREADS);
+    }
+
+    private static byte[] toRecord(final CacheEntryOutputMessage message) {
+
+        final byte[] cacheName = message.cacheName().getBytes(StandardCharsets.UTF_8);
+        final byte[] body = message.cacheEntryMessageBody();
+
+        return ByteBuffer.allocate(Integer.BYTES * 2 + cacheName.length + body.length)
+                            .putInt(message.messageHashKey())
+                            .putInt(cacheName.length)
+                            .put(cacheName)
+                            .put(body)
+                         .array();
+    }
+
+    private static CacheEntryOutputMessage fromRecord(final byte[] record) {
+
+        final ByteBuffer buffer = ByteBuffer.wrap(record);
+        final int hashKey = buffer.getInt();
+        final int cacheNameLength = buffer.getInt();
+        final String cacheName = new String(record, buffer.position(), cacheNameLength, StandardCharsets.UTF_8);
+        final byte[] body = new byte[record.length - buffer.position() - cacheNameLength];
+        buffer.position(buffer.position() + cacheNameLength).get(body);
+
+        return new ImmutableCacheEntryOutputMessage(cacheName, body, hashKey);
+    }
+}
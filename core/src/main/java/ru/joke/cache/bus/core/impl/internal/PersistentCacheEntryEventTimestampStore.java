@@ -0,0 +1,487 @@
+package ru.joke.cache.bus.core.impl.internal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.joke.cache.bus.core.CacheEntryEvent;
+import ru.joke.cache.bus.core.CacheEntryEventTimestampStore;
+import ru.joke.cache.bus.core.configuration.CacheBusConfiguration;
+import ru.joke.cache.bus.core.configuration.CacheConfiguration;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.Checksum;
+
+/**
+ * Compact storage of cache element change timestamps that survives restarts of the bus.<br>
+ * The current timestamps are kept in the {@linkplain CompactCacheEntryEventTimestampStore} and are periodically
+ * ({@linkplain CacheBusConfiguration.TimestampStoreConfiguration#snapshotIntervalMs()}) saved together with
+ * the timestamps of the previous snapshot to the snapshot file in the
+ * {@linkplain CacheBusConfiguration.TimestampStoreConfiguration#snapshotDirectory()}; the final snapshot
+ * is taken on closure of the storage. When the storage is created (on start of the bus), the snapshot is only
+ * memory-mapped: the timestamps of the snapshot are looked up lazily by the fingerprints of the keys of the events,
+ * so the replayed or late events with the timestamps not newer than persisted ones are rejected after the restart.<br>
+ * See the documentation of {@linkplain CacheEntryEventTimestampStore#save(CacheEntryEvent)} for requirements
+ * on the storage implementation.
+ *
+ * @author Alik
+ * @implNote The snapshot contains the header with the directory of the caches protected by the CRC32C checksum
+ * and the open-addressing table of fingerprints and timestamps per cache, divided into blocks of {@code 1024} slots
+ * with their own CRC32C checksums. The checksum of the block is verified on the first access to the block,
+ * the slots of the corrupted block are ignored. The expired timestamps (according to the settings of the corresponding
+ * cache) are ignored on lookups and are not copied to the next snapshot.<br>
+ * The snapshots are written alternately to two files, the header of the snapshot contains its generation;
+ * the valid snapshot with the latest generation is used. So the file of the current (memory-mapped) snapshot is never
+ * replaced or modified by the next snapshot, and the crash during the writing of the snapshot doesn't affect the previous one.
+ * @see CompactCacheEntryEventTimestampStore
+ * @see CacheBusConfiguration.TimestampStoreConfiguration#snapshotDirectory()
+ */
+@ThreadSafe
+public final class PersistentCacheEntryEventTimestampStore implements CacheEntryEventTimestampStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(PersistentCacheEntryEventTimestampStore.class);
+
+    private static final String SNAPSHOT_FILE_PATTERN = "timestamps-%d.snapshot";
+    private static final String SNAPSHOT_THREAD_NAME = "cache-bus-timestamps-snapshot";
+
+    private static final int MAGIC = 0x43425453;
+    private static final int VERSION = 2;
+    private static final int SLOT_SIZE = 2 * Long.BYTES;
+    private static final int BLOCK_SLOTS = 1024;
+    private static final int MIN_CAPACITY = 16;
+    private static final long EMPTY = 0;
+    private static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+    private final CompactCacheEntryEventTimestampStore liveStore;
+    private final Map<String, Long> timestampExpirationsByCacheMap;
+    private final Path[] snapshotFiles;
+    private final ScheduledExecutorService snapshotExecutor;
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+
+    private volatile Snapshot snapshot;
+    @GuardedBy("snapshotLock")
+    private long generation;
+
+    public PersistentCacheEntryEventTimestampStore(
+            @Nonnull Set<CacheConfiguration> configurations,
+            @Nonnull CacheBusConfiguration.TimestampStoreConfiguration storeConfiguration) {
+        final Path snapshotDirectory = Objects.requireNonNull(storeConfiguration.snapshotDirectory(), "snapshotDirectory");
+        this.liveStore = new CompactCacheEntryEventTimestampStore(configurations, storeConfiguration);
+
+        final Map<String, Long> expirationsMap = new HashMap<>(configurations.size() + 1, 1);
+        configurations.forEach(
+                config -> expirationsMap.put(config.cacheName(), config.timestampConfiguration().orElseThrow().timestampExpiration())
+        );
+        this.timestampExpirationsByCacheMap = Collections.unmodifiableMap(expirationsMap);
+
+        try {
+            Files.createDirectories(snapshotDirectory);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+
+        this.snapshotFiles = new Path[] {
+                snapshotDirectory.resolve(String.format(SNAPSHOT_FILE_PATTERN, 0)),
+                snapshotDirectory.resolve(String.format(SNAPSHOT_FILE_PATTERN, 1))
+        };
+        this.snapshot = openLatestSnapshot();
+        if (this.snapshot != null) {
+            this.generation = this.snapshot.generation;
+        }
+
+        this.snapshotExecutor = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform()
+                        .name(SNAPSHOT_THREAD_NAME)
+                        .daemon(true)
+                        .priority(Thread.MIN_PRIORITY)
+                      .factory()
+        );
+        this.snapshotExecutor.scheduleWithFixedDelay(
+                this::takeSnapshot,
+                storeConfiguration.snapshotIntervalMs(),
+                storeConfiguration.snapshotIntervalMs(),
+                TimeUnit.MILLISECONDS
+        );
+    }
+
+    @Override
+    public boolean save(@Nonnull CacheEntryEvent<?, ?> event) {
+
+        final Object key = event.key();
+        final Snapshot snapshot = this.snapshot;
+        if (snapshot != null && !key.equals(CacheEntryEvent.ALL_ENTRIES_KEY)) {
+            final long expirationBound = System.currentTimeMillis() - this.timestampExpirationsByCacheMap.get(event.cacheName());
+            final long persistedTimestamp = snapshot.timestamp(event.cacheName(), CompactCacheEntryEventTimestampStore.fingerprint(key), expirationBound);
+            if (persistedTimestamp >= event.eventTime()) {
+                return false;
+            }
+        }
+
+        return this.liveStore.save(event);
+    }
+
+    @Override
+    public void close() {
+        this.snapshotExecutor.shutdownNow();
+        try {
+            if (!this.snapshotExecutor.awaitTermination(1, TimeUnit.MINUTES)) {
+                logger.warn("Snapshot thread wasn't terminated in time");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+
+        takeSnapshot();
+    }
+
+    void takeSnapshot() {
+
+        this.snapshotLock.lock();
+        try {
+            final Snapshot previous = this.snapshot;
+            final long now = System.currentTimeMillis();
+
+            final Map<String, Integer> capacitiesByCacheMap = new LinkedHashMap<>();
+            this.timestampExpirationsByCacheMap.keySet().forEach(cacheName -> {
+                final long count = this.liveStore.size(cacheName) + (previous == null ? 0 : previous.size(cacheName));
+                capacitiesByCacheMap.put(cacheName, tableCapacity(count));
+            });
+
+            // The file of the previous snapshot is still mapped, so the next snapshot is written to the other file
+            final long nextGeneration = this.generation + 1;
+            final Path file = this.snapshotFiles[(int) (nextGeneration & 1)];
+            writeSnapshot(file, nextGeneration, previous, capacitiesByCacheMap, now);
+
+            this.generation = nextGeneration;
+            this.snapshot = Snapshot.open(file);
+        } catch (IOException | RuntimeException ex) {
+            logger.warn("Unable to take snapshot of timestamps", ex);
+        } finally {
+            this.snapshotLock.unlock();
+        }
+    }
+
+    @Nullable
+    private Snapshot openLatestSnapshot() {
+
+        Snapshot latest = null;
+        for (final Path file : this.snapshotFiles) {
+            final Snapshot snapshot = Snapshot.open(file);
+            if (snapshot != null && (latest == null || snapshot.generation > latest.generation)) {
+                latest = snapshot;
+            }
+        }
+
+        return latest;
+    }
+
+    private void writeSnapshot(
+            final Path file,
+            final long generation,
+            final Snapshot previous,
+            final Map<String, Integer> capacitiesByCacheMap,
+            final long now) throws IOException {
+
+        final Map<String, byte[]> namesByCacheMap = new LinkedHashMap<>();
+        long headerSize = 3 * Integer.BYTES + Long.BYTES + Integer.BYTES;
+        for (final String cacheName : capacitiesByCacheMap.keySet()) {
+            final byte[] name = cacheName.getBytes(StandardCharsets.UTF_8);
+            namesByCacheMap.put(cacheName, name);
+            headerSize += Short.BYTES + name.length + Integer.BYTES + 2 * Long.BYTES;
+        }
+
+        final ByteArrayOutputStream headerBytes = new ByteArrayOutputStream((int) headerSize);
+        final CRC32C headerChecksum = new CRC32C();
+        // The file isn't truncated: the outdated mapping of the file (if it isn't released yet) must not be accessed beyond the end of the file
+        try (final FileChannel channel = FileChannel.open(
+                    file,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+             final DataOutputStream header = new DataOutputStream(headerBytes)) {
+
+            header.writeInt(MAGIC);
+            header.writeInt(VERSION);
+            header.writeLong(generation);
+            header.writeInt(capacitiesByCacheMap.size());
+
+            long sectionOffset = align(headerSize);
+            for (final Map.Entry<String, Integer> cacheCapacity : capacitiesByCacheMap.entrySet()) {
+                final String cacheName = cacheCapacity.getKey();
+                final int capacity = cacheCapacity.getValue();
+                final long expirationBound = now - this.timestampExpirationsByCacheMap.get(cacheName);
+
+                final Section section = new Section(channel.map(FileChannel.MapMode.READ_WRITE, sectionOffset, Section.size(capacity)), capacity, 0);
+                this.liveStore.forEachTimestamp(cacheName, (fingerprint, timestamp) -> {
+                    if (timestamp >= expirationBound) {
+                        section.put(fingerprint, timestamp);
+                    }
+                });
+
+                if (previous != null) {
+                    previous.forEachTimestamp(cacheName, expirationBound, section::put);
+                }
+
+                section.seal();
+
+                final byte[] name = namesByCacheMap.get(cacheName);
+                header.writeShort(name.length);
+                header.write(name);
+                header.writeInt(capacity);
+                header.writeLong(section.count);
+                header.writeLong(sectionOffset);
+
+                sectionOffset += align(Section.size(capacity));
+            }
+
+            final byte[] headerData = headerBytes.toByteArray();
+            headerChecksum.update(headerData);
+
+            channel.write(ByteBuffer.wrap(headerData), 0);
+            channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, (int) headerChecksum.getValue()), headerData.length);
+            channel.force(true);
+        }
+    }
+
+    private static int tableCapacity(final long count) {
+        final long capacity = Long.highestOneBit(Math.max(count * 4 / 3 + 1, MIN_CAPACITY - 1)) << 1;
+        if (capacity > Integer.MAX_VALUE / SLOT_SIZE) {
+            throw new IllegalStateException("Too many timestamps for snapshot: " + count);
+        }
+
+        return (int) capacity;
+    }
+
+    private static long align(final long offset) {
+        return (offset + Long.BYTES - 1) & -Long.BYTES;
+    }
+
+    private static final class Snapshot {
+
+        private final long generation;
+        private final Map<String, Section> sectionsByCacheMap;
+
+        private Snapshot(final long generation, final Map<String, Section> sectionsByCacheMap) {
+            this.generation = generation;
+            this.sectionsByCacheMap = sectionsByCacheMap;
+        }
+
+        private long timestamp(final String cacheName, final long fingerprint, final long expirationBound) {
+            final Section section = this.sectionsByCacheMap.get(cacheName);
+            return section == null ? NO_TIMESTAMP : section.timestamp(fingerprint, expirationBound);
+        }
+
+        private long size(final String cacheName) {
+            final Section section = this.sectionsByCacheMap.get(cacheName);
+            return section == null ? 0 : section.count;
+        }
+
+        private void forEachTimestamp(
+                final String cacheName,
+                final long expirationBound,
+                final CompactCacheEntryEventTimestampStore.TimestampConsumer consumer) {
+            final Section section = this.sectionsByCacheMap.get(cacheName);
+            if (section != null) {
+                section.forEachTimestamp(expirationBound, consumer);
+            }
+        }
+
+        @Nullable
+        private static Snapshot open(final Path file) {
+
+            try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                final Checksum checksum = new CRC32C();
+                final DataInputStream header = new DataInputStream(new CheckedInputStream(new BufferedInputStream(Channels.newInputStream(channel)), checksum));
+
+                if (header.readInt() != MAGIC || header.readInt() != VERSION) {
+                    logger.warn("Timestamps snapshot has unknown format and will be ignored: {}", file);
+                    return null;
+                }
+
+                final long generation = header.readLong();
+                final int cachesCount = header.readInt();
+                final Map<String, long[]> sectionsInfo = new HashMap<>(cachesCount + 1, 1);
+                for (int i = 0; i < cachesCount; i++) {
+                    final byte[] name = new byte[header.readUnsignedShort()];
+                    header.readFully(name);
+                    sectionsInfo.put(
+                            new String(name, StandardCharsets.UTF_8),
+                            new long[] { header.readInt(), header.readLong(), header.readLong() }
+                    );
+                }
+
+                final int expectedChecksum = (int) checksum.getValue();
+                if (header.readInt() != expectedChecksum) {
+                    logger.warn("Timestamps snapshot header is corrupted, snapshot will be ignored: {}", file);
+                    return null;
+                }
+
+                final Map<String, Section> sections = new HashMap<>(cachesCount + 1, 1);
+                for (final Map.Entry<String, long[]> sectionInfo : sectionsInfo.entrySet()) {
+                    final int capacity = (int) sectionInfo.getValue()[0];
+                    final long count = sectionInfo.getValue()[1];
+                    final long offset = sectionInfo.getValue()[2];
+                    if (offset + Section.size(capacity) > channel.size()) {
+                        logger.warn("Timestamps snapshot section of cache {} is truncated and will be ignored", sectionInfo.getKey());
+                        continue;
+                    }
+
+                    final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, Section.size(capacity));
+                    sections.put(sectionInfo.getKey(), new Section(buffer, capacity, count));
+                }
+
+                logger.info("Timestamps snapshot of generation {} opened: {}", generation, file);
+                return new Snapshot(generation, sections);
+            } catch (NoSuchFileException ex) {
+                return null;
+            } catch (IOException | RuntimeException ex) {
+                logger.warn("Unable to open timestamps snapshot, snapshot will be ignored: " + file, ex);
+                return null;
+            }
+        }
+    }
+
+    private static final class Section {
+
+        private static final byte BLOCK_NOT_VERIFIED = 0;
+        private static final byte BLOCK_VALID = 1;
+        private static final byte BLOCK_CORRUPTED = 2;
+
+        private final ByteBuffer buffer;
+        private final int capacity;
+        private final byte[] blockStates;
+
+        private long count;
+
+        private Section(final ByteBuffer buffer, final int capacity, final long count) {
+            this.buffer = buffer;
+            this.capacity = capacity;
+            this.count = count;
+            this.blockStates = new byte[blocks(capacity)];
+        }
+
+        private long timestamp(final long fingerprint, final long expirationBound) {
+
+            final int mask = this.capacity - 1;
+            int index = (int) fingerprint & mask;
+            for (int i = 0; i < this.capacity; i++) {
+                if (!isBlockValid(index / BLOCK_SLOTS)) {
+                    return NO_TIMESTAMP;
+                }
+
+                final long current = this.buffer.getLong(index * SLOT_SIZE);
+                if (current == EMPTY) {
+                    return NO_TIMESTAMP;
+                } else if (current == fingerprint) {
+                    final long timestamp = this.buffer.getLong(index * SLOT_SIZE + Long.BYTES);
+                    return timestamp >= expirationBound ? timestamp : NO_TIMESTAMP;
+                }
+
+                index = (index + 1) & mask;
+            }
+
+            return NO_TIMESTAMP;
+        }
+
+        private void forEachTimestamp(final long expirationBound, final CompactCacheEntryEventTimestampStore.TimestampConsumer consumer) {
+            for (int index = 0; index < this.capacity; index++) {
+                if (index % BLOCK_SLOTS == 0 && !isBlockValid(index / BLOCK_SLOTS)) {
+                    index += BLOCK_SLOTS - 1;
+                    continue;
+                }
+
+                final long fingerprint = this.buffer.getLong(index * SLOT_SIZE);
+                final long timestamp = this.buffer.getLong(index * SLOT_SIZE + Long.BYTES);
+                if (fingerprint != EMPTY && timestamp >= expirationBound) {
+                    consumer.accept(fingerprint, timestamp);
+                }
+            }
+        }
+
+        private void put(final long fingerprint, final long timestamp) {
+
+            final int mask = this.capacity - 1;
+            int index = (int) fingerprint & mask;
+            long current;
+            while ((current = this.buffer.getLong(index * SLOT_SIZE)) != EMPTY) {
+                if (current == fingerprint) {
+                    if (timestamp > this.buffer.getLong(index * SLOT_SIZE + Long.BYTES)) {
+                        this.buffer.putLong(index * SLOT_SIZE + Long.BYTES, timestamp);
+                    }
+
+                    return;
+                }
+
+                index = (index + 1) & mask;
+            }
+
+            // The live timestamps may appear after the calculation of the capacity, such timestamps are skipped
+            if (this.count >= this.capacity - (this.capacity >>> 2)) {
+                return;
+            }
+
+            this.buffer.putLong(index * SLOT_SIZE, fingerprint);
+            this.buffer.putLong(index * SLOT_SIZE + Long.BYTES, timestamp);
+            this.count++;
+        }
+
+        private void seal() {
+            final int checksumsOffset = this.capacity * SLOT_SIZE;
+            for (int block = 0; block < this.blockStates.length; block++) {
+                this.buffer.putInt(checksumsOffset + block * Integer.BYTES, calculateChecksum(block));
+            }
+
+            ((MappedByteBuffer) this.buffer).force();
+        }
+
+        private boolean isBlockValid(final int block) {
+
+            final byte state = this.blockStates[block];
+            if (state != BLOCK_NOT_VERIFIED) {
+                return state == BLOCK_VALID;
+            }
+
+            // Concurrent verifications of the same block are harmless
+            final boolean valid = calculateChecksum(block) == this.buffer.getInt(this.capacity * SLOT_SIZE + block * Integer.BYTES);
+            if (!valid) {
+                logger.warn("Block {} of timestamps snapshot is corrupted, its timestamps will be ignored", block);
+            }
+
+            this.blockStates[block] = valid ? BLOCK_VALID : BLOCK_CORRUPTED;
+            return valid;
+        }
+
+        private int calculateChecksum(final int block) {
+            final int from = block * BLOCK_SLOTS * SLOT_SIZE;
+            final int length = Math.min(BLOCK_SLOTS, this.capacity - block * BLOCK_SLOTS) * SLOT_SIZE;
+
+            final CRC32C checksum = new CRC32C();
+            checksum.update(this.buffer.slice(from, length));
+            return (int) checksum.getValue();
+        }
+
+        private static long size(final int capacity) {
+            return (long) capacity * SLOT_SIZE + (long) blocks(capacity) * Integer.BYTES;
+        }
+
+        private static int blocks(final int capacity) {
+            return (capacity + BLOCK_SLOTS - 1) / BLOCK_SLOTS;
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package ru.joke.cache.bus.core.impl.internal;
+
+import ru.joke.cache.bus.core.CacheEntryEvent;
+import ru.joke.cache.bus.core.CacheEntryEventType;
+import ru.joke.cache.bus.core.configuration.BufferOverflowPolicy;
+import ru.joke.cache.bus.core.impl.ImmutableCacheEntryEvent;
+import ru.joke.cache.bus.core.impl.internal.util.RingBuffer;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stripe of the asynchronous producer: the circular buffer of the stripe with the means of handling its overflow.<br>
+ * In addition to the buffer, the stripe can hold the bounded overflow queue
+ * (see {@linkplain BufferOverflowPolicy#SPILL_TO_OVERFLOW_QUEUE}) and the pending clearing events of the caches
+ * whose events were dropped (see {@linkplain BufferOverflowPolicy#DROP_AND_CLEAR_CACHE}).
+ * The overflow queue is drained after the buffer; while it is not empty, the new spilled events are also put into it,
+ * so the order of the events is preserved. The clearing event of a cache is returned to the sending thread only after
+ * all events that were queued before the last drop in the cache have been read.<br>
+ * Methods of reading from the stripe must be called only from the single sending thread of the stripe.
+ *
+ * @author Alik
+ * @see RingBuffer
+ * @see BufferOverflowPolicy
+ */
+@ThreadSafe
+final class ProducerStripe {
+
+    private static final long CHECK_PERIOD_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final RingBuffer<CacheEntryEvent<?, ?>> buffer;
+    private final Queue<CacheEntryEvent<?, ?>> overflowQueue;
+    private final AtomicInteger overflowQueueSize;
+    private final int overflowQueueCapacity;
+    private final Map<String, Long> pendingClears;
+    private final boolean periodicChecksRequired;
+
+    /**
+     * Creates the stripe.
+     *
+     * @param buffer                the circular buffer of the stripe, cannot be {@code null}.
+     * @param overflowQueueCapacity the capacity of the overflow queue; if the value is {@code 0}, the overflow queue is not used.
+     * @param escalationsPossible   whether events of the stripe can be dropped with escalation to the clearing of the cache.
+     */
+    ProducerStripe(
+            @Nonnull final RingBuffer<CacheEntryEvent<?, ?>> buffer,
+            @Nonnegative final int overflowQueueCapacity,
+            final boolean escalationsPossible) {
+        this.buffer = Objects.requireNonNull(buffer, "buffer");
+        this.overflowQueueCapacity = overflowQueueCapacity;
+        this.overflowQueue = new ConcurrentLinkedQueue<>();
+        this.overflowQueueSize = new AtomicInteger();
+        this.pendingClears = new ConcurrentHashMap<>();
+        this.periodicChecksRequired = overflowQueueCapacity > 0 || escalationsPossible;
+    }
+
+    @Nonnull
+    RingBuffer<CacheEntryEvent<?, ?>> buffer() {
+        return this.buffer;
+    }
+
+    @Nonnegative
+    int overflowQueueSize() {
+        return this.overflowQueueSize.get();
+    }
+
+    /**
+     * Puts the event into the buffer if there is free space in it, otherwise into the overflow queue.
+     * If the overflow queue is not empty, the event is put into the overflow queue to preserve the order of the events.
+     *
+     * @param event the event, cannot be {@code null}.
+     * @return the result of the addition, cannot be {@code null}.
+     */
+    @Nonnull
+    SpillResult spill(@Nonnull final CacheEntryEvent<?, ?> event) throws InterruptedException {
+        if (this.overflowQueueSize.get() == 0 && this.buffer.offer(event, 0, TimeUnit.NANOSECONDS)) {
+            return SpillResult.BUFFERED;
+        }
+
+        if (this.overflowQueueSize.incrementAndGet() > this.overflowQueueCapacity) {
+            this.overflowQueueSize.decrementAndGet();
+            return SpillResult.REJECTED;
+        }
+
+        this.overflowQueue.add(event);
+        return SpillResult.SPILLED;
+    }
+
+    /**
+     * Marks that the event of the cache was dropped, so the event for all entries of the cache must be sent
+     * after all events queued at the moment. Repeated drops in the same cache are coalesced into one clearing event.
+     *
+     * @param cacheName the name of the cache, cannot be {@code null}.
+     * @return {@code true} if there was no pending clearing event for the cache, {@code false} otherwise.
+     */
+    boolean markForClear(@Nonnull final String cacheName) {
+        final long position = this.buffer.currentWritePosition();
+        while (true) {
+            final Long previousPosition = this.pendingClears.putIfAbsent(cacheName, position);
+            if (previousPosition == null) {
+                return true;
+            } else if (previousPosition >= position || this.pendingClears.replace(cacheName, previousPosition, position)) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Retrieves the event from the stripe, waiting if there are no events in the stripe.
+     *
+     * @return cannot be {@code null}.
+     */
+    @Nonnull
+    CacheEntryEvent<?, ?> poll() throws InterruptedException {
+        if (!this.periodicChecksRequired) {
+            return this.buffer.poll();
+        }
+
+        while (true) {
+            final CacheEntryEvent<?, ?> event = poll(CHECK_PERIOD_NANOS, TimeUnit.NANOSECONDS);
+            if (event != null) {
+                return event;
+            }
+        }
+    }
+
+    /**
+     * Retrieves the event from the stripe, waiting up to the specified time if there are no events in the stripe.
+     *
+     * @param timeout the maximum time to wait, cannot be negative.
+     * @param unit    the time unit of the {@code timeout} argument, cannot be {@code null}.
+     * @return the event or {@code null} if the specified waiting time elapsed before an event was available.
+     */
+    @Nullable
+    CacheEntryEvent<?, ?> poll(@Nonnegative final long timeout, @Nonnull final TimeUnit unit) throws InterruptedException {
+        if (!this.periodicChecksRequired) {
+            return this.buffer.poll(timeout, unit);
+        }
+
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (true) {
+            final CacheEntryEvent<?, ?> event = pollAvailable();
+            if (event != null) {
+                return event;
+            }
+
+            final long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return null;
+            }
+
+            final CacheEntryEvent<?, ?> bufferedEvent = this.buffer.poll(Math.min(remaining, CHECK_PERIOD_NANOS), TimeUnit.NANOSECONDS);
+            if (bufferedEvent != null) {
+                return bufferedEvent;
+            }
+        }
+    }
+
+    /**
+     * Removes at most the given number of available events from the stripe and adds them to the given list.
+     * The method never waits.
+     *
+     * @param target    the list to transfer events into, cannot be {@code null}.
+     * @param maxEvents the maximum number of events to transfer.
+     * @return the number of events transferred.
+     */
+    @Nonnegative
+    int drainTo(@Nonnull final List<CacheEntryEvent<?, ?>> target, final int maxEvents) {
+        int count = this.buffer.drainTo(target, maxEvents);
+        if (!this.periodicChecksRequired) {
+            return count;
+        }
+
+        CacheEntryEvent<?, ?> event;
+        while (count < maxEvents && (event = pollOverflowQueue()) != null) {
+            target.add(event);
+            count++;
+        }
+
+        while (count < maxEvents && (event = pollReadyClearEvent()) != null) {
+            target.add(event);
+            count++;
+        }
+
+        return count;
+    }
+
+    private CacheEntryEvent<?, ?> pollAvailable() throws InterruptedException {
+        final CacheEntryEvent<?, ?> bufferedEvent = this.buffer.poll(0, TimeUnit.NANOSECONDS);
+        if (bufferedEvent != null) {
+            return bufferedEvent;
+        }
+
+        final CacheEntryEvent<?, ?> spilledEvent = pollOverflowQueue();
+        return spilledEvent == null ? pollReadyClearEvent() : spilledEvent;
+    }
+
+    private CacheEntryEvent<?, ?> pollOverflowQueue() {
+        final CacheEntryEvent<?, ?> event = this.overflowQueue.poll();
+        if (event != null) {
+            this.overflowQueueSize.decrementAndGet();
+        }
+
+        return event;
+    }
+
+    private CacheEntryEvent<?, ?> pollReadyClearEvent() {
+        if (this.pendingClears.isEmpty() || this.overflowQueueSize.get() > 0) {
+            return null;
+        }
+
+        final long readIndex = this.buffer.currentReadIndex();
+        final Iterator<Map.Entry<String, Long>> iterator = this.pendingClears.entrySet().iterator();
+        while (iterator.hasNext()) {
+            final Map.Entry<String, Long> pendingClear = iterator.next();
+            final String cacheName = pendingClear.getKey();
+            final long position = pendingClear.getValue();
+            // Conditional removal: if there was a newer drop in the cache in the meantime, the clearing must wait for it
+            if (readIndex > position && this.pendingClears.remove(cacheName, position)) {
+                return new ImmutableCacheEntryEvent<>(CacheEntryEvent.ALL_ENTRIES_KEY, null, null, CacheEntryEventType.EVICTED, cacheName);
+            }
+        }
+
+        return null;
+    }
+
+    enum SpillResult {
+
+        BUFFERED,
+
+        SPILLED,
+
+        REJECTED
+    }
+}
@@ -4,11 +4,17 @@ import ru.joke.cache.bus.core.CacheBus;
 import ru.joke.cache.bus.core.CacheEventMessageConsumer;
 import ru.joke.cache.bus.core.impl.ImmutableComponentState;
 import ru.joke.cache.bus.core.state.ComponentState;
+import ru.joke.cache.bus.core.transport.CacheEntryBatchFrame;
+import ru.joke.cache.bus.core.transport.CacheEntryEventConverter;
 
 import javax.annotation.Nonnull;
 import javax.annotation.concurrent.Immutable;
 import javax.annotation.concurrent.ThreadSafe;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
+import java.util.function.UnaryOperator;
 
 /**
  * Synchronous implementation of a message consumer from a channel that immediately
@@ -24,10 +30,22 @@ public final class SynchronousCacheEventMessageConsumer implements CacheEventMes
     private static final String CONSUMER_ID = "sync-message-consumer";
 
     private final CacheBus cacheBus;
+    private final UnaryOperator<byte[]> frameDecoder;
     private volatile ComponentState state;
 
     public SynchronousCacheEventMessageConsumer(@Nonnull final CacheBus cacheBus) {
+        this(cacheBus, UnaryOperator.identity());
+    }
+
+    public SynchronousCacheEventMessageConsumer(
+            @Nonnull final CacheBus cacheBus,
+            @Nonnull final CacheEntryEventConverter converter) {
+        this(cacheBus, converter::decodeBatchFrame);
+    }
+
+    private SynchronousCacheEventMessageConsumer(final CacheBus cacheBus, final UnaryOperator<byte[]> frameDecoder) {
         this.cacheBus = Objects.requireNonNull(cacheBus, "cacheBus");
+        this.frameDecoder = frameDecoder;
         this.state = new ImmutableComponentState(CONSUMER_ID, ComponentState.Status.UP_OK);
     }
 
@@ -36,6 +54,20 @@ public final class SynchronousCacheEventMessageConsumer implements CacheEventMes
         this.cacheBus.receive(messageBody);
     }
 
+    @Override
+    public void accept(int messageHash, @Nonnull ByteBuffer messageBody) {
+        // The message is processed in the calling thread, so it can be decoded directly from the buffer of the channel
+        this.cacheBus.receive(messageBody);
+    }
+
+    @Override
+    public void acceptBatch(@Nonnull byte[] batchMessageBody) {
+        final List<byte[]> messages = new ArrayList<>();
+        CacheEntryBatchFrame.split(this.frameDecoder.apply(batchMessageBody), (hash, body) -> messages.add(body));
+
+        this.cacheBus.receiveAll(messages);
+    }
+
     @Nonnull
     @Override
     public ComponentState state() {
@@ -0,0 +1,359 @@
+package ru.joke.cache.bus.core.impl.internal.util;
+
+import ru.joke.cache.bus.core.configuration.ConfigurationException;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Durable append-only journal of binary records on the local disk for handling multiple writers vs single reader interaction.<br>
+ * The journal consists of segments: memory-mapped files of a fixed size, named by the position of their first byte,
+ * so appending a record is a sequential write to memory and the records survive the crash of the application
+ * (the data is flushed to the disk by the operating system). Each record is stored as its length followed by its bytes;
+ * the length is written after the bytes, so a partially written record is never read.<br>
+ * The reader reads the records in the order of appending and confirms the processed records by the checkpoint, which is
+ * also stored in a memory-mapped file; the segments entirely before the checkpoint are deleted. After the reopening of
+ * the journal, reading starts from the last checkpoint, so all records not confirmed before the closure or the crash are read again.<br>
+ * Methods of reading ({@linkplain #readNext()}, {@linkplain #awaitRecords(long, TimeUnit)}, {@linkplain #rewind()},
+ * {@linkplain #checkpoint(long)}) must be called only from the single reading thread.
+ *
+ * @author Alik
+ */
+@ThreadSafe
+public final class MappedJournal implements AutoCloseable {
+
+    private static final String SEGMENT_FILE_PREFIX = "segment-";
+    private static final String SEGMENT_FILE_SUFFIX = ".log";
+    private static final String CHECKPOINT_FILE_NAME = "checkpoint";
+    private static final int RECORD_HEADER_SIZE = Integer.BYTES;
+    private static final int END_OF_SEGMENT_MARKER = -1;
+    private static final int ZEROING_CHUNK_SIZE = 4096;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final NavigableMap<Long, Segment> segments;
+    private final MappedByteBuffer checkpointBuffer;
+    private final ReentrantLock appendLock;
+    private final Condition appended;
+
+    private Segment writeSegment;
+    private volatile long writePosition;
+    private volatile long checkpointPosition;
+    private long readPosition;
+
+    /**
+     * Opens the journal in the specified directory or creates the new one if the directory does not contain the journal.
+     *
+     * @param directory   the directory of the journal, cannot be {@code null}.
+     * @param segmentSize the size in bytes of the new segments of the journal, must be positive.
+     */
+    public MappedJournal(@Nonnull final Path directory, @Nonnegative final int segmentSize) {
+        if (segmentSize <= RECORD_HEADER_SIZE) {
+            throw new ConfigurationException("Segment size must be greater than " + RECORD_HEADER_SIZE + ": " + segmentSize);
+        }
+
+        this.directory = Objects.requireNonNull(directory, "directory");
+        this.segmentSize = segmentSize;
+        this.segments = new ConcurrentSkipListMap<>();
+        this.appendLock = new ReentrantLock();
+        this.appended = this.appendLock.newCondition();
+
+        try {
+            Files.createDirectories(directory);
+            this.checkpointBuffer = map(directory.resolve(CHECKPOINT_FILE_NAME), Long.BYTES);
+            this.checkpointPosition = this.checkpointBuffer.getLong(0);
+            recover();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Unable to open journal in " + directory, ex);
+        }
+    }
+
+    /**
+     * Appends the record to the end of the journal.<br>
+     * The record that doesn't fit into the segment of the configured size is spilled to the dedicated segment
+     * with the size of the record.
+     *
+     * @param record the record to append, cannot be {@code null} or empty.
+     * @return the position of the journal after the appended record.
+     */
+    public long append(@Nonnull final byte[] record) {
+        if (record.length == 0 || record.length > Integer.MAX_VALUE - RECORD_HEADER_SIZE) {
+            throw new IllegalArgumentException("Size of the record must be in range [1, " + (Integer.MAX_VALUE - RECORD_HEADER_SIZE) + "]: " + record.length);
+        }
+
+        this.appendLock.lock();
+        try {
+            Segment segment = this.writeSegment;
+            long position = this.writePosition;
+            int offset = (int) (position - segment.base());
+            if (offset + RECORD_HEADER_SIZE + record.length > segment.capacity()) {
+                if (offset + RECORD_HEADER_SIZE <= segment.capacity()) {
+                    segment.buffer().putInt(offset, END_OF_SEGMENT_MARKER);
+                }
+
+                segment = createSegment(segment.base() + segment.capacity(), Math.max(this.segmentSize, RECORD_HEADER_SIZE + record.length));
+                this.writeSegment = segment;
+                position = segment.base();
+                offset = 0;
+            }
+
+            segment.buffer().put(offset + RECORD_HEADER_SIZE, record);
+            segment.buffer().putInt(offset, record.length);
+
+            final long nextPosition = position + RECORD_HEADER_SIZE + record.length;
+            this.writePosition = nextPosition;
+            this.appended.signalAll();
+
+            return nextPosition;
+        } finally {
+            this.appendLock.unlock();
+        }
+    }
+
+    /**
+     * Reads the next record of the journal. The method never waits.
+     *
+     * @return the record or {@code null} if all appended records are already read.
+     */
+    @Nullable
+    public byte[] readNext() {
+        while (true) {
+            final long position = this.readPosition;
+            if (position >= this.writePosition) {
+                return null;
+            }
+
+            final Segment segment = this.segments.floorEntry(position).getValue();
+            final int offset = (int) (position - segment.base());
+            final int length = offset + RECORD_HEADER_SIZE > segment.capacity()
+                    ? END_OF_SEGMENT_MARKER
+                    : segment.buffer().getInt(offset);
+            if (length == END_OF_SEGMENT_MARKER) {
+                this.readPosition = segment.base() + segment.capacity();
+                continue;
+            }
+
+            final byte[] record = new byte[length];
+            segment.buffer().get(offset + RECORD_HEADER_SIZE, record);
+            this.readPosition = position + RECORD_HEADER_SIZE + length;
+
+            return record;
+        }
+    }
+
+    /**
+     * Waits until there are unread records in the journal, but no longer than the specified time.
+     *
+     * @param timeout the maximum time to wait, cannot be negative.
+     * @param unit    the time unit of the {@code timeout} argument, cannot be {@code null}.
+     * @return {@code true} if there are unread records, {@code false} if the specified waiting time elapsed.
+     */
+    public boolean awaitRecords(@Nonnegative final long timeout, @Nonnull final TimeUnit unit) throws InterruptedException {
+        if (this.readPosition < this.writePosition) {
+            return true;
+        }
+
+        long remaining = unit.toNanos(timeout);
+        this.appendLock.lockInterruptibly();
+        try {
+            while (this.readPosition >= this.writePosition) {
+                if (remaining <= 0) {
+                    return false;
+                }
+
+                remaining = this.appended.awaitNanos(remaining);
+            }
+
+            return true;
+        } finally {
+            this.appendLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the position of the journal after the last read record.
+     *
+     * @return the read position.
+     */
+    public long readPosition() {
+        return this.readPosition;
+    }
+
+    /**
+     * Returns the position of the journal after the last appended record.
+     *
+     * @return the write position.
+     */
+    public long writePosition() {
+        return this.writePosition;
+    }
+
+    /**
+     * Returns the count of bytes of the journal between the last checkpoint and the last appended record.
+     *
+     * @return the count of not confirmed bytes.
+     */
+    public long pendingBytes() {
+        return this.writePosition - this.checkpointPosition;
+    }
+
+    /**
+     * Confirms that all records before the specified position are processed: stores the checkpoint
+     * and deletes the segments that contain only the confirmed records.
+     *
+     * @param position the position of the journal, must be not greater than {@linkplain #readPosition()}.
+     */
+    public void checkpoint(final long position) {
+        this.checkpointBuffer.putLong(0, position);
+        this.checkpointPosition = position;
+
+        final List<Segment> confirmedSegments = new ArrayList<>();
+        for (final Segment segment : this.segments.headMap(this.segments.lastKey()).values()) {
+            if (segment.base() + segment.capacity() > position) {
+                break;
+            }
+
+            confirmedSegments.add(segment);
+        }
+
+        confirmedSegments.forEach(this::deleteSegment);
+    }
+
+    /**
+     * Returns the reading to the last checkpoint, so all records that were read after the checkpoint will be read again.
+     */
+    public void rewind() {
+        this.readPosition = this.checkpointPosition;
+    }
+
+    @Override
+    public void close() {
+        this.appendLock.lock();
+        try {
+            this.segments.values().forEach(segment -> segment.buffer().force());
+            this.checkpointBuffer.force();
+        } finally {
+            this.appendLock.unlock();
+        }
+    }
+
+    private void recover() throws IOException {
+
+        try (final Stream<Path> files = Files.list(this.directory)) {
+            final List<Path> segmentFiles = files.filter(this::isSegmentFile).toList();
+            for (final Path segmentFile : segmentFiles) {
+                final String fileName = segmentFile.getFileName().toString();
+                final long base = Long.parseLong(fileName.substring(SEGMENT_FILE_PREFIX.length(), fileName.length() - SEGMENT_FILE_SUFFIX.length()));
+                final int capacity = (int) Files.size(segmentFile);
+                this.segments.put(base, new Segment(base, capacity, map(segmentFile, capacity), segmentFile));
+            }
+        }
+
+        if (this.segments.isEmpty()) {
+            this.writeSegment = createSegment(this.checkpointPosition, this.segmentSize);
+            this.writePosition = this.checkpointPosition;
+            this.readPosition = this.checkpointPosition;
+            return;
+        }
+
+        final long startPosition = Math.max(this.checkpointPosition, this.segments.firstKey());
+        final long endPosition = findEndOfRecords(startPosition);
+
+        this.writePosition = endPosition;
+        this.writeSegment = this.segments.floorEntry(endPosition).getValue();
+        this.readPosition = Math.min(startPosition, endPosition);
+        this.checkpointPosition = this.readPosition;
+
+        // Remains of the partially written records and the segments after the last record must not be read after the next recovery
+        final byte[] zeros = new byte[ZEROING_CHUNK_SIZE];
+        for (int offset = (int) (endPosition - this.writeSegment.base()); offset < this.writeSegment.capacity(); offset += zeros.length) {
+            this.writeSegment.buffer().put(offset, zeros, 0, Math.min(zeros.length, this.writeSegment.capacity() - offset));
+        }
+
+        List.copyOf(this.segments.tailMap(this.writeSegment.base(), false).values()).forEach(this::deleteSegment);
+        checkpoint(this.checkpointPosition);
+    }
+
+    private long findEndOfRecords(final long startPosition) {
+
+        long position = startPosition;
+        while (true) {
+            final Map.Entry<Long, Segment> segmentEntry = this.segments.floorEntry(position);
+            final Segment segment = segmentEntry.getValue();
+            final int offset = (int) (position - segment.base());
+            final long nextSegmentBase = segment.base() + segment.capacity();
+            final int length = offset + RECORD_HEADER_SIZE > segment.capacity()
+                    ? END_OF_SEGMENT_MARKER
+                    : segment.buffer().getInt(offset);
+
+            if (length == END_OF_SEGMENT_MARKER) {
+                if (!this.segments.containsKey(nextSegmentBase)) {
+                    return nextSegmentBase;
+                }
+
+                position = nextSegmentBase;
+            } else if (length <= 0 || offset + RECORD_HEADER_SIZE + length > segment.capacity()) {
+                return position;
+            } else {
+                position += RECORD_HEADER_SIZE + length;
+            }
+        }
+    }
+
+    private Segment createSegment(final long base, final int capacity) {
+        final Path segmentFile = this.directory.resolve(SEGMENT_FILE_PREFIX + "%020d".formatted(base) + SEGMENT_FILE_SUFFIX);
+        try {
+            final Segment segment = new Segment(base, capacity, map(segmentFile, capacity), segmentFile);
+            this.segments.put(base, segment);
+            return segment;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Unable to create segment of journal " + segmentFile, ex);
+        }
+    }
+
+    private void deleteSegment(final Segment segment) {
+        this.segments.remove(segment.base());
+        try {
+            Files.deleteIfExists(segment.file());
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Unable to delete segment of journal " + segment.file(), ex);
+        }
+    }
+
+    private boolean isSegmentFile(final Path file) {
+        final String fileName = file.getFileName().toString();
+        return fileName.startsWith(SEGMENT_FILE_PREFIX) && fileName.endsWith(SEGMENT_FILE_SUFFIX);
+    }
+
+    private static MappedByteBuffer map(final Path file, final int size) throws IOException {
+        try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    private record Segment(
+            long base,
+            int capacity,
+            @Nonnull MappedByteBuffer buffer,
+            @Nonnull Path file) {
+    }
+}
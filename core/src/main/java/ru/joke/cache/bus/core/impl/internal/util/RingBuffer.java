@@ -1,101 +1,297 @@
 package ru.joke.cache.bus.core.impl.internal.util;
 
+import ru.joke.cache.bus.core.configuration.BufferWaitStrategy;
 import ru.joke.cache.bus.core.configuration.ConfigurationException;
 
+import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
-import java.util.concurrent.Semaphore;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Implementation of a circular buffer data structure for handling single producer vs single consumer interaction.
- * The peculiarity of this implementation is that it blocks if an addition is being made to the buffer and
+ * Lock-free implementation of a circular buffer data structure for handling multiple producers vs single consumer interaction.<br>
+ * Producers claim slots of the buffer by CAS on the padded producer sequence and publish elements into the claimed slots,
+ * the single consumer reads the published elements in the order of the claimed sequences and advances its own padded sequence.
+ * Sequences are 64-bit, so they never overflow in practice.<br>
+ * The peculiarity of this implementation is that it waits if an addition is being made to the buffer and
  * the buffer is full, or if a read is being made from the buffer and the buffer is empty.
  * The methods only return control in these cases when there is space in the buffer (during addition)
- * or when data appears in the buffer (during reading).
+ * or when data appears in the buffer (during reading). The way of waiting is defined by the {@linkplain BufferWaitStrategy}.
  *
  * @param <E> the type of data stored in the buffer
  * @author Alik
+ * @see BufferWaitStrategy
  */
+@ThreadSafe
 public final class RingBuffer<E> {
 
-    private final Semaphore readSemaphore;
-    private final Semaphore writeSemaphore;
-    private final E[] elements;
+    private static final VarHandle ELEMENTS = MethodHandles.arrayElementVarHandle(Object[].class);
+
+    private final Object[] elements;
     private final int capacity;
+    private final int mask;
+    private final Sequence producerSequence;
+    private final Sequence consumerSequence;
+    private final WaitStrategy notEmptyWaitStrategy;
+    private final WaitStrategy notFullWaitStrategy;
+
+    public RingBuffer(final int capacity) {
+        this(capacity, BufferWaitStrategy.BLOCKING);
+    }
 
-    private volatile int writeCounter;
-    private volatile int readCounter;
+    public RingBuffer(final int capacity, @Nonnull final BufferWaitStrategy waitStrategy) {
+        this(capacity, waitStrategy, 0);
+    }
 
-    public RingBuffer(int capacity) {
+    RingBuffer(final int capacity, @Nonnull final BufferWaitStrategy waitStrategy, final long initialSequence) {
 
         if (capacity <= 0) {
             throw new ConfigurationException("Buffer capacity must be positive: " + capacity);
         }
 
+        Objects.requireNonNull(waitStrategy, "waitStrategy");
+
         this.capacity = capacity;
-        @SuppressWarnings("unchecked") final E[] elements = (E[]) new Object[capacity];
-        this.elements = elements;
-        this.writeCounter = -1;
-        this.readCounter = 0;
-        this.readSemaphore = new Semaphore(1);
-        this.writeSemaphore = new Semaphore(1);
+        this.mask = Integer.bitCount(capacity) == 1 ? capacity - 1 : -1;
+        this.elements = new Object[capacity];
+        this.producerSequence = new Sequence(initialSequence);
+        this.consumerSequence = new Sequence(initialSequence);
+        this.notEmptyWaitStrategy = WaitStrategies.create(waitStrategy);
+        this.notFullWaitStrategy = WaitStrategies.create(waitStrategy);
     }
 
     /**
-     * Adds an element to the buffer. The method blocks if the buffer is full.
+     * Adds an element to the buffer. The method waits if the buffer is full.
      *
      * @param elem the element to add to the buffer, cannot be {@code null}.
-     * @return a flag indicating whether blocking was required during addition to the buffer (i.e., the buffer was full).
+     * @return a flag indicating whether waiting was required during addition to the buffer (i.e., the buffer was full).
      */
     public boolean offer(@Nonnull final E elem) throws InterruptedException {
+        Objects.requireNonNull(elem, "elem");
 
-        int currentWriteValue;
         boolean isFull = false;
-        while ((currentWriteValue = this.writeCounter) - this.readCounter == this.capacity - 1) {
-            isFull = true;
-            this.writeSemaphore.acquire();
+        long sequence;
+        while (true) {
+            sequence = this.producerSequence.get();
+            if (sequence - this.consumerSequence.get() >= this.capacity) {
+                isFull = true;
+                this.notFullWaitStrategy.await(this::hasFreeSpace, WaitStrategy.NO_DEADLINE);
+            } else if (this.producerSequence.compareAndSet(sequence, sequence + 1)) {
+                break;
+            }
+        }
+
+        publish(sequence, elem);
+        this.notEmptyWaitStrategy.signalAll();
+
+        return isFull;
+    }
+
+    /**
+     * Adds an element to the buffer, waiting up to the specified time if the buffer is full.
+     *
+     * @param elem    the element to add to the buffer, cannot be {@code null}.
+     * @param timeout the maximum time to wait, cannot be negative; if the value is {@code 0}, the method does not wait.
+     * @param unit    the time unit of the {@code timeout} argument, cannot be {@code null}.
+     * @return {@code true} if the element was added, {@code false} if the specified waiting time elapsed before space was available.
+     */
+    public boolean offer(
+            @Nonnull final E elem,
+            @Nonnegative final long timeout,
+            @Nonnull final TimeUnit unit) throws InterruptedException {
+        Objects.requireNonNull(elem, "elem");
+
+        long deadline = 0;
+        long sequence;
+        while (true) {
+            sequence = this.producerSequence.get();
+            if (sequence - this.consumerSequence.get() >= this.capacity) {
+                if (timeout <= 0) {
+                    return false;
+                }
+
+                deadline = deadline == 0 ? System.nanoTime() + unit.toNanos(timeout) : deadline;
+                if (!this.notFullWaitStrategy.await(this::hasFreeSpace, deadline)) {
+                    return false;
+                }
+            } else if (this.producerSequence.compareAndSet(sequence, sequence + 1)) {
+                break;
+            }
         }
 
-        final int nextCounter = currentWriteValue + 1;
-        this.elements[nextCounter % this.capacity] = elem;
-        this.writeCounter = nextCounter;
-        this.readSemaphore.release();
+        publish(sequence, elem);
+        this.notEmptyWaitStrategy.signalAll();
+
+        return true;
+    }
+
+    /**
+     * Adds all elements of the list to the buffer in the order of the list. The method waits while the buffer is full.
+     * Unlike element-by-element addition, the slots are claimed and the consumer is notified once per each
+     * contiguous group of added elements. Elements of a group are not interleaved with elements of other producers.
+     *
+     * @param elems the elements to add to the buffer, cannot be {@code null}.
+     * @return a flag indicating whether waiting was required during addition to the buffer (i.e., the buffer was full).
+     */
+    public boolean offerAll(@Nonnull final List<? extends E> elems) throws InterruptedException {
+
+        final int size = elems.size();
+        boolean isFull = false;
+        int offered = 0;
+        while (offered < size) {
+            final long sequence = this.producerSequence.get();
+            final long free = this.capacity - (sequence - this.consumerSequence.get());
+            if (free <= 0) {
+                isFull = true;
+                this.notFullWaitStrategy.await(this::hasFreeSpace, WaitStrategy.NO_DEADLINE);
+                continue;
+            }
+
+            final int count = (int) Math.min(free, size - offered);
+            if (!this.producerSequence.compareAndSet(sequence, sequence + count)) {
+                continue;
+            }
+
+            for (int i = 0; i < count; i++) {
+                publish(sequence + i, Objects.requireNonNull(elems.get(offered + i), "elem"));
+            }
+
+            this.notEmptyWaitStrategy.signalAll();
+            offered += count;
+        }
 
         return isFull;
     }
 
     /**
-     * Retrieves an element from the buffer. The method blocks if there is no data in the buffer.
+     * Retrieves an element from the buffer. The method waits if there is no data in the buffer.
+     * Must be called only from the single consumer thread.
      *
      * @return the data element from the buffer, cannot be {@code null}.
      */
     @Nonnull
     public E poll() throws InterruptedException {
-        int currentReadPosition;
-        while (this.writeCounter < (currentReadPosition = this.readCounter)) {
-            this.readSemaphore.acquire();
+        final long sequence = this.consumerSequence.getPlain();
+        final int index = index(sequence);
+
+        E elem = elementAt(index);
+        if (elem == null) {
+            this.notEmptyWaitStrategy.await(() -> elementAt(index) != null, WaitStrategy.NO_DEADLINE);
+            elem = elementAt(index);
+        }
+
+        consume(index, sequence + 1);
+        return elem;
+    }
+
+    /**
+     * Retrieves an element from the buffer, waiting up to the specified time if there is no data in the buffer.
+     * Must be called only from the single consumer thread.
+     *
+     * @param timeout the maximum time to wait, cannot be negative; if the value is {@code 0}, the method does not wait.
+     * @param unit    the time unit of the {@code timeout} argument, cannot be {@code null}.
+     * @return the data element from the buffer or {@code null} if the specified waiting time elapsed before an element was available.
+     */
+    @Nullable
+    public E poll(@Nonnegative final long timeout, @Nonnull final TimeUnit unit) throws InterruptedException {
+        final long sequence = this.consumerSequence.getPlain();
+        final int index = index(sequence);
+
+        E elem = elementAt(index);
+        if (elem == null) {
+            if (timeout <= 0) {
+                return null;
+            }
+
+            final long deadline = System.nanoTime() + unit.toNanos(timeout);
+            if (!this.notEmptyWaitStrategy.await(() -> elementAt(index) != null, deadline)) {
+                return null;
+            }
+
+            elem = elementAt(index);
         }
 
-        final E elem = this.elements[currentReadPosition % this.capacity];
-        this.readCounter = currentReadPosition + 1;
-        this.writeSemaphore.release();
+        consume(index, sequence + 1);
         return elem;
     }
 
     /**
-     * Returns the current read index of the buffer.
+     * Removes at most the given number of available elements from the buffer and adds them to the given collection.
+     * The method never waits: if there is no data in the buffer, nothing is transferred.
+     * Must be called only from the single consumer thread.
+     *
+     * @param target      the collection to transfer elements into, cannot be {@code null}.
+     * @param maxElements the maximum number of elements to transfer.
+     * @return the number of elements transferred.
+     */
+    @Nonnegative
+    public int drainTo(@Nonnull final Collection<? super E> target, final int maxElements) {
+
+        final long firstSequence = this.consumerSequence.getPlain();
+        long sequence = firstSequence;
+        E elem;
+        while (sequence - firstSequence < maxElements && (elem = elementAt(index(sequence))) != null) {
+            target.add(elem);
+            ELEMENTS.set(this.elements, index(sequence), null);
+            sequence++;
+        }
+
+        final int count = (int) (sequence - firstSequence);
+        if (count > 0) {
+            this.consumerSequence.set(sequence);
+            this.notFullWaitStrategy.signalAll();
+        }
+
+        return count;
+    }
+
+    /**
+     * Returns the current read index of the buffer (the sequence of the next element to be read).
      *
      * @return the current read index of the buffer.
      */
-    public int currentReadIndex() {
-        return this.readCounter;
+    public long currentReadIndex() {
+        return this.consumerSequence.get();
     }
 
     /**
-     * Returns the current write index of the buffer.
+     * Returns the current write index of the buffer (the sequence of the last slot claimed by the producers).
      *
      * @return the current write index of the buffer.
      */
-    public int currentWritePosition() {
-        return this.writeCounter;
+    public long currentWritePosition() {
+        return this.producerSequence.get() - 1;
+    }
+
+    private boolean hasFreeSpace() {
+        return this.producerSequence.get() - this.consumerSequence.get() < this.capacity;
+    }
+
+    private void publish(final long sequence, final E elem) {
+        // Volatile write is required here: it is paired with the check of the waiters count in the wait strategy
+        ELEMENTS.setVolatile(this.elements, index(sequence), elem);
+    }
+
+    private void consume(final int index, final long nextSequence) {
+        ELEMENTS.set(this.elements, index, null);
+        this.consumerSequence.set(nextSequence);
+        this.notFullWaitStrategy.signalAll();
+    }
+
+    @SuppressWarnings("unchecked")
+    private E elementAt(final int index) {
+        return (E) ELEMENTS.getVolatile(this.elements, index);
+    }
+
+    private int index(final long sequence) {
+        return this.mask >= 0
+                ? (int) (sequence & this.mask)
+                : (int) Math.floorMod(sequence, (long) this.capacity);
     }
 }
@@ -0,0 +1,93 @@
+package ru.joke.cache.bus.core.impl.internal.util;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Monotonically increasing sequence counter of the ring buffer, padded on both sides so that two sequences
+ * (and other frequently modified fields) never share a cache line and do not cause false sharing
+ * between producer and consumer threads.<br>
+ * Padding is implemented through the class hierarchy because the JVM lays out the fields of a superclass
+ * before the fields of a subclass.
+ *
+ * @author Alik
+ * @see RingBuffer
+ */
+@ThreadSafe
+final class Sequence extends SequenceRightPadding {
+
+    private static final VarHandle VALUE;
+
+    static {
+        try {
+            VALUE = MethodHandles.lookup().findVarHandle(SequenceValue.class, "value", long.class);
+        } catch (ReflectiveOperationException ex) {
+            throw new ExceptionInInitializerError(ex);
+        }
+    }
+
+    Sequence(final long initialValue) {
+        VALUE.setRelease(this, initialValue);
+    }
+
+    /**
+     * Returns the current value of the sequence with volatile semantics.
+     *
+     * @return the current value of the sequence.
+     */
+    long get() {
+        return this.value;
+    }
+
+    /**
+     * Returns the current value of the sequence without any ordering guarantees.
+     * Can be used only by the thread that is the single writer of the sequence.
+     *
+     * @return the current value of the sequence.
+     */
+    long getPlain() {
+        return (long) VALUE.get(this);
+    }
+
+    /**
+     * Sets the value of the sequence with volatile semantics.
+     *
+     * @param value the new value of the sequence.
+     */
+    void set(final long value) {
+        this.value = value;
+    }
+
+    /**
+     * Atomically sets the value of the sequence to the given updated value if the current value equals to the expected value.
+     *
+     * @param expectedValue the expected value.
+     * @param newValue      the new value.
+     * @return {@code true} if successful, {@code false} otherwise (the actual value was not equal to the expected value).
+     */
+    boolean compareAndSet(final long expectedValue, final long newValue) {
+        return VALUE.compareAndSet(this, expectedValue, newValue);
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(get());
+    }
+}
+
+@SuppressWarnings("unused")
+abstract class SequenceLeftPadding {
+    protected long p01, p02, p03, p04, p05, p06, p07;
+    protected long p08, p09, p10, p11, p12, p13, p14, p15;
+}
+
+abstract class SequenceValue extends SequenceLeftPadding {
+    protected volatile long value;
+}
+
+@SuppressWarnings("unused")
+abstract class SequenceRightPadding extends SequenceValue {
+    protected long p16, p17, p18, p19, p20, p21, p22;
+    protected long p23, p24, p25, p26, p27, p28, p29, p30;
+}
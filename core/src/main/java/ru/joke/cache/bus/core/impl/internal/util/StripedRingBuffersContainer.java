@@ -1,5 +1,7 @@
 package ru.joke.cache.bus.core.impl.internal.util;
 
+import ru.joke.cache.bus.core.configuration.BufferWaitStrategy;
+
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 
@@ -34,13 +36,28 @@ public final class StripedRingBuffersContainer<E> {
      * @param bufferCapacity the capacity (size) of each buffer.
      */
     public StripedRingBuffersContainer(final int stripes, final int bufferCapacity) {
+        this(stripes, bufferCapacity, BufferWaitStrategy.BLOCKING);
+    }
+
+    /**
+     * Container constructor that creates a set of buffers with the specified size and wait strategy.
+     *
+     * @param stripes        the number stripes (number of buffers); rounded down to the nearest even number if odd.
+     * @param bufferCapacity the capacity (size) of each buffer.
+     * @param waitStrategy   the strategy of waiting used by the buffers, cannot be {@code null}.
+     * @see BufferWaitStrategy
+     */
+    public StripedRingBuffersContainer(
+            final int stripes,
+            final int bufferCapacity,
+            @Nonnull final BufferWaitStrategy waitStrategy) {
         final int evenStripes = stripes % 2 == 1 ? stripes - 1 : stripes;
         @SuppressWarnings("unchecked") final RingBuffer<E>[] buffers = new RingBuffer[evenStripes];
         this.buffers = buffers;
 
         final int capacity = bufferCapacity <= 0 ? RING_BUFFER_DEFAULT_CAPACITY : bufferCapacity;
         for (int i = 0; i < evenStripes; i++) {
-            this.buffers[i] = new RingBuffer<>(capacity);
+            this.buffers[i] = new RingBuffer<>(capacity, waitStrategy);
         }
     }
 
@@ -0,0 +1,195 @@
+package ru.joke.cache.bus.core.impl.internal.util;
+
+import ru.joke.cache.bus.core.configuration.BufferWaitStrategy;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Factory of the implementations of the {@linkplain WaitStrategy} by the configured {@linkplain BufferWaitStrategy}.
+ *
+ * @author Alik
+ * @see WaitStrategy
+ * @see BufferWaitStrategy
+ */
+abstract class WaitStrategies {
+
+    /**
+     * Creates a new wait strategy instance of the specified type.
+     * Each instance is a separate waiting point, so different conditions must use different instances.
+     *
+     * @param type the type of the strategy, cannot be {@code null}.
+     * @return cannot be {@code null}.
+     */
+    @Nonnull
+    static WaitStrategy create(@Nonnull final BufferWaitStrategy type) {
+        return switch (Objects.requireNonNull(type, "type")) {
+            case BUSY_SPIN -> new BusySpinWaitStrategy();
+            case YIELD -> new YieldingWaitStrategy();
+            case PARK_WITH_BACKOFF -> new ParkingWithBackoffWaitStrategy();
+            case BLOCKING -> new BlockingWaitStrategy();
+        };
+    }
+
+    private static boolean isDeadlineReached(final long deadlineNanos) {
+        return deadlineNanos != WaitStrategy.NO_DEADLINE && deadlineNanos - System.nanoTime() <= 0;
+    }
+
+    private static void checkInterruption() throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+    }
+
+    @ThreadSafe
+    private static final class BusySpinWaitStrategy implements WaitStrategy {
+
+        @Override
+        public boolean await(@Nonnull final BooleanSupplier condition, final long deadlineNanos) throws InterruptedException {
+            while (!condition.getAsBoolean()) {
+                if (isDeadlineReached(deadlineNanos)) {
+                    return false;
+                }
+
+                checkInterruption();
+                Thread.onSpinWait();
+            }
+
+            return true;
+        }
+
+        @Override
+        public void signalAll() {
+        }
+    }
+
+    @ThreadSafe
+    private static final class YieldingWaitStrategy implements WaitStrategy {
+
+        @Override
+        public boolean await(@Nonnull final BooleanSupplier condition, final long deadlineNanos) throws InterruptedException {
+            while (!condition.getAsBoolean()) {
+                if (isDeadlineReached(deadlineNanos)) {
+                    return false;
+                }
+
+                checkInterruption();
+                Thread.yield();
+            }
+
+            return true;
+        }
+
+        @Override
+        public void signalAll() {
+        }
+    }
+
+    @ThreadSafe
+    private static final class ParkingWithBackoffWaitStrategy implements WaitStrategy {
+
+        private static final int SPIN_TRIES = 100;
+        private static final int YIELD_TRIES = 100;
+        private static final long MIN_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(1);
+        private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+        @Override
+        public boolean await(@Nonnull final BooleanSupplier condition, final long deadlineNanos) throws InterruptedException {
+            int tries = 0;
+            long parkNanos = MIN_PARK_NANOS;
+            while (!condition.getAsBoolean()) {
+                if (isDeadlineReached(deadlineNanos)) {
+                    return false;
+                }
+
+                checkInterruption();
+
+                if (tries < SPIN_TRIES) {
+                    tries++;
+                    Thread.onSpinWait();
+                } else if (tries < SPIN_TRIES + YIELD_TRIES) {
+                    tries++;
+                    Thread.yield();
+                } else {
+                    final long timeToPark = deadlineNanos == NO_DEADLINE
+                            ? parkNanos
+                            : Math.min(parkNanos, deadlineNanos - System.nanoTime());
+                    LockSupport.parkNanos(this, Math.max(timeToPark, 1));
+                    parkNanos = Math.min(parkNanos << 1, MAX_PARK_NANOS);
+                }
+            }
+
+            return true;
+        }
+
+        @Override
+        public void signalAll() {
+        }
+    }
+
+    @ThreadSafe
+    private static final class BlockingWaitStrategy implements WaitStrategy {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition stateChanged = this.lock.newCondition();
+        private final AtomicInteger waiters = new AtomicInteger();
+
+        @Override
+        public boolean await(@Nonnull final BooleanSupplier condition, final long deadlineNanos) throws InterruptedException {
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+
+            this.lock.lockInterruptibly();
+            try {
+                // The counter is incremented before the condition is re-checked, so the signaling thread that
+                // publishes the state and then reads the counter either sees the waiter or the waiter sees the state
+                this.waiters.incrementAndGet();
+                try {
+                    while (!condition.getAsBoolean()) {
+                        if (deadlineNanos == NO_DEADLINE) {
+                            this.stateChanged.await();
+                        } else {
+                            final long remaining = deadlineNanos - System.nanoTime();
+                            if (remaining <= 0) {
+                                return false;
+                            }
+
+                            this.stateChanged.awaitNanos(remaining);
+                        }
+                    }
+
+                    return true;
+                } finally {
+                    this.waiters.decrementAndGet();
+                }
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        @Override
+        public void signalAll() {
+            if (this.waiters.get() == 0) {
+                return;
+            }
+
+            this.lock.lock();
+            try {
+                this.stateChanged.signalAll();
+            } finally {
+                this.lock.unlock();
+            }
+        }
+    }
+
+    private WaitStrategies() {
+    }
+}
@@ -0,0 +1,40 @@
+package ru.joke.cache.bus.core.impl.internal.util;
+
+import ru.joke.cache.bus.core.configuration.BufferWaitStrategy;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Strategy of waiting for a condition of the ring buffer (availability of data or of free space) to become true.
+ *
+ * @author Alik
+ * @see BufferWaitStrategy
+ * @see WaitStrategies
+ * @see RingBuffer
+ */
+@ThreadSafe
+interface WaitStrategy {
+
+    /**
+     * Value of the deadline that means waiting without timeout.
+     */
+    long NO_DEADLINE = Long.MAX_VALUE;
+
+    /**
+     * Waits until the condition becomes true or the deadline is reached.
+     *
+     * @param condition     the condition to wait for, cannot be {@code null}.
+     * @param deadlineNanos the deadline in terms of {@linkplain System#nanoTime()} or {@linkplain #NO_DEADLINE}.
+     * @return {@code true} if the condition became true, {@code false} if the deadline was reached.
+     * @throws InterruptedException if the waiting thread is interrupted.
+     */
+    boolean await(@Nonnull BooleanSupplier condition, long deadlineNanos) throws InterruptedException;
+
+    /**
+     * Notifies the waiting threads that the state of the buffer has changed.
+     * Must be called by the thread that changed the state after the change has been published.
+     */
+    void signalAll();
+}
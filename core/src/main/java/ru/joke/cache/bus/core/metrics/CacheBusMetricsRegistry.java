@@ -1,8 +1,10 @@
 package ru.joke.cache.bus.core.metrics;
 
+import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Registry of cache bus metrics.
@@ -105,4 +107,15 @@ public interface CacheBusMetricsRegistry {
      */
     @Nullable
     <T> T recordExecutionTime(@Nonnull KnownMetrics metric, @Nonnull Callable<T> action) throws Exception;
+
+    /**
+     * Records the already measured execution time of an action.<br>
+     * Unlike {@linkplain #recordExecutionTime(KnownMetrics, Runnable)}, doesn't require the action object,
+     * so it can be used on the hot paths without the allocation of the capturing lambda.
+     *
+     * @param metric   the metric descriptor, cannot be {@code null}.
+     * @param duration the execution time of the action, cannot be negative.
+     * @param unit     the time unit of the {@code duration}, cannot be {@code null}.
+     */
+    void recordExecutionTime(@Nonnull KnownMetrics metric, @Nonnegative long duration, @Nonnull TimeUnit unit);
 }
@@ -30,6 +30,16 @@ public enum KnownMetrics {
 
     PRODUCED_BYTES("cb.channel.produced.bytes.summary", "Summary of produced to channel bytes", "module", "cache-bus", "origin", "local", "source", "channel.producer"),
 
+    PRODUCED_BATCH_SIZE("cb.channel.produced.batch.size.summary", "Summary of count of events in batches produced to channel", "module", "cache-bus", "origin", "local", "source", "channel.producer"),
+
+    CONVERTER_COMPRESSION_RATIO("cb.converter.compression.ratio.summary", "Summary of ratios of uncompressed to compressed sizes of compressed messages", "module", "cache-bus", "source", "converter", "value", "compression"),
+
+    CONVERTER_COMPRESSION_TIME("cb.converter.compression.time", "CPU time of compression of messages by converter thread", "module", "cache-bus", "source", "converter", "value", "compression"),
+
+    CONVERTER_DECOMPRESSION_TIME("cb.converter.decompression.time", "CPU time of decompression of messages by converter thread", "module", "cache-bus", "source", "converter", "value", "compression"),
+
+    CONVERTER_UNCOMPRESSED_MESSAGES_COUNT("cb.converter.uncompressed.messages.count", "Count of messages sent without compression because of size below threshold or low compression ratio", "module", "cache-bus", "source", "converter", "value", "compression"),
+
     CONSUMED_BYTES("cb.channel.consumed.bytes.summary", "Summary of consumed from channel bytes", "module", "cache-bus", "origin", "local", "source", "channel.consumer"),
 
     PRODUCER_BUFFER_BLOCKING_OFFER_TIME("cb.producer.buffer.blocking.time", "Time of producer's blocking while offering messages to buffer for output sending", "module", "cache-bus", "source", "producer", "value", "buffers.size"),
@@ -40,6 +50,30 @@ public enum KnownMetrics {
 
     BUFFER_WRITE_POSITION("cb.buffer.write.position", "Buffer write position", "module", "cache-bus", "source", "producer/consumer", "value", "buffers.size"),
 
+    PRODUCER_COALESCED_EVENTS_COUNT("cb.producer.coalesced.events.count", "Count of local events collapsed or dropped by producer's coalescing stage before sending to channel", "module", "cache-bus", "source", "producer", "value", "cache.events"),
+
+    PRODUCER_BUFFER_OFFER_TIMEOUTS_COUNT("cb.producer.buffer.offer.timeouts.count", "Count of local events that were not offered to producer's buffer within the timeout", "module", "cache-bus", "source", "producer", "value", "cache.events", "policy", "block-with-timeout"),
+
+    PRODUCER_DROPPED_EVENTS_COUNT("cb.producer.dropped.events.count", "Count of local events dropped by producer because of full buffer", "module", "cache-bus", "source", "producer", "value", "cache.events", "policy", "drop-and-clear-cache"),
+
+    PRODUCER_CLEAR_CACHE_ESCALATIONS_COUNT("cb.producer.clear.cache.escalations.count", "Count of clear cache events scheduled by producer instead of dropped events", "module", "cache-bus", "source", "producer", "value", "cache.events", "policy", "drop-and-clear-cache"),
+
+    PRODUCER_SYNC_FALLBACK_SENDS_COUNT("cb.producer.sync.fallback.sends.count", "Count of local events sent synchronously by caller thread because of full buffer", "module", "cache-bus", "source", "producer", "value", "cache.events", "policy", "sync-send"),
+
+    PRODUCER_SPILLED_EVENTS_COUNT("cb.producer.spilled.events.count", "Count of local events spilled to overflow queue because of full buffer", "module", "cache-bus", "source", "producer", "value", "cache.events", "policy", "spill-to-overflow-queue"),
+
+    PRODUCER_OVERFLOW_QUEUE_SIZE("cb.producer.overflow.queue.size", "Count of local events in producer's overflow queue", "module", "cache-bus", "source", "producer", "value", "buffers.size", "policy", "spill-to-overflow-queue"),
+
+    PRODUCER_OUTBOX_APPEND_TIME("cb.producer.outbox.append.time", "Time of appending of local events to producer's outbox journal", "module", "cache-bus", "source", "producer", "value", "outbox"),
+
+    PRODUCER_OUTBOX_PENDING_BYTES("cb.producer.outbox.pending.bytes", "Size in bytes of local events in producer's outbox journal not yet acknowledged by channel", "module", "cache-bus", "source", "producer", "value", "outbox"),
+
+    PRODUCER_OUTBOX_SEND_RETRIES_COUNT("cb.producer.outbox.send.retries.count", "Count of failed attempts to send journaled events from producer's outbox to channel", "module", "cache-bus", "source", "producer", "value", "outbox"),
+
+    EXPIRED_TIMESTAMPS_COUNT("cb.timestamps.expired.count", "Count of expired cache element timestamps removed from timestamp store", "module", "cache-bus", "source", "timestamp.store", "value", "timestamps"),
+
+    TIMESTAMPS_EXPIRATION_STEP_TIME("cb.timestamps.expiration.step.time", "Time of single bounded step of expiration of cache element timestamps", "module", "cache-bus", "source", "timestamp.store", "value", "timestamps"),
+
     PRODUCER_INTERRUPTED_THREADS("cb.producer.interrupted.threads.count", "Count of message producer's interrupted threads", "module", "cache-bus", "source", "producer", "value", "threads"),
 
     CONSUMER_INTERRUPTED_THREADS("cb.consumer.interrupted.threads.count", "Count of message consumer's (processing threads) interrupted threads", "module", "cache-bus", "source", "consumer", "value", "threads"),
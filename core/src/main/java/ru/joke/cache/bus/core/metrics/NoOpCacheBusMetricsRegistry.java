@@ -1,8 +1,10 @@
 package ru.joke.cache.bus.core.metrics;
 
+import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Implementation of a metrics registry that does not perform any actions.
@@ -68,4 +70,9 @@ public final class NoOpCacheBusMetricsRegistry implements CacheBusMetricsRegistr
     public <T> T recordExecutionTime(@Nonnull KnownMetrics metric, @Nonnull Callable<T> action) throws Exception {
         return action.call();
     }
+
+    @Override
+    public void recordExecutionTime(@Nonnull KnownMetrics metric, @Nonnegative long duration, @Nonnull TimeUnit unit) {
+
+    }
 }
@@ -0,0 +1,30 @@
+package ru.joke.cache.bus.core.transport;
+
+import javax.annotation.Nonnull;
+import java.nio.ByteBuffer;
+
+/**
+ * Utility methods for the buffers with the binary representations of the messages used by the buffer-based
+ * methods of the converters, the channels and the consumers.
+ *
+ * @author Alik
+ * @see CacheEntryEventConverter#fromBuffer(ByteBuffer)
+ */
+public abstract class ByteBuffers {
+
+    /**
+     * Copies the remaining bytes of the buffer to the new array; the position of the buffer isn't changed.<br>
+     * Used by the methods that adapt the buffers to the array-based methods: the buffer can be reused by its owner
+     * after the return from the method, so the array can't be shared with the buffer.
+     *
+     * @param buffer the buffer, cannot be {@code null}.
+     * @return the copy of the remaining bytes of the buffer, cannot be {@code null}.
+     */
+    @Nonnull
+    public static byte[] toByteArray(@Nonnull ByteBuffer buffer) {
+        final byte[] result = new byte[buffer.remaining()];
+        buffer.get(buffer.position(), result);
+
+        return result;
+    }
+}
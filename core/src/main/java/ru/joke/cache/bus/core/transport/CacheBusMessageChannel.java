@@ -13,6 +13,7 @@ import javax.annotation.Nonnull;
  * @author Alik
  * @see CacheEntryEvent
  * @see CacheEntryOutputMessage
+ * @see CacheEntryOutputBatchMessage
  * @see CacheBusMessageChannelConfiguration
  */
 public interface CacheBusMessageChannel<T extends CacheBusMessageChannelConfiguration> extends AutoCloseable {
@@ -26,12 +27,43 @@ public interface CacheBusMessageChannel<T extends CacheBusMessageChannelConfigur
     void activate(@Nonnull T configuration);
 
     /**
-     * Sends a serialized cache element change event message to other servers.
+     * Sends a serialized cache element change event message to other servers.<br>
+     * The message object can be reused by the caller after the return from the method,
+     * so the channel must not retain it (the binary representation of the event returned by
+     * {@linkplain CacheEntryOutputMessage#cacheEntryMessageBody()} can be retained, unlike the buffer returned by
+     * {@linkplain CacheEntryOutputMessage#cacheEntryMessageBuffer()}). The binary representation of the event can be produced
+     * by the message on demand, so the channel should use only one of these methods: the buffer is preferred by the channels
+     * that can send the buffers without copying, the array is preferred by the channels that retain the binary representation.
      *
      * @param eventOutputMessage the outgoing message with information about the cache element change cannot be {@code null}.
      */
     void send(@Nonnull CacheEntryOutputMessage eventOutputMessage);
 
+    /**
+     * Sends a batch of serialized cache element change event messages to other servers as a single multi-event frame.<br>
+     * By default, the messages of the batch are sent one by one via {@linkplain CacheBusMessageChannel#send(CacheEntryOutputMessage)},
+     * channel implementations supporting batches should send the frame {@linkplain CacheEntryOutputBatchMessage#batchMessageBody()}
+     * as a single message marked as a batch.
+     *
+     * @param batchOutputMessage the outgoing batch message, cannot be {@code null}.
+     * @see CacheEntryBatchFrame
+     */
+    default void sendBatch(@Nonnull CacheEntryOutputBatchMessage batchOutputMessage) {
+        batchOutputMessage.messages().forEach(this::send);
+    }
+
+    /**
+     * Waits for the delivery of all messages sent to the channel before the call of the method.<br>
+     * Channels that send messages asynchronously must block until the broker confirms the delivery
+     * of the sent messages and fail if any of them is not delivered. By default, the sending is synchronous,
+     * so the messages are considered delivered after the return from {@linkplain CacheBusMessageChannel#send(CacheEntryOutputMessage)}
+     * and {@linkplain CacheBusMessageChannel#sendBatch(CacheEntryOutputBatchMessage)}.
+     *
+     * @throws MessageChannelException if any of the sent messages is not delivered
+     */
+    default void flush() {
+    }
+
     /**
      * Creates a subscription to the incoming message stream of the channel on a dedicated thread pool.
      *
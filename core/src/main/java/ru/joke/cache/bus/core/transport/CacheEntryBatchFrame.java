@@ -0,0 +1,103 @@
+package ru.joke.cache.bus.core.transport;
+
+import javax.annotation.Nonnull;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Codec of the multi-event frame used to transfer several serialized cache element change events in one message.<br>
+ * Frame layout: {@code [version: byte][count: int]} followed by {@code count} elements of the form
+ * {@code [messageHash: int][length: int][body: byte[length]]}.
+ *
+ * @author Alik
+ * @see CacheEntryOutputBatchMessage
+ */
+public abstract class CacheEntryBatchFrame {
+
+    /**
+     * Current version of the frame layout.
+     */
+    public static final byte VERSION = 1;
+
+    private static final int HEADER_SIZE = Byte.BYTES + Integer.BYTES;
+    private static final int ELEMENT_HEADER_SIZE = 2 * Integer.BYTES;
+
+    /**
+     * Encodes the given messages into a multi-event frame.
+     *
+     * @param messages the messages to encode, cannot be {@code null}.
+     * @return the binary representation of the frame, cannot be {@code null}.
+     */
+    @Nonnull
+    public static byte[] encode(@Nonnull final List<CacheEntryOutputMessage> messages) {
+
+        int frameSize = HEADER_SIZE;
+        for (final CacheEntryOutputMessage message : messages) {
+            frameSize += ELEMENT_HEADER_SIZE + message.cacheEntryMessageBody().length;
+        }
+
+        final ByteBuffer frame = ByteBuffer.allocate(frameSize);
+        frame.put(VERSION);
+        frame.putInt(messages.size());
+
+        for (final CacheEntryOutputMessage message : messages) {
+            final byte[] body = message.cacheEntryMessageBody();
+            frame.putInt(message.messageHashKey());
+            frame.putInt(body.length);
+            frame.put(body);
+        }
+
+        return frame.array();
+    }
+
+    /**
+     * Splits the multi-event frame into separate messages and passes each of them to the consumer in the frame order.
+     *
+     * @param frame    the binary representation of the frame, cannot be {@code null}.
+     * @param consumer the consumer of the frame elements, cannot be {@code null}.
+     * @return the count of elements in the frame.
+     * @throws MessageChannelException if the frame is malformed.
+     */
+    public static int split(@Nonnull final byte[] frame, @Nonnull final ElementConsumer consumer) {
+
+        try {
+            final ByteBuffer buffer = ByteBuffer.wrap(frame);
+            final byte version = buffer.get();
+            if (version != VERSION) {
+                throw new MessageChannelException("Unsupported frame version: " + version);
+            }
+
+            final int count = buffer.getInt();
+            for (int i = 0; i < count; i++) {
+                final int messageHash = buffer.getInt();
+                final byte[] body = new byte[buffer.getInt()];
+                buffer.get(body);
+
+                consumer.accept(messageHash, body);
+            }
+
+            return count;
+        } catch (BufferUnderflowException | NegativeArraySizeException ex) {
+            throw new MessageChannelException(ex);
+        }
+    }
+
+    /**
+     * Consumer of the elements of a multi-event frame.
+     */
+    @FunctionalInterface
+    public interface ElementConsumer {
+
+        /**
+         * Consumes a single element of the frame.
+         *
+         * @param messageHash the hash key of the message.
+         * @param messageBody the message body in binary format, cannot be {@code null}.
+         */
+        void accept(int messageHash, @Nonnull byte[] messageBody);
+    }
+
+    private CacheEntryBatchFrame() {
+    }
+}
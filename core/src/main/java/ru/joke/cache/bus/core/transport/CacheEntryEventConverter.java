@@ -4,12 +4,16 @@ import ru.joke.cache.bus.core.CacheEntryEvent;
 
 import javax.annotation.Nonnull;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
 
 /**
  * Cache element change message converter used for transmitting messages to other servers
  * and receiving messages from other servers.<br>
  * Defines the rules for converting data from {@link CacheEntryEvent} events into a "transport" binary representation
- * and vice versa, converting from binary representation to an object of type {@link CacheEntryEvent}.
+ * and vice versa, converting from binary representation to an object of type {@link CacheEntryEvent}.<br>
+ * In addition to the array-based methods, the converter has the buffer-based methods: the converters can serialize the events
+ * into the pooled buffers and deserialize the events directly from the buffers received by the channels without copying.
+ * By default, the buffer-based methods are the adapters to the array-based ones.
  *
  * @author Alik
  * @see CacheEntryEvent
@@ -41,4 +45,135 @@ public interface CacheEntryEventConverter {
      */
     @Nonnull
     <K extends Serializable, V extends Serializable> CacheEntryEvent<K, V> fromBinary(@Nonnull byte[] data);
+
+    /**
+     * Deserializes the cache element change event from a "transport" binary representation into the reusable flyweight:
+     * the header of the event is decoded immediately, the key and the values are decoded only on the first access to them.<br>
+     * By default, the flyweight isn't used and the event is fully deserialized with {@linkplain #fromBinary(byte[])};
+     * the converters that support the partial decoding override this method. The converters of the library use
+     * the header-first binary format (see {@link CacheEntryEventHeader}), so the header of the event and the string keys
+     * are decoded without the deserialization of the body of the event.
+     *
+     * @param data      the cache element change event in binary format, cannot be {@code null}.
+     * @param flyweight the reusable flyweight of the receiving thread, cannot be {@code null}.
+     * @param <K>       the key type of the cache element, must be serializable
+     * @param <V>       the value type of the cache element, must be serializable
+     * @return the wrapped flyweight or the fully deserialized event, cannot be {@code null}.
+     * @see LazyCacheEntryEvent
+     * @see CacheEntryEventHeader
+     */
+    @Nonnull
+    default <K extends Serializable, V extends Serializable> CacheEntryEvent<K, V> fromBinary(
+            @Nonnull byte[] data,
+            @Nonnull LazyCacheEntryEvent<K, V> flyweight) {
+        return fromBinary(data);
+    }
+
+    /**
+     * Serializes the cache element change event into a binary transport representation in the buffer.<br>
+     * Unlike {@linkplain #toBinary(CacheEntryEvent, boolean)}, the converter can write the event into the pooled buffer
+     * of the calling thread: the returned buffer (the bytes between its position and limit) is valid only until the next
+     * conversion on the same thread, so the caller must send or copy it before that and must not retain it.<br>
+     * By default, the array returned by {@linkplain #toBinary(CacheEntryEvent, boolean)} is wrapped into the buffer.
+     *
+     * @param event                the cache element change event, cannot be {@code null}.
+     * @param serializeValueFields indicates whether value fields should be serialized
+     * @param <K>                  the key type of the cache element, must be serializable
+     * @param <V>                  the value type of the cache element, must be serializable
+     * @return the buffer with the serialized binary representation of the cache element change event, cannot be {@code null}.
+     */
+    @Nonnull
+    default <K extends Serializable, V extends Serializable> ByteBuffer toBuffer(
+            @Nonnull CacheEntryEvent<K, V> event,
+            boolean serializeValueFields) {
+        return ByteBuffer.wrap(toBinary(event, serializeValueFields));
+    }
+
+    /**
+     * Deserializes the cache element change event from the remaining bytes of the buffer.<br>
+     * The buffer is owned by the caller and can be reused after the return from the method, so the converter must not retain it;
+     * the position of the buffer isn't changed. By default, the bytes of the buffer are copied and deserialized with
+     * {@linkplain #fromBinary(byte[])}, the converters that can decode the part of the array override this method
+     * to deserialize the heap buffers without copying.
+     *
+     * @param data the buffer with the cache element change event in binary format, cannot be {@code null}.
+     * @param <K>  the key type of the cache element, must be serializable
+     * @param <V>  the value type of the cache element, must be serializable
+     * @return an object of type {@link CacheEntryEvent}, cannot be {@code null}.
+     */
+    @Nonnull
+    default <K extends Serializable, V extends Serializable> CacheEntryEvent<K, V> fromBuffer(@Nonnull ByteBuffer data) {
+        return fromBinary(ByteBuffers.toByteArray(data));
+    }
+
+    /**
+     * Deserializes the cache element change event from the remaining bytes of the buffer into the reusable flyweight
+     * (see {@linkplain #fromBinary(byte[], LazyCacheEntryEvent)}). The flyweight can refer to the buffer
+     * until it is {@linkplain LazyCacheEntryEvent#clear() cleared}, so the buffer must not be reused before that.<br>
+     * By default, the bytes of the buffer are copied and deserialized with {@linkplain #fromBinary(byte[], LazyCacheEntryEvent)}.
+     *
+     * @param data      the buffer with the cache element change event in binary format, cannot be {@code null}.
+     * @param flyweight the reusable flyweight of the receiving thread, cannot be {@code null}.
+     * @param <K>       the key type of the cache element, must be serializable
+     * @param <V>       the value type of the cache element, must be serializable
+     * @return the wrapped flyweight or the fully deserialized event, cannot be {@code null}.
+     * @see LazyCacheEntryEvent
+     */
+    @Nonnull
+    default <K extends Serializable, V extends Serializable> CacheEntryEvent<K, V> fromBuffer(
+            @Nonnull ByteBuffer data,
+            @Nonnull LazyCacheEntryEvent<K, V> flyweight) {
+        return fromBinary(ByteBuffers.toByteArray(data), flyweight);
+    }
+
+    /**
+     * Serializes a cache element change event into the binary representation of the event of the multi-event frame
+     * (see {@link CacheEntryBatchFrame}). The frame is encoded as a whole by {@linkplain #encodeBatchFrame(byte[])},
+     * so the converters that transform the binary representation (for example, compress it) can skip the transformation
+     * of the single event here; the result must still be decodable by {@linkplain #fromBinary(byte[])}.<br>
+     * By default, the event is serialized with {@linkplain #toBinary(CacheEntryEvent, boolean)}.
+     *
+     * @param event                the cache element change event, cannot be {@code null}.
+     * @param serializeValueFields indicates whether value fields should be serialized
+     * @param <K>                  the key type of the cache element, must be serializable
+     * @param <V>                  the value type of the cache element, must be serializable
+     * @return the serialized binary representation of the event of the frame, cannot be {@code null}.
+     * @see #encodeBatchFrame(byte[])
+     */
+    @Nonnull
+    default <K extends Serializable, V extends Serializable> byte[] toBatchBinary(
+            @Nonnull CacheEntryEvent<K, V> event,
+            boolean serializeValueFields) {
+        return toBinary(event, serializeValueFields);
+    }
+
+    /**
+     * Encodes the multi-event frame (see {@link CacheEntryBatchFrame}) composed of the events serialized by this converter
+     * (see {@linkplain #toBatchBinary(CacheEntryEvent, boolean)}) before sending of the frame to the channel.
+     * The converters that transform the binary representation as a whole (for example, compress it) can override
+     * this method to transform the whole frame instead of the single events.<br>
+     * By default, the frame is sent as is.
+     *
+     * @param frame the binary representation of the frame, cannot be {@code null}.
+     * @return the encoded frame, cannot be {@code null}.
+     * @see #decodeBatchFrame(byte[])
+     */
+    @Nonnull
+    default byte[] encodeBatchFrame(@Nonnull byte[] frame) {
+        return frame;
+    }
+
+    /**
+     * Decodes the multi-event frame received from the channel and encoded by {@linkplain #encodeBatchFrame(byte[])}
+     * before the splitting of the frame into the events.<br>
+     * By default, the received frame is returned as is.
+     *
+     * @param data the encoded frame, cannot be {@code null}.
+     * @return the binary representation of the frame, cannot be {@code null}.
+     * @see #encodeBatchFrame(byte[])
+     */
+    @Nonnull
+    default byte[] decodeBatchFrame(@Nonnull byte[] data) {
+        return data;
+    }
 }
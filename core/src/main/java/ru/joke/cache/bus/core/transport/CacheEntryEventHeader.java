@@ -0,0 +1,278 @@
+package ru.joke.cache.bus.core.transport;
+
+import ru.joke.cache.bus.core.CacheEntryEvent;
+import ru.joke.cache.bus.core.CacheEntryEventType;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.NotThreadSafe;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Codec of the fixed prefix (header) of the binary representation of the cache element change event
+ * used by the converters for the header-first binary format.<br>
+ * Header layout: {@code [version: byte][eventType: byte][eventTime: long][cacheNameLength: unsigned short][cacheName: UTF-8]
+ * [keyType: byte]} followed by {@code [keyLength: int][key: UTF-8]} if the key is a string. The header is followed by the body
+ * of the event in the converter-specific format: the key (if the key is not a string), the old value and the new value.
+ * The body can be empty if the key is a string and the values are not serialized.<br>
+ * The header is decoded without the deserialization streams of the converters, so the receiving side can find out the cache
+ * of the event (and skip the event of the cache that isn't configured locally) and the key of the event without the decoding
+ * of the body. The instance of the header holds the result of the last {@linkplain #read(byte[])} and can be reused.
+ *
+ * @author Alik
+ * @see CacheEntryEventConverter#fromBinary(byte[], LazyCacheEntryEvent)
+ */
+@NotThreadSafe
+public final class CacheEntryEventHeader {
+
+    /**
+     * Current version of the header layout.
+     */
+    public static final byte VERSION = 1;
+
+    private static final byte STRING_KEY = 1;
+    private static final byte OBJECT_KEY = 2;
+
+    private static final int MAX_CACHE_NAME_LENGTH = 0xFFFF;
+
+    private static final VarHandle SHORT_VIEW = MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle INT_VIEW = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle LONG_VIEW = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    private long eventTime;
+    private CacheEntryEventType eventType;
+    private String cacheName;
+    private boolean stringKey;
+    private int keyOffset;
+    private int keyLength;
+    private int bodyOffset;
+    private int end;
+
+    /**
+     * Writes the header of the event to the output.
+     *
+     * @param output the output, cannot be {@code null}.
+     * @param event  the cache element change event, cannot be {@code null}.
+     * @throws IOException if an I/O error occurs.
+     */
+    public static void write(@Nonnull DataOutput output, @Nonnull CacheEntryEvent<?, ?> event) throws IOException {
+
+        output.writeByte(VERSION);
+        output.writeByte(event.eventType().getId());
+        output.writeLong(event.eventTime());
+
+        final byte[] cacheName = event.cacheName().getBytes(StandardCharsets.UTF_8);
+        if (cacheName.length > MAX_CACHE_NAME_LENGTH) {
+            throw new IllegalArgumentException("Cache name is too long: " + event.cacheName());
+        }
+
+        output.writeShort(cacheName.length);
+        output.write(cacheName);
+
+        if (isStringKey(event.key())) {
+            final byte[] key = event.key().toString().getBytes(StandardCharsets.UTF_8);
+            output.writeByte(STRING_KEY);
+            output.writeInt(key.length);
+            output.write(key);
+        } else {
+            output.writeByte(OBJECT_KEY);
+        }
+    }
+
+    /**
+     * Returns whether the key is written to the header (as a string) and should not be written to the body of the event.
+     *
+     * @param key the key of the event, cannot be {@code null}.
+     * @return {@code true} if the key is written to the header, {@code false} otherwise.
+     */
+    public static boolean isStringKey(@Nonnull Object key) {
+        return key.getClass() == String.class;
+    }
+
+    /**
+     * Decodes the header of the event from the binary representation of the event.
+     * The string key isn't decoded, it can be decoded with {@linkplain #readStringKey(byte[])} on demand.
+     *
+     * @param data the binary representation of the event, cannot be {@code null}.
+     * @return this header, cannot be {@code null}.
+     * @throws IllegalArgumentException if the version of the header isn't supported or the header is malformed.
+     */
+    @Nonnull
+    public CacheEntryEventHeader read(@Nonnull byte[] data) {
+        return read(data, 0, data.length);
+    }
+
+    /**
+     * Decodes the header of the event from the binary representation of the event that occupies the part of the array
+     * (for example, the part of the received buffer). The offsets returned by the header are the offsets in the array.
+     *
+     * @param data   the array containing the binary representation of the event, cannot be {@code null}.
+     * @param offset the offset of the binary representation of the event in the array.
+     * @param length the length of the binary representation of the event.
+     * @return this header, cannot be {@code null}.
+     * @throws IllegalArgumentException if the version of the header isn't supported or the header is malformed.
+     */
+    @Nonnull
+    public CacheEntryEventHeader read(@Nonnull byte[] data, @Nonnegative int offset, @Nonnegative int length) {
+
+        if (offset < 0 || length < 0 || length > data.length - offset) {
+            throw new IllegalArgumentException("Binary representation of event is out of array bounds");
+        }
+
+        final int end = offset + length;
+        try {
+            final byte version = data[checkIndex(offset, end)];
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported event header version: " + version);
+            }
+
+            final byte eventTypeId = data[checkIndex(offset + 1, end)];
+            final CacheEntryEventType eventType = CacheEntryEventType.valueOf(eventTypeId);
+            if (eventType == null) {
+                throw new IllegalArgumentException("Unknown event type: " + eventTypeId);
+            }
+
+            final long eventTime = (long) LONG_VIEW.get(data, checkIndex(offset + 2, end - Long.BYTES + 1));
+            final int cacheNameLength = Short.toUnsignedInt((short) SHORT_VIEW.get(data, checkIndex(offset + 10, end - Short.BYTES + 1)));
+            final int cacheNameOffset = offset + 12;
+            final int keyTypeOffset = checkIndex(cacheNameOffset + cacheNameLength, end);
+
+            final String cacheName = decodeString(data, cacheNameOffset, cacheNameLength);
+            final boolean stringKey = switch (data[keyTypeOffset]) {
+                case STRING_KEY -> true;
+                case OBJECT_KEY -> false;
+                default -> throw new IllegalArgumentException("Unknown key type: " + data[keyTypeOffset]);
+            };
+
+            final int keyLength = stringKey ? (int) INT_VIEW.get(data, checkIndex(keyTypeOffset + 1, end - Integer.BYTES + 1)) : 0;
+            final int keyOffset = stringKey ? keyTypeOffset + 1 + Integer.BYTES : keyTypeOffset + 1;
+            if (keyLength < 0 || keyLength > end - keyOffset) {
+                throw new IllegalArgumentException("Malformed event header: key is out of bounds");
+            }
+
+            this.eventType = eventType;
+            this.eventTime = eventTime;
+            this.cacheName = cacheName;
+            this.stringKey = stringKey;
+            this.keyOffset = keyOffset;
+            this.keyLength = keyLength;
+            this.bodyOffset = keyOffset + keyLength;
+            this.end = end;
+
+            return this;
+        } catch (IndexOutOfBoundsException ex) {
+            throw new IllegalArgumentException("Malformed event header", ex);
+        }
+    }
+
+    /**
+     * Decodes the string key of the event written to the header.
+     *
+     * @param data the binary representation of the event, cannot be {@code null}.
+     * @return the key of the event, cannot be {@code null}.
+     * @throws IllegalStateException if the key of the event isn't a string.
+     */
+    @Nonnull
+    public String readStringKey(@Nonnull byte[] data) {
+        if (!this.stringKey) {
+            throw new IllegalStateException("Key of the event is not a string, it is written to the body of the event");
+        }
+
+        return decodeString(data, this.keyOffset, this.keyLength);
+    }
+
+    /**
+     * Returns the time of the event from the last decoded header.
+     *
+     * @return the time of cache element change in milliseconds.
+     */
+    public long eventTime() {
+        return this.eventTime;
+    }
+
+    /**
+     * Returns the type of the event from the last decoded header.
+     *
+     * @return the type of the event, cannot be {@code null} if the header is decoded.
+     */
+    public CacheEntryEventType eventType() {
+        return this.eventType;
+    }
+
+    /**
+     * Returns the name of the cache of the event from the last decoded header.
+     *
+     * @return the name of the cache, cannot be {@code null} if the header is decoded.
+     */
+    public String cacheName() {
+        return this.cacheName;
+    }
+
+    /**
+     * Returns whether the key of the event is a string written to the header.
+     *
+     * @return {@code true} if the key can be decoded with {@linkplain #readStringKey(byte[])},
+     * {@code false} if the key is written to the body of the event.
+     */
+    public boolean hasStringKey() {
+        return this.stringKey;
+    }
+
+    /**
+     * Returns the offset of the body of the event in the array containing the binary representation of the event.
+     *
+     * @return the offset of the body.
+     */
+    public int bodyOffset() {
+        return this.bodyOffset;
+    }
+
+    /**
+     * Returns the length of the body of the event.
+     *
+     * @return the length of the body.
+     */
+    public int bodyLength() {
+        return this.end - this.bodyOffset;
+    }
+
+    /**
+     * Returns whether the event has the non-empty body, i.e. the key that isn't a string or the serialized values.
+     *
+     * @return {@code true} if the body of the event isn't empty, {@code false} otherwise.
+     */
+    public boolean hasBody() {
+        return this.bodyOffset < this.end;
+    }
+
+    /**
+     * Clears the result of the last decoding of the header.
+     */
+    public void clear() {
+        this.eventType = null;
+        this.cacheName = null;
+        this.eventTime = 0;
+        this.stringKey = false;
+        this.keyOffset = 0;
+        this.keyLength = 0;
+        this.bodyOffset = 0;
+        this.end = 0;
+    }
+
+    private static int checkIndex(final int index, final int end) {
+        if (index >= end) {
+            throw new IndexOutOfBoundsException(index);
+        }
+
+        return index;
+    }
+
+    private static String decodeString(final byte[] data, final int offset, final int length) {
+        return new String(data, offset, length, StandardCharsets.UTF_8);
+    }
+}
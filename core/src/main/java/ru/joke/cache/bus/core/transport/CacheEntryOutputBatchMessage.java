@@ -0,0 +1,57 @@
+package ru.joke.cache.bus.core.transport;
+
+import javax.annotation.Nonnull;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Outgoing message containing several cache element change messages packed into a single multi-event frame.
+ * Used to reduce the number of round trips to the broker and the overhead of message headers at high event rates.
+ *
+ * @author Alik
+ * @see CacheEntryOutputMessage
+ * @see CacheEntryBatchFrame
+ * @see CacheBusMessageChannel#sendBatch(CacheEntryOutputBatchMessage)
+ */
+public interface CacheEntryOutputBatchMessage {
+
+    /**
+     * Returns the messages included in the batch in the order in which they should be applied.
+     *
+     * @return cannot be {@code null}.
+     */
+    @Nonnull
+    List<CacheEntryOutputMessage> messages();
+
+    /**
+     * Returns the binary representation of the batch (multi-event frame).
+     *
+     * @return cannot be {@code null}.
+     * @see CacheEntryBatchFrame
+     */
+    @Nonnull
+    byte[] batchMessageBody();
+
+    /**
+     * Returns the binary representation of the batch (multi-event frame) as a buffer (the bytes between its position and limit).
+     * The buffer is valid only until the return from {@linkplain CacheBusMessageChannel#sendBatch(CacheEntryOutputBatchMessage)},
+     * the channel must not change the position and the limit of the buffer.<br>
+     * By default, the array returned by {@linkplain #batchMessageBody()} is wrapped into the buffer.
+     *
+     * @return cannot be {@code null}.
+     * @see CacheEntryBatchFrame
+     */
+    @Nonnull
+    default ByteBuffer batchMessageBuffer() {
+        return ByteBuffer.wrap(batchMessageBody());
+    }
+
+    /**
+     * Returns the hash key of the batch message.<br>
+     * The hash must be the same for all batches that can contain events for the same key of the same cache,
+     * so that the order of such batches is preserved by the channel.
+     *
+     * @return batch message hash key
+     */
+    int messageHashKey();
+}
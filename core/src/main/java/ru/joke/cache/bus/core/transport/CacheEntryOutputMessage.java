@@ -3,6 +3,7 @@ package ru.joke.cache.bus.core.transport;
 import ru.joke.cache.bus.core.CacheEntryEvent;
 
 import javax.annotation.Nonnull;
+import java.nio.ByteBuffer;
 
 /**
  * Outgoing cache element change message containing the binary
@@ -29,6 +30,21 @@ public interface CacheEntryOutputMessage {
     @Nonnull
     byte[] cacheEntryMessageBody();
 
+    /**
+     * Returns the binary representation of the cache element change event as a buffer (the bytes between its position and limit).<br>
+     * Unlike {@linkplain #cacheEntryMessageBody()}, the buffer can be the pooled buffer of the converter, so it is valid only
+     * until the return from {@linkplain CacheBusMessageChannel#send(CacheEntryOutputMessage)} and must not be retained
+     * by the channel; in return, the channels that can send the buffers avoid the copying of the binary representation.
+     * The channel must not change the position and the limit of the buffer (a duplicate of the buffer should be used for that).<br>
+     * By default, the array returned by {@linkplain #cacheEntryMessageBody()} is wrapped into the buffer.
+     *
+     * @return cannot be {@code null}.
+     */
+    @Nonnull
+    default ByteBuffer cacheEntryMessageBuffer() {
+        return ByteBuffer.wrap(cacheEntryMessageBody());
+    }
+
     /**
      * Returns the message hash key.<br>
      * The hash should be calculated based on two fields: the cache name and the key for which the change occurred.
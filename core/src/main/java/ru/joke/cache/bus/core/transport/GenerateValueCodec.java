@@ -0,0 +1,35 @@
+package ru.joke.cache.bus.core.transport;
+
+import javax.annotation.Nonnegative;
+import java.lang.annotation.*;
+
+/**
+ * Marks the record or the value class for which the {@linkplain ValueCodec codec} must be generated at compile time
+ * by the annotation processor of the module {@code ru.joke.cache-bus:value-codec-processor}.<br>
+ * The generated codec accesses the components of the object directly (without reflection), writes them in the same binary format
+ * as the {@linkplain ValueCodecRegistry.Builder#registerRecord(int, Class) codec of the record} and is declared in
+ * {@code META-INF/services/ru.joke.cache.bus.core.transport.ValueCodec}, so the codec is registered with
+ * {@linkplain ValueCodecRegistry.Builder#registerInstalled()}.<br>
+ * The components of the record are its record components; the components of the class are the parameters of its constructor
+ * with the max number of parameters, each parameter must have the accessor method (with the name of the parameter or with the prefix {@code get}/{@code is})
+ * or the field with the same name. The type, its canonical constructor and the accessors must not be private.
+ *
+ * @author Alik
+ * @see ValueCodec
+ * @see ValueCodecRegistry.Builder#registerInstalled()
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface GenerateValueCodec {
+
+    /**
+     * Returns the identifier of the generated codec.
+     *
+     * @return the identifier of the codec, must be greater than {@linkplain ValueCodecs#MAX_RESERVED_ID}
+     * and not greater than {@linkplain ValueCodecs#MAX_ID}.
+     * @see ValueCodec#id()
+     */
+    @Nonnegative
+    int id();
+}
@@ -0,0 +1,280 @@
+package ru.joke.cache.bus.core.transport;
+
+import ru.joke.cache.bus.core.CacheEntryEvent;
+import ru.joke.cache.bus.core.CacheEntryEventType;
+import ru.joke.cache.bus.core.impl.ImmutableCacheEntryEvent;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Reusable flyweight of the cache element change event received from other servers.<br>
+ * The flyweight wraps the binary representation of the event: the header of the event (the name of the cache,
+ * the type and the time of the event) is decoded by the converter eagerly, whereas the key and the values are decoded
+ * by the {@linkplain Decoder decoder} of the converter only on the first access to them. So the events that are not applied
+ * to the local caches (for example, the events of the unknown caches or the outdated events) do not require the
+ * deserialization of the values, and the invalidation events never require the deserialization of the values
+ * (the bus decodes the key of each received event right after the conversion, so the malformed keys are detected
+ * as the malformed messages).<br>
+ * The bus keeps one flyweight per receiving thread, passes it to {@linkplain CacheEntryEventConverter#fromBinary(byte[], LazyCacheEntryEvent)}
+ * and {@linkplain #clear() clears} it after the event is applied to the caches, releasing the binary representation of the event.
+ * If the event must be kept longer, it must be copied with {@linkplain #toImmutable()}.<br>
+ * If the flyweight is wrapped again while it is still in use on the same thread,
+ * {@linkplain #wrap(byte[], long, CacheEntryEventType, String, Decoder)} returns a new flyweight,
+ * so the data of the outer event is never overwritten.
+ *
+ * @param <K> the type of the cache element key
+ * @param <V> the type of the cache element value
+ * @author Alik
+ * @see CacheEntryEventConverter#fromBinary(byte[], LazyCacheEntryEvent)
+ * @see Decoder
+ */
+@NotThreadSafe
+public final class LazyCacheEntryEvent<K extends Serializable, V extends Serializable> implements CacheEntryEvent<K, V> {
+
+    private byte[] data;
+    private Decoder decoder;
+    private long eventTime;
+    private CacheEntryEventType eventType;
+    private String cacheName;
+
+    private boolean keyDecoded;
+    private boolean valuesDecoded;
+    private RuntimeException decodingFailure;
+    private K key;
+    private V oldValue;
+    private V newValue;
+
+    /**
+     * Wraps the binary representation of the event with the eagerly decoded header.
+     *
+     * @param data      the array containing the binary representation of the event (for example, the backing array
+     *                  of the received buffer), cannot be {@code null}.
+     * @param eventTime the time of cache element change in milliseconds, must be positive.
+     * @param eventType the type of event (change), cannot be {@code null}.
+     * @param cacheName the name of the cache where the change occurred, cannot be {@code null} or empty.
+     * @param decoder   the decoder of the key and the values of the event, cannot be {@code null}.
+     * @return the wrapped flyweight: this flyweight or a new one if this flyweight is still in use, cannot be {@code null}.
+     */
+    @Nonnull
+    public LazyCacheEntryEvent<K, V> wrap(
+            @Nonnull byte[] data,
+            @Nonnegative long eventTime,
+            @Nonnull CacheEntryEventType eventType,
+            @Nonnull String cacheName,
+            @Nonnull Decoder decoder) {
+
+        if (this.data != null) {
+            return new LazyCacheEntryEvent<K, V>().wrap(data, eventTime, eventType, cacheName, decoder);
+        }
+
+        Objects.requireNonNull(data, "data");
+        Objects.requireNonNull(eventType, "eventType");
+        Objects.requireNonNull(decoder, "decoder");
+
+        if (cacheName == null || cacheName.isEmpty()) {
+            throw new IllegalArgumentException("cacheName must be not empty");
+        }
+
+        if (eventTime <= 0) {
+            throw new IllegalArgumentException("eventTime must be positive");
+        }
+
+        this.data = data;
+        this.eventTime = eventTime;
+        this.eventType = eventType;
+        this.cacheName = cacheName;
+        this.decoder = decoder;
+
+        return this;
+    }
+
+    /**
+     * Clears the flyweight after the event is applied: releases the resources of the decoder, the binary representation
+     * of the event and the decoded key and values, so the flyweight can be wrapped again.
+     */
+    public void clear() {
+        if (this.decoder != null) {
+            this.decoder.release();
+        }
+
+        this.data = null;
+        this.decoder = null;
+        this.eventType = null;
+        this.cacheName = null;
+        this.eventTime = 0;
+        this.keyDecoded = false;
+        this.valuesDecoded = false;
+        this.decodingFailure = null;
+        this.key = null;
+        this.oldValue = null;
+        this.newValue = null;
+    }
+
+    /**
+     * Creates the immutable copy of the event; the key and the values are decoded if they are not decoded yet.
+     *
+     * @return cannot be {@code null}.
+     */
+    @Nonnull
+    public ImmutableCacheEntryEvent<K, V> toImmutable() {
+        return new ImmutableCacheEntryEvent<>(key(), oldValue(), newValue(), this.eventTime, this.eventType, this.cacheName);
+    }
+
+    /**
+     * Returns the wrapped array containing the binary representation of the event.
+     *
+     * @return cannot be {@code null} if the flyweight is wrapped.
+     */
+    public byte[] data() {
+        return this.data;
+    }
+
+    @Nonnull
+    @Override
+    public K key() {
+        if (!this.keyDecoded) {
+            checkDecodingFailure();
+            try {
+                this.key = this.decoder.decodeKey(this.data);
+            } catch (RuntimeException ex) {
+                this.decodingFailure = ex;
+                throw ex;
+            }
+
+            this.keyDecoded = true;
+        }
+
+        return this.key;
+    }
+
+    @Nullable
+    @Override
+    public V oldValue() {
+        decodeValuesIfNeed();
+        return this.oldValue;
+    }
+
+    @Nullable
+    @Override
+    public V newValue() {
+        decodeValuesIfNeed();
+        return this.newValue;
+    }
+
+    @Override
+    public long eventTime() {
+        return this.eventTime;
+    }
+
+    @Nonnull
+    @Override
+    public CacheEntryEventType eventType() {
+        return this.eventType;
+    }
+
+    @Nonnull
+    @Override
+    public String cacheName() {
+        return this.cacheName;
+    }
+
+    @Override
+    public int computeEventHashKey() {
+        final int result = 31 + this.cacheName.hashCode();
+        return 31 * result + key().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "LazyCacheEntryEvent{" +
+                "key=" + (keyDecoded ? key : "<not decoded>") +
+                ", oldValue=" + (valuesDecoded ? oldValue : "<not decoded>") +
+                ", newValue=" + (valuesDecoded ? newValue : "<not decoded>") +
+                ", eventTime=" + eventTime +
+                ", eventType=" + eventType +
+                ", cacheName='" + cacheName + '\'' +
+                '}';
+    }
+
+    private void decodeValuesIfNeed() {
+        if (this.valuesDecoded) {
+            return;
+        }
+
+        // The key always precedes the values in the binary representation
+        key();
+        checkDecodingFailure();
+
+        try {
+            this.oldValue = this.decoder.decodeOldValue(this.data);
+            this.newValue = this.decoder.decodeNewValue(this.data);
+        } catch (RuntimeException ex) {
+            this.decodingFailure = ex;
+            throw ex;
+        }
+
+        this.valuesDecoded = true;
+    }
+
+    private void checkDecodingFailure() {
+        // The decoder can't decode the part again after the failure (the stream of the event may be already advanced)
+        if (this.decodingFailure != null) {
+            throw new IllegalStateException("Event can't be decoded due to previous decoding failure", this.decodingFailure);
+        }
+    }
+
+    /**
+     * Decoder of the key and the values of the event wrapped by the flyweight. The decoder is provided by the converter
+     * and can keep the state of the decoding of the single event (for example, the position of the values in the binary
+     * representation or the open input stream), in this case the converter must not share it between the flyweights
+     * that are in use at the same time.<br>
+     * The flyweight decodes each part of the event at most once and always in the order: the key,
+     * the old value, the new value; the decoding errors are thrown as {@link RuntimeException}. After the decoding error
+     * the flyweight doesn't call the decoder again, the subsequent accesses to the undecoded parts fail.
+     *
+     * @author Alik
+     */
+    public interface Decoder {
+
+        /**
+         * Decodes the key of the event.
+         *
+         * @param data the binary representation of the event, cannot be {@code null}.
+         * @param <K>  the type of the cache element key
+         * @return the key of the event, cannot be {@code null}.
+         */
+        @Nonnull
+        <K extends Serializable> K decodeKey(@Nonnull byte[] data);
+
+        /**
+         * Decodes the old value of the event.
+         *
+         * @param data the binary representation of the event, cannot be {@code null}.
+         * @param <V>  the type of the cache element value
+         * @return the old value of the event, can be {@code null}.
+         */
+        @Nullable
+        <V extends Serializable> V decodeOldValue(@Nonnull byte[] data);
+
+        /**
+         * Decodes the new value of the event.
+         *
+         * @param data the binary representation of the event, cannot be {@code null}.
+         * @param <V>  the type of the cache element value
+         * @return the new value of the event, can be {@code null}.
+         */
+        @Nullable
+        <V extends Serializable> V decodeNewValue(@Nonnull byte[] data);
+
+        /**
+         * Releases the state of the decoding of the event when the flyweight is cleared.
+         */
+        default void release() {
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package ru.joke.cache.bus.core.transport;
+
+import ru.joke.cache.bus.core.configuration.ConfigurationException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.RecordComponent;
+import java.util.Arrays;
+
+/**
+ * Codec of the record that writes the components of the record in the order of their declaration:
+ * the components of the primitive types are written directly, other components are written with the codecs
+ * of the registry to which the codec belongs.
+ *
+ * @param <R> the type of the record
+ * @author Alik
+ * @see ValueCodecRegistry.Builder#registerRecord(int, Class)
+ */
+@ThreadSafe
+final class RecordValueCodec<R extends Record> implements ValueCodec<R> {
+
+    private final int id;
+    private final Class<R> type;
+    private final Class<?>[] componentTypes;
+    private final MethodHandle[] accessors;
+    private final MethodHandle constructor;
+    private volatile ValueCodecRegistry registry;
+
+    RecordValueCodec(final int id, @Nonnull final Class<R> type) {
+        this.id = id;
+        this.type = type;
+
+        try {
+            final MethodHandles.Lookup lookup = MethodHandles.lookup();
+            final RecordComponent[] components = type.getRecordComponents();
+
+            this.componentTypes = Arrays.stream(components).map(RecordComponent::getType).toArray(Class<?>[]::new);
+            this.accessors = new MethodHandle[components.length];
+            for (int i = 0; i < components.length; i++) {
+                final var accessor = components[i].getAccessor();
+                accessor.setAccessible(true);
+                this.accessors[i] = lookup.unreflect(accessor).asType(MethodType.methodType(Object.class, Object.class));
+            }
+
+            final Constructor<R> canonicalConstructor = type.getDeclaredConstructor(this.componentTypes);
+            canonicalConstructor.setAccessible(true);
+            this.constructor = lookup.unreflectConstructor(canonicalConstructor).asSpreader(Object[].class, components.length);
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            throw new ConfigurationException(ex);
+        }
+    }
+
+    @Override
+    public int id() {
+        return this.id;
+    }
+
+    @Nonnull
+    @Override
+    public Class<R> type() {
+        return this.type;
+    }
+
+    @Override
+    public void encode(@Nonnull R value, @Nonnull DataOutput output) throws IOException {
+        for (int i = 0; i < this.accessors.length; i++) {
+            final Object component = invokeAccessor(i, value);
+            final Class<?> componentType = this.componentTypes[i];
+
+            if (!componentType.isPrimitive()) {
+                this.registry.write(component, output);
+            } else if (componentType == int.class) {
+                VarInts.writeVarInt(output, (Integer) component);
+            } else if (componentType == long.class) {
+                VarInts.writeVarLong(output, (Long) component);
+            } else if (componentType == boolean.class) {
+                output.writeBoolean((Boolean) component);
+            } else if (componentType == double.class) {
+                output.writeDouble((Double) component);
+            } else if (componentType == float.class) {
+                output.writeFloat((Float) component);
+            } else if (componentType == short.class) {
+                VarInts.writeVarInt(output, (Short) component);
+            } else if (componentType == byte.class) {
+                output.writeByte((Byte) component);
+            } else {
+                output.writeChar((Character) component);
+            }
+        }
+    }
+
+    @Nonnull
+    @Override
+    public R decode(@Nonnull DataInput input) throws IOException {
+        final Object[] components = new Object[this.componentTypes.length];
+        for (int i = 0; i < components.length; i++) {
+            final Class<?> componentType = this.componentTypes[i];
+
+            if (!componentType.isPrimitive()) {
+                components[i] = this.registry.read(input);
+            } else if (componentType == int.class) {
+                components[i] = VarInts.readVarInt(input);
+            } else if (componentType == long.class) {
+                components[i] = VarInts.readVarLong(input);
+            } else if (componentType == boolean.class) {
+                components[i] = input.readBoolean();
+            } else if (componentType == double.class) {
+                components[i] = input.readDouble();
+            } else if (componentType == float.class) {
+                components[i] = input.readFloat();
+            } else if (componentType == short.class) {
+                components[i] = (short) VarInts.readVarInt(input);
+            } else if (componentType == byte.class) {
+                components[i] = input.readByte();
+            } else {
+                components[i] = input.readChar();
+            }
+
+            if (components[i] != null && !componentType.isPrimitive() && !componentType.isInstance(components[i])) {
+                throw new IOException("Unexpected type of component " + i + " of record " + this.type.getName() + ": " + components[i].getClass());
+            }
+        }
+
+        return newRecord(components);
+    }
+
+    @Override
+    public String toString() {
+        return "RecordValueCodec{" + "id=" + id + ", type=" + type.getName() + '}';
+    }
+
+    @Override
+    public void bind(@Nonnull ValueCodecRegistry registry) {
+        this.registry = registry;
+    }
+
+    private Object invokeAccessor(final int index, final R value) throws IOException {
+        try {
+            return this.accessors[index].invokeExact((Object) value);
+        } catch (Throwable ex) {
+            throw new IOException("Unable to get component " + index + " of record " + this.type.getName(), ex);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private R newRecord(final Object[] components) throws IOException {
+        try {
+            return (R) this.constructor.invoke(components);
+        } catch (Throwable ex) {
+            throw new IOException("Unable to create record " + this.type.getName(), ex);
+        }
+    }
+}
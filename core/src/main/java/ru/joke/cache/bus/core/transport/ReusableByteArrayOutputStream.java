@@ -0,0 +1,60 @@
+package ru.joke.cache.bus.core.transport;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.NotThreadSafe;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Output stream that can be reused by the converters to serialize the events into the pooled (for example, thread-local) buffers.<br>
+ * Unlike {@link ByteArrayOutputStream}, the written bytes can be exposed as a buffer without copying via {@linkplain #toByteBuffer()},
+ * and {@linkplain #reset()} releases the array if it has grown beyond the retained capacity, so the pooled stream
+ * doesn't hold the array of the largest serialized event forever.
+ *
+ * @author Alik
+ * @see CacheEntryEventConverter#toBuffer(ru.joke.cache.bus.core.CacheEntryEvent, boolean)
+ */
+@NotThreadSafe
+public final class ReusableByteArrayOutputStream extends ByteArrayOutputStream {
+
+    private final int initialCapacity;
+    private final int maxRetainedCapacity;
+
+    /**
+     * Creates the stream.
+     *
+     * @param initialCapacity     the initial capacity of the array of the stream, must be positive.
+     * @param maxRetainedCapacity the maximum capacity of the array of the stream retained after the reset,
+     *                            must be not less than the initial capacity.
+     */
+    public ReusableByteArrayOutputStream(@Nonnegative int initialCapacity, @Nonnegative int maxRetainedCapacity) {
+        super(initialCapacity);
+        if (maxRetainedCapacity < initialCapacity) {
+            throw new IllegalArgumentException("maxRetainedCapacity must be not less than initialCapacity");
+        }
+
+        this.initialCapacity = initialCapacity;
+        this.maxRetainedCapacity = maxRetainedCapacity;
+    }
+
+    /**
+     * Returns the written bytes as the buffer that shares the array of the stream.
+     * The buffer is valid only until the next {@linkplain #reset()} of the stream.
+     *
+     * @return cannot be {@code null}.
+     */
+    @Nonnull
+    public ByteBuffer toByteBuffer() {
+        return ByteBuffer.wrap(this.buf, 0, this.count);
+    }
+
+    @Override
+    public void reset() {
+        if (this.buf.length > this.maxRetainedCapacity) {
+            this.buf = new byte[this.initialCapacity];
+        }
+
+        this.count = 0;
+    }
+}
@@ -0,0 +1,73 @@
+package ru.joke.cache.bus.core.transport;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Codec of the objects of the specific type (keys or values of the cache elements) used by the converters
+ * instead of the general-purpose serialization.<br>
+ * The codec is identified in the binary representation by its {@linkplain #id() identifier}, so the identifier
+ * must be stable and the same codec must be registered with the same identifier on all servers of the logical cluster.
+ * The identifiers from {@code 0} to {@linkplain ValueCodecs#MAX_RESERVED_ID} are reserved for the built-in codecs of the library.<br>
+ * The custom codecs are registered in the {@link ValueCodecRegistry} explicitly or can be installed via {@link java.util.ServiceLoader}
+ * (see {@linkplain ValueCodecRegistry.Builder#registerInstalled()}), in this case the codec must have the public no-arg constructor.
+ * The codecs of the value classes and the records can be generated at compile time (see {@linkplain GenerateValueCodec}).<br>
+ * Implementations must be thread-safe.
+ *
+ * @param <T> the type of the encoded objects
+ * @author Alik
+ * @see ValueCodecRegistry
+ * @see ValueCodecs
+ */
+public interface ValueCodec<T> {
+
+    /**
+     * Returns the identifier of the codec written to the binary representation.
+     *
+     * @return the identifier of the codec, must be greater than {@linkplain ValueCodecs#MAX_RESERVED_ID}
+     * for the custom codecs and not greater than {@linkplain ValueCodecs#MAX_ID}.
+     */
+    @Nonnegative
+    int id();
+
+    /**
+     * Returns the type of the objects encoded by the codec. The codec is used only for the objects of exactly this type.
+     *
+     * @return the type of the encoded objects, cannot be {@code null}.
+     */
+    @Nonnull
+    Class<T> type();
+
+    /**
+     * Writes the object to the output.
+     *
+     * @param value  the object, cannot be {@code null}.
+     * @param output the output, cannot be {@code null}.
+     * @throws IOException if an I/O error occurs.
+     */
+    void encode(@Nonnull T value, @Nonnull DataOutput output) throws IOException;
+
+    /**
+     * Reads the object written by {@linkplain #encode(Object, DataOutput)} from the input.
+     *
+     * @param input the input, cannot be {@code null}.
+     * @return the decoded object, cannot be {@code null}.
+     * @throws IOException if an I/O error occurs or the binary representation is malformed.
+     */
+    @Nonnull
+    T decode(@Nonnull DataInput input) throws IOException;
+
+    /**
+     * Binds the codec to the registry in which the codec is registered. The codecs of the composite objects
+     * (such as the {@linkplain ValueCodecRegistry.Builder#registerRecord(int, Class) records} or the {@linkplain GenerateValueCodec generated codecs})
+     * write the components of the objects with the codecs of the registry.<br>
+     * The method is called by the {@linkplain ValueCodecRegistry.Builder#build() builder} of the registry; by default, does nothing.
+     *
+     * @param registry the registry of the codec, cannot be {@code null}.
+     */
+    default void bind(@Nonnull ValueCodecRegistry registry) {
+    }
+}
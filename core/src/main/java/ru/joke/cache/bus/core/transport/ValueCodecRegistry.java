@@ -0,0 +1,269 @@
+package ru.joke.cache.bus.core.transport;
+
+import ru.joke.cache.bus.core.CacheEntryDelta;
+import ru.joke.cache.bus.core.configuration.ConfigurationException;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.NotThreadSafe;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.*;
+import java.util.*;
+
+/**
+ * Registry of the {@linkplain ValueCodec codecs} used by the converters to write the keys and the values of the events
+ * without the general-purpose serialization. The registry always contains the {@linkplain ValueCodecs#builtIn() built-in codecs};
+ * the custom codecs, including the codecs of the records ({@linkplain Builder#registerRecord(int, Class)}), are registered via
+ * the {@linkplain #builder() builder}.<br>
+ * The object is written by {@linkplain #write(Object, DataOutput)} as the variable-length identifier of its codec followed
+ * by the binary representation of the object written by the codec; the {@code null} objects are written as {@linkplain ValueCodecs#NULL_ID},
+ * the objects without the registered codec are written with the standard JDK serialization (see {@linkplain ValueCodecs#SERIALIZED_ID}).
+ * The registries of all servers of the logical cluster must contain the same codecs with the same identifiers.
+ *
+ * @author Alik
+ * @see ValueCodec
+ * @see ValueCodecs
+ */
+@ThreadSafe
+@Immutable
+public final class ValueCodecRegistry {
+
+    private static final ValueCodecRegistry DEFAULT = builder().build();
+
+    private final Map<Class<?>, ValueCodec<?>> codecsByType;
+    private final ValueCodec<?>[] codecsById;
+
+    private ValueCodecRegistry(@Nonnull Map<Class<?>, ValueCodec<?>> codecsByType, @Nonnull ValueCodec<?>[] codecsById) {
+        this.codecsByType = codecsByType;
+        this.codecsById = codecsById;
+    }
+
+    /**
+     * Returns the registry containing only the built-in codecs.
+     *
+     * @return cannot be {@code null}.
+     */
+    @Nonnull
+    public static ValueCodecRegistry createDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Returns the codec registered for exactly the specified type.
+     *
+     * @param type the type of the objects, cannot be {@code null}.
+     * @param <T>  the type of the objects
+     * @return the codec or {@code null} if the codec isn't registered for the type.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public <T> ValueCodec<T> findByType(@Nonnull Class<T> type) {
+        return (ValueCodec<T>) this.codecsByType.get(type);
+    }
+
+    /**
+     * Returns the codec with the specified identifier.
+     *
+     * @param id the identifier of the codec.
+     * @return the codec or {@code null} if the codec with the identifier isn't registered.
+     */
+    @Nullable
+    public ValueCodec<?> findById(int id) {
+        return id >= 0 && id < this.codecsById.length ? this.codecsById[id] : null;
+    }
+
+    /**
+     * Writes the object with its codec (or with the JDK serialization if the codec isn't registered for the type of the object).
+     *
+     * @param value  the object, can be {@code null}.
+     * @param output the output, cannot be {@code null}.
+     * @throws IOException if an I/O error occurs.
+     */
+    @SuppressWarnings("unchecked")
+    public void write(@Nullable Object value, @Nonnull DataOutput output) throws IOException {
+        if (value == null) {
+            VarInts.writeUnsignedVarInt(output, ValueCodecs.NULL_ID);
+            return;
+        }
+
+        final ValueCodec<Object> codec = (ValueCodec<Object>) this.codecsByType.get(value.getClass());
+        if (codec == null) {
+            VarInts.writeUnsignedVarInt(output, ValueCodecs.SERIALIZED_ID);
+            writeSerialized(value, output);
+        } else {
+            VarInts.writeUnsignedVarInt(output, codec.id());
+            codec.encode(value, output);
+        }
+    }
+
+    /**
+     * Reads the object written by {@linkplain #write(Object, DataOutput)}.
+     *
+     * @param input the input, cannot be {@code null}.
+     * @param <T>   the type of the object
+     * @return the object, can be {@code null}.
+     * @throws IOException if an I/O error occurs, the binary representation is malformed or the codec of the object isn't registered.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public <T> T read(@Nonnull DataInput input) throws IOException {
+        final int id = VarInts.readUnsignedVarInt(input);
+        if (id == ValueCodecs.NULL_ID) {
+            return null;
+        } else if (id == ValueCodecs.SERIALIZED_ID) {
+            return (T) readSerialized(input);
+        }
+
+        final ValueCodec<?> codec = findById(id);
+        if (codec == null) {
+            throw new IOException("Codec isn't registered: " + id);
+        }
+
+        return (T) codec.decode(input);
+    }
+
+    @Override
+    public String toString() {
+        return "ValueCodecRegistry{" + "codecs=" + this.codecsByType.values() + '}';
+    }
+
+    private static void writeSerialized(final Object value, final DataOutput output) throws IOException {
+        final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (final ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+            oos.writeObject(value);
+        }
+
+        VarInts.writeUnsignedVarInt(output, bos.size());
+        output.write(bos.toByteArray());
+    }
+
+    private static Object readSerialized(final DataInput input) throws IOException {
+        final int length = VarInts.readUnsignedVarInt(input);
+        if (length < 0) {
+            throw new IOException("Malformed length of serialized object: " + length);
+        }
+
+        final byte[] data = new byte[length];
+        input.readFully(data);
+
+        try (final ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(data))) {
+            return ois.readObject();
+        } catch (ClassNotFoundException ex) {
+            throw new IOException(ex);
+        }
+    }
+
+    /**
+     * Returns a builder for constructing a registry of the codecs.
+     *
+     * @return cannot be {@code null}.
+     * @see Builder
+     */
+    @Nonnull
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @NotThreadSafe
+    public static class Builder {
+
+        private final Map<Integer, ValueCodec<?>> codecs = new HashMap<>();
+        private final Map<Integer, Class<? extends Record>> records = new HashMap<>();
+
+        private Builder() {
+            ValueCodecs.builtIn().forEach(codec -> this.codecs.put(codec.id(), codec));
+            // The element-level modifications of the elements are written as the records with the reserved ids
+            this.records.put(ValueCodecs.DELTA_ADD_ID, CacheEntryDelta.Add.class);
+            this.records.put(ValueCodecs.DELTA_REMOVE_ID, CacheEntryDelta.Remove.class);
+            this.records.put(ValueCodecs.DELTA_PUT_ID, CacheEntryDelta.Put.class);
+        }
+
+        /**
+         * Registers the custom codec.
+         *
+         * @param codec the codec, cannot be {@code null}.
+         * @return the builder for further configuration, cannot be {@code null}.
+         */
+        @Nonnull
+        public Builder register(@Nonnull ValueCodec<?> codec) {
+            Objects.requireNonNull(codec, "codec");
+            checkCustomId(codec.id());
+
+            this.codecs.put(codec.id(), codec);
+            return this;
+        }
+
+        /**
+         * Registers the codec of the record that writes the components of the record in the order of their declaration:
+         * the components of the primitive types are written directly, other components are written with the codecs of the registry
+         * (so the components can be the records registered in the same registry).
+         * The record must have the canonical constructor accessible via reflection.
+         *
+         * @param id   the identifier of the codec, must be greater than {@linkplain ValueCodecs#MAX_RESERVED_ID}.
+         * @param type the type of the record, cannot be {@code null}.
+         * @return the builder for further configuration, cannot be {@code null}.
+         */
+        @Nonnull
+        public Builder registerRecord(@Nonnegative int id, @Nonnull Class<? extends Record> type) {
+            Objects.requireNonNull(type, "type");
+            checkCustomId(id);
+
+            this.records.put(id, type);
+            return this;
+        }
+
+        /**
+         * Registers the codecs installed via {@link ServiceLoader} (declared in {@code META-INF/services/ru.joke.cache.bus.core.transport.ValueCodec}).
+         *
+         * @return the builder for further configuration, cannot be {@code null}.
+         */
+        @Nonnull
+        public Builder registerInstalled() {
+            ServiceLoader.load(ValueCodec.class).forEach(this::register);
+            return this;
+        }
+
+        /**
+         * Builds the registry.
+         *
+         * @return cannot be {@code null}.
+         */
+        @Nonnull
+        public ValueCodecRegistry build() {
+
+            final Map<Integer, ValueCodec<?>> codecs = new HashMap<>(this.codecs);
+            this.records.forEach((id, type) -> codecs.put(id, new RecordValueCodec<>(id, type)));
+
+            final Map<Class<?>, ValueCodec<?>> codecsByType = new HashMap<>(codecs.size());
+            int maxId = 0;
+            for (final ValueCodec<?> codec : codecs.values()) {
+                final ValueCodec<?> prevCodec = codecsByType.put(codec.type(), codec);
+                if (prevCodec != null) {
+                    throw new ConfigurationException("Several codecs registered for type " + codec.type() + ": " + prevCodec + ", " + codec);
+                }
+
+                maxId = Math.max(maxId, codec.id());
+            }
+
+            final ValueCodec<?>[] codecsById = new ValueCodec<?>[maxId + 1];
+            codecs.forEach((id, codec) -> codecsById[id] = codec);
+
+            final ValueCodecRegistry registry = new ValueCodecRegistry(Map.copyOf(codecsByType), codecsById);
+            codecs.values().forEach(codec -> codec.bind(registry));
+
+            return registry;
+        }
+
+        private void checkCustomId(final int id) {
+            if (id <= ValueCodecs.MAX_RESERVED_ID || id > ValueCodecs.MAX_ID) {
+                throw new ConfigurationException("Codec id must be in range (" + ValueCodecs.MAX_RESERVED_ID + ", " + ValueCodecs.MAX_ID + "]: " + id);
+            }
+
+            if (this.codecs.containsKey(id) || this.records.containsKey(id)) {
+                throw new ConfigurationException("Codec with id " + id + " already registered");
+            }
+        }
+    }
+}
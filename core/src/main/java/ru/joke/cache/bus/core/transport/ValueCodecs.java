@@ -0,0 +1,207 @@
+package ru.joke.cache.bus.core.transport;
+
+import javax.annotation.Nonnull;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Built-in {@linkplain ValueCodec codecs} of the library for the common types of the keys and the values
+ * and the reserved identifiers of the codecs. The built-in codecs are always registered in the {@link ValueCodecRegistry}.<br>
+ * The strings are written as UTF-8 bytes prefixed by the variable-length size, the integral numbers are written
+ * as signed variable-length integers (see {@link VarInts}), other types are written in the fixed-size format of {@link DataOutput}.
+ *
+ * @author Alik
+ * @see ValueCodec
+ * @see ValueCodecRegistry
+ */
+public abstract class ValueCodecs {
+
+    /**
+     * Identifier written to the binary representation instead of the codec identifier for the {@code null} objects.
+     */
+    public static final int NULL_ID = 0;
+
+    /**
+     * Identifier written to the binary representation for the objects without the registered codec:
+     * such objects are written with the standard JDK serialization.
+     */
+    public static final int SERIALIZED_ID = 1;
+
+    /**
+     * Max identifier reserved for the built-in codecs of the library.
+     */
+    public static final int MAX_RESERVED_ID = 31;
+
+    /**
+     * Max identifier of the codec.
+     */
+    public static final int MAX_ID = 0xFFFF;
+
+    /**
+     * Codec of the {@link String}s.
+     */
+    public static final ValueCodec<String> STRING = new BuiltInCodec<>(2, String.class, ValueCodecs::writeString, ValueCodecs::readString);
+
+    /**
+     * Codec of the {@link Long}s.
+     */
+    public static final ValueCodec<Long> LONG = new BuiltInCodec<>(3, Long.class, (v, out) -> VarInts.writeVarLong(out, v), VarInts::readVarLong);
+
+    /**
+     * Codec of the {@link Integer}s.
+     */
+    public static final ValueCodec<Integer> INTEGER = new BuiltInCodec<>(4, Integer.class, (v, out) -> VarInts.writeVarInt(out, v), VarInts::readVarInt);
+
+    /**
+     * Codec of the {@link UUID}s.
+     */
+    public static final ValueCodec<UUID> UUID_CODEC = new BuiltInCodec<>(
+            5,
+            UUID.class,
+            (v, out) -> {
+                out.writeLong(v.getMostSignificantBits());
+                out.writeLong(v.getLeastSignificantBits());
+            },
+            in -> new UUID(in.readLong(), in.readLong())
+    );
+
+    /**
+     * Codec of the {@link Short}s.
+     */
+    public static final ValueCodec<Short> SHORT = new BuiltInCodec<>(6, Short.class, (v, out) -> VarInts.writeVarInt(out, v), in -> (short) VarInts.readVarInt(in));
+
+    /**
+     * Codec of the {@link Byte}s.
+     */
+    public static final ValueCodec<Byte> BYTE = new BuiltInCodec<>(7, Byte.class, (v, out) -> out.writeByte(v), DataInput::readByte);
+
+    /**
+     * Codec of the {@link Boolean}s.
+     */
+    public static final ValueCodec<Boolean> BOOLEAN = new BuiltInCodec<>(8, Boolean.class, (v, out) -> out.writeBoolean(v), DataInput::readBoolean);
+
+    /**
+     * Codec of the {@link Character}s.
+     */
+    public static final ValueCodec<Character> CHARACTER = new BuiltInCodec<>(9, Character.class, (v, out) -> out.writeChar(v), DataInput::readChar);
+
+    /**
+     * Codec of the {@link Double}s.
+     */
+    public static final ValueCodec<Double> DOUBLE = new BuiltInCodec<>(10, Double.class, (v, out) -> out.writeDouble(v), DataInput::readDouble);
+
+    /**
+     * Codec of the {@link Float}s.
+     */
+    public static final ValueCodec<Float> FLOAT = new BuiltInCodec<>(11, Float.class, (v, out) -> out.writeFloat(v), DataInput::readFloat);
+
+    /**
+     * Codec of the {@link ValueFingerprint}s sent instead of the old values of the elements of the replicated caches.
+     */
+    public static final ValueCodec<ValueFingerprint> FINGERPRINT = new BuiltInCodec<>(
+            12,
+            ValueFingerprint.class,
+            (v, out) -> {
+                out.writeLong(v.high());
+                out.writeLong(v.low());
+            },
+            in -> new ValueFingerprint(in.readLong(), in.readLong())
+    );
+
+    /**
+     * Identifier of the codec of the {@linkplain ru.joke.cache.bus.core.CacheEntryDelta.Add addition} of the element to the collection.
+     */
+    public static final int DELTA_ADD_ID = 13;
+
+    /**
+     * Identifier of the codec of the {@linkplain ru.joke.cache.bus.core.CacheEntryDelta.Remove removal} of the element from the collection or the map.
+     */
+    public static final int DELTA_REMOVE_ID = 14;
+
+    /**
+     * Identifier of the codec of the {@linkplain ru.joke.cache.bus.core.CacheEntryDelta.Put put} of the key to the map.
+     */
+    public static final int DELTA_PUT_ID = 15;
+
+    /**
+     * Returns all built-in codecs of the library.
+     *
+     * @return cannot be {@code null}.
+     */
+    @Nonnull
+    public static List<ValueCodec<?>> builtIn() {
+        return List.of(STRING, LONG, INTEGER, UUID_CODEC, SHORT, BYTE, BOOLEAN, CHARACTER, DOUBLE, FLOAT, FINGERPRINT);
+    }
+
+    /**
+     * Writes the string as UTF-8 bytes prefixed by the variable-length size.
+     *
+     * @param value  the string, cannot be {@code null}.
+     * @param output the output, cannot be {@code null}.
+     * @throws IOException if an I/O error occurs.
+     */
+    public static void writeString(@Nonnull String value, @Nonnull DataOutput output) throws IOException {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        VarInts.writeUnsignedVarInt(output, bytes.length);
+        output.write(bytes);
+    }
+
+    /**
+     * Reads the string written by {@linkplain #writeString(String, DataOutput)}.
+     *
+     * @param input the input, cannot be {@code null}.
+     * @return the string, cannot be {@code null}.
+     * @throws IOException if an I/O error occurs or the binary representation is malformed.
+     */
+    @Nonnull
+    public static String readString(@Nonnull DataInput input) throws IOException {
+        final int length = VarInts.readUnsignedVarInt(input);
+        if (length < 0) {
+            throw new IOException("Malformed string length: " + length);
+        }
+
+        final byte[] bytes = new byte[length];
+        input.readFully(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @FunctionalInterface
+    private interface Encoder<T> {
+
+        void encode(T value, DataOutput output) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface Decoder<T> {
+
+        T decode(DataInput input) throws IOException;
+    }
+
+    private record BuiltInCodec<T>(
+            int id,
+            @Nonnull Class<T> type,
+            @Nonnull Encoder<T> encoder,
+            @Nonnull Decoder<T> decoder) implements ValueCodec<T> {
+
+        @Override
+        public void encode(@Nonnull T value, @Nonnull DataOutput output) throws IOException {
+            this.encoder.encode(value, output);
+        }
+
+        @Nonnull
+        @Override
+        public T decode(@Nonnull DataInput input) throws IOException {
+            return this.decoder.decode(input);
+        }
+
+        @Override
+        public String toString() {
+            return "BuiltInCodec{" + "id=" + id + ", type=" + type.getName() + '}';
+        }
+    }
+}
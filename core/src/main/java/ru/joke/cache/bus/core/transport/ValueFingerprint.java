@@ -0,0 +1,161 @@
+package ru.joke.cache.bus.core.transport;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Serial;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * 128-bit content fingerprint of the value of the cache element.<br>
+ * The fingerprint is computed with the MurmurHash3 (x64, 128-bit) hash function over the binary representation
+ * of the value written by the {@linkplain ValueCodecRegistry#write(Object, java.io.DataOutput) registry of the codecs},
+ * so the fingerprints of the equal values are equal on all servers of the logical cluster if the servers use the same codecs
+ * and the binary representation of the value is deterministic. The fingerprint is sent instead of the old value of the element
+ * in the events of the replicated caches (see {@linkplain ru.joke.cache.bus.core.configuration.CacheConfiguration#useOldValueFingerprints()}).<br>
+ * If the binary representations of the equal values differ (for example, the values contain the hash-based collections
+ * serialized in the different order), the fingerprints don't match and the conflict is resolved by the eviction of the element,
+ * so the fingerprints never lead to the inconsistent values in the caches.<br>
+ * The values without the registered codec are written by the registry with the JDK serialization, so the computation
+ * of their fingerprints is as expensive as the serialization of the value.
+ *
+ * @param high the high 64 bits of the fingerprint.
+ * @param low  the low 64 bits of the fingerprint.
+ * @author Alik
+ * @see ValueCodecs#FINGERPRINT
+ */
+@ThreadSafe
+@Immutable
+public record ValueFingerprint(long high, long low) implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private static final int BUF_SIZE = 256;
+    private static final int MAX_RETAINED_BUF_SIZE = 64 * 1024;
+
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    private static final ThreadLocal<Encoder> encoders = ThreadLocal.withInitial(Encoder::new);
+
+    /**
+     * Computes the fingerprint of the value.
+     *
+     * @param value    the value, can be {@code null}.
+     * @param registry the registry of the codecs used to write the value, cannot be {@code null}.
+     * @return the fingerprint, cannot be {@code null}.
+     */
+    @Nonnull
+    public static ValueFingerprint of(@Nullable Object value, @Nonnull ValueCodecRegistry registry) {
+        final Encoder encoder = encoders.get();
+        final ByteBuffer data = encoder.encode(value, registry);
+        return hash(data.array(), data.arrayOffset() + data.position(), data.remaining());
+    }
+
+    /**
+     * Checks whether the fingerprint matches the fingerprint of the value.
+     *
+     * @param value    the value, can be {@code null}.
+     * @param registry the registry of the codecs used to write the value, cannot be {@code null}.
+     * @return {@code true} if the fingerprint of the value is equal to this fingerprint, {@code false} otherwise.
+     */
+    public boolean matches(@Nullable Object value, @Nonnull ValueCodecRegistry registry) {
+        return equals(of(value, registry));
+    }
+
+    private static ValueFingerprint hash(final byte[] data, final int offset, final int length) {
+        final ByteBuffer buffer = ByteBuffer.wrap(data, offset, length).order(ByteOrder.LITTLE_ENDIAN);
+
+        long h1 = 0;
+        long h2 = 0;
+        while (buffer.remaining() >= 16) {
+            h1 ^= mixK1(buffer.getLong());
+            h1 = Long.rotateLeft(h1, 27) + h2;
+            h1 = h1 * 5 + 0x52dce729;
+
+            h2 ^= mixK2(buffer.getLong());
+            h2 = Long.rotateLeft(h2, 31) + h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+
+        long k1 = 0;
+        long k2 = 0;
+        final int tail = buffer.position();
+        switch (buffer.remaining()) {
+            case 15: k2 ^= (long) (data[tail + 14] & 0xFF) << 48;
+            case 14: k2 ^= (long) (data[tail + 13] & 0xFF) << 40;
+            case 13: k2 ^= (long) (data[tail + 12] & 0xFF) << 32;
+            case 12: k2 ^= (long) (data[tail + 11] & 0xFF) << 24;
+            case 11: k2 ^= (long) (data[tail + 10] & 0xFF) << 16;
+            case 10: k2 ^= (long) (data[tail + 9] & 0xFF) << 8;
+            case 9: k2 ^= data[tail + 8] & 0xFF;
+                h2 ^= mixK2(k2);
+            case 8: k1 ^= (long) (data[tail + 7] & 0xFF) << 56;
+            case 7: k1 ^= (long) (data[tail + 6] & 0xFF) << 48;
+            case 6: k1 ^= (long) (data[tail + 5] & 0xFF) << 40;
+            case 5: k1 ^= (long) (data[tail + 4] & 0xFF) << 32;
+            case 4: k1 ^= (long) (data[tail + 3] & 0xFF) << 24;
+            case 3: k1 ^= (long) (data[tail + 2] & 0xFF) << 16;
+            case 2: k1 ^= (long) (data[tail + 1] & 0xFF) << 8;
+            case 1: k1 ^= data[tail] & 0xFF;
+                h1 ^= mixK1(k1);
+            default:
+        }
+
+        h1 ^= length;
+        h2 ^= length;
+
+        h1 += h2;
+        h2 += h1;
+
+        h1 = fmix(h1);
+        h2 = fmix(h2);
+
+        h1 += h2;
+        h2 += h1;
+
+        return new ValueFingerprint(h1, h2);
+    }
+
+    private static long mixK1(final long k1) {
+        return Long.rotateLeft(k1 * C1, 31) * C2;
+    }
+
+    private static long mixK2(final long k2) {
+        return Long.rotateLeft(k2 * C2, 33) * C1;
+    }
+
+    private static long fmix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+    private static final class Encoder {
+
+        private final ReusableByteArrayOutputStream bytes = new ReusableByteArrayOutputStream(BUF_SIZE, MAX_RETAINED_BUF_SIZE);
+        private final DataOutputStream output = new DataOutputStream(this.bytes);
+
+        private ByteBuffer encode(final Object value, final ValueCodecRegistry registry) {
+            this.bytes.reset();
+            try {
+                registry.write(value, this.output);
+                this.output.flush();
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Unable to compute fingerprint of value", ex);
+            }
+
+            return this.bytes.toByteBuffer();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package ru.joke.cache.bus.core.transport;
+
+import javax.annotation.Nonnull;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Utility methods for writing and reading variable-length integers (7 bits per byte, least significant groups first)
+ * used by the compact binary formats of the converters and by the {@linkplain ValueCodec codecs}.<br>
+ * The unsigned methods are intended for the lengths and the identifiers, the signed methods use the zigzag encoding,
+ * so the small negative numbers are also written in a few bytes.
+ *
+ * @author Alik
+ * @see ValueCodec
+ */
+public abstract class VarInts {
+
+    /**
+     * Writes the integer as unsigned variable-length integer (from 1 to 5 bytes).
+     *
+     * @param output the output, cannot be {@code null}.
+     * @param value  the value; negative values are written as 5 bytes.
+     * @throws IOException if an I/O error occurs.
+     */
+    public static void writeUnsignedVarInt(@Nonnull DataOutput output, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            output.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+
+        output.writeByte(value);
+    }
+
+    /**
+     * Reads the unsigned variable-length integer.
+     *
+     * @param input the input, cannot be {@code null}.
+     * @return the value.
+     * @throws IOException if an I/O error occurs or the integer is malformed.
+     */
+    public static int readUnsignedVarInt(@Nonnull DataInput input) throws IOException {
+        int result = 0;
+        for (int shift = 0; shift < Integer.SIZE; shift += 7) {
+            final byte b = input.readByte();
+            result |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return result;
+            }
+        }
+
+        throw new IOException("Malformed variable-length integer");
+    }
+
+    /**
+     * Writes the long as unsigned variable-length integer (from 1 to 10 bytes).
+     *
+     * @param output the output, cannot be {@code null}.
+     * @param value  the value; negative values are written as 10 bytes.
+     * @throws IOException if an I/O error occurs.
+     */
+    public static void writeUnsignedVarLong(@Nonnull DataOutput output, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            output.writeByte(((int) value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+
+        output.writeByte((int) value);
+    }
+
+    /**
+     * Reads the unsigned variable-length long.
+     *
+     * @param input the input, cannot be {@code null}.
+     * @return the value.
+     * @throws IOException if an I/O error occurs or the integer is malformed.
+     */
+    public static long readUnsignedVarLong(@Nonnull DataInput input) throws IOException {
+        long result = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            final byte b = input.readByte();
+            result |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return result;
+            }
+        }
+
+        throw new IOException("Malformed variable-length long");
+    }
+
+    /**
+     * Writes the integer as signed (zigzag-encoded) variable-length integer.
+     *
+     * @param output the output, cannot be {@code null}.
+     * @param value  the value.
+     * @throws IOException if an I/O error occurs.
+     */
+    public static void writeVarInt(@Nonnull DataOutput output, int value) throws IOException {
+        writeUnsignedVarInt(output, (value << 1) ^ (value >> 31));
+    }
+
+    /**
+     * Reads the signed (zigzag-encoded) variable-length integer.
+     *
+     * @param input the input, cannot be {@code null}.
+     * @return the value.
+     * @throws IOException if an I/O error occurs or the integer is malformed.
+     */
+    public static int readVarInt(@Nonnull DataInput input) throws IOException {
+        final int value = readUnsignedVarInt(input);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Writes the long as signed (zigzag-encoded) variable-length integer.
+     *
+     * @param output the output, cannot be {@code null}.
+     * @param value  the value.
+     * @throws IOException if an I/O error occurs.
+     */
+    public static void writeVarLong(@Nonnull DataOutput output, long value) throws IOException {
+        writeUnsignedVarLong(output, (value << 1) ^ (value >> 63));
+    }
+
+    /**
+     * Reads the signed (zigzag-encoded) variable-length long.
+     *
+     * @param input the input, cannot be {@code null}.
+     * @return the value.
+     * @throws IOException if an I/O error occurs or the integer is malformed.
+     */
+    public static long readVarLong(@Nonnull DataInput input) throws IOException {
+        final long value = readUnsignedVarLong(input);
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,124 @@
+package ru.joke.cache.bus.core;
+
+import org.junit.jupiter.api.Test;
+import ru.joke.cache.bus.core.impl.ImmutableCacheEntryEvent;
+import ru.joke.cache.bus.core.impl.test.FakeCache;
+import ru.joke.cache.bus.core.transport.ValueCodecRegistry;
+
+import javax.annotation.Nonnull;
+
+import java.io.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CacheEntryDeltaTest {
+
+    private static final String CACHE_NAME = "test";
+
+    @Test
+    public void testWhenDeltaAppliedThenCopyOfValueModified() {
+        final List<String> list = new ArrayList<>(List.of("a", "b"));
+        final TreeSet<String> sortedSet = new TreeSet<>(Comparator.reverseOrder());
+        sortedSet.addAll(List.of("a", "b"));
+        final Map<String, Integer> map = new HashMap<>(Map.of("a", 1, "b", 2));
+
+        assertEquals(List.of("a", "b", "c"), CacheEntryDelta.add("c", 1).apply((Serializable) list), "Element must be added to list");
+        assertEquals(List.of("b"), CacheEntryDelta.remove("a", 1).apply((Serializable) list), "Element must be removed from list");
+        assertEquals(List.of("a", "b"), list, "Source list must not be modified");
+
+        final Serializable modifiedSet = CacheEntryDelta.add("c", 1).apply(sortedSet);
+        assertEquals(List.of("c", "b", "a"), new ArrayList<>((SortedSet<?>) modifiedSet), "Comparator of sorted set must be kept");
+
+        assertEquals(Map.of("a", 1, "b", 3), CacheEntryDelta.put("b", 3, 1).apply((Serializable) map), "Value must be put to map");
+        assertEquals(Map.of("b", 2), CacheEntryDelta.remove("a", 1).apply((Serializable) map), "Key must be removed from map");
+        assertEquals(Map.of("a", 1, "b", 2), map, "Source map must not be modified");
+
+        assertThrows(IllegalArgumentException.class, () -> CacheEntryDelta.put("a", 1, 1).apply((Serializable) list), "Put can be applied only to map");
+        assertThrows(IllegalArgumentException.class, () -> CacheEntryDelta.add("a", 1).apply("value"), "Add can be applied only to collection");
+        assertThrows(IllegalArgumentException.class, () -> CacheEntryDelta.add("a", -1), "Base version cannot be negative");
+        assertEquals(2, CacheEntryDelta.add("a", 1).version(), "Version of modified value must be next to base version");
+    }
+
+    @Test
+    public void testWhenDeltaEventAppliedThenBaseVersionChecked() {
+        final FakeCache<String, Serializable> cache = new FakeCache<>(CACHE_NAME);
+        cache.put("1", new VersionedValue<>(new ArrayList<>(List.of("a")), 5));
+        cache.put("2", new VersionedValue<>(new ArrayList<>(List.of("a")), 6));
+        cache.put("3", "not versioned");
+
+        applyToReplicatedCache(cache, "1", CacheEntryDelta.add("b", 5));
+        applyToReplicatedCache(cache, "2", CacheEntryDelta.add("b", 5));
+        applyToReplicatedCache(cache, "4", CacheEntryDelta.add("b", 5));
+
+        assertEquals(new VersionedValue<>(new ArrayList<>(List.of("a", "b")), 6), cache.get("1").orElse(null), "Delta must be applied to value with base version");
+        assertTrue(cache.get("2").isEmpty(), "Value with other version must be evicted");
+        // The bus falls back to the invalidation on the exception
+        assertThrows(IllegalArgumentException.class, () -> applyToReplicatedCache(cache, "3", CacheEntryDelta.add("b", 5)), "Delta can't be applied to not versioned value");
+        assertTrue(cache.get("4").isEmpty(), "Absent value must not be added by delta");
+
+        final FakeCache<String, Serializable> invalidatedCache = new FakeCache<>(CACHE_NAME);
+        invalidatedCache.put("1", new VersionedValue<>(new ArrayList<>(List.of("a")), 5));
+        new ImmutableCacheEntryEvent<String, Serializable>("1", null, CacheEntryDelta.add("b", 5), CacheEntryEventType.DELTA, CACHE_NAME).applyToInvalidatedCache(invalidatedCache);
+        assertTrue(invalidatedCache.get("1").isEmpty(), "Value must be evicted from invalidated cache");
+    }
+
+    @Test
+    public void testWhenElementRemovedConcurrentlyThenDeltaNotApplied() {
+        // The element is removed after the reading of the value and before the replacement
+        final FakeCache<String, Serializable> cache = new FakeCache<>(CACHE_NAME) {
+            @Nonnull
+            @Override
+            public Optional<Serializable> get(@Nonnull String key) {
+                final Optional<Serializable> value = super.get(key);
+                evict(key);
+                return value;
+            }
+        };
+        cache.put("1", new VersionedValue<>(new ArrayList<>(List.of("a")), 5));
+
+        assertFalse(CacheEntryDelta.add("b", 5).applyTo(cache, "1"), "Delta must not be applied to concurrently removed element");
+        assertTrue(cache.get("1").isEmpty(), "Removed element must not be added by delta");
+
+        // The element is modified after the reading of the value and before the replacement
+        final FakeCache<String, Serializable> modifiedCache = new FakeCache<>(CACHE_NAME) {
+            @Nonnull
+            @Override
+            public Optional<Serializable> get(@Nonnull String key) {
+                final Optional<Serializable> value = super.get(key);
+                put(key, new VersionedValue<>(new ArrayList<>(List.of("c")), 6));
+                return value;
+            }
+        };
+        modifiedCache.put("1", new VersionedValue<>(new ArrayList<>(List.of("a")), 5));
+
+        assertFalse(CacheEntryDelta.add("b", 5).applyTo(modifiedCache, "1"), "Delta must not be applied to concurrently modified element");
+        assertEquals(new VersionedValue<>(new ArrayList<>(List.of("c")), 6), modifiedCache.get("1").orElse(null), "Concurrently modified element must be kept");
+    }
+
+    @Test
+    public void testWhenDeltaWrittenWithRegistryThenOnlyDeltaWritten() throws IOException {
+        final ValueCodecRegistry registry = ValueCodecRegistry.createDefault();
+        final List<CacheEntryDelta> deltas = List.of(
+                CacheEntryDelta.add("element", 10),
+                CacheEntryDelta.remove(15L, 11),
+                CacheEntryDelta.put("key", null, 12)
+        );
+
+        for (final CacheEntryDelta delta : deltas) {
+            final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            registry.write(delta, new DataOutputStream(bos));
+
+            assertTrue(bos.size() < 16, "Delta must be written with compact codec: " + bos.size());
+            assertEquals(delta, registry.read(new DataInputStream(new ByteArrayInputStream(bos.toByteArray()))), "Delta must be equal after reading");
+        }
+    }
+
+    private void applyToReplicatedCache(
+            final FakeCache<String, Serializable> cache,
+            final String key,
+            final CacheEntryDelta delta) {
+        final CacheEntryEvent<String, Serializable> event = new ImmutableCacheEntryEvent<>(key, null, delta, CacheEntryEventType.DELTA, CACHE_NAME);
+        event.applyToReplicatedCache(cache);
+    }
+}
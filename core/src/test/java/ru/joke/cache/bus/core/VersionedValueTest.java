@@ -0,0 +1,50 @@
+package ru.joke.cache.bus.core;
+
+import org.junit.jupiter.api.Test;
+import ru.joke.cache.bus.core.impl.ImmutableCacheEntryEvent;
+import ru.joke.cache.bus.core.impl.test.FakeCache;
+
+import java.io.Serializable;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VersionedValueTest {
+
+    private static final String CACHE_NAME = "test";
+
+    @Test
+    public void testWhenVersionedValuesMergedThenVersionsCompared() {
+        final FakeCache<String, VersionedValue<Payload>> cache = new FakeCache<>(CACHE_NAME);
+        cache.put("1", new VersionedValue<>(new Payload("v1"), 1));
+        cache.put("2", new VersionedValue<>(new Payload("v2"), 5));
+        cache.put("3", new VersionedValue<>(new Payload("v3"), 3));
+        cache.put("4", new VersionedValue<>(new Payload("v4"), 3));
+
+        // The old values are not sent with the versioned values, so the merge must not depend on them
+        apply(cache, "1", new VersionedValue<>(new Payload("v1-new"), 2));
+        apply(cache, "2", new VersionedValue<>(new Payload("v2-stale"), 4));
+        apply(cache, "3", new VersionedValue<>(new Payload("v3"), 3));
+        apply(cache, "4", new VersionedValue<>(new Payload("v4-concurrent"), 3));
+        apply(cache, "5", new VersionedValue<>(new Payload("v5"), 1));
+
+        assertEquals(new Payload("v1-new"), cache.get("1").map(VersionedValue::value).orElse(null), "Value with greater version must replace local value");
+        assertEquals(new Payload("v2"), cache.get("2").map(VersionedValue::value).orElse(null), "Stale value must not replace local value");
+        assertEquals(new Payload("v3"), cache.get("3").map(VersionedValue::value).orElse(null), "Same modification must keep local value");
+        assertTrue(cache.get("4").isEmpty(), "Concurrent modifications with same version must be resolved by eviction");
+        assertEquals(new Payload("v5"), cache.get("5").map(VersionedValue::value).orElse(null), "Absent value must be added");
+
+        assertThrows(IllegalArgumentException.class, () -> new VersionedValue<>(new Payload("v"), -1), "Version cannot be negative");
+        assertEquals(Versioned.NO_VERSION, new ImmutableCacheEntryEvent<>("1", null, "v", CacheEntryEventType.ADDED, CACHE_NAME).version(), "Event of not versioned value must have no version");
+    }
+
+    private void apply(
+            final FakeCache<String, VersionedValue<Payload>> cache,
+            final String key,
+            final VersionedValue<Payload> newValue) {
+        final CacheEntryEvent<String, VersionedValue<Payload>> event = new ImmutableCacheEntryEvent<>(key, null, newValue, CacheEntryEventType.UPDATED, CACHE_NAME);
+        event.applyToReplicatedCache(cache);
+    }
+
+    private record Payload(String data) implements Serializable {
+    }
+}
@@ -0,0 +1,290 @@
+package ru.joke.cache.bus.core.impl;
+
+import org.junit.jupiter.api.Test;
+import ru.joke.cache.bus.core.*;
+import ru.joke.cache.bus.core.configuration.*;
+import ru.joke.cache.bus.core.impl.configuration.*;
+import ru.joke.cache.bus.core.impl.test.FakeCache;
+import ru.joke.cache.bus.core.impl.test.FakeCacheManager;
+import ru.joke.cache.bus.core.state.ComponentState;
+import ru.joke.cache.bus.core.transport.CacheBusMessageChannel;
+import ru.joke.cache.bus.core.transport.CacheEntryEventConverter;
+import ru.joke.cache.bus.core.transport.CacheEntryOutputMessage;
+import ru.joke.cache.bus.core.transport.LazyCacheEntryEvent;
+
+import javax.annotation.Nonnull;
+import java.io.Serializable;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.Mockito.mock;
+
+public class DefaultCacheBusAllocationTest {
+
+    private static final String INV_CACHE = "inv";
+    private static final String REPL_CACHE = "repl";
+
+    private static final int WARMUP_ITERATIONS = 100_000;
+    private static final int ITERATIONS = 100_000;
+
+    @Test
+    public void testWhenLocalEventsSentSynchronouslyThenNoAllocationsBeyondPayload() {
+
+        final com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeAllocationMeasurementSupported(threadMXBean);
+
+        final CountingMessageChannel channel = new CountingMessageChannel();
+        final DefaultCacheBus cacheBus = new DefaultCacheBus(createCacheBusConfiguration(channel, new PreallocatedPayloadConverter(), false));
+        cacheBus.start();
+
+        try {
+            final String[] keys = new String[64];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = "key-" + i;
+            }
+            final String value = "value";
+            final MutableCacheEntryEvent<String, String> carrier = new MutableCacheEntryEvent<>();
+
+            sendEvents(cacheBus, carrier, keys, value, WARMUP_ITERATIONS);
+
+            final long threadId = Thread.currentThread().threadId();
+            final long allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+            sendEvents(cacheBus, carrier, keys, value, ITERATIONS);
+            final long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+            assertEquals(2L * (WARMUP_ITERATIONS + ITERATIONS), channel.sentMessages, "All events must be sent to channel");
+            // Any allocation per event (even the smallest object takes 16 bytes) exceeds the limit
+            assertTrue(allocated < ITERATIONS, "Sending of local events must not allocate objects, allocated bytes: " + allocated);
+        } finally {
+            cacheBus.stop();
+        }
+    }
+
+    @Test
+    public void testWhenRemoteEventsReceivedWithFlyweightsThenNoAllocations() {
+
+        final com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeAllocationMeasurementSupported(threadMXBean);
+
+        final PreallocatedKeysConverter converter = new PreallocatedKeysConverter();
+        final DefaultCacheBus cacheBus = new DefaultCacheBus(createCacheBusConfiguration(new CountingMessageChannel(), converter, true));
+        cacheBus.start();
+
+        try {
+            final byte[][] messages = new byte[2 * PreallocatedKeysConverter.KEYS_COUNT][];
+            for (int i = 0; i < messages.length; i++) {
+                messages[i] = new byte[] { (byte) (i / 2), (byte) (i % 2) };
+            }
+
+            receiveEvents(cacheBus, messages, WARMUP_ITERATIONS);
+
+            final long threadId = Thread.currentThread().threadId();
+            final long allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+            receiveEvents(cacheBus, messages, ITERATIONS);
+            final long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+            assertEquals(WARMUP_ITERATIONS + ITERATIONS, converter.decodedKeys, "Keys of all events must be decoded");
+            // Values are decoded only for the first events of the replicated cache, other events have outdated timestamps
+            assertEquals(2 * PreallocatedKeysConverter.KEYS_COUNT, converter.decodedValues, "Values must be decoded only for applied events of replicated cache");
+            // Any allocation per event (even the smallest object takes 16 bytes) exceeds the limit
+            assertTrue(allocated < ITERATIONS, "Receiving of remote events must not allocate objects, allocated bytes: " + allocated);
+        } finally {
+            cacheBus.stop();
+        }
+    }
+
+    private void receiveEvents(final CacheBus cacheBus, final byte[][] messages, final int iterations) {
+        for (int i = 0; i < iterations; i++) {
+            cacheBus.receive(messages[i % messages.length]);
+        }
+    }
+
+    private void sendEvents(
+            final CacheBus cacheBus,
+            final MutableCacheEntryEvent<String, String> carrier,
+            final String[] keys,
+            final String value,
+            final int iterations) {
+
+        for (int i = 0; i < iterations; i++) {
+            final String key = keys[i & (keys.length - 1)];
+            final long eventTime = System.currentTimeMillis();
+
+            send(cacheBus, carrier.fill(key, value, value, eventTime, CacheEntryEventType.UPDATED, INV_CACHE));
+            send(cacheBus, carrier.fill(key, value, value, eventTime, CacheEntryEventType.UPDATED, REPL_CACHE));
+        }
+    }
+
+    private void send(final CacheBus cacheBus, final MutableCacheEntryEvent<String, String> event) {
+        try {
+            cacheBus.send(event);
+        } finally {
+            event.clear();
+        }
+    }
+
+    private void assumeAllocationMeasurementSupported(final com.sun.management.ThreadMXBean threadMXBean) {
+        assumeTrue(threadMXBean.isThreadAllocatedMemorySupported(), "Allocation measurement isn't supported");
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    private CacheBusConfiguration createCacheBusConfiguration(
+            final CacheBusMessageChannel<CacheBusMessageChannelConfiguration> channel,
+            final CacheEntryEventConverter converter,
+            final boolean useFlyweightReceiving) {
+
+        final CacheBusTransportConfiguration transportConfiguration =
+                ImmutableCacheBusTransportConfiguration
+                        .builder()
+                            .setMaxConcurrentReceivingThreads(0)
+                            .setProcessingPool(Executors.newSingleThreadExecutor())
+                            .useAsyncSending(false)
+                            .useFlyweightReceiving(useFlyweightReceiving)
+                            .setMessageChannel(channel)
+                            .setMessageChannelConfiguration(mock(CacheBusMessageChannelConfiguration.class))
+                            .setConverter(converter)
+                        .build();
+
+        final Map<String, Cache<? extends Serializable, ? extends Serializable>> caches = Map.of(
+                INV_CACHE, new FakeCache<String, String>(INV_CACHE),
+                REPL_CACHE, new FakeCache<String, String>(REPL_CACHE)
+        );
+        final CacheEventListenerRegistrar eventListenerRegistrar = new CacheEventListenerRegistrar() {
+            @Override
+            public <K extends Serializable, V extends Serializable> void registerFor(@Nonnull CacheBus cacheBus, @Nonnull Cache<K, V> cache) {
+            }
+
+            @Override
+            public <K extends Serializable, V extends Serializable> void unregisterFor(@Nonnull CacheBus cacheBus, @Nonnull Cache<K, V> cache) {
+            }
+        };
+
+        return ImmutableCacheBusConfiguration
+                    .builder()
+                        .setCacheConfigurationSource(
+                                CacheConfigurationSource.createDefault()
+                                        .add(
+                                                ImmutableCacheConfiguration
+                                                        .builder()
+                                                            .setCacheName(INV_CACHE)
+                                                            .setCacheType(CacheType.INVALIDATED)
+                                                        .build()
+                                        )
+                                        .add(
+                                                ImmutableCacheConfiguration
+                                                        .builder()
+                                                            .setCacheName(REPL_CACHE)
+                                                            .setCacheType(CacheType.REPLICATED)
+                                                            .useTimestampBasedComparison(true)
+                                                            .setTimestampConfiguration(new ImmutableTimestampCacheConfiguration(64, 60_000))
+                                                        .build()
+                                        )
+                        )
+                        .setProviderConfiguration(new CacheProviderConfigurationTemplate(new FakeCacheManager(caches), eventListenerRegistrar) {})
+                        .setTransportConfiguration(transportConfiguration)
+                        .setTimestampStoreConfiguration(new ImmutableTimestampStoreConfiguration(1024 * 1024))
+                    .build();
+    }
+
+    private static class PreallocatedPayloadConverter implements CacheEntryEventConverter {
+
+        private final byte[] payload = new byte[] { 1, 2, 3 };
+
+        @Nonnull
+        @Override
+        public <K extends Serializable, V extends Serializable> byte[] toBinary(@Nonnull CacheEntryEvent<K, V> event, boolean serializeValueFields) {
+            return this.payload;
+        }
+
+        @Nonnull
+        @Override
+        public <K extends Serializable, V extends Serializable> CacheEntryEvent<K, V> fromBinary(@Nonnull byte[] data) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static class PreallocatedKeysConverter implements CacheEntryEventConverter, LazyCacheEntryEvent.Decoder {
+
+        private static final int KEYS_COUNT = 64;
+
+        private final String[] keys = new String[KEYS_COUNT];
+        private final long eventTime = System.currentTimeMillis();
+        private long decodedKeys;
+        private long decodedValues;
+
+        private PreallocatedKeysConverter() {
+            for (int i = 0; i < this.keys.length; i++) {
+                this.keys[i] = "key-" + i;
+            }
+        }
+
+        @Nonnull
+        @Override
+        public <K extends Serializable, V extends Serializable> byte[] toBinary(@Nonnull CacheEntryEvent<K, V> event, boolean serializeValueFields) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Nonnull
+        @Override
+        public <K extends Serializable, V extends Serializable> CacheEntryEvent<K, V> fromBinary(@Nonnull byte[] data) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Nonnull
+        @Override
+        public <K extends Serializable, V extends Serializable> CacheEntryEvent<K, V> fromBinary(@Nonnull byte[] data, @Nonnull LazyCacheEntryEvent<K, V> flyweight) {
+            return flyweight.wrap(data, this.eventTime, CacheEntryEventType.EVICTED, data[1] == 0 ? INV_CACHE : REPL_CACHE, this);
+        }
+
+        @Nonnull
+        @Override
+        @SuppressWarnings("unchecked")
+        public <K extends Serializable> K decodeKey(@Nonnull byte[] data) {
+            this.decodedKeys++;
+            return (K) this.keys[data[0]];
+        }
+
+        @Override
+        public <V extends Serializable> V decodeOldValue(@Nonnull byte[] data) {
+            this.decodedValues++;
+            return null;
+        }
+
+        @Override
+        public <V extends Serializable> V decodeNewValue(@Nonnull byte[] data) {
+            this.decodedValues++;
+            return null;
+        }
+    }
+
+    private static class CountingMessageChannel implements CacheBusMessageChannel<CacheBusMessageChannelConfiguration> {
+
+        private long sentMessages;
+
+        @Override
+        public void activate(@Nonnull CacheBusMessageChannelConfiguration configuration) {
+        }
+
+        @Override
+        public void send(@Nonnull CacheEntryOutputMessage eventOutputMessage) {
+            this.sentMessages++;
+        }
+
+        @Override
+        public void subscribe(@Nonnull CacheEventMessageConsumer consumer) {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Nonnull
+        @Override
+        public ComponentState state() {
+            return new ImmutableComponentState("counting-channel", ComponentState.Status.UP_OK);
+        }
+    }
+}
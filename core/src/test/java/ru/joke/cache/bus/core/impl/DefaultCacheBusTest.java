@@ -7,6 +7,7 @@ import ru.joke.cache.bus.core.impl.test.FakeCacheBusMessageChannel;
 import ru.joke.cache.bus.core.impl.test.FakeCacheManager;
 import ru.joke.cache.bus.core.state.ComponentState;
 import ru.joke.cache.bus.core.transport.CacheEntryEventConverter;
+import ru.joke.cache.bus.core.transport.LazyCacheEntryEvent;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
@@ -16,10 +17,14 @@ import ru.joke.cache.bus.core.impl.configuration.*;
 
 import javax.annotation.Nonnull;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -189,6 +194,82 @@ public class DefaultCacheBusTest {
         assertTrue(channel.isUnsubscribeCalled(), "Unsubscribe must be called for channel");
     }
 
+    @Test
+    public void testWhenVersionedValueSentToReplicatedCacheThenOldValueNotSent() {
+        // preparation
+        final ExtendedCacheBus cacheBus = new DefaultCacheBus(configuration);
+        final byte[] binaryEventValue = new byte[] {2, 32};
+        when(eventConverter.toBinary(any(), anyBoolean())).thenReturn(binaryEventValue);
+
+        // action
+        cacheBus.start();
+
+        final var newValue = new VersionedValue<>("v2", 2);
+        final var event = new ImmutableCacheEntryEvent<>("5", new VersionedValue<>("v1", 1), newValue, CacheEntryEventType.UPDATED, REPL_CACHE);
+        cacheBus.send(event);
+
+        // checks
+        final FakeCacheBusMessageChannel channel = (FakeCacheBusMessageChannel) configuration.transportConfiguration().messageChannel();
+        assertEquals(1, channel.getMessages().size(), "Event must be sent");
+        assertEquals(
+                new ImmutableCacheEntryOutputMessage(
+                        new ImmutableCacheEntryEvent<>("5", null, newValue, event.eventTime(), CacheEntryEventType.UPDATED, REPL_CACHE),
+                        binaryEventValue
+                ),
+                channel.getMessages().get(0),
+                "Old value of versioned value must not be sent"
+        );
+        assertEquals(2, event.version(), "Version of event must be equal to version of new value");
+
+        // clearing
+        cacheBus.stop();
+    }
+
+    @Test
+    public void testWhenDeltaAppliedThenOnlyDeltaSent() {
+        // preparation
+        final ExtendedCacheBus cacheBus = new DefaultCacheBus(configuration);
+        final List<CacheEntryEvent<?, ?>> sentEvents = new ArrayList<>();
+        when(eventConverter.toBinary(any(), anyBoolean())).thenAnswer(invocation -> {
+            sentEvents.add(invocation.getArgument(0));
+            return new byte[] {2, 32};
+        });
+
+        final CacheManager cacheManager = configuration.providerConfiguration().cacheManager();
+        @SuppressWarnings("unchecked")
+        final FakeCache<Serializable, Serializable> replCache = cacheManager.getCache(REPL_CACHE)
+                                                                            .map(FakeCache.class::cast)
+                                                                            .orElseThrow();
+        replCache.put("7", new VersionedValue<>(new ArrayList<>(List.of("a", "b")), 3));
+
+        // action
+        cacheBus.start();
+
+        final CacheEntryDelta delta = CacheEntryDelta.add("c", 3);
+        final boolean applied = cacheBus.applyDelta(REPL_CACHE, "7", delta);
+        final boolean staleApplied = cacheBus.applyDelta(REPL_CACHE, "7", CacheEntryDelta.add("d", 3));
+        final boolean absentApplied = cacheBus.applyDelta(REPL_CACHE, "8", CacheEntryDelta.add("d", 0));
+
+        // checks
+        assertTrue(applied, "Delta must be applied to local value with base version");
+        assertFalse(staleApplied, "Delta must not be applied to local value with other version");
+        assertFalse(absentApplied, "Delta must not be applied to absent value");
+        assertEquals(new VersionedValue<>(new ArrayList<>(List.of("a", "b", "c")), 4), replCache.get("7").orElse(null), "Delta must be applied to local value");
+        assertTrue(replCache.get("8").isEmpty(), "Absent value must not be added by delta");
+
+        assertEquals(1, sentEvents.size(), "Only applied delta must be sent");
+        final CacheEntryEvent<?, ?> sentEvent = sentEvents.get(0);
+        assertEquals(CacheEntryEventType.DELTA, sentEvent.eventType(), "Type of event must be delta");
+        assertEquals("7", sentEvent.key(), "Key of event must be equal to key of element");
+        assertEquals(delta, sentEvent.newValue(), "Event must carry delta instead of new value");
+        assertNull(sentEvent.oldValue(), "Old value must not be sent with delta");
+        assertEquals(4, sentEvent.version(), "Version of event must be equal to version of modified value");
+        assertThrows(IllegalArgumentException.class, () -> cacheBus.applyDelta("unknown", "7", delta), "Delta can be applied only to managed cache");
+
+        // clearing
+        cacheBus.stop();
+    }
+
     @Test
     @Order(2)
     public void testReceivingOfEventsByBus() {
@@ -257,6 +338,96 @@ public class DefaultCacheBusTest {
         cacheBus.stop();
     }
 
+    @Test
+    @Order(2)
+    public void testWhenReceivedEventKeyCanNotBeDecodedThenEventSkipped() {
+        // preparation
+        final ExtendedCacheBus cacheBus = new DefaultCacheBus(configuration);
+
+        final AtomicInteger decodedKeys = new AtomicInteger();
+        final LazyCacheEntryEvent.Decoder malformedKeyDecoder = new LazyCacheEntryEvent.Decoder() {
+            @Nonnull
+            @Override
+            public <K extends Serializable> K decodeKey(@Nonnull byte[] data) {
+                decodedKeys.incrementAndGet();
+                throw new IllegalStateException("Unknown class of key");
+            }
+
+            @Override
+            public <V extends Serializable> V decodeOldValue(@Nonnull byte[] data) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public <V extends Serializable> V decodeNewValue(@Nonnull byte[] data) {
+                throw new UnsupportedOperationException();
+            }
+        };
+
+        final byte[] binaryEventValue1 = new byte[] {2, 32};
+        final CacheEntryEvent<Serializable, Serializable> event1 =
+                new LazyCacheEntryEvent<>().wrap(binaryEventValue1, System.currentTimeMillis(), CacheEntryEventType.UPDATED, INV_CACHE, malformedKeyDecoder);
+        when(eventConverter.fromBinary(binaryEventValue1)).thenReturn(event1);
+
+        final byte[] binaryEventValue2 = new byte[] {3, 42};
+        final CacheEntryEvent<Serializable, Serializable> event2 = new ImmutableCacheEntryEvent<>("1", null, null, CacheEntryEventType.EVICTED, INV_CACHE);
+        when(eventConverter.fromBinary(binaryEventValue2)).thenReturn(event2);
+
+        // action
+        cacheBus.start();
+        assertDoesNotThrow(() -> cacheBus.receiveAll(List.of(binaryEventValue1, binaryEventValue2)), "Malformed event must not break receiving");
+
+        // checks
+        final CacheManager cacheManager = configuration.providerConfiguration().cacheManager();
+        @SuppressWarnings("unchecked")
+        final FakeCache<Serializable, Serializable> invCache = cacheManager.getCache(INV_CACHE)
+                                                                            .map(FakeCache.class::cast)
+                                                                            .orElseThrow();
+        assertTrue(invCache.get(event2.key()).isEmpty(), "Event following malformed event must be applied");
+        assertEquals(1, decodedKeys.get(), "Key of malformed event must be decoded once");
+
+        // clearing
+        cacheBus.stop();
+    }
+
+    @Test
+    @Order(2)
+    public void testReceivingOfEventsFromBuffersByBus() {
+        // preparation
+        final ExtendedCacheBus cacheBus = new DefaultCacheBus(configuration);
+
+        final ByteBuffer binaryEventValue1 = ByteBuffer.wrap(new byte[] {1, 2, 32, 7}, 1, 2).slice();
+        final CacheEntryEvent<Serializable, Serializable> event1 = new ImmutableCacheEntryEvent<>("1", "v1", "v2", CacheEntryEventType.UPDATED, INV_CACHE);
+        when(eventConverter.fromBuffer(binaryEventValue1)).thenReturn(event1);
+
+        final ByteBuffer binaryEventValue2 = ByteBuffer.allocateDirect(2).put(new byte[] {5, 42}).flip();
+        final CacheEntryEvent<Serializable, Serializable> event2 = new ImmutableCacheEntryEvent<>("2", null, "v2", CacheEntryEventType.ADDED, REPL_CACHE);
+        when(eventConverter.fromBuffer(binaryEventValue2)).thenReturn(event2);
+
+        // action
+        cacheBus.start();
+
+        cacheBus.receive(binaryEventValue1);
+        cacheBus.receive(binaryEventValue2);
+
+        // checks
+        final CacheManager cacheManager = configuration.providerConfiguration().cacheManager();
+        @SuppressWarnings("unchecked")
+        final FakeCache<Serializable, Serializable> invCache = cacheManager.getCache(INV_CACHE)
+                                                                            .map(FakeCache.class::cast)
+                                                                            .orElseThrow();
+        assertTrue(invCache.get(event1.key()).isEmpty(), "Value must be evicted after applying any event to invalidation cache");
+
+        @SuppressWarnings("unchecked")
+        final FakeCache<Serializable, Serializable> replCache = cacheManager.getCache(REPL_CACHE)
+                                                                            .map(FakeCache.class::cast)
+                                                                            .orElseThrow();
+        assertTrue(replCache.get(event2.key()).filter(v -> v.equals(event2.newValue())).isPresent(), "Value must be added after applying added event to replicated cache");
+
+        // clearing
+        cacheBus.stop();
+    }
+
     @AfterEach
     public void tearDown() {
         this.configuration.transportConfiguration().processingPool().close();
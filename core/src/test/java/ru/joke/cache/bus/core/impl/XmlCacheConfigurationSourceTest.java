@@ -1,5 +1,6 @@
 package ru.joke.cache.bus.core.impl;
 
+import ru.joke.cache.bus.core.configuration.BufferOverflowPolicy;
 import ru.joke.cache.bus.core.configuration.CacheConfiguration;
 import ru.joke.cache.bus.core.configuration.CacheSetConfiguration;
 import ru.joke.cache.bus.core.configuration.CacheType;
@@ -71,7 +72,16 @@ public class XmlCacheConfigurationSourceTest {
                     .build();
         configsToCompare.add(cacheConfig1);
         configsToCompare.add(buildCacheConfig("test2", CacheType.INVALIDATED));
-        configsToCompare.add(buildCacheConfig("test3", CacheType.REPLICATED));
+        configsToCompare.add(
+                ImmutableCacheConfiguration
+                    .builder()
+                        .setCacheName("test3")
+                        .setCacheType(CacheType.REPLICATED)
+                        .setBufferOverflowPolicy(BufferOverflowPolicy.DROP_AND_CLEAR_CACHE)
+                        .setCodecId(2)
+                        .useOldValueFingerprints(true)
+                    .build()
+        );
 
         configsToCompare.forEach(cc -> {
             final CacheConfiguration config = configurations
@@ -83,6 +93,9 @@ public class XmlCacheConfigurationSourceTest {
             assertEquals(cc.cacheName(), config.cacheName(), "Cache name must be equal");
             assertEquals(cc.cacheType(), config.cacheType(), "Cache type must be equal");
             assertEquals(cc.cacheAliases(), config.cacheAliases(), "Cache aliases must be equal");
+            assertEquals(cc.bufferOverflowPolicy(), config.bufferOverflowPolicy(), "Buffer overflow policy must be equal");
+            assertEquals(cc.codecId(), config.codecId(), "Codec id must be equal");
+            assertEquals(cc.useOldValueFingerprints(), config.useOldValueFingerprints(), "Old value fingerprints flag must be equal");
         });
 
         final CacheConfiguration configForTest1Cache =
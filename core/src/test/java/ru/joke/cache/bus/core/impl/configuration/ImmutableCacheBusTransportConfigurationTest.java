@@ -0,0 +1,107 @@
+package ru.joke.cache.bus.core.impl.configuration;
+
+import org.junit.jupiter.api.Test;
+import ru.joke.cache.bus.core.configuration.BufferOverflowPolicy;
+import ru.joke.cache.bus.core.configuration.BufferWaitStrategy;
+import ru.joke.cache.bus.core.configuration.CacheBusMessageChannelConfiguration;
+import ru.joke.cache.bus.core.configuration.CacheBusTransportConfiguration;
+import ru.joke.cache.bus.core.configuration.CacheType;
+import ru.joke.cache.bus.core.configuration.ConfigurationException;
+import ru.joke.cache.bus.core.configuration.InvalidCacheConfigurationException;
+import ru.joke.cache.bus.core.transport.CacheBusMessageChannel;
+import ru.joke.cache.bus.core.transport.CacheEntryEventConverter;
+
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+public class ImmutableCacheBusTransportConfigurationTest {
+
+    @Test
+    public void testWhenVirtualThreadsEnabledThenPoolsCreatedOnVirtualThreads() throws Exception {
+        final CacheBusTransportConfiguration configuration =
+                createBuilder()
+                        .useVirtualThreads(true)
+                        .useAsyncSending(true)
+                        .build();
+
+        assertTrue(configuration.useVirtualThreads(), "Virtual threads must be enabled");
+        try (final ExecutorService processingPool = configuration.processingPool();
+             final ExecutorService sendingPool = configuration.asyncSendingPool()) {
+            assertNotNull(sendingPool, "Sending pool must be created when async sending enabled");
+            assertTrue(processingPool.submit(() -> Thread.currentThread().isVirtual()).get(1, TimeUnit.SECONDS), "Processing must be performed on virtual thread");
+            assertTrue(sendingPool.submit(() -> Thread.currentThread().isVirtual()).get(1, TimeUnit.SECONDS), "Sending must be performed on virtual thread");
+        }
+    }
+
+    @Test
+    public void testWhenVirtualThreadsEnabledThenExplicitPoolsUsed() {
+        try (final ExecutorService processingPool = Executors.newSingleThreadExecutor()) {
+            final CacheBusTransportConfiguration configuration =
+                    createBuilder()
+                            .useVirtualThreads(true)
+                            .setProcessingPool(processingPool)
+                            .build();
+
+            assertSame(processingPool, configuration.processingPool(), "Explicitly set pool must be used");
+            assertNull(configuration.asyncSendingPool(), "Sending pool must not be created when async sending disabled");
+        }
+    }
+
+    @Test
+    public void testWhenVirtualThreadsDisabledThenProcessingPoolRequired() {
+        final ImmutableCacheBusTransportConfiguration.Builder builder = createBuilder();
+        assertThrows(NullPointerException.class, builder::build);
+    }
+
+    @Test
+    public void testWhenVirtualThreadsEnabledWithBusySpinThenException() {
+        final ImmutableCacheBusTransportConfiguration.Builder builder =
+                createBuilder()
+                        .useVirtualThreads(true)
+                        .setBufferWaitStrategy(BufferWaitStrategy.BUSY_SPIN);
+        assertThrows(ConfigurationException.class, builder::build);
+    }
+
+    @Test
+    public void testWhenSpillPolicyWithoutOverflowQueueThenException() {
+        final ImmutableCacheBusTransportConfiguration.Builder builder =
+                createBuilder()
+                        .useVirtualThreads(true)
+                        .useAsyncSending(true)
+                        .setBufferOverflowPolicy(BufferOverflowPolicy.SPILL_TO_OVERFLOW_QUEUE)
+                        .setOverflowQueueCapacity(0);
+        assertThrows(ConfigurationException.class, builder::build);
+    }
+
+    @Test
+    public void testWhenOverflowPolicyNotSetThenBlockingUsed() {
+        final CacheBusTransportConfiguration configuration = createBuilder().useVirtualThreads(true).build();
+        assertEquals(BufferOverflowPolicy.BLOCK, configuration.bufferOverflowPolicy(), "Blocking policy must be used by default");
+    }
+
+    @Test
+    public void testWhenCodecConvertersRegisteredThenIdsValidated() {
+        final CacheEntryEventConverter converter = mock(CacheEntryEventConverter.class);
+        final CacheBusTransportConfiguration configuration = createBuilder().useVirtualThreads(true).addCodecConverter(1, converter).build();
+        assertEquals(Map.of(1, converter), configuration.codecConverters(), "Codec converters must be equal");
+
+        assertThrows(ConfigurationException.class, () -> createBuilder().addCodecConverter(1, converter).addCodecConverter(1, converter));
+        assertThrows(ConfigurationException.class, () -> createBuilder().useVirtualThreads(true).addCodecConverter(0, converter).build());
+        assertThrows(ConfigurationException.class, () -> createBuilder().useVirtualThreads(true).addCodecConverter(256, converter).build());
+        assertThrows(InvalidCacheConfigurationException.class, () -> ImmutableCacheConfiguration.builder().setCacheName("test").setCacheType(CacheType.INVALIDATED).setCodecId(0).build());
+    }
+
+    @SuppressWarnings("unchecked")
+    private ImmutableCacheBusTransportConfiguration.Builder createBuilder() {
+        return ImmutableCacheBusTransportConfiguration
+                    .builder()
+                        .setConverter(mock(CacheEntryEventConverter.class))
+                        .setMessageChannel(mock(CacheBusMessageChannel.class))
+                        .setMessageChannelConfiguration(mock(CacheBusMessageChannelConfiguration.class));
+    }
+}
@@ -1,16 +1,23 @@
 package ru.joke.cache.bus.core.impl.internal;
 
 import ru.joke.cache.bus.core.CacheBus;
+import ru.joke.cache.bus.core.CacheEntryDelta;
 import ru.joke.cache.bus.core.CacheEntryEvent;
+import ru.joke.cache.bus.core.CacheEntryEventType;
+import ru.joke.cache.bus.core.impl.ImmutableCacheEntryEvent;
 import ru.joke.cache.bus.core.configuration.CacheBusConfiguration;
 import ru.joke.cache.bus.core.configuration.CacheBusTransportConfiguration;
 import ru.joke.cache.bus.core.configuration.CacheProviderConfiguration;
 import ru.joke.cache.bus.core.configuration.CacheConfigurationSource;
 import ru.joke.cache.bus.core.impl.configuration.ImmutableCacheBusConfiguration;
+import ru.joke.cache.bus.core.configuration.BufferWaitStrategy;
 import ru.joke.cache.bus.core.impl.internal.util.StripedRingBuffersContainer;
+import ru.joke.cache.bus.core.configuration.VirtualThreadPools;
 import ru.joke.cache.bus.core.metrics.NoOpCacheBusMetricsRegistry;
 import ru.joke.cache.bus.core.state.CacheBusState;
 import ru.joke.cache.bus.core.state.ComponentState;
+import ru.joke.cache.bus.core.transport.CacheEntryBatchFrame;
+import ru.joke.cache.bus.core.transport.CacheEntryOutputMessage;
 import org.junit.jupiter.api.Test;
 
 import javax.annotation.Nonnull;
@@ -21,10 +28,11 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static ru.joke.cache.bus.core.impl.internal.AsyncMessageProcessingState.THREADS_WAITING_ON_OFFER_LABEL;
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.mock;
 
 public class AsynchronousCacheEventMessageConsumerTest {
@@ -60,6 +68,76 @@ public class AsynchronousCacheEventMessageConsumerTest {
         }
     }
 
+    @Test
+    public void testAsyncConsumingOfBatches() throws InterruptedException {
+        // preparation
+        final TestCacheBus cacheBus = new TestCacheBus();
+        final int stripes = 4, batchesCount = 10, batchSize = 20;
+        final StripedRingBuffersContainer<byte[]> buffersContainer = new StripedRingBuffersContainer<>(stripes, 8);
+        final int threadsCount = buffersContainer.size();
+        final var processingPool = Executors.newFixedThreadPool(threadsCount);
+        final var consumer = new AsynchronousCacheEventMessageConsumer(cacheBus, new NoOpCacheBusMetricsRegistry(), buffersContainer, processingPool);
+        try (processingPool; consumer) {
+
+            // action
+            int counter = 0;
+            for (int i = 0; i < batchesCount; i++) {
+                final List<CacheEntryOutputMessage> messages = new ArrayList<>();
+                for (int j = 0; j < batchSize; j++, counter++) {
+                    final var event = new ImmutableCacheEntryEvent<>(String.valueOf(counter), null, null, CacheEntryEventType.EVICTED, "test");
+                    messages.add(new ImmutableCacheEntryOutputMessage(event, new byte[] { (byte) (event.computeEventHashKey() & (threadsCount - 1)), (byte) (counter >> 8), (byte) counter }));
+                }
+
+                consumer.acceptBatch(CacheEntryBatchFrame.encode(messages));
+            }
+
+            Thread.sleep(Duration.ofMillis(100));
+        }
+
+        // checks
+        final int receivedCount = cacheBus.eventsByThread.values().stream().mapToInt(List::size).sum();
+        assertEquals(batchesCount * batchSize, receivedCount, "All messages of batches must be processed");
+        assertTrue(cacheBus.batchesCount.get() < receivedCount, "Messages must be processed in groups");
+
+        cacheBus.eventsByThread.values().forEach(messages -> {
+            final byte bufferIndex = messages.get(0)[0];
+            int previousPosition = -1;
+            for (final byte[] message : messages) {
+                assertEquals(bufferIndex, message[0], "Messages must be processed in the thread of their buffer");
+
+                final int position = (message[1] & 0xFF) << 8 | message[2] & 0xFF;
+                assertTrue(position > previousPosition, "Order of messages must be preserved");
+                previousPosition = position;
+            }
+        });
+    }
+
+    @Test
+    public void testAsyncConsumingOnVirtualThreads() throws InterruptedException {
+        // preparation
+        final TestCacheBus cacheBus = new TestCacheBus();
+        final int stripes = 4, messageCount = 100;
+        final StripedRingBuffersContainer<byte[]> buffersContainer = new StripedRingBuffersContainer<>(stripes, 8, BufferWaitStrategy.BLOCKING);
+        final var processingPool = VirtualThreadPools.create("test-processing-");
+        final var consumer = new AsynchronousCacheEventMessageConsumer(cacheBus, new NoOpCacheBusMetricsRegistry(), buffersContainer, processingPool);
+        try (processingPool; consumer) {
+
+            // action
+            final byte[] message = new byte[]{1, 2, 3};
+            for (int i = 0; i < messageCount; i++) {
+                consumer.accept(i, message);
+            }
+
+            Thread.sleep(Duration.ofMillis(100));
+        }
+
+        // checks
+        assertEquals(stripes, cacheBus.eventsByThread.size(), "Events must be consumed in " + stripes + " threads");
+        assertEquals(messageCount, cacheBus.eventsByThread.values().stream().mapToInt(List::size).sum(), "All messages must be consumed");
+        assertTrue(cacheBus.virtualThreadsOnly.get(), "Events must be consumed on virtual threads");
+        cacheBus.eventsByThread.keySet().forEach(threadName -> assertTrue(threadName.startsWith("test-processing-"), "Thread name must contain the prefix"));
+    }
+
     @Test
     public void testStateOfAsyncConsumerWhenBufferIsFull() {
         // preparation
@@ -89,6 +167,8 @@ public class AsynchronousCacheEventMessageConsumerTest {
     static class TestCacheBus implements CacheBus {
 
         private final Map<String, List<byte[]>> eventsByThread = new ConcurrentHashMap<>();
+        private final AtomicInteger batchesCount = new AtomicInteger();
+        private final AtomicBoolean virtualThreadsOnly = new AtomicBoolean(true);
         private final CacheBusConfiguration configuration =
                 ImmutableCacheBusConfiguration
                         .builder()
@@ -102,11 +182,26 @@ public class AsynchronousCacheEventMessageConsumerTest {
             throw new UnsupportedOperationException();
         }
 
+        @Override
+        public <K extends Serializable> boolean applyDelta(@Nonnull String cacheName, @Nonnull K key, @Nonnull CacheEntryDelta delta) {
+            throw new UnsupportedOperationException();
+        }
+
         @Override
         public void receive(@Nonnull byte[] binaryEventData) {
+            if (!Thread.currentThread().isVirtual()) {
+                this.virtualThreadsOnly.set(false);
+            }
+
             this.eventsByThread.computeIfAbsent(Thread.currentThread().getName(), t -> new ArrayList<>()).add(binaryEventData);
         }
 
+        @Override
+        public void receiveAll(@Nonnull List<byte[]> binaryEventsData) {
+            this.batchesCount.incrementAndGet();
+            CacheBus.super.receiveAll(binaryEventsData);
+        }
+
         @Override
         public void withConfiguration(@Nonnull CacheBusConfiguration configuration) {
             throw new UnsupportedOperationException();
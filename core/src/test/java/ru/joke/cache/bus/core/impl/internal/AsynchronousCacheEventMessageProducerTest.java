@@ -2,6 +2,7 @@ package ru.joke.cache.bus.core.impl.internal;
 
 import ru.joke.cache.bus.core.CacheEntryEvent;
 import ru.joke.cache.bus.core.CacheEntryEventType;
+import ru.joke.cache.bus.core.configuration.BufferOverflowPolicy;
 import ru.joke.cache.bus.core.configuration.CacheBusMessageChannelConfiguration;
 import ru.joke.cache.bus.core.configuration.CacheBusTransportConfiguration;
 import ru.joke.cache.bus.core.configuration.CacheConfiguration;
@@ -13,7 +14,9 @@ import ru.joke.cache.bus.core.impl.internal.util.StripedRingBuffersContainer;
 import ru.joke.cache.bus.core.impl.test.FakeCacheBusMessageChannel;
 import ru.joke.cache.bus.core.metrics.NoOpCacheBusMetricsRegistry;
 import ru.joke.cache.bus.core.state.ComponentState;
+import ru.joke.cache.bus.core.transport.CacheEntryBatchFrame;
 import ru.joke.cache.bus.core.transport.CacheEntryEventConverter;
+import ru.joke.cache.bus.core.transport.CacheEntryOutputBatchMessage;
 import ru.joke.cache.bus.core.transport.CacheEntryOutputMessage;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -23,9 +26,11 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import javax.annotation.Nonnull;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
 
 import static ru.joke.cache.bus.core.impl.internal.AsyncMessageProcessingState.THREADS_WAITING_ON_OFFER_LABEL;
@@ -39,6 +44,7 @@ public class AsynchronousCacheEventMessageProducerTest {
 
     private static final String CACHE_NAME = "test-cache";
     private static final int ASYNC_THREADS = 5;
+    private static final byte[] CLEAR_EVENT_BODY = {0};
 
     @Mock
     private CacheBusMessageChannelConfiguration messageChannelConfiguration;
@@ -123,9 +129,239 @@ public class AsynchronousCacheEventMessageProducerTest {
         assertEquals(ComponentState.Status.DOWN, producer.state().status(), "Component must be in DOWN state");
     }
 
+    @Test
+    public void testAsyncProducingWhenBatchSendingEnabled() throws InterruptedException {
+
+        final int messageCount = 100;
+        final int maxBatchSize = 8;
+        final CacheBusTransportConfiguration transportConfiguration = createTransportConfiguration(maxBatchSize, 50);
+        final StripedRingBuffersContainer<CacheEntryEvent<?, ?>> buffersContainer = new StripedRingBuffersContainer<>(transportConfiguration.maxAsyncSendingThreads(), 32);
+
+        final CacheConfiguration cacheConfiguration =
+                ImmutableCacheConfiguration
+                        .builder()
+                            .setCacheName(CACHE_NAME)
+                            .setCacheType(CacheType.INVALIDATED)
+                        .build();
+        final Map<String, CacheConfiguration> cacheConfigurations = Map.of(CACHE_NAME, cacheConfiguration);
+        final FakeCacheBusMessageChannelByThreads messageChannel = (FakeCacheBusMessageChannelByThreads) transportConfiguration.messageChannel();
+
+        when(this.eventConverter.toBatchBinary(any(), eq(cacheConfiguration.cacheType().serializeValueFields()))).thenReturn(new byte[] {2, 3});
+        when(this.eventConverter.encodeBatchFrame(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        final var producer = new AsynchronousCacheEventMessageProducer(new NoOpCacheBusMetricsRegistry(), transportConfiguration, cacheConfigurations, buffersContainer);
+        try (final var ignored1 = transportConfiguration.processingPool();
+             final var ignored2 = transportConfiguration.asyncSendingPool();
+             producer) {
+
+            // action
+            for (int i = 0; i < messageCount; i++) {
+                final CacheEntryEvent<String, String> event = new ImmutableCacheEntryEvent<>(String.valueOf(i), null, "v1", CacheEntryEventType.ADDED, CACHE_NAME);
+                producer.produce(cacheConfiguration, event);
+            }
+
+            Thread.sleep(Duration.ofMillis(200));
+        }
+
+        // checks
+        assertTrue(messageChannel.messagesByThread.isEmpty(), "Events must not be sent one by one when batching enabled");
+        assertFalse(messageChannel.batchesByThread.isEmpty(), "Events must be sent in batches");
+
+        int sentEvents = 0;
+        int batchesCount = 0;
+        for (final List<CacheEntryOutputBatchMessage> batches : messageChannel.batchesByThread.values()) {
+            for (final CacheEntryOutputBatchMessage batch : batches) {
+                assertTrue(batch.messages().size() <= maxBatchSize, "Batch size must be not greater than max batch size");
+
+                final int frameElements = CacheEntryBatchFrame.split(batch.batchMessageBody(), (hash, body) -> {
+                    assertEquals(batch.messageHashKey(), hash & (buffersContainer.size() - 1), "Events of batch must belong to one stripe");
+                    assertArrayEquals(new byte[] {2, 3}, body, "Body of the event must be equal");
+                });
+                assertEquals(batch.messages().size(), frameElements, "Frame must contain all messages of batch");
+
+                sentEvents += frameElements;
+                batchesCount++;
+            }
+        }
+
+        assertEquals(messageCount, sentEvents, "All events must be sent");
+        assertTrue(batchesCount < messageCount, "Count of batches must be less than count of events");
+    }
+
+    @Test
+    public void testAsyncProducingWhenCoalescingEnabled() throws InterruptedException {
+
+        final int keysCount = 5, updatesPerKey = 20;
+        final CacheBusTransportConfiguration transportConfiguration = createTransportConfiguration(0, 0, 50);
+        final StripedRingBuffersContainer<CacheEntryEvent<?, ?>> buffersContainer = new StripedRingBuffersContainer<>(transportConfiguration.maxAsyncSendingThreads(), 128);
+
+        final CacheConfiguration cacheConfiguration =
+                ImmutableCacheConfiguration
+                        .builder()
+                            .setCacheName(CACHE_NAME)
+                            .setCacheType(CacheType.INVALIDATED)
+                        .build();
+        final Map<String, CacheConfiguration> cacheConfigurations = Map.of(CACHE_NAME, cacheConfiguration);
+        final FakeCacheBusMessageChannelByThreads messageChannel = (FakeCacheBusMessageChannelByThreads) transportConfiguration.messageChannel();
+
+        when(this.eventConverter.toBinary(any(), eq(cacheConfiguration.cacheType().serializeValueFields()))).thenReturn(new byte[] {2, 3});
+
+        final var producer = new AsynchronousCacheEventMessageProducer(new NoOpCacheBusMetricsRegistry(), transportConfiguration, cacheConfigurations, buffersContainer);
+        try (final var ignored1 = transportConfiguration.processingPool();
+             final var ignored2 = transportConfiguration.asyncSendingPool();
+             producer) {
+
+            // action
+            for (int i = 0; i < updatesPerKey; i++) {
+                for (int j = 0; j < keysCount; j++) {
+                    final CacheEntryEvent<String, String> event = new ImmutableCacheEntryEvent<>(String.valueOf(j), "v" + i, null, CacheEntryEventType.EVICTED, CACHE_NAME);
+                    producer.produce(cacheConfiguration, event);
+                }
+            }
+
+            Thread.sleep(Duration.ofMillis(200));
+        }
+
+        // checks
+        final int sentCount = messageChannel.messagesByThread.values().stream().mapToInt(List::size).sum();
+        assertTrue(sentCount >= keysCount, "Last event for each key must be sent");
+        assertTrue(sentCount < keysCount * updatesPerKey, "Events with the same key must be coalesced");
+    }
+
+    @Test
+    public void testWhenBufferIsFullAndSyncSendPolicyThenEventsSentByCallerThread() throws InterruptedException {
+
+        final int messageCount = 300;
+        final CacheBusTransportConfiguration transportConfiguration = createTransportConfiguration(BufferOverflowPolicy.BLOCK);
+        final StripedRingBuffersContainer<CacheEntryEvent<?, ?>> buffersContainer = new StripedRingBuffersContainer<>(transportConfiguration.maxAsyncSendingThreads(), 32);
+
+        final CacheConfiguration cacheConfiguration =
+                ImmutableCacheConfiguration
+                        .builder()
+                            .setCacheName(CACHE_NAME)
+                            .setCacheType(CacheType.INVALIDATED)
+                            .setBufferOverflowPolicy(BufferOverflowPolicy.SYNC_SEND)
+                        .build();
+        final Map<String, CacheConfiguration> cacheConfigurations = Map.of(CACHE_NAME, cacheConfiguration);
+        final FakeCacheBusMessageChannelByThreads messageChannel = (FakeCacheBusMessageChannelByThreads) transportConfiguration.messageChannel();
+
+        when(this.eventConverter.toBinary(any(), eq(cacheConfiguration.cacheType().serializeValueFields()))).thenReturn(new byte[] {2, 3});
+
+        final var producer = new AsynchronousCacheEventMessageProducer(new NoOpCacheBusMetricsRegistry(), transportConfiguration, cacheConfigurations, buffersContainer);
+        try (final var ignored1 = transportConfiguration.processingPool();
+             final var ignored2 = transportConfiguration.asyncSendingPool();
+             producer) {
+
+            // action
+            messageChannel.blockSendingThreads();
+            for (int i = 0; i < messageCount; i++) {
+                final CacheEntryEvent<String, String> event = new ImmutableCacheEntryEvent<>(String.valueOf(i), null, "v1", CacheEntryEventType.ADDED, CACHE_NAME);
+                producer.produce(cacheConfiguration, event);
+            }
+
+            // checks
+            final List<CacheEntryOutputMessage> sentByCaller = messageChannel.messagesByThread.get(Thread.currentThread().getName());
+            assertNotNull(sentByCaller, "Events must be sent by caller thread when buffer is full");
+            assertTrue(sentByCaller.size() >= messageCount - buffersContainer.size() * 33, "Events that do not fit into buffers must be sent by caller thread");
+            assertEquals(THREADS_WAITING_ON_OFFER_LABEL, producer.state().severities().get(0).asString(), "Severities must contain info about full buffers");
+
+            messageChannel.unblockSendingThreads();
+            Thread.sleep(Duration.ofMillis(100));
+        }
+
+        final int sentCount = messageChannel.messagesByThread.values().stream().mapToInt(List::size).sum();
+        assertEquals(messageCount, sentCount, "All events must be sent");
+    }
+
+    @Test
+    public void testWhenBufferIsFullAndDropPolicyThenClearCacheEventSent() throws InterruptedException {
+
+        final int messageCount = 300;
+        final CacheBusTransportConfiguration transportConfiguration = createTransportConfiguration(BufferOverflowPolicy.DROP_AND_CLEAR_CACHE);
+        final StripedRingBuffersContainer<CacheEntryEvent<?, ?>> buffersContainer = new StripedRingBuffersContainer<>(transportConfiguration.maxAsyncSendingThreads(), 32);
+
+        final CacheConfiguration cacheConfiguration =
+                ImmutableCacheConfiguration
+                        .builder()
+                            .setCacheName(CACHE_NAME)
+                            .setCacheType(CacheType.INVALIDATED)
+                        .build();
+        final Map<String, CacheConfiguration> cacheConfigurations = Map.of(CACHE_NAME, cacheConfiguration);
+        final FakeCacheBusMessageChannelByThreads messageChannel = (FakeCacheBusMessageChannelByThreads) transportConfiguration.messageChannel();
+
+        when(this.eventConverter.toBinary(any(), eq(cacheConfiguration.cacheType().serializeValueFields())))
+                .thenAnswer(invocation -> isClearEvent(invocation.getArgument(0)) ? CLEAR_EVENT_BODY : new byte[] {2, 3});
+
+        final var producer = new AsynchronousCacheEventMessageProducer(new NoOpCacheBusMetricsRegistry(), transportConfiguration, cacheConfigurations, buffersContainer);
+        try (final var ignored1 = transportConfiguration.processingPool();
+             final var ignored2 = transportConfiguration.asyncSendingPool();
+             producer) {
+
+            // action
+            messageChannel.blockSendingThreads();
+            for (int i = 0; i < messageCount; i++) {
+                final CacheEntryEvent<String, String> event = new ImmutableCacheEntryEvent<>(String.valueOf(i), null, "v1", CacheEntryEventType.ADDED, CACHE_NAME);
+                producer.produce(cacheConfiguration, event);
+            }
+
+            assertFalse(messageChannel.messagesByThread.containsKey(Thread.currentThread().getName()), "Events must not be sent by caller thread");
+
+            messageChannel.unblockSendingThreads();
+            Thread.sleep(Duration.ofMillis(300));
+        }
+
+        // checks
+        for (final List<CacheEntryOutputMessage> messages : messageChannel.messagesByThread.values()) {
+            final long clearEventsCount = messages.stream().filter(m -> Arrays.equals(CLEAR_EVENT_BODY, m.cacheEntryMessageBody())).count();
+            assertTrue(clearEventsCount <= 1, "Drops in one stripe must be escalated into at most one clearing event");
+            if (clearEventsCount == 1) {
+                assertArrayEquals(CLEAR_EVENT_BODY, messages.get(messages.size() - 1).cacheEntryMessageBody(), "Clearing event must be sent after queued events");
+            }
+        }
+
+        final long clearEventsCount =
+                messageChannel.messagesByThread.values()
+                        .stream()
+                        .flatMap(List::stream)
+                        .filter(m -> Arrays.equals(CLEAR_EVENT_BODY, m.cacheEntryMessageBody()))
+                        .count();
+        assertTrue(clearEventsCount > 0, "Dropped events must be escalated into clearing event");
+    }
+
+    private static boolean isClearEvent(final CacheEntryEvent<?, ?> event) {
+        return CacheEntryEvent.ALL_ENTRIES_KEY.equals(event.key());
+    }
+
     private CacheBusTransportConfiguration createTransportConfiguration() {
+        return createTransportConfiguration(0, 0, 0);
+    }
+
+    private CacheBusTransportConfiguration createTransportConfiguration(final int maxBatchSize, final long lingerTimeMs) {
+        return createTransportConfiguration(maxBatchSize, lingerTimeMs, 0);
+    }
+
+    private CacheBusTransportConfiguration createTransportConfiguration(final BufferOverflowPolicy overflowPolicy) {
+        return createTransportConfiguration(0, 0, 0, overflowPolicy);
+    }
+
+    private CacheBusTransportConfiguration createTransportConfiguration(
+            final int maxBatchSize,
+            final long lingerTimeMs,
+            final long coalescingWindowMs) {
+        return createTransportConfiguration(maxBatchSize, lingerTimeMs, coalescingWindowMs, BufferOverflowPolicy.BLOCK);
+    }
+
+    private CacheBusTransportConfiguration createTransportConfiguration(
+            final int maxBatchSize,
+            final long lingerTimeMs,
+            final long coalescingWindowMs,
+            final BufferOverflowPolicy overflowPolicy) {
         return ImmutableCacheBusTransportConfiguration
                 .builder()
+                    .setBufferOverflowPolicy(overflowPolicy)
+                    .setAsyncSendingCoalescingWindowMs(coalescingWindowMs)
+                    .setMaxAsyncSendingBatchSize(maxBatchSize)
+                    .setAsyncSendingBatchLingerTimeMs(lingerTimeMs)
                     .setMaxAsyncSendingThreads(ASYNC_THREADS)
                     .setMaxProcessingThreadBufferCapacity(32)
                     .setAsyncSendingPool(Executors.newFixedThreadPool(ASYNC_THREADS))
@@ -140,10 +376,38 @@ public class AsynchronousCacheEventMessageProducerTest {
     static class FakeCacheBusMessageChannelByThreads extends FakeCacheBusMessageChannel {
 
         private final Map<String, List<CacheEntryOutputMessage>> messagesByThread = new ConcurrentHashMap<>();
+        private final Map<String, List<CacheEntryOutputBatchMessage>> batchesByThread = new ConcurrentHashMap<>();
+
+        private final String callerThreadName = Thread.currentThread().getName();
+        private volatile CountDownLatch sendingThreadsLatch = new CountDownLatch(0);
+
+        void blockSendingThreads() {
+            this.sendingThreadsLatch = new CountDownLatch(1);
+        }
+
+        void unblockSendingThreads() {
+            this.sendingThreadsLatch.countDown();
+        }
 
         @Override
         public void send(@Nonnull CacheEntryOutputMessage eventOutputMessage) {
-            messagesByThread.computeIfAbsent(Thread.currentThread().getName(), k -> new ArrayList<>()).add(eventOutputMessage);
+            if (!this.callerThreadName.equals(Thread.currentThread().getName())) {
+                try {
+                    this.sendingThreadsLatch.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+
+            // The message can be reused by the producer after the sending
+            final CacheEntryOutputMessage message = new ImmutableCacheEntryOutputMessage(eventOutputMessage.cacheName(), eventOutputMessage.cacheEntryMessageBody(), eventOutputMessage.messageHashKey());
+            messagesByThread.computeIfAbsent(Thread.currentThread().getName(), k -> new ArrayList<>()).add(message);
+        }
+
+        @Override
+        public void sendBatch(@Nonnull CacheEntryOutputBatchMessage batchOutputMessage) {
+            batchesByThread.computeIfAbsent(Thread.currentThread().getName(), k -> new ArrayList<>()).add(batchOutputMessage);
         }
     }
 }
@@ -0,0 +1,112 @@
+package ru.joke.cache.bus.core.impl.internal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.joke.cache.bus.core.CacheEntryEvent;
+import ru.joke.cache.bus.core.CacheEntryEventType;
+import ru.joke.cache.bus.core.configuration.CacheBusMessageChannelConfiguration;
+import ru.joke.cache.bus.core.configuration.CacheBusTransportConfiguration;
+import ru.joke.cache.bus.core.configuration.CacheConfiguration;
+import ru.joke.cache.bus.core.configuration.CacheType;
+import ru.joke.cache.bus.core.configuration.ConfigurationException;
+import ru.joke.cache.bus.core.impl.ImmutableCacheEntryEvent;
+import ru.joke.cache.bus.core.impl.configuration.ImmutableCacheBusTransportConfiguration;
+import ru.joke.cache.bus.core.impl.configuration.ImmutableCacheConfiguration;
+import ru.joke.cache.bus.core.impl.test.FakeCacheBusMessageChannel;
+import ru.joke.cache.bus.core.transport.CacheEntryEventConverter;
+import ru.joke.cache.bus.core.transport.LazyCacheEntryEvent;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CacheEntryEventCodecRouterTest {
+
+    private static final String CACHE_NAME = "test";
+    private static final String COMPACT_CACHE_NAME = "compact";
+    private static final int COMPACT_CODEC_ID = 200;
+
+    @Mock
+    private CacheBusMessageChannelConfiguration messageChannelConfiguration;
+    @Mock
+    private CacheEntryEventConverter defaultConverter;
+    @Mock
+    private CacheEntryEventConverter compactConverter;
+
+    @Test
+    public void testWhenCodecConvertersNotRegisteredThenDefaultConverterUsedAsIs() {
+        final CacheEntryEventCodecRouter router = new CacheEntryEventCodecRouter(createTransportConfiguration(false));
+
+        assertFalse(router.isRoutingEnabled(), "Routing must be disabled");
+        assertSame(this.defaultConverter, router.converterOf(createCacheConfiguration(CACHE_NAME, null)), "Default converter must be used as is");
+        assertSame(this.defaultConverter, router.receivingConverter(), "Default converter must be used as is");
+    }
+
+    @Test
+    public void testWhenCodecConvertersRegisteredThenEventsPrefixedAndDecodedByCodecId() {
+        final CacheEntryEventCodecRouter router = new CacheEntryEventCodecRouter(createTransportConfiguration(true));
+        final CacheConfiguration compactCacheConfiguration = createCacheConfiguration(COMPACT_CACHE_NAME, COMPACT_CODEC_ID);
+        final CacheConfiguration cacheConfiguration = createCacheConfiguration(CACHE_NAME, null);
+
+        final CacheEntryEvent<Serializable, Serializable> compactEvent = new ImmutableCacheEntryEvent<>("1", null, null, CacheEntryEventType.EXPIRED, COMPACT_CACHE_NAME);
+        final CacheEntryEvent<Serializable, Serializable> event = new ImmutableCacheEntryEvent<>("2", null, "v2", CacheEntryEventType.ADDED, CACHE_NAME);
+        when(this.compactConverter.toBinary(compactEvent, false)).thenReturn(new byte[] { 7, 8 });
+        when(this.defaultConverter.toBuffer(event, false)).thenReturn(ByteBuffer.wrap(new byte[] { 5, 9, 10 }, 1, 2));
+
+        final byte[] compactData = router.converterOf(compactCacheConfiguration).toBinary(compactEvent, false);
+        final ByteBuffer data = router.converterOf(cacheConfiguration).toBuffer(event, false);
+
+        assertArrayEquals(new byte[] { (byte) COMPACT_CODEC_ID, 7, 8 }, compactData, "Event must be prefixed with codec id of cache");
+        assertEquals(ByteBuffer.wrap(new byte[] { 0, 9, 10 }), data, "Event of cache without codec id must be prefixed with default codec id");
+
+        final CacheEntryEventConverter receivingConverter = router.receivingConverter();
+        when(this.compactConverter.fromBuffer(ByteBuffer.wrap(new byte[] { 7, 8 }))).thenReturn(compactEvent);
+        when(this.defaultConverter.fromBuffer(eq(ByteBuffer.wrap(new byte[] { 9, 10 })), any())).thenReturn(event);
+
+        assertEquals(compactEvent, receivingConverter.fromBinary(compactData), "Event must be decoded by converter of codec id");
+        assertEquals(event, receivingConverter.fromBuffer(data, new LazyCacheEntryEvent<>()), "Event must be decoded by converter of codec id");
+
+        assertThrows(IllegalArgumentException.class, () -> receivingConverter.fromBinary(new byte[] { 1, 7, 8 }), "Event with unknown codec id must be rejected");
+        assertThrows(IllegalArgumentException.class, () -> receivingConverter.fromBinary(new byte[0]), "Empty event must be rejected");
+    }
+
+    @Test
+    public void testWhenCodecConverterOfCacheNotRegisteredThenException() {
+        final CacheEntryEventCodecRouter router = new CacheEntryEventCodecRouter(createTransportConfiguration(true));
+        final List<CacheConfiguration> configurations = List.of(createCacheConfiguration(CACHE_NAME, null), createCacheConfiguration(COMPACT_CACHE_NAME, 3));
+
+        assertThrows(ConfigurationException.class, () -> router.checkConverters(configurations));
+    }
+
+    private CacheConfiguration createCacheConfiguration(final String cacheName, final Integer codecId) {
+        return ImmutableCacheConfiguration
+                    .builder()
+                        .setCacheName(cacheName)
+                        .setCacheType(CacheType.INVALIDATED)
+                        .setCodecId(codecId)
+                    .build();
+    }
+
+    private CacheBusTransportConfiguration createTransportConfiguration(final boolean registerCodecConverter) {
+        final ImmutableCacheBusTransportConfiguration.Builder builder =
+                ImmutableCacheBusTransportConfiguration
+                        .builder()
+                            .setProcessingPool(Executors.newSingleThreadExecutor())
+                            .setMessageChannel(new FakeCacheBusMessageChannel())
+                            .setMessageChannelConfiguration(this.messageChannelConfiguration)
+                            .setConverter(this.defaultConverter);
+        if (registerCodecConverter) {
+            builder.addCodecConverter(COMPACT_CODEC_ID, this.compactConverter);
+        }
+
+        return builder.build();
+    }
+}
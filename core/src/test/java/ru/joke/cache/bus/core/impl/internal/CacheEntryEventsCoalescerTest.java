@@ -0,0 +1,134 @@
+package ru.joke.cache.bus.core.impl.internal;
+
+import org.junit.jupiter.api.Test;
+import ru.joke.cache.bus.core.CacheEntryDelta;
+import ru.joke.cache.bus.core.CacheEntryEvent;
+import ru.joke.cache.bus.core.CacheEntryEventType;
+import ru.joke.cache.bus.core.VersionedValue;
+import ru.joke.cache.bus.core.configuration.CacheConfiguration;
+import ru.joke.cache.bus.core.configuration.CacheType;
+import ru.joke.cache.bus.core.impl.ImmutableCacheEntryEvent;
+import ru.joke.cache.bus.core.impl.configuration.ImmutableCacheConfiguration;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CacheEntryEventsCoalescerTest {
+
+    private static final String INV_CACHE = "inv";
+    private static final String REPL_CACHE = "repl";
+
+    private final Map<String, CacheConfiguration> cacheConfigurations = Map.of(
+            INV_CACHE, new ImmutableCacheConfiguration(INV_CACHE, CacheType.INVALIDATED),
+            REPL_CACHE, new ImmutableCacheConfiguration(REPL_CACHE, CacheType.REPLICATED)
+    );
+
+    @Test
+    public void testWhenInvalidationEventsWithSameKeyThenOnlyLastKept() {
+        final CacheEntryEventsCoalescer coalescer = new CacheEntryEventsCoalescer(this.cacheConfigurations);
+
+        coalescer.add(new ImmutableCacheEntryEvent<>("1", "v1", null, CacheEntryEventType.EVICTED, INV_CACHE));
+        coalescer.add(new ImmutableCacheEntryEvent<>("2", "v1", null, CacheEntryEventType.EVICTED, INV_CACHE));
+        final var lastEvent = new ImmutableCacheEntryEvent<>("1", "v2", null, CacheEntryEventType.EXPIRED, INV_CACHE);
+        coalescer.add(lastEvent);
+
+        final List<CacheEntryEvent<?, ?>> events = drain(coalescer);
+        assertEquals(2, events.size(), "Events with same key must be collapsed");
+        assertEquals(lastEvent, events.get(0), "Last event for the key must be kept in place of the first one");
+        assertEquals("2", events.get(1).key(), "Events with other keys must be kept");
+        assertEquals(1, coalescer.resetAbsorbedEventsCount(), "Count of absorbed events must be equal");
+        assertEquals(0, coalescer.resetAbsorbedEventsCount(), "Count of absorbed events must be reset");
+    }
+
+    @Test
+    public void testWhenReplicationEventsWithSameKeyThenCollapsedIntoOne() {
+        final CacheEntryEventsCoalescer coalescer = new CacheEntryEventsCoalescer(this.cacheConfigurations);
+
+        coalescer.add(new ImmutableCacheEntryEvent<>("1", "v1", "v2", CacheEntryEventType.UPDATED, REPL_CACHE));
+        coalescer.add(new ImmutableCacheEntryEvent<>("1", "v2", "v3", CacheEntryEventType.UPDATED, REPL_CACHE));
+        coalescer.add(new ImmutableCacheEntryEvent<>("2", null, "v1", CacheEntryEventType.ADDED, REPL_CACHE));
+        coalescer.add(new ImmutableCacheEntryEvent<>("2", "v1", "v2", CacheEntryEventType.UPDATED, REPL_CACHE));
+
+        final List<CacheEntryEvent<?, ?>> events = drain(coalescer);
+        assertEquals(2, events.size(), "Events with same key must be collapsed");
+
+        final CacheEntryEvent<?, ?> updatedEvent = events.get(0);
+        assertEquals("v1", updatedEvent.oldValue(), "Old value must be taken from the first event");
+        assertEquals("v3", updatedEvent.newValue(), "New value must be taken from the last event");
+        assertEquals(CacheEntryEventType.UPDATED, updatedEvent.eventType(), "Event type must be taken from the last event");
+
+        final CacheEntryEvent<?, ?> addedEvent = events.get(1);
+        assertNull(addedEvent.oldValue(), "Old value must be taken from the first event");
+        assertEquals("v2", addedEvent.newValue(), "New value must be taken from the last event");
+        assertEquals(CacheEntryEventType.ADDED, addedEvent.eventType(), "Added event must stay added after updates");
+    }
+
+    @Test
+    public void testWhenUpdateDoesNotChangeValueThenDropped() {
+        final CacheEntryEventsCoalescer coalescer = new CacheEntryEventsCoalescer(this.cacheConfigurations);
+
+        coalescer.add(new ImmutableCacheEntryEvent<>("1", "v1", "v1", CacheEntryEventType.UPDATED, REPL_CACHE));
+        coalescer.add(new ImmutableCacheEntryEvent<>("2", "v1", "v2", CacheEntryEventType.UPDATED, REPL_CACHE));
+        coalescer.add(new ImmutableCacheEntryEvent<>("2", "v2", "v1", CacheEntryEventType.UPDATED, REPL_CACHE));
+
+        assertTrue(drain(coalescer).isEmpty(), "Updates without changes of value must be dropped");
+        assertEquals(3, coalescer.resetAbsorbedEventsCount(), "Count of absorbed events must be equal");
+    }
+
+    @Test
+    public void testWhenClearOfCacheQueuedThenPendingEventsOfCacheDiscarded() {
+        final CacheEntryEventsCoalescer coalescer = new CacheEntryEventsCoalescer(this.cacheConfigurations);
+
+        coalescer.add(new ImmutableCacheEntryEvent<>("1", "v1", null, CacheEntryEventType.EVICTED, INV_CACHE));
+        coalescer.add(new ImmutableCacheEntryEvent<>("1", "v1", "v2", CacheEntryEventType.UPDATED, REPL_CACHE));
+        coalescer.add(new ImmutableCacheEntryEvent<>("2", "v1", null, CacheEntryEventType.EVICTED, INV_CACHE));
+        coalescer.add(new ImmutableCacheEntryEvent<>(CacheEntryEvent.ALL_ENTRIES_KEY, null, null, CacheEntryEventType.EVICTED, INV_CACHE));
+        coalescer.add(new ImmutableCacheEntryEvent<>("3", "v1", null, CacheEntryEventType.EVICTED, INV_CACHE));
+
+        final List<CacheEntryEvent<?, ?>> events = drain(coalescer);
+        assertEquals(3, events.size(), "Pending events of cleared cache must be discarded");
+        assertEquals(REPL_CACHE, events.get(0).cacheName(), "Events of other caches must be kept");
+        assertEquals(CacheEntryEvent.ALL_ENTRIES_KEY, events.get(1).key(), "Clear event must be kept");
+        assertEquals("3", events.get(2).key(), "Events queued after clear must be kept after clear event");
+    }
+
+    @Test
+    public void testWhenDeltaEventAfterAddedEventThenNotCollapsed() {
+        final CacheEntryEventsCoalescer coalescer = new CacheEntryEventsCoalescer(this.cacheConfigurations);
+
+        final var addedEvent = new ImmutableCacheEntryEvent<>("1", null, new VersionedValue<>(new ArrayList<>(List.of("a")), 1), CacheEntryEventType.ADDED, REPL_CACHE);
+        final var otherEvent = new ImmutableCacheEntryEvent<>("2", null, "v1", CacheEntryEventType.ADDED, REPL_CACHE);
+        final var deltaEvent = new ImmutableCacheEntryEvent<String, Serializable>("1", null, CacheEntryDelta.add("b", 1), CacheEntryEventType.DELTA, REPL_CACHE);
+        coalescer.add(addedEvent);
+        coalescer.add(otherEvent);
+        coalescer.add(deltaEvent);
+
+        assertEquals(List.of(addedEvent, otherEvent, deltaEvent), drain(coalescer), "Delta event must not be collapsed with pending event and must be sent after it");
+        assertEquals(0, coalescer.resetAbsorbedEventsCount(), "Events must not be absorbed");
+    }
+
+    @Test
+    public void testWhenSeveralDeltaEventsWithSameKeyThenAllKept() {
+        final CacheEntryEventsCoalescer coalescer = new CacheEntryEventsCoalescer(this.cacheConfigurations);
+
+        final var deltaEvent1 = new ImmutableCacheEntryEvent<String, Serializable>("1", null, CacheEntryDelta.add("b", 1), CacheEntryEventType.DELTA, REPL_CACHE);
+        final var deltaEvent2 = new ImmutableCacheEntryEvent<String, Serializable>("1", null, CacheEntryDelta.add("c", 2), CacheEntryEventType.DELTA, REPL_CACHE);
+        final var updatedEvent = new ImmutableCacheEntryEvent<String, Serializable>("1", null, "v3", CacheEntryEventType.UPDATED, REPL_CACHE);
+        coalescer.add(deltaEvent1);
+        coalescer.add(deltaEvent2);
+        coalescer.add(updatedEvent);
+
+        assertEquals(List.of(deltaEvent1, deltaEvent2, updatedEvent), drain(coalescer), "Delta events must be sent in turn without collapsing");
+    }
+
+    private List<CacheEntryEvent<?, ?>> drain(final CacheEntryEventsCoalescer coalescer) {
+        final List<CacheEntryEvent<?, ?>> events = new ArrayList<>();
+        coalescer.drainTo(events);
+        assertEquals(0, coalescer.size(), "Coalescer must be empty after drain");
+        return events;
+    }
+}
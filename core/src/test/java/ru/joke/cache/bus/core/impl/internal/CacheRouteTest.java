@@ -0,0 +1,110 @@
+package ru.joke.cache.bus.core.impl.internal;
+
+import org.junit.jupiter.api.Test;
+import ru.joke.cache.bus.core.Cache;
+import ru.joke.cache.bus.core.CacheEntryEventType;
+import ru.joke.cache.bus.core.configuration.CacheConfiguration;
+import ru.joke.cache.bus.core.configuration.CacheType;
+import ru.joke.cache.bus.core.impl.configuration.ImmutableCacheConfiguration;
+import ru.joke.cache.bus.core.impl.test.FakeCache;
+import ru.joke.cache.bus.core.impl.test.FakeCacheManager;
+import ru.joke.cache.bus.core.metrics.KnownMetrics;
+
+import java.io.Serializable;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CacheRouteTest {
+
+    private static final String INV_CACHE_1 = "inv1";
+    private static final String INV_CACHE_2 = "inv2";
+    private static final String REPL_CACHE = "repl";
+    private static final String ALIAS = "alias";
+
+    @Test
+    public void testRoutesOfConnectedCaches() {
+
+        final Map<String, Cache<? extends Serializable, ? extends Serializable>> caches = new HashMap<>();
+        caches.put(INV_CACHE_1, new FakeCache<>(INV_CACHE_1));
+        final Map<String, CacheRoute> routingTable = createRoutingTable(caches);
+
+        final CacheRoute invRoute = routingTable.get(INV_CACHE_1);
+        assertNotNull(invRoute, "Route of connected cache must present");
+        assertEquals(INV_CACHE_1, Objects.requireNonNull(invRoute.configuration()).cacheName(), "Configuration of route must be equal");
+        assertSame(caches.get(INV_CACHE_1), invRoute.cache(), "Cache of route must be resolved");
+        assertArrayEquals(new CacheRoute[] { invRoute }, invRoute.receivers(), "Events must be applied to cache of route");
+        assertEquals(KnownMetrics.FILTERED_INV_LOCAL_EVENTS_COUNT, invRoute.filteredEventsMetric(), "Metric must be equal");
+        assertEquals(KnownMetrics.APPLIED_INV_EVENTS_COUNT, invRoute.appliedEventsMetric(), "Metric must be equal");
+        assertFalse(invRoute.needToSend(CacheEntryEventType.ADDED), "Added events must not be sent for invalidation cache");
+        assertFalse(invRoute.needToSend(CacheEntryEventType.EXPIRED), "Expired events must not be sent for invalidation cache");
+        assertTrue(invRoute.needToSend(CacheEntryEventType.UPDATED), "Updated events must be sent for invalidation cache");
+        assertTrue(invRoute.needToSend(CacheEntryEventType.EVICTED), "Evicted events must be sent for invalidation cache");
+
+        final CacheRoute replRoute = routingTable.get(REPL_CACHE);
+        assertNotNull(replRoute, "Route of connected cache must present");
+        assertNull(replRoute.cache(), "Cache absent in cache manager must not be resolved");
+        for (final CacheEntryEventType eventType : CacheEntryEventType.values()) {
+            assertTrue(replRoute.needToSend(eventType), "All events must be sent for replicated cache");
+        }
+
+        final FakeCache<String, String> replCache = new FakeCache<>(REPL_CACHE);
+        caches.put(REPL_CACHE, replCache);
+        assertSame(replCache, replRoute.cache(), "Cache created after building of routing table must be resolved");
+    }
+
+    @Test
+    public void testRoutesOfAliases() {
+
+        final Map<String, CacheRoute> routingTable = createRoutingTable(new HashMap<>());
+
+        final CacheRoute aliasRoute = routingTable.get(ALIAS);
+        assertNotNull(aliasRoute, "Route of alias must present");
+        assertNull(aliasRoute.configuration(), "Alias route must not have configuration");
+        assertFalse(aliasRoute.needToSend(CacheEntryEventType.UPDATED), "Events of alias must not be sent");
+        assertEquals(
+                Set.of(routingTable.get(INV_CACHE_1), routingTable.get(INV_CACHE_2)),
+                Set.of(aliasRoute.receivers()),
+                "Events of alias must be applied only to invalidation caches with this alias"
+        );
+
+        final CacheRoute invRoute = routingTable.get(INV_CACHE_2);
+        assertEquals(
+                List.of(routingTable.get(INV_CACHE_2), routingTable.get(INV_CACHE_1)),
+                List.of(invRoute.receivers()),
+                "Events of cache must be applied to cache and to invalidation caches with its name as alias"
+        );
+
+        assertNull(routingTable.get("unknown"), "Route of unknown cache must be absent");
+    }
+
+    private Map<String, CacheRoute> createRoutingTable(final Map<String, Cache<? extends Serializable, ? extends Serializable>> caches) {
+
+        final List<CacheConfiguration> configurations = List.of(
+                ImmutableCacheConfiguration
+                        .builder()
+                            .setCacheName(INV_CACHE_1)
+                            .setCacheType(CacheType.INVALIDATED)
+                            .setCacheAliases(Set.of(ALIAS, INV_CACHE_2))
+                        .build(),
+                ImmutableCacheConfiguration
+                        .builder()
+                            .setCacheName(INV_CACHE_2)
+                            .setCacheType(CacheType.INVALIDATED)
+                            .setCacheAliases(Set.of(ALIAS))
+                        .build(),
+                ImmutableCacheConfiguration
+                        .builder()
+                            .setCacheName(REPL_CACHE)
+                            .setCacheType(CacheType.REPLICATED)
+                        .build()
+        );
+
+        final Map<String, Set<String>> cachesByAliases = Map.of(
+                ALIAS, Set.of(INV_CACHE_1, INV_CACHE_2),
+                INV_CACHE_2, Set.of(INV_CACHE_1)
+        );
+
+        return CacheRoute.createRoutingTable(configurations, cachesByAliases, new FakeCacheManager(caches));
+    }
+}
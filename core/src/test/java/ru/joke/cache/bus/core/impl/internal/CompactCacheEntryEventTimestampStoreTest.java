@@ -0,0 +1,174 @@
+package ru.joke.cache.bus.core.impl.internal;
+
+import org.junit.jupiter.api.Test;
+import ru.joke.cache.bus.core.CacheEntryEvent;
+import ru.joke.cache.bus.core.CacheEntryEventType;
+import ru.joke.cache.bus.core.configuration.CacheConfiguration;
+import ru.joke.cache.bus.core.configuration.CacheType;
+import ru.joke.cache.bus.core.configuration.ConfigurationException;
+import ru.joke.cache.bus.core.impl.ImmutableCacheEntryEvent;
+import ru.joke.cache.bus.core.impl.configuration.ImmutableCacheConfiguration;
+import ru.joke.cache.bus.core.impl.configuration.ImmutableTimestampCacheConfiguration;
+import ru.joke.cache.bus.core.impl.configuration.ImmutableTimestampStoreConfiguration;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompactCacheEntryEventTimestampStoreTest {
+
+    private static final String CACHE_NAME = "test";
+
+    @Test
+    public void testSave() {
+        for (final boolean offHeap : new boolean[] { false, true }) {
+            final CompactCacheEntryEventTimestampStore store = createTestStore(offHeap, 1024 * 1024, 100_000);
+            final CacheEntryEvent<Integer, String> addEvent = new ImmutableCacheEntryEvent<>(1, null, "v1", System.currentTimeMillis(), CacheEntryEventType.ADDED, CACHE_NAME);
+
+            assertTrue(store.save(addEvent), "Timestamp must be saved to store");
+            assertFalse(store.save(addEvent), "Timestamp must not be updated in store");
+
+            final CacheEntryEvent<Integer, String> updateEvent = new ImmutableCacheEntryEvent<>(1, "v1", "v2", System.currentTimeMillis() + 10, CacheEntryEventType.UPDATED, CACHE_NAME);
+            assertTrue(store.save(updateEvent), "Timestamp must be updated in store");
+            assertFalse(store.save(updateEvent), "Timestamp must not be updated in store");
+            assertFalse(store.save(addEvent), "Timestamp must not be updated in store");
+        }
+    }
+
+    @Test
+    public void testSaveSpecialAllKey() {
+        final CompactCacheEntryEventTimestampStore store = createTestStore(false, 1024 * 1024, 100_000);
+        final CacheEntryEvent<String, String> event = new ImmutableCacheEntryEvent<>("*", null, null, System.currentTimeMillis(), CacheEntryEventType.EVICTED, CACHE_NAME);
+
+        assertTrue(store.save(event), "Save must return true");
+        assertTrue(store.save(event), "Save must return true");
+    }
+
+    @Test
+    public void testWhenStoreGrowsThenAllTimestampsKept() {
+        for (final boolean offHeap : new boolean[] { false, true }) {
+            final CompactCacheEntryEventTimestampStore store = createTestStore(offHeap, 16 * 1024 * 1024, 100_000);
+            final long timestamp = System.currentTimeMillis();
+            final int elementsCount = 10_000;
+
+            for (int i = 0; i < elementsCount; i++) {
+                assertTrue(store.save(createEvent(i, timestamp)), "Timestamp must be saved to store");
+            }
+
+            for (int i = 0; i < elementsCount; i++) {
+                assertFalse(store.save(createEvent(i, timestamp)), "Timestamp must be kept in store");
+            }
+        }
+    }
+
+    @Test
+    public void testWhenMemoryLimitReachedThenOldestTimestampsEvicted() {
+
+        final long memoryLimit = 4 * 16 * 64;
+        final CompactCacheEntryEventTimestampStore store = createTestStore(false, memoryLimit, 100_000);
+        final long timestamp = System.currentTimeMillis();
+        final int elementsCount = 10_000;
+
+        for (int i = 0; i < elementsCount; i++) {
+            assertTrue(store.save(createEvent(i, timestamp + i)), "Timestamp must be saved to store");
+            assertTrue(store.allocatedMemory() <= memoryLimit, "Memory limit must not be exceeded");
+        }
+
+        assertFalse(store.save(createEvent(elementsCount - 1, timestamp)), "Newest timestamp must be kept in store");
+        assertTrue(store.save(createEvent(0, timestamp)), "Oldest timestamp must be evicted from store");
+    }
+
+    @Test
+    public void testWhenTimestampsExpiredThenRemovedInsteadOfGrowing() throws InterruptedException {
+
+        final CompactCacheEntryEventTimestampStore store = createTestStore(false, 1024 * 1024, 50);
+        final long initialMemory = store.allocatedMemory();
+
+        for (int i = 0; i < 40; i++) {
+            assertTrue(store.save(createEvent(i, System.currentTimeMillis())), "Timestamp must be saved to store");
+        }
+
+        Thread.sleep(101);
+
+        for (int i = 40; i < 80; i++) {
+            assertTrue(store.save(createEvent(i, System.currentTimeMillis())), "Timestamp must be saved to store");
+        }
+
+        assertEquals(initialMemory, store.allocatedMemory(), "Expired timestamps must be removed instead of growing of store");
+    }
+
+    @Test
+    public void testConcurrentSave() throws Exception {
+
+        final CompactCacheEntryEventTimestampStore store = createTestStore(true, 1024 * 1024, 100_000);
+        final long timestamp = System.currentTimeMillis();
+        final int threadsCount = 4;
+        final int elementsCount = 5_000;
+        final AtomicInteger savedCount = new AtomicInteger();
+
+        try (final ExecutorService executor = Executors.newFixedThreadPool(threadsCount)) {
+            final Set<Future<?>> futures = new HashSet<>();
+            for (int t = 0; t < threadsCount; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < elementsCount; i++) {
+                        if (store.save(createEvent(i, timestamp))) {
+                            savedCount.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        }
+
+        assertEquals(elementsCount, savedCount.get(), "Timestamp of each key must be saved only once");
+    }
+
+    @Test
+    public void testFingerprints() {
+        final Set<Long> fingerprints = new HashSet<>();
+        for (int i = 0; i < 10_000; i++) {
+            fingerprints.add(CompactCacheEntryEventTimestampStore.fingerprint(i));
+            fingerprints.add(CompactCacheEntryEventTimestampStore.fingerprint("key-" + i));
+            fingerprints.add(CompactCacheEntryEventTimestampStore.fingerprint(UUID.randomUUID()));
+        }
+
+        assertEquals(30_000, fingerprints.size(), "Fingerprints of different keys must be different");
+        assertEquals(
+                CompactCacheEntryEventTimestampStore.fingerprint(new String("key")),
+                CompactCacheEntryEventTimestampStore.fingerprint("key"),
+                "Fingerprints of equal keys must be equal"
+        );
+    }
+
+    @Test
+    public void testWhenMemoryLimitTooSmallThenException() {
+        assertThrows(ConfigurationException.class, () -> createTestStore(false, 512, 100_000));
+    }
+
+    private CacheEntryEvent<Integer, String> createEvent(final int key, final long timestamp) {
+        return new ImmutableCacheEntryEvent<>(key, null, null, timestamp, CacheEntryEventType.ADDED, CACHE_NAME);
+    }
+
+    private CompactCacheEntryEventTimestampStore createTestStore(final boolean offHeap, final long memoryLimit, final long expiration) {
+
+        final CacheConfiguration cacheConfiguration =
+                ImmutableCacheConfiguration
+                        .builder()
+                            .setCacheName(CACHE_NAME)
+                            .setCacheType(CacheType.INVALIDATED)
+                            .useTimestampBasedComparison(true)
+                            .setTimestampConfiguration(new ImmutableTimestampCacheConfiguration(64, expiration))
+                        .build();
+
+        return new CompactCacheEntryEventTimestampStore(Set.of(cacheConfiguration), new ImmutableTimestampStoreConfiguration(offHeap, memoryLimit, 4));
+    }
+}
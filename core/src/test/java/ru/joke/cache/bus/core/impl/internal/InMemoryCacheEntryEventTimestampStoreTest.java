@@ -79,6 +79,76 @@ public class InMemoryCacheEntryEventTimestampStoreTest {
         }
     }
 
+    @Test
+    public void testWhenTimestampsExpiredThenRemovedByBackgroundThread() throws InterruptedException {
+
+        final InMemoryCacheEntryEventTimestampStore store = createTestStore(true, 100);
+        try {
+            final long timestamp = System.currentTimeMillis();
+            final int elementsCount = 3_000;
+            for (int i = 0; i < elementsCount; i++) {
+                assertTrue(store.save(createEvent(i, timestamp)), "Timestamp must be stored");
+            }
+
+            Thread.sleep(300);
+
+            for (int i = 0; i < elementsCount; i++) {
+                assertTrue(store.save(createEvent(i, timestamp)), "Expired timestamp must be removed from store");
+            }
+        } finally {
+            store.close();
+        }
+    }
+
+    @Test
+    public void testWhenTimestampsExpiredThenRemovedByCallerThread() throws InterruptedException {
+
+        final InMemoryCacheEntryEventTimestampStore store = createTestStore(false, 100);
+        final long timestamp = System.currentTimeMillis();
+        assertTrue(store.save(createEvent(1, timestamp)), "Timestamp must be stored");
+        assertFalse(store.save(createEvent(1, timestamp)), "Timestamp must not be updated in store");
+
+        Thread.sleep(150);
+
+        assertTrue(store.save(createEvent(2, System.currentTimeMillis())), "Timestamp must be stored");
+        assertTrue(store.save(createEvent(1, timestamp)), "Expired timestamp must be removed from store");
+    }
+
+    @Test
+    public void testWhenTimestampUpdatedThenNotExpiredByOldGeneration() throws InterruptedException {
+
+        final InMemoryCacheEntryEventTimestampStore store = createTestStore(false, 100);
+        final long timestamp = System.currentTimeMillis();
+        assertTrue(store.save(createEvent(1, timestamp)), "Timestamp must be stored");
+
+        Thread.sleep(80);
+
+        final long updatedTimestamp = System.currentTimeMillis();
+        assertTrue(store.save(createEvent(1, updatedTimestamp)), "Timestamp must be updated in store");
+
+        Thread.sleep(50);
+
+        assertTrue(store.save(createEvent(2, System.currentTimeMillis())), "Timestamp must be stored");
+        assertFalse(store.save(createEvent(1, updatedTimestamp)), "Updated timestamp must not be removed from store");
+    }
+
+    private CacheEntryEvent<Integer, String> createEvent(final int key, final long timestamp) {
+        return new ImmutableCacheEntryEvent<>(key, null, null, timestamp, CacheEntryEventType.ADDED, CACHE_NAME);
+    }
+
+    private InMemoryCacheEntryEventTimestampStore createTestStore(final boolean asyncCleaning, final long expiration) {
+
+        final CacheConfiguration cacheConfiguration =
+                ImmutableCacheConfiguration
+                        .builder()
+                            .setCacheName(CACHE_NAME)
+                            .setCacheType(CacheType.REPLICATED)
+                            .useTimestampBasedComparison(true)
+                            .setTimestampConfiguration(new ImmutableTimestampCacheConfiguration(32, expiration))
+                        .build();
+        return new InMemoryCacheEntryEventTimestampStore(Set.of(cacheConfiguration), asyncCleaning);
+    }
+
     private InMemoryCacheEntryEventTimestampStore createTestStore(boolean asyncCleaning) {
 
         final CacheConfiguration cacheConfiguration =
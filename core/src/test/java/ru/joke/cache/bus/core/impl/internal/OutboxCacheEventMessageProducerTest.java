@@ -0,0 +1,266 @@
+package ru.joke.cache.bus.core.impl.internal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.joke.cache.bus.core.CacheEntryEvent;
+import ru.joke.cache.bus.core.CacheEntryEventType;
+import ru.joke.cache.bus.core.configuration.CacheBusMessageChannelConfiguration;
+import ru.joke.cache.bus.core.configuration.CacheBusTransportConfiguration;
+import ru.joke.cache.bus.core.configuration.CacheConfiguration;
+import ru.joke.cache.bus.core.configuration.CacheType;
+import ru.joke.cache.bus.core.impl.ImmutableCacheEntryEvent;
+import ru.joke.cache.bus.core.impl.configuration.ImmutableCacheBusTransportConfiguration;
+import ru.joke.cache.bus.core.impl.configuration.ImmutableCacheConfiguration;
+import ru.joke.cache.bus.core.impl.configuration.ImmutableOutboxConfiguration;
+import ru.joke.cache.bus.core.impl.test.FakeCacheBusMessageChannel;
+import ru.joke.cache.bus.core.metrics.NoOpCacheBusMetricsRegistry;
+import ru.joke.cache.bus.core.state.ComponentState;
+import ru.joke.cache.bus.core.transport.CacheEntryEventConverter;
+import ru.joke.cache.bus.core.transport.CacheEntryOutputMessage;
+import ru.joke.cache.bus.core.transport.MessageChannelException;
+
+import javax.annotation.Nonnull;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class OutboxCacheEventMessageProducerTest {
+
+    private static final String CACHE_NAME = "test-cache";
+
+    @Mock
+    private CacheBusMessageChannelConfiguration messageChannelConfiguration;
+    @Mock
+    private CacheEntryEventConverter eventConverter;
+
+    @TempDir
+    private Path directory;
+
+    private final CacheConfiguration cacheConfiguration =
+            ImmutableCacheConfiguration
+                    .builder()
+                        .setCacheName(CACHE_NAME)
+                        .setCacheType(CacheType.INVALIDATED)
+                    .build();
+
+    @Test
+    public void testWhenEventsProducedThenSentInOrderOfProducing() throws InterruptedException {
+
+        final int messageCount = 50;
+        final RecordingCacheBusMessageChannel messageChannel = new RecordingCacheBusMessageChannel();
+        final CacheBusTransportConfiguration transportConfiguration = createTransportConfiguration(messageChannel);
+        makeConverterMock();
+
+        final var producer = new OutboxCacheEventMessageProducer(new NoOpCacheBusMetricsRegistry(), transportConfiguration);
+        try (final var ignored1 = transportConfiguration.processingPool();
+             final var ignored2 = transportConfiguration.asyncSendingPool();
+             producer) {
+
+            produce(producer, 0, messageCount);
+            Thread.sleep(Duration.ofMillis(300));
+        }
+
+        assertEquals(ComponentState.Status.DOWN, producer.state().status(), "Component must be in DOWN state");
+        checkSentMessages(messageChannel.sentMessages, 0, messageCount);
+    }
+
+    @Test
+    public void testWhenSendingFailedThenEventsSentAgain() throws InterruptedException {
+
+        final int messageCount = 10;
+        final RecordingCacheBusMessageChannel messageChannel = new RecordingCacheBusMessageChannel();
+        messageChannel.available.set(false);
+        final CacheBusTransportConfiguration transportConfiguration = createTransportConfiguration(messageChannel);
+        makeConverterMock();
+
+        final var producer = new OutboxCacheEventMessageProducer(new NoOpCacheBusMetricsRegistry(), transportConfiguration);
+        try (final var ignored1 = transportConfiguration.processingPool();
+             final var ignored2 = transportConfiguration.asyncSendingPool();
+             producer) {
+
+            produce(producer, 0, messageCount);
+            Thread.sleep(Duration.ofMillis(100));
+            assertTrue(messageChannel.sentMessages.isEmpty(), "Events must not be sent while channel is not available");
+
+            messageChannel.available.set(true);
+            Thread.sleep(Duration.ofMillis(300));
+        }
+
+        checkSentMessages(messageChannel.sentMessages, 0, messageCount);
+    }
+
+    @Test
+    public void testWhenEventsJournaledThenDeliveryConfirmedOncePerReadGroup() throws InterruptedException {
+
+        final int messageCount = 50;
+        final RecordingCacheBusMessageChannel messageChannel = new RecordingCacheBusMessageChannel();
+        messageChannel.available.set(false);
+        final CacheBusTransportConfiguration transportConfiguration = createTransportConfiguration(messageChannel);
+        makeConverterMock();
+
+        final var producer = new OutboxCacheEventMessageProducer(new NoOpCacheBusMetricsRegistry(), transportConfiguration);
+        try (final var ignored1 = transportConfiguration.processingPool();
+             final var ignored2 = transportConfiguration.asyncSendingPool();
+             producer) {
+
+            produce(producer, 0, messageCount);
+            messageChannel.available.set(true);
+            Thread.sleep(Duration.ofMillis(300));
+        }
+
+        checkSentMessages(messageChannel.sentMessages, 0, messageCount);
+        assertTrue(messageChannel.flushes.get() < messageCount, "Delivery must be confirmed once per read group of events, but was confirmed " + messageChannel.flushes.get() + " times");
+    }
+
+    @Test
+    public void testWhenDeliveryNotConfirmedThenEventsSentAgain() throws InterruptedException {
+
+        final int messageCount = 10;
+        final RecordingCacheBusMessageChannel messageChannel = new RecordingCacheBusMessageChannel();
+        messageChannel.delivered.set(false);
+        final CacheBusTransportConfiguration transportConfiguration = createTransportConfiguration(messageChannel);
+        makeConverterMock();
+
+        final var producer = new OutboxCacheEventMessageProducer(new NoOpCacheBusMetricsRegistry(), transportConfiguration);
+        try (final var ignored1 = transportConfiguration.processingPool();
+             final var ignored2 = transportConfiguration.asyncSendingPool();
+             producer) {
+
+            produce(producer, 0, messageCount);
+            Thread.sleep(Duration.ofMillis(100));
+            assertFalse(messageChannel.sentMessages.isEmpty(), "Events must be sent to channel");
+
+            messageChannel.delivered.set(true);
+            Thread.sleep(Duration.ofMillis(300));
+        }
+
+        final List<CacheEntryOutputMessage> sentMessages = messageChannel.sentMessages;
+        assertTrue(sentMessages.size() > messageCount, "Not delivered events must be sent again");
+        checkSentMessages(sentMessages.subList(sentMessages.size() - messageCount, sentMessages.size()), 0, messageCount);
+    }
+
+    @Test
+    public void testWhenEventLargerThanSegmentThenSentFromJournal() throws InterruptedException {
+
+        final RecordingCacheBusMessageChannel messageChannel = new RecordingCacheBusMessageChannel();
+        messageChannel.available.set(false);
+        final CacheBusTransportConfiguration transportConfiguration = createTransportConfiguration(messageChannel);
+        makeConverterMock();
+
+        final String largeKey = "1".repeat(10_000);
+        final var producer = new OutboxCacheEventMessageProducer(new NoOpCacheBusMetricsRegistry(), transportConfiguration);
+        try (final var ignored1 = transportConfiguration.processingPool();
+             final var ignored2 = transportConfiguration.asyncSendingPool();
+             producer) {
+
+            producer.produce(this.cacheConfiguration, new ImmutableCacheEntryEvent<>(largeKey, null, "v1", CacheEntryEventType.EVICTED, CACHE_NAME));
+            assertTrue(messageChannel.sentMessages.isEmpty(), "Large event must not be sent by producing thread");
+
+            messageChannel.available.set(true);
+            Thread.sleep(Duration.ofMillis(300));
+        }
+
+        assertEquals(1, messageChannel.sentMessages.size(), "Large event must be sent once");
+        assertEquals(largeKey, new String(messageChannel.sentMessages.get(0).cacheEntryMessageBody()), "Large event must be sent entirely");
+    }
+
+    @Test
+    public void testWhenProducerRestartedThenNotSentEventsSentAfterRestart() throws InterruptedException {
+
+        final int messageCount = 10;
+        final RecordingCacheBusMessageChannel messageChannel = new RecordingCacheBusMessageChannel();
+        messageChannel.available.set(false);
+        makeConverterMock();
+
+        final CacheBusTransportConfiguration transportConfiguration1 = createTransportConfiguration(messageChannel);
+        try (final var ignored1 = transportConfiguration1.processingPool();
+             final var ignored2 = transportConfiguration1.asyncSendingPool();
+             final var producer = new OutboxCacheEventMessageProducer(new NoOpCacheBusMetricsRegistry(), transportConfiguration1)) {
+            produce(producer, 0, messageCount);
+        }
+
+        messageChannel.available.set(true);
+
+        final CacheBusTransportConfiguration transportConfiguration2 = createTransportConfiguration(messageChannel);
+        try (final var ignored1 = transportConfiguration2.processingPool();
+             final var ignored2 = transportConfiguration2.asyncSendingPool();
+             final var producer = new OutboxCacheEventMessageProducer(new NoOpCacheBusMetricsRegistry(), transportConfiguration2)) {
+            produce(producer, messageCount, messageCount * 2);
+            Thread.sleep(Duration.ofMillis(300));
+        }
+
+        checkSentMessages(messageChannel.sentMessages, 0, messageCount * 2);
+    }
+
+    private void produce(final OutboxCacheEventMessageProducer producer, final int from, final int to) {
+        for (int i = from; i < to; i++) {
+            final CacheEntryEvent<String, String> event = new ImmutableCacheEntryEvent<>(String.valueOf(i), null, "v1", CacheEntryEventType.EVICTED, CACHE_NAME);
+            producer.produce(this.cacheConfiguration, event);
+        }
+    }
+
+    private void checkSentMessages(final List<CacheEntryOutputMessage> messages, final int from, final int to) {
+        assertEquals(to - from, messages.size(), "All events must be sent once");
+        for (int i = from; i < to; i++) {
+            final CacheEntryOutputMessage message = messages.get(i - from);
+            assertEquals(CACHE_NAME, message.cacheName(), "Cache name of the message must be equal");
+            assertEquals(String.valueOf(i), new String(message.cacheEntryMessageBody()), "Events must be sent in order of producing");
+        }
+    }
+
+    private void makeConverterMock() {
+        when(this.eventConverter.toBinary(any(), anyBoolean()))
+                .thenAnswer(invocation -> invocation.<CacheEntryEvent<?, ?>> getArgument(0).key().toString().getBytes());
+    }
+
+    private CacheBusTransportConfiguration createTransportConfiguration(final RecordingCacheBusMessageChannel messageChannel) {
+        return ImmutableCacheBusTransportConfiguration
+                .builder()
+                    .setAsyncSendingPool(Executors.newSingleThreadExecutor())
+                    .useAsyncSending(true)
+                    .setOutboxConfiguration(new ImmutableOutboxConfiguration(this.directory, 4096, 20))
+                    .setProcessingPool(Executors.newSingleThreadExecutor())
+                    .setMessageChannel(messageChannel)
+                    .setMessageChannelConfiguration(this.messageChannelConfiguration)
+                    .setConverter(this.eventConverter)
+                .build();
+    }
+
+    static class RecordingCacheBusMessageChannel extends FakeCacheBusMessageChannel {
+
+        private final List<CacheEntryOutputMessage> sentMessages = new CopyOnWriteArrayList<>();
+        private final AtomicBoolean available = new AtomicBoolean(true);
+        private final AtomicBoolean delivered = new AtomicBoolean(true);
+        private final AtomicInteger flushes = new AtomicInteger();
+
+        @Override
+        public void send(@Nonnull CacheEntryOutputMessage eventOutputMessage) {
+            if (!this.available.get()) {
+                throw new IllegalStateException("Channel is not available");
+            }
+
+            this.sentMessages.add(eventOutputMessage);
+        }
+
+        @Override
+        public void flush() {
+            this.flushes.incrementAndGet();
+            if (!this.delivered.get()) {
+                throw new MessageChannelException("Delivery is not confirmed");
+            }
+        }
+    }
+}
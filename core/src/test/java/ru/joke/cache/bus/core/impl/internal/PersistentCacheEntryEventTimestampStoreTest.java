@@ -0,0 +1,221 @@
+package ru.joke.cache.bus.core.impl.internal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.joke.cache.bus.core.CacheEntryEvent;
+import ru.joke.cache.bus.core.CacheEntryEventType;
+import ru.joke.cache.bus.core.configuration.CacheConfiguration;
+import ru.joke.cache.bus.core.configuration.CacheType;
+import ru.joke.cache.bus.core.impl.ImmutableCacheEntryEvent;
+import ru.joke.cache.bus.core.impl.configuration.ImmutableCacheConfiguration;
+import ru.joke.cache.bus.core.impl.configuration.ImmutableTimestampCacheConfiguration;
+import ru.joke.cache.bus.core.impl.configuration.ImmutableTimestampStoreConfiguration;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PersistentCacheEntryEventTimestampStoreTest {
+
+    private static final String CACHE_NAME = "test";
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    public void testWhenStoreReopenedThenPersistedTimestampsUsed() {
+
+        final long timestamp = System.currentTimeMillis();
+        final int elementsCount = 1_000;
+
+        final PersistentCacheEntryEventTimestampStore store1 = createTestStore(100_000);
+        for (int i = 0; i < elementsCount; i++) {
+            assertTrue(store1.save(createEvent(i, timestamp)), "Timestamp must be stored");
+        }
+
+        store1.close();
+
+        final PersistentCacheEntryEventTimestampStore store2 = createTestStore(100_000);
+        try {
+            for (int i = 0; i < elementsCount; i++) {
+                assertFalse(store2.save(createEvent(i, timestamp)), "Replayed event must be rejected after restart");
+                assertFalse(store2.save(createEvent(i, timestamp - 1)), "Late event must be rejected after restart");
+            }
+
+            assertTrue(store2.save(createEvent(0, timestamp + 1)), "Newer event must be accepted after restart");
+            assertFalse(store2.save(createEvent(0, timestamp + 1)), "Event must not be accepted twice");
+            assertTrue(store2.save(createEvent(elementsCount, timestamp)), "Event with new key must be accepted after restart");
+        } finally {
+            store2.close();
+        }
+    }
+
+    @Test
+    public void testWhenSnapshotTakenThenMergedWithPreviousSnapshot() {
+
+        final long timestamp = System.currentTimeMillis();
+
+        final PersistentCacheEntryEventTimestampStore store1 = createTestStore(100_000);
+        assertTrue(store1.save(createEvent(1, timestamp)), "Timestamp must be stored");
+        store1.takeSnapshot();
+        assertTrue(store1.save(createEvent(2, timestamp)), "Timestamp must be stored");
+        store1.close();
+
+        final PersistentCacheEntryEventTimestampStore store2 = createTestStore(100_000);
+        assertTrue(store2.save(createEvent(3, timestamp)), "Timestamp must be stored");
+        store2.close();
+
+        final PersistentCacheEntryEventTimestampStore store3 = createTestStore(100_000);
+        try {
+            for (int i = 1; i <= 3; i++) {
+                assertFalse(store3.save(createEvent(i, timestamp)), "Timestamps of all previous snapshots must be kept");
+            }
+        } finally {
+            store3.close();
+        }
+    }
+
+    @Test
+    public void testWhenSnapshotsTakenAlternatelyThenLatestSnapshotUsed() throws IOException {
+
+        final long timestamp = System.currentTimeMillis();
+
+        final PersistentCacheEntryEventTimestampStore store1 = createTestStore(100_000);
+        for (int i = 1; i <= 3; i++) {
+            assertTrue(store1.save(createEvent(i, timestamp)), "Timestamp must be stored");
+            store1.takeSnapshot();
+        }
+
+        store1.close();
+
+        try (final Stream<Path> files = Files.list(this.directory)) {
+            assertEquals(2, files.count(), "Snapshots must be written alternately to two files");
+        }
+
+        final PersistentCacheEntryEventTimestampStore store2 = createTestStore(100_000);
+        assertTrue(store2.save(createEvent(4, timestamp)), "Timestamp must be stored");
+        store2.close();
+
+        final PersistentCacheEntryEventTimestampStore store3 = createTestStore(100_000);
+        try {
+            for (int i = 1; i <= 4; i++) {
+                assertFalse(store3.save(createEvent(i, timestamp)), "Timestamps of latest snapshot must be used");
+            }
+        } finally {
+            store3.close();
+        }
+    }
+
+    @Test
+    public void testWhenPersistedTimestampsExpiredThenIgnored() throws InterruptedException {
+
+        final long timestamp = System.currentTimeMillis();
+
+        final PersistentCacheEntryEventTimestampStore store1 = createTestStore(50);
+        assertTrue(store1.save(createEvent(1, timestamp)), "Timestamp must be stored");
+        store1.close();
+
+        Thread.sleep(100);
+
+        final PersistentCacheEntryEventTimestampStore store2 = createTestStore(50);
+        try {
+            assertTrue(store2.save(createEvent(1, timestamp)), "Expired persisted timestamp must be ignored");
+        } finally {
+            store2.close();
+        }
+    }
+
+    @Test
+    public void testWhenSnapshotBlockCorruptedThenOnlyItsTimestampsIgnored() throws IOException {
+
+        final long timestamp = System.currentTimeMillis();
+        final int elementsCount = 3_000;
+
+        final PersistentCacheEntryEventTimestampStore store1 = createTestStore(100_000);
+        for (int i = 0; i < elementsCount; i++) {
+            store1.save(createEvent(i, timestamp));
+        }
+
+        store1.close();
+
+        try (final RandomAccessFile file = new RandomAccessFile(findSnapshotFile().toFile(), "rw")) {
+            final long position = file.length() / 2;
+            file.seek(position);
+            final int value = file.read();
+            file.seek(position);
+            file.write(~value);
+        }
+
+        final PersistentCacheEntryEventTimestampStore store2 = createTestStore(100_000);
+        try {
+            int accepted = 0;
+            for (int i = 0; i < elementsCount; i++) {
+                if (store2.save(createEvent(i, timestamp))) {
+                    accepted++;
+                }
+            }
+
+            assertTrue(accepted > 0, "Timestamps of corrupted block must be ignored");
+            assertTrue(accepted < elementsCount, "Timestamps of valid blocks must be used");
+        } finally {
+            store2.close();
+        }
+    }
+
+    @Test
+    public void testWhenSnapshotHeaderCorruptedThenSnapshotIgnored() throws IOException {
+
+        final long timestamp = System.currentTimeMillis();
+
+        final PersistentCacheEntryEventTimestampStore store1 = createTestStore(100_000);
+        assertTrue(store1.save(createEvent(1, timestamp)), "Timestamp must be stored");
+        store1.close();
+
+        try (final RandomAccessFile file = new RandomAccessFile(findSnapshotFile().toFile(), "rw")) {
+            file.seek(14);
+            file.write('X');
+        }
+
+        final PersistentCacheEntryEventTimestampStore store2 = createTestStore(100_000);
+        try {
+            assertTrue(store2.save(createEvent(1, timestamp)), "Corrupted snapshot must be ignored");
+        } finally {
+            store2.close();
+        }
+    }
+
+    private Path findSnapshotFile() throws IOException {
+        try (final Stream<Path> files = Files.list(this.directory)) {
+            final List<Path> snapshotFiles = files.toList();
+            assertEquals(1, snapshotFiles.size(), "Only one snapshot must be taken");
+            return snapshotFiles.get(0);
+        }
+    }
+
+    private CacheEntryEvent<Integer, String> createEvent(final int key, final long timestamp) {
+        return new ImmutableCacheEntryEvent<>(key, null, null, timestamp, CacheEntryEventType.ADDED, CACHE_NAME);
+    }
+
+    private PersistentCacheEntryEventTimestampStore createTestStore(final long expiration) {
+
+        final CacheConfiguration cacheConfiguration =
+                ImmutableCacheConfiguration
+                        .builder()
+                            .setCacheName(CACHE_NAME)
+                            .setCacheType(CacheType.INVALIDATED)
+                            .useTimestampBasedComparison(true)
+                            .setTimestampConfiguration(new ImmutableTimestampCacheConfiguration(64, expiration))
+                        .build();
+
+        return new PersistentCacheEntryEventTimestampStore(
+                Set.of(cacheConfiguration),
+                new ImmutableTimestampStoreConfiguration(false, 1024 * 1024, 4, this.directory, 60_000)
+        );
+    }
+}
@@ -0,0 +1,93 @@
+package ru.joke.cache.bus.core.impl.internal;
+
+import org.junit.jupiter.api.Test;
+import ru.joke.cache.bus.core.CacheEntryEvent;
+import ru.joke.cache.bus.core.CacheEntryEventType;
+import ru.joke.cache.bus.core.impl.ImmutableCacheEntryEvent;
+import ru.joke.cache.bus.core.impl.internal.util.RingBuffer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProducerStripeTest {
+
+    private static final String CACHE_1 = "cache1";
+    private static final String CACHE_2 = "cache2";
+
+    @Test
+    public void testWhenEventsDroppedThenOneClearEventReturnedAfterQueuedEvents() throws InterruptedException {
+        final ProducerStripe stripe = new ProducerStripe(new RingBuffer<>(2), 0, true);
+
+        final var event1 = createEvent("1", CACHE_1);
+        final var event2 = createEvent("2", CACHE_1);
+        assertEquals(ProducerStripe.SpillResult.BUFFERED, stripe.spill(event1), "Event must be put into buffer");
+        assertEquals(ProducerStripe.SpillResult.BUFFERED, stripe.spill(event2), "Event must be put into buffer");
+
+        assertTrue(stripe.markForClear(CACHE_1), "First drop must schedule clearing of the cache");
+        assertFalse(stripe.markForClear(CACHE_1), "Repeated drops must be coalesced");
+
+        assertEquals(event1, stripe.poll(), "Queued event must be returned before clearing event");
+        assertEquals(event2, stripe.poll(), "Queued event must be returned before clearing event");
+
+        final CacheEntryEvent<?, ?> clearEvent = stripe.poll(100, TimeUnit.MILLISECONDS);
+        assertNotNull(clearEvent, "Clearing event must be returned after queued events");
+        assertEquals(CacheEntryEvent.ALL_ENTRIES_KEY, clearEvent.key(), "Clearing event must be for all entries of the cache");
+        assertEquals(CACHE_1, clearEvent.cacheName(), "Clearing event must be for the cache with dropped events");
+        assertEquals(CacheEntryEventType.EVICTED, clearEvent.eventType(), "Type of clearing event must be equal");
+
+        assertNull(stripe.poll(10, TimeUnit.MILLISECONDS), "Clearing event must be returned only once");
+        assertTrue(stripe.markForClear(CACHE_1), "Drop after sent clearing event must schedule new clearing");
+    }
+
+    @Test
+    public void testWhenEventsSpilledThenOrderPreserved() throws InterruptedException {
+        final ProducerStripe stripe = new ProducerStripe(new RingBuffer<>(2), 2, false);
+
+        final List<CacheEntryEvent<?, ?>> events = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            events.add(createEvent(String.valueOf(i), CACHE_1));
+        }
+
+        assertEquals(ProducerStripe.SpillResult.BUFFERED, stripe.spill(events.get(0)), "Event must be put into buffer");
+        assertEquals(ProducerStripe.SpillResult.BUFFERED, stripe.spill(events.get(1)), "Event must be put into buffer");
+        assertEquals(ProducerStripe.SpillResult.SPILLED, stripe.spill(events.get(2)), "Event must be put into overflow queue when buffer is full");
+
+        assertEquals(events.get(0), stripe.poll(), "Buffered event must be returned first");
+        assertEquals(ProducerStripe.SpillResult.SPILLED, stripe.spill(events.get(3)), "Event must be put into overflow queue while it is not empty");
+        assertEquals(2, stripe.overflowQueueSize(), "Size of overflow queue must be equal");
+        assertEquals(ProducerStripe.SpillResult.REJECTED, stripe.spill(createEvent("5", CACHE_1)), "Event must be rejected when overflow queue is full");
+
+        final List<CacheEntryEvent<?, ?>> drainedEvents = new ArrayList<>();
+        drainedEvents.add(stripe.poll());
+        stripe.drainTo(drainedEvents, 10);
+
+        assertEquals(events.subList(1, 4), drainedEvents, "Spilled events must be returned in order after buffered events");
+        assertEquals(0, stripe.overflowQueueSize(), "Overflow queue must be empty");
+    }
+
+    @Test
+    public void testWhenOverflowQueueNotEmptyThenClearEventDelayed() throws InterruptedException {
+        final ProducerStripe stripe = new ProducerStripe(new RingBuffer<>(1), 1, true);
+
+        final var event1 = createEvent("1", CACHE_1);
+        final var event2 = createEvent("2", CACHE_2);
+        stripe.spill(event1);
+        stripe.spill(event2);
+        assertEquals(ProducerStripe.SpillResult.REJECTED, stripe.spill(createEvent("3", CACHE_2)), "Event must be rejected when overflow queue is full");
+        stripe.markForClear(CACHE_2);
+
+        final List<CacheEntryEvent<?, ?>> drainedEvents = new ArrayList<>();
+        assertEquals(3, stripe.drainTo(drainedEvents, 10), "Count of drained events must be equal");
+        assertEquals(event1, drainedEvents.get(0), "Buffered event must be returned first");
+        assertEquals(event2, drainedEvents.get(1), "Spilled event must be returned before clearing event");
+        assertEquals(CacheEntryEvent.ALL_ENTRIES_KEY, drainedEvents.get(2).key(), "Clearing event must be returned last");
+        assertEquals(CACHE_2, drainedEvents.get(2).cacheName(), "Clearing event must be for the cache with dropped events");
+    }
+
+    private CacheEntryEvent<String, String> createEvent(final String key, final String cacheName) {
+        return new ImmutableCacheEntryEvent<>(key, null, "v", CacheEntryEventType.ADDED, cacheName);
+    }
+}
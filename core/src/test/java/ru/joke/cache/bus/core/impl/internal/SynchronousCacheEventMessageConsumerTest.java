@@ -1,15 +1,24 @@
 package ru.joke.cache.bus.core.impl.internal;
 
 import ru.joke.cache.bus.core.CacheBus;
+import ru.joke.cache.bus.core.CacheEntryEventType;
 import ru.joke.cache.bus.core.CacheEventMessageConsumer;
+import ru.joke.cache.bus.core.impl.ImmutableCacheEntryEvent;
 import ru.joke.cache.bus.core.state.ComponentState;
+import ru.joke.cache.bus.core.transport.CacheEntryBatchFrame;
+import ru.joke.cache.bus.core.transport.CacheEntryOutputMessage;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.assertArg;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -31,6 +40,27 @@ public class SynchronousCacheEventMessageConsumerTest {
         verify(this.cacheBus, times(messagesCount)).receive(new byte[1]);
     }
 
+    @Test
+    public void testSyncConsumingOfBatch() {
+        final CacheEventMessageConsumer messageConsumer = new SynchronousCacheEventMessageConsumer(this.cacheBus);
+
+        final int messagesCount = 5;
+        final List<CacheEntryOutputMessage> messages = new ArrayList<>();
+        for (int i = 0; i < messagesCount; i++) {
+            final var event = new ImmutableCacheEntryEvent<>(String.valueOf(i), null, null, CacheEntryEventType.EVICTED, "test");
+            messages.add(new ImmutableCacheEntryOutputMessage(event, new byte[] { (byte) i }));
+        }
+
+        messageConsumer.acceptBatch(CacheEntryBatchFrame.encode(messages));
+
+        verify(this.cacheBus, times(1)).receiveAll(assertArg(bodies -> {
+            assertEquals(messagesCount, bodies.size(), "All messages of batch must be received at once");
+            for (int i = 0; i < messagesCount; i++) {
+                assertArrayEquals(messages.get(i).cacheEntryMessageBody(), bodies.get(i), "Order of messages must be preserved");
+            }
+        }));
+    }
+
     @Test
     public void testState() {
         CacheEventMessageConsumer messageConsumer = new SynchronousCacheEventMessageConsumer(this.cacheBus);
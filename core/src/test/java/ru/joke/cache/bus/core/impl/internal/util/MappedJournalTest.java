@@ -0,0 +1,166 @@
+package ru.joke.cache.bus.core.impl.internal.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MappedJournalTest {
+
+    private static final int SEGMENT_SIZE = 64;
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    public void testWhenRecordsAppendedThenReadInAppendingOrder() {
+        try (final MappedJournal journal = new MappedJournal(this.directory, SEGMENT_SIZE)) {
+            assertNull(journal.readNext(), "Empty journal must not contain records");
+
+            for (int i = 0; i < 20; i++) {
+                journal.append(createRecord(i));
+            }
+
+            for (int i = 0; i < 20; i++) {
+                assertArrayEquals(createRecord(i), journal.readNext(), "Records must be read in order of appending");
+            }
+
+            assertNull(journal.readNext(), "All records must be read");
+            assertEquals(journal.writePosition(), journal.readPosition(), "Read position must be equal to write position");
+        }
+    }
+
+    @Test
+    public void testWhenCheckpointThenConfirmedSegmentsDeleted() throws IOException {
+        try (final MappedJournal journal = new MappedJournal(this.directory, SEGMENT_SIZE)) {
+            for (int i = 0; i < 20; i++) {
+                journal.append(createRecord(i));
+            }
+
+            assertTrue(countSegments() > 1, "Records must be appended into multiple segments");
+
+            while (journal.readNext() != null) {
+                journal.checkpoint(journal.readPosition());
+            }
+
+            assertEquals(1, countSegments(), "Only active segment must be kept after checkpoint of all records");
+            assertEquals(0, journal.pendingBytes(), "All records must be confirmed");
+        }
+    }
+
+    @Test
+    public void testWhenRewindThenRecordsAfterCheckpointReadAgain() {
+        try (final MappedJournal journal = new MappedJournal(this.directory, SEGMENT_SIZE)) {
+            journal.append(createRecord(1));
+            journal.append(createRecord(2));
+
+            journal.readNext();
+            journal.checkpoint(journal.readPosition());
+            journal.readNext();
+
+            journal.rewind();
+            assertArrayEquals(createRecord(2), journal.readNext(), "Record after checkpoint must be read again");
+            assertNull(journal.readNext(), "Confirmed record must not be read again");
+        }
+    }
+
+    @Test
+    public void testWhenJournalReopenedThenNotConfirmedRecordsReadAgain() {
+        try (final MappedJournal journal = new MappedJournal(this.directory, SEGMENT_SIZE)) {
+            for (int i = 0; i < 10; i++) {
+                journal.append(createRecord(i));
+            }
+
+            for (int i = 0; i < 4; i++) {
+                journal.readNext();
+            }
+
+            journal.checkpoint(journal.readPosition());
+            journal.readNext();
+        }
+
+        try (final MappedJournal journal = new MappedJournal(this.directory, SEGMENT_SIZE)) {
+            for (int i = 4; i < 10; i++) {
+                assertArrayEquals(createRecord(i), journal.readNext(), "Not confirmed records must be read after reopening");
+            }
+
+            assertNull(journal.readNext(), "All records must be read");
+
+            journal.append(createRecord(10));
+            assertArrayEquals(createRecord(10), journal.readNext(), "Records appended after reopening must be read");
+        }
+    }
+
+    @Test
+    public void testWhenReaderWaitsThenNotifiedOnAppend() throws Exception {
+        try (final MappedJournal journal = new MappedJournal(this.directory, SEGMENT_SIZE);
+             final ExecutorService executor = Executors.newSingleThreadExecutor()) {
+            assertFalse(journal.awaitRecords(10, TimeUnit.MILLISECONDS), "There are no records in journal");
+
+            final Future<?> future = executor.submit(() -> {
+                Thread.sleep(50);
+                return journal.append(createRecord(1));
+            });
+
+            assertTrue(journal.awaitRecords(1, TimeUnit.SECONDS), "Reader must be notified about appended record");
+            assertArrayEquals(createRecord(1), journal.readNext(), "Appended record must be read");
+            future.get(1, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void testWhenRecordEmptyThenException() {
+        try (final MappedJournal journal = new MappedJournal(this.directory, SEGMENT_SIZE)) {
+            assertThrows(IllegalArgumentException.class, () -> journal.append(new byte[0]));
+        }
+    }
+
+    @Test
+    public void testWhenRecordLargerThanSegmentThenSpilledToDedicatedSegment() {
+        final byte[] largeRecord = new byte[SEGMENT_SIZE * 3];
+        for (int i = 0; i < largeRecord.length; i++) {
+            largeRecord[i] = (byte) i;
+        }
+
+        try (final MappedJournal journal = new MappedJournal(this.directory, SEGMENT_SIZE)) {
+            journal.append(createRecord(1));
+            journal.append(largeRecord);
+            journal.append(createRecord(2));
+
+            assertArrayEquals(createRecord(1), journal.readNext(), "Records must be read in order of appending");
+            assertArrayEquals(largeRecord, journal.readNext(), "Large record must be read entirely");
+            assertArrayEquals(createRecord(2), journal.readNext(), "Record after large record must be read");
+        }
+
+        try (final MappedJournal journal = new MappedJournal(this.directory, SEGMENT_SIZE)) {
+            assertArrayEquals(createRecord(1), journal.readNext(), "Records must be read again after reopening");
+            assertArrayEquals(largeRecord, journal.readNext(), "Large record must be read again after reopening");
+            assertArrayEquals(createRecord(2), journal.readNext(), "Record after large record must be read again after reopening");
+            assertNull(journal.readNext(), "All records must be read");
+        }
+    }
+
+    private long countSegments() throws IOException {
+        try (final Stream<Path> files = Files.list(this.directory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith("segment-")).count();
+        }
+    }
+
+    private byte[] createRecord(final int index) {
+        final byte[] record = new byte[index % 7 + 5];
+        for (int i = 0; i < record.length; i++) {
+            record[i] = (byte) (index + i);
+        }
+
+        return record;
+    }
+}
@@ -1,8 +1,12 @@
 package ru.joke.cache.bus.core.impl.internal.util;
 
 import org.junit.jupiter.api.Test;
+import ru.joke.cache.bus.core.configuration.BufferWaitStrategy;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -109,4 +113,145 @@ public class RingBufferTest {
             assertTrue(offerWasInterrupted.get(), "Thread should be interrupted");
         }
     }
+
+    @Test
+    public void testWhenPollWithTimeoutFromEmptyBufferThenNullAfterTimeout() throws InterruptedException {
+        final RingBuffer<Integer> buffer = new RingBuffer<>(2);
+
+        final long startTime = System.nanoTime();
+        assertNull(buffer.poll(50, TimeUnit.MILLISECONDS), "Poll from empty buffer must return null after timeout");
+        assertTrue(System.nanoTime() - startTime >= TimeUnit.MILLISECONDS.toNanos(50), "Poll must wait until timeout elapsed");
+
+        buffer.offer(1);
+        assertEquals(1, buffer.poll(50, TimeUnit.MILLISECONDS), "Poll from non-empty buffer must return element");
+    }
+
+    @Test
+    public void testWhenOfferWithTimeoutToFullBufferThenFalseAfterTimeout() throws InterruptedException {
+        final RingBuffer<Integer> buffer = new RingBuffer<>(1);
+
+        assertTrue(buffer.offer(1, 0, TimeUnit.MILLISECONDS), "Offering to non-full buffer must be successful");
+        assertFalse(buffer.offer(2, 0, TimeUnit.MILLISECONDS), "Offering to full buffer without timeout must fail immediately");
+
+        final long startTime = System.nanoTime();
+        assertFalse(buffer.offer(2, 50, TimeUnit.MILLISECONDS), "Offering to full buffer must fail after timeout");
+        assertTrue(System.nanoTime() - startTime >= TimeUnit.MILLISECONDS.toNanos(50), "Offer must wait until timeout elapsed");
+
+        assertEquals(1, buffer.poll());
+        assertTrue(buffer.offer(2, 50, TimeUnit.MILLISECONDS), "Offering to non-full buffer must be successful");
+        assertEquals(2, buffer.poll(), "Only successfully offered element must be in buffer");
+        assertNull(buffer.poll(0, TimeUnit.MILLISECONDS), "Poll from empty buffer without timeout must return null immediately");
+    }
+
+    @Test
+    public void testWhenDrainFromBufferThenOnlyAvailableElementsTransferred() throws InterruptedException {
+        final RingBuffer<Integer> buffer = new RingBuffer<>(3);
+        final List<Integer> target = new ArrayList<>();
+
+        assertEquals(0, buffer.drainTo(target, 10), "Nothing must be drained from empty buffer");
+
+        buffer.offer(1);
+        buffer.offer(2);
+        buffer.offer(3);
+
+        assertEquals(2, buffer.drainTo(target, 2), "Drained elements count must be limited by max elements");
+        assertEquals(List.of(1, 2), target, "Drained elements must be in order of offering");
+        assertFalse(buffer.offer(4), "Offering must be without blocking after drain");
+
+        assertEquals(2, buffer.drainTo(target, 10), "All available elements must be drained");
+        assertEquals(List.of(1, 2, 3, 4), target, "Drained elements must be in order of offering");
+        assertEquals(buffer.currentWritePosition() + 1, buffer.currentReadIndex(), "Buffer must be empty after drain");
+    }
+
+    @Test
+    public void testWhenOfferAllMoreThanCapacityThenBlockUntilAllElementsAdded() throws InterruptedException, ExecutionException, TimeoutException {
+        final RingBuffer<Integer> buffer = new RingBuffer<>(3);
+        final List<Integer> elements = List.of(1, 2, 3, 4, 5, 6, 7);
+
+        try (final ExecutorService executorService = Executors.newSingleThreadExecutor()) {
+            final Future<Boolean> future = executorService.submit(() -> buffer.offerAll(elements));
+
+            Thread.sleep(Duration.ofMillis(50));
+            assertFalse(future.isDone(), "Write thread must be blocked because buffer is full");
+
+            final List<Integer> result = new ArrayList<>();
+            while (result.size() < elements.size()) {
+                result.add(buffer.poll());
+            }
+
+            assertTrue(future.get(1, TimeUnit.SECONDS), "Offering must be with blocking to full buffer");
+            assertEquals(elements, result, "Elements must be polled in order of offering");
+        }
+
+        assertFalse(buffer.offerAll(List.of(8, 9)), "Offering must be without blocking to non-full buffer");
+        assertEquals(8, buffer.poll());
+        assertEquals(9, buffer.poll());
+    }
+
+    @Test
+    public void testWhenMultipleProducersThenAllElementsConsumedInProducersOrder() throws Exception {
+        for (final BufferWaitStrategy waitStrategy : BufferWaitStrategy.values()) {
+            runMultipleProducersTest(waitStrategy);
+        }
+    }
+
+    private void runMultipleProducersTest(final BufferWaitStrategy waitStrategy) throws Exception {
+        final int producers = 4;
+        // busy spinning threads do not release the cores, so the load is reduced if there are not enough cores
+        final boolean notEnoughCores = Runtime.getRuntime().availableProcessors() <= producers;
+        final int elementsPerProducer = waitStrategy == BufferWaitStrategy.BUSY_SPIN && notEnoughCores ? 500 : 20_000;
+        final RingBuffer<long[]> buffer = new RingBuffer<>(64, waitStrategy);
+
+        try (final ExecutorService executorService = Executors.newFixedThreadPool(producers)) {
+            for (int p = 0; p < producers; p++) {
+                final int producer = p;
+                executorService.submit(() -> {
+                    for (int i = 0; i < elementsPerProducer; i++) {
+                        if (i % 2 == 0 || i == elementsPerProducer - 1) {
+                            buffer.offer(new long[] { producer, i });
+                        } else {
+                            buffer.offerAll(List.of(new long[] { producer, i }, new long[] { producer, ++i }));
+                        }
+                    }
+
+                    return null;
+                });
+            }
+
+            final int[] lastByProducer = new int[producers];
+            Arrays.fill(lastByProducer, -1);
+            for (int i = 0; i < producers * elementsPerProducer; i++) {
+                final long[] elem = i % 3 == 0 ? buffer.poll(5, TimeUnit.SECONDS) : buffer.poll();
+                assertNotNull(elem, "Element must be available");
+
+                final int producer = (int) elem[0];
+                assertEquals(lastByProducer[producer] + 1, (int) elem[1], "Elements of one producer must be consumed in offer order");
+                lastByProducer[producer] = (int) elem[1];
+            }
+
+            for (final int last : lastByProducer) {
+                assertEquals(elementsPerProducer - 1, last, "All elements of producer must be consumed");
+            }
+        }
+
+        assertNull(buffer.poll(10, TimeUnit.MILLISECONDS), "Buffer must be empty");
+    }
+
+    @Test
+    public void testWhenSequenceExceedsIntRangeThenBufferWorks() throws InterruptedException {
+        final long initialSequence = Integer.MAX_VALUE - 2;
+        final RingBuffer<Integer> buffer = new RingBuffer<>(3, BufferWaitStrategy.BLOCKING, initialSequence);
+        for (int i = 0; i < 10; i++) {
+            assertFalse(buffer.offer(i), "Offering must be without blocking to non-full buffer");
+            assertFalse(buffer.offer(i + 1), "Offering must be without blocking to non-full buffer");
+            assertEquals(i, buffer.poll());
+
+            final List<Integer> drained = new ArrayList<>();
+            assertEquals(1, buffer.drainTo(drained, 5));
+            assertEquals(List.of(i + 1), drained);
+        }
+
+        assertEquals(initialSequence + 20, buffer.currentReadIndex());
+        assertEquals(buffer.currentWritePosition() + 1, buffer.currentReadIndex());
+    }
 }
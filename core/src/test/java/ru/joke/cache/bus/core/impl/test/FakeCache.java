@@ -71,6 +71,12 @@ public class FakeCache<K extends Serializable, V extends Serializable> implement
         return Optional.ofNullable(map.computeIfAbsent(key, valueFunction));
     }
 
+    @Nonnull
+    @Override
+    public Optional<V> computeIfPresent(@Nonnull K key, @Nonnull BiFunction<? super K, ? super V, ? extends V> valueFunction) {
+        return Optional.ofNullable(map.computeIfPresent(key, valueFunction));
+    }
+
     @Override
     public void registerEventListener(@Nonnull CacheEventListener<K, V> listener) {
         this.cacheEventListener = listener;
@@ -3,6 +3,7 @@ package ru.joke.cache.bus.core.impl.test;
 import ru.joke.cache.bus.core.CacheEventMessageConsumer;
 import ru.joke.cache.bus.core.configuration.CacheBusMessageChannelConfiguration;
 import ru.joke.cache.bus.core.impl.ImmutableComponentState;
+import ru.joke.cache.bus.core.impl.internal.ImmutableCacheEntryOutputMessage;
 import ru.joke.cache.bus.core.state.ComponentState;
 import ru.joke.cache.bus.core.transport.CacheBusMessageChannel;
 import ru.joke.cache.bus.core.transport.CacheEntryOutputMessage;
@@ -25,7 +26,8 @@ public class FakeCacheBusMessageChannel implements CacheBusMessageChannel<CacheB
 
     @Override
     public void send(@Nonnull CacheEntryOutputMessage eventOutputMessage) {
-        this.messages.add(eventOutputMessage);
+        // The message can be reused by the producer after the sending
+        this.messages.add(new ImmutableCacheEntryOutputMessage(eventOutputMessage.cacheName(), eventOutputMessage.cacheEntryMessageBody(), eventOutputMessage.messageHashKey()));
     }
 
     @Override
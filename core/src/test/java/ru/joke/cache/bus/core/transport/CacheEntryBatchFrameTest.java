@@ -0,0 +1,53 @@
+package ru.joke.cache.bus.core.transport;
+
+import org.junit.jupiter.api.Test;
+import ru.joke.cache.bus.core.CacheEntryEvent;
+import ru.joke.cache.bus.core.CacheEntryEventType;
+import ru.joke.cache.bus.core.impl.ImmutableCacheEntryEvent;
+import ru.joke.cache.bus.core.impl.internal.ImmutableCacheEntryOutputMessage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CacheEntryBatchFrameTest {
+
+    @Test
+    public void testWhenEncodeAndSplitFrameThenMessagesRestoredInOrder() {
+        final List<CacheEntryOutputMessage> messages = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            final CacheEntryEvent<String, String> event = new ImmutableCacheEntryEvent<>(String.valueOf(i), null, "v" + i, CacheEntryEventType.ADDED, "test");
+            messages.add(new ImmutableCacheEntryOutputMessage(event, ("v" + i).getBytes()));
+        }
+
+        final byte[] frame = CacheEntryBatchFrame.encode(messages);
+
+        final List<Integer> hashes = new ArrayList<>();
+        final List<byte[]> bodies = new ArrayList<>();
+        final int count = CacheEntryBatchFrame.split(frame, (hash, body) -> {
+            hashes.add(hash);
+            bodies.add(body);
+        });
+
+        assertEquals(messages.size(), count, "Count of elements in frame must be equal to count of messages");
+        for (int i = 0; i < messages.size(); i++) {
+            assertEquals(messages.get(i).messageHashKey(), hashes.get(i), "Hash of message must be equal");
+            assertTrue(Arrays.equals(messages.get(i).cacheEntryMessageBody(), bodies.get(i)), "Body of message must be equal");
+        }
+    }
+
+    @Test
+    public void testWhenSplitMalformedFrameThenException() {
+        final byte[] frame = CacheEntryBatchFrame.encode(List.of());
+        assertEquals(0, CacheEntryBatchFrame.split(frame, (hash, body) -> fail("Empty frame must not contain elements")));
+
+        final byte[] truncatedFrame = Arrays.copyOf(frame, frame.length - 1);
+        assertThrows(MessageChannelException.class, () -> CacheEntryBatchFrame.split(truncatedFrame, (hash, body) -> {}));
+
+        final byte[] unknownVersionFrame = frame.clone();
+        unknownVersionFrame[0] = 100;
+        assertThrows(MessageChannelException.class, () -> CacheEntryBatchFrame.split(unknownVersionFrame, (hash, body) -> {}));
+    }
+}
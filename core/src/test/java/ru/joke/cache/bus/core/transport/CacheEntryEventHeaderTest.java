@@ -0,0 +1,99 @@
+package ru.joke.cache.bus.core.transport;
+
+import org.junit.jupiter.api.Test;
+import ru.joke.cache.bus.core.CacheEntryEvent;
+import ru.joke.cache.bus.core.CacheEntryEventType;
+import ru.joke.cache.bus.core.impl.ImmutableCacheEntryEvent;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CacheEntryEventHeaderTest {
+
+    @Test
+    public void testWhenHeaderWithStringKeyWrittenThenDecodedWithKey() throws IOException {
+        final CacheEntryEvent<String, String> event = new ImmutableCacheEntryEvent<>("ключ-1", null, "v", CacheEntryEventType.UPDATED, "кэш");
+        final byte[] body = new byte[] { 1, 2, 3 };
+        final byte[] data = write(event, body);
+
+        final CacheEntryEventHeader header = new CacheEntryEventHeader().read(data);
+
+        assertEquals(event.cacheName(), header.cacheName(), "Cache name must be equal");
+        assertEquals(event.eventType(), header.eventType(), "Event type must be equal");
+        assertEquals(event.eventTime(), header.eventTime(), "Event time must be equal");
+        assertTrue(header.hasStringKey(), "Key must be written to header");
+        assertEquals(event.key(), header.readStringKey(data), "Key must be equal");
+        assertTrue(header.hasBody(), "Body must be present");
+        assertArrayEquals(body, Arrays.copyOfRange(data, header.bodyOffset(), data.length), "Body must follow header");
+
+        final byte[] dataWithoutBody = write(event, new byte[0]);
+        assertFalse(header.read(dataWithoutBody).hasBody(), "Body must be absent");
+        assertEquals(event.key(), header.readStringKey(dataWithoutBody), "Key must be equal");
+    }
+
+    @Test
+    public void testWhenHeaderWithObjectKeyWrittenThenKeyInBody() throws IOException {
+        final CacheEntryEvent<Long, String> event = new ImmutableCacheEntryEvent<>(1L, null, null, CacheEntryEventType.EVICTED, "test");
+        final byte[] body = new byte[] { 1 };
+        final byte[] data = write(event, body);
+
+        final CacheEntryEventHeader header = new CacheEntryEventHeader().read(data);
+
+        assertEquals(event.cacheName(), header.cacheName(), "Cache name must be equal");
+        assertFalse(header.hasStringKey(), "Key must not be written to header");
+        assertEquals(data.length - body.length, header.bodyOffset(), "Body must follow header");
+        assertThrows(IllegalStateException.class, () -> header.readStringKey(data));
+
+        header.clear();
+        assertNull(header.cacheName(), "Header must be cleared");
+    }
+
+    @Test
+    public void testWhenHeaderReadFromPartOfArrayThenOffsetsInArray() throws IOException {
+        final CacheEntryEvent<String, String> event = new ImmutableCacheEntryEvent<>("key", null, null, CacheEntryEventType.ADDED, "test");
+        final byte[] body = new byte[] { 1, 2 };
+        final byte[] data = write(event, body);
+
+        final int offset = 5;
+        final byte[] array = new byte[offset + data.length + 3];
+        System.arraycopy(data, 0, array, offset, data.length);
+
+        final CacheEntryEventHeader header = new CacheEntryEventHeader().read(array, offset, data.length);
+
+        assertEquals(event.cacheName(), header.cacheName(), "Cache name must be equal");
+        assertEquals(event.key(), header.readStringKey(array), "Key must be equal");
+        assertEquals(offset + data.length - body.length, header.bodyOffset(), "Body offset must be offset in array");
+        assertEquals(body.length, header.bodyLength(), "Body length must not include the rest of array");
+
+        assertThrows(IllegalArgumentException.class, () -> header.read(array, offset, data.length - body.length - 1));
+        assertThrows(IllegalArgumentException.class, () -> header.read(array, array.length - 1, 2));
+    }
+
+    @Test
+    public void testWhenReadMalformedHeaderThenException() throws IOException {
+        final CacheEntryEvent<String, String> event = new ImmutableCacheEntryEvent<>("key", null, null, CacheEntryEventType.ADDED, "test");
+        final byte[] data = write(event, new byte[0]);
+        final CacheEntryEventHeader header = new CacheEntryEventHeader();
+
+        final byte[] truncatedData = Arrays.copyOf(data, data.length - 1);
+        assertThrows(IllegalArgumentException.class, () -> header.read(truncatedData));
+
+        final byte[] unknownVersionData = data.clone();
+        unknownVersionData[0] = 100;
+        assertThrows(IllegalArgumentException.class, () -> header.read(unknownVersionData));
+
+        assertThrows(IllegalArgumentException.class, () -> header.read(new byte[] { CacheEntryEventHeader.VERSION }));
+    }
+
+    private byte[] write(final CacheEntryEvent<?, ?> event, final byte[] body) throws IOException {
+        final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        CacheEntryEventHeader.write(new DataOutputStream(bos), event);
+        bos.write(body);
+
+        return bos.toByteArray();
+    }
+}
@@ -0,0 +1,129 @@
+package ru.joke.cache.bus.core.transport;
+
+import org.junit.jupiter.api.Test;
+import ru.joke.cache.bus.core.CacheEntryEventType;
+import ru.joke.cache.bus.core.impl.ImmutableCacheEntryEvent;
+
+import javax.annotation.Nonnull;
+import java.io.Serializable;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LazyCacheEntryEventTest {
+
+    private static final String CACHE = "test";
+
+    @Test
+    public void testWhenPartsAccessedThenDecodedOnlyOnceOnDemand() {
+        final CountingDecoder decoder = new CountingDecoder();
+        final byte[] data = new byte[] { 1 };
+        final long eventTime = System.currentTimeMillis();
+
+        final LazyCacheEntryEvent<String, String> flyweight = new LazyCacheEntryEvent<String, String>().wrap(data, eventTime, CacheEntryEventType.UPDATED, CACHE, decoder);
+
+        assertEquals(CACHE, flyweight.cacheName(), "Cache name must be equal");
+        assertEquals(CacheEntryEventType.UPDATED, flyweight.eventType(), "Event type must be equal");
+        assertEquals(eventTime, flyweight.eventTime(), "Event time must be equal");
+        assertSame(data, flyweight.data(), "Data must be wrapped");
+        assertEquals(0, decoder.decodedKeys + decoder.decodedValues, "Key and values must not be decoded before access");
+
+        assertEquals("k", flyweight.key(), "Key must be equal");
+        assertEquals("k", flyweight.key(), "Key must be equal");
+        assertEquals(1, decoder.decodedKeys, "Key must be decoded once");
+        assertEquals(0, decoder.decodedValues, "Values must not be decoded before access");
+
+        assertEquals("v2", flyweight.newValue(), "New value must be equal");
+        assertEquals("v1", flyweight.oldValue(), "Old value must be equal");
+        assertEquals(2, decoder.decodedValues, "Values must be decoded once");
+
+        assertEquals(new ImmutableCacheEntryEvent<>("k", "v1", "v2", eventTime, CacheEntryEventType.UPDATED, CACHE), flyweight.toImmutable(), "Immutable copy must be equal");
+    }
+
+    @Test
+    public void testWhenFlyweightClearedThenReleasedAndReusable() {
+        final CountingDecoder decoder = new CountingDecoder();
+        final LazyCacheEntryEvent<String, String> flyweight = new LazyCacheEntryEvent<>();
+
+        assertSame(flyweight, flyweight.wrap(new byte[] { 1 }, 1, CacheEntryEventType.EVICTED, CACHE, decoder), "Free flyweight must be reused");
+        final LazyCacheEntryEvent<String, String> nested = flyweight.wrap(new byte[] { 2 }, 2, CacheEntryEventType.EVICTED, CACHE, decoder);
+        assertNotSame(flyweight, nested, "Flyweight in use must not be reused");
+        assertEquals(1, flyweight.eventTime(), "Data of flyweight in use must not be overwritten");
+
+        flyweight.key();
+        flyweight.clear();
+
+        assertEquals(1, decoder.released, "Decoder must be released on clear");
+        assertNull(flyweight.data(), "Data must be released on clear");
+        assertSame(flyweight, flyweight.wrap(new byte[] { 3 }, 3, CacheEntryEventType.EVICTED, CACHE, decoder), "Cleared flyweight must be reused");
+
+        flyweight.key();
+        assertEquals(2, decoder.decodedKeys, "Key must be decoded again after reuse");
+    }
+
+    @Test
+    public void testWhenWrapWithInvalidHeaderThenException() {
+        final LazyCacheEntryEvent<String, String> flyweight = new LazyCacheEntryEvent<>();
+        final CountingDecoder decoder = new CountingDecoder();
+
+        assertThrows(IllegalArgumentException.class, () -> flyweight.wrap(new byte[0], 0, CacheEntryEventType.ADDED, CACHE, decoder));
+        assertThrows(IllegalArgumentException.class, () -> flyweight.wrap(new byte[0], 1, CacheEntryEventType.ADDED, "", decoder));
+        assertThrows(NullPointerException.class, () -> flyweight.wrap(new byte[0], 1, CacheEntryEventType.ADDED, CACHE, null));
+        assertNull(flyweight.data(), "Flyweight must stay free after failed wrap");
+    }
+
+    @Test
+    public void testWhenKeyNotDecodedThenFailureIsSticky() {
+        final CountingDecoder decoder = new CountingDecoder();
+        decoder.failKeyDecoding = true;
+        final LazyCacheEntryEvent<String, String> flyweight = new LazyCacheEntryEvent<String, String>().wrap(new byte[] { 1 }, 1, CacheEntryEventType.UPDATED, CACHE, decoder);
+
+        assertThrows(IllegalArgumentException.class, flyweight::key, "Decoding failure must be thrown");
+        assertThrows(IllegalStateException.class, flyweight::key, "Key must not be decoded again after failure");
+        assertThrows(IllegalStateException.class, flyweight::newValue, "Values must not be decoded after failure of key decoding");
+        assertEquals(1, decoder.decodedKeys, "Decoder must not be called again after failure");
+        assertEquals(0, decoder.decodedValues, "Values must not be decoded after failure");
+
+        flyweight.clear();
+        decoder.failKeyDecoding = false;
+        assertEquals("k", flyweight.wrap(new byte[] { 2 }, 2, CacheEntryEventType.UPDATED, CACHE, decoder).key(), "Failure must be reset on clear");
+    }
+
+    private static class CountingDecoder implements LazyCacheEntryEvent.Decoder {
+
+        private boolean failKeyDecoding;
+        private int decodedKeys;
+        private int decodedValues;
+        private int released;
+
+        @Nonnull
+        @Override
+        @SuppressWarnings("unchecked")
+        public <K extends Serializable> K decodeKey(@Nonnull byte[] data) {
+            this.decodedKeys++;
+            if (this.failKeyDecoding) {
+                throw new IllegalArgumentException("Malformed key");
+            }
+
+            return (K) "k";
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <V extends Serializable> V decodeOldValue(@Nonnull byte[] data) {
+            this.decodedValues++;
+            return (V) "v1";
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <V extends Serializable> V decodeNewValue(@Nonnull byte[] data) {
+            this.decodedValues++;
+            return (V) "v2";
+        }
+
+        @Override
+        public void release() {
+            this.released++;
+        }
+    }
+}
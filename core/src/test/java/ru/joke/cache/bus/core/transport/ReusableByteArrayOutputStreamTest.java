@@ -0,0 +1,40 @@
+package ru.joke.cache.bus.core.transport;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReusableByteArrayOutputStreamTest {
+
+    @Test
+    public void testWhenBufferRequestedThenArrayOfStreamShared() {
+        final ReusableByteArrayOutputStream stream = new ReusableByteArrayOutputStream(4, 16);
+        stream.write(new byte[] { 1, 2, 3 }, 0, 3);
+
+        final ByteBuffer buffer = stream.toByteBuffer();
+        assertEquals(3, buffer.remaining(), "Buffer must contain only written bytes");
+        assertArrayEquals(stream.toByteArray(), ByteBuffers.toByteArray(buffer), "Buffer must contain written bytes");
+        assertEquals(0, buffer.position(), "Copying of buffer must not change its position");
+
+        stream.reset();
+        stream.write(9);
+
+        assertEquals(9, buffer.get(0), "Array must be reused after reset");
+    }
+
+    @Test
+    public void testWhenStreamGrownBeyondRetainedCapacityThenArrayReleasedOnReset() {
+        final ReusableByteArrayOutputStream stream = new ReusableByteArrayOutputStream(4, 8);
+        stream.write(new byte[32], 0, 32);
+
+        final ByteBuffer grownBuffer = stream.toByteBuffer();
+        stream.reset();
+        stream.write(7);
+
+        assertEquals(0, grownBuffer.get(0), "Grown array must not be reused after reset");
+        assertEquals(1, stream.size(), "Stream must be empty after reset");
+        assertThrows(IllegalArgumentException.class, () -> new ReusableByteArrayOutputStream(8, 4));
+    }
+}
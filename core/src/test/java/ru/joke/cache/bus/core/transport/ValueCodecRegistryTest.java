@@ -0,0 +1,156 @@
+package ru.joke.cache.bus.core.transport;
+
+import org.junit.jupiter.api.Test;
+import ru.joke.cache.bus.core.configuration.ConfigurationException;
+
+import javax.annotation.Nonnull;
+import java.io.*;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ValueCodecRegistryTest {
+
+    @Test
+    public void testWhenBuiltInTypesWrittenThenReadEqualAndCompact() throws IOException {
+        final ValueCodecRegistry registry = ValueCodecRegistry.createDefault();
+
+        final List<Object> values = List.of("key-1", "", "ключ", 1L, -1L, Long.MAX_VALUE, 42, Integer.MIN_VALUE, UUID.randomUUID(),
+                (short) -3, (byte) 7, true, 'c', 1.5d, 2.5f);
+        for (final Object value : values) {
+            assertEquals(value, readBack(registry, write(registry, value)), "Value must be equal after reading: " + value);
+        }
+
+        assertNull(readBack(registry, write(registry, null)), "Null must be read as null");
+        assertEquals(1, write(registry, null).length, "Null must be written as single byte");
+        assertEquals(2, write(registry, 42L).length, "Small long must be written as codec id and single byte");
+        assertEquals(7, write(registry, "key-1").length, "Short string must be written as codec id, length and bytes");
+    }
+
+    @Test
+    public void testWhenRecordRegisteredThenComponentsWrittenWithCodecs() throws IOException {
+        final ValueCodecRegistry registry =
+                ValueCodecRegistry.builder()
+                                    .registerRecord(32, CompositeKey.class)
+                                    .registerRecord(33, Wrapper.class)
+                                  .build();
+
+        final Wrapper value = new Wrapper(new CompositeKey("tenant", 15, true, 'x', null), List.of("a", "b"));
+        final byte[] data = write(registry, value);
+
+        assertEquals(value, readBack(registry, data), "Record must be equal after reading");
+        assertTrue(data.length < write(ValueCodecRegistry.createDefault(), value).length, "Registered record must be written more compact than serialized one");
+        assertEquals(value, readBack(ValueCodecRegistry.createDefault(), write(ValueCodecRegistry.createDefault(), value)), "Unregistered record must be serialized");
+
+        assertThrows(IOException.class, () -> readBack(ValueCodecRegistry.createDefault(), data), "Codec must be registered on reading side");
+    }
+
+    @Test
+    public void testWhenCustomCodecRegisteredThenUsedByIdAndType() throws IOException {
+        final TagCodec codec = new TagCodec();
+        final ValueCodecRegistry registry = ValueCodecRegistry.builder().register(codec).build();
+
+        assertSame(codec, registry.findByType(Tag.class), "Codec must be found by type");
+        assertSame(registry, codec.registry, "Codec must be bound to registry");
+        assertSame(codec, registry.findById(codec.id()), "Codec must be found by id");
+        assertSame(ValueCodecs.STRING, registry.findById(ValueCodecs.STRING.id()), "Built-in codec must be registered");
+        assertNull(registry.findById(1000), "Codec must not be found by unknown id");
+        assertEquals(new Tag("t"), readBack(registry, write(registry, new Tag("t"))), "Custom type must be equal after reading");
+    }
+
+    @Test
+    public void testWhenInvalidCodecsRegisteredThenException() {
+        assertThrows(ConfigurationException.class, () -> ValueCodecRegistry.builder().registerRecord(ValueCodecs.MAX_RESERVED_ID, CompositeKey.class));
+        assertThrows(ConfigurationException.class, () -> ValueCodecRegistry.builder().registerRecord(ValueCodecs.MAX_ID + 1, CompositeKey.class));
+        assertThrows(ConfigurationException.class, () -> ValueCodecRegistry.builder().registerRecord(40, CompositeKey.class).register(new TagCodec(40)));
+        assertThrows(ConfigurationException.class, () -> ValueCodecRegistry.builder().register(new TagCodec(40)).register(new TagCodec(41)).build());
+    }
+
+    @Test
+    public void testVarInts() throws IOException {
+        final long[] values = { 0, 1, -1, 63, -64, 64, 127, 128, Integer.MAX_VALUE, Integer.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE };
+        for (final long value : values) {
+            final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            final DataOutputStream output = new DataOutputStream(bos);
+            VarInts.writeVarLong(output, value);
+            VarInts.writeUnsignedVarLong(output, value);
+            VarInts.writeVarInt(output, (int) value);
+            VarInts.writeUnsignedVarInt(output, (int) value);
+
+            final DataInputStream input = new DataInputStream(new ByteArrayInputStream(bos.toByteArray()));
+            assertEquals(value, VarInts.readVarLong(input), "Signed long must be equal");
+            assertEquals(value, VarInts.readUnsignedVarLong(input), "Unsigned long must be equal");
+            assertEquals((int) value, VarInts.readVarInt(input), "Signed int must be equal");
+            assertEquals((int) value, VarInts.readUnsignedVarInt(input), "Unsigned int must be equal");
+        }
+
+        final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        VarInts.writeVarInt(new DataOutputStream(bos), -1);
+        assertEquals(1, bos.size(), "Small negative number must be written as single byte");
+    }
+
+    private byte[] write(final ValueCodecRegistry registry, final Object value) throws IOException {
+        final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        registry.write(value, new DataOutputStream(bos));
+        return bos.toByteArray();
+    }
+
+    private Object readBack(final ValueCodecRegistry registry, final byte[] data) throws IOException {
+        final DataInputStream input = new DataInputStream(new ByteArrayInputStream(data));
+        final Object result = registry.read(input);
+        assertEquals(-1, input.read(), "All bytes must be read");
+
+        return result;
+    }
+
+    private record CompositeKey(String tenant, long id, boolean active, char type, Integer version) implements Serializable {
+    }
+
+    private record Wrapper(CompositeKey key, List<String> tags) implements Serializable {
+    }
+
+    private record Tag(String name) implements Serializable {
+    }
+
+    private static class TagCodec implements ValueCodec<Tag> {
+
+        private final int id;
+        private ValueCodecRegistry registry;
+
+        private TagCodec() {
+            this(100);
+        }
+
+        private TagCodec(final int id) {
+            this.id = id;
+        }
+
+        @Override
+        public int id() {
+            return this.id;
+        }
+
+        @Nonnull
+        @Override
+        public Class<Tag> type() {
+            return Tag.class;
+        }
+
+        @Override
+        public void encode(@Nonnull Tag value, @Nonnull DataOutput output) throws IOException {
+            output.writeUTF(value.name());
+        }
+
+        @Nonnull
+        @Override
+        public Tag decode(@Nonnull DataInput input) throws IOException {
+            return new Tag(input.readUTF());
+        }
+
+        @Override
+        public void bind(@Nonnull ValueCodecRegistry registry) {
+            this.registry = registry;
+        }
+    }
+}
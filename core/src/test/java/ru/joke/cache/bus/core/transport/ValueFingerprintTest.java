@@ -0,0 +1,112 @@
+package ru.joke.cache.bus.core.transport;
+
+import org.junit.jupiter.api.Test;
+import ru.joke.cache.bus.core.CacheEntryEvent;
+import ru.joke.cache.bus.core.CacheEntryEventType;
+import ru.joke.cache.bus.core.configuration.CacheType;
+import ru.joke.cache.bus.core.configuration.InvalidCacheConfigurationException;
+import ru.joke.cache.bus.core.impl.ImmutableCacheEntryEvent;
+import ru.joke.cache.bus.core.impl.configuration.ImmutableCacheConfiguration;
+import ru.joke.cache.bus.core.impl.test.FakeCache;
+
+import java.io.*;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ValueFingerprintTest {
+
+    private static final String CACHE_NAME = "test";
+
+    @Test
+    public void testWhenValuesEqualThenFingerprintsEqual() throws IOException {
+        final ValueCodecRegistry registry = ValueCodecRegistry.builder().registerRecord(40, Order.class).build();
+
+        final Order order = new Order("o-1", 15, List.of("a", "b"));
+        final ValueFingerprint fingerprint = ValueFingerprint.of(order, registry);
+
+        assertEquals(fingerprint, ValueFingerprint.of(new Order("o-1", 15, List.of("a", "b")), registry), "Fingerprints of equal values must be equal");
+        assertEquals(fingerprint, ValueFingerprint.of(order, ValueCodecRegistry.builder().registerRecord(40, Order.class).build()), "Fingerprints must not depend on registry instance");
+        assertNotEquals(fingerprint, ValueFingerprint.of(new Order("o-1", 16, List.of("a", "b")), registry), "Fingerprints of different values must differ");
+        assertNotEquals(fingerprint, ValueFingerprint.of(new Order("o-1", 15, List.of("a", "c")), registry), "Fingerprints of different values must differ");
+        assertNotEquals(ValueFingerprint.of("", registry), ValueFingerprint.of(null, registry), "Fingerprints of empty and null values must differ");
+        assertTrue(fingerprint.matches(order, registry), "Fingerprint must match the value");
+
+        // Tails of all lengths are hashed
+        for (int length = 0; length < 40; length++) {
+            final String value = "x".repeat(length);
+            assertEquals(ValueFingerprint.of(value, registry), ValueFingerprint.of(value, registry), "Fingerprint must be stable");
+            assertNotEquals(ValueFingerprint.of(value, registry), ValueFingerprint.of(value + "y", registry), "Fingerprints of different values must differ");
+        }
+
+        final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        registry.write(fingerprint, new DataOutputStream(bos));
+        assertEquals(17, bos.size(), "Fingerprint must be written with the built-in codec");
+        assertEquals(fingerprint, registry.read(new DataInputStream(new ByteArrayInputStream(bos.toByteArray()))), "Fingerprint must be equal after reading");
+    }
+
+    @Test
+    public void testWhenValueTypeNotRegisteredThenFingerprintComputedOverSerialization() {
+        final ValueCodecRegistry registry = ValueCodecRegistry.createDefault();
+        assertNull(registry.findByType(Order.class), "Codec of value type must not be registered");
+
+        final Order order = new Order("o-1", 15, List.of("a", "b"));
+        final ValueFingerprint fingerprint = ValueFingerprint.of(order, registry);
+
+        assertEquals(fingerprint, ValueFingerprint.of(new Order("o-1", 15, List.of("a", "b")), registry), "Fingerprints of equal values must be equal");
+        assertNotEquals(fingerprint, ValueFingerprint.of(new Order("o-1", 16, List.of("a", "b")), registry), "Fingerprints of different values must differ");
+        assertNotEquals(fingerprint, ValueFingerprint.of(order, ValueCodecRegistry.builder().registerRecord(40, Order.class).build()), "Fingerprint must be computed over serialized value");
+        assertTrue(fingerprint.matches(order, registry), "Fingerprint must match the value");
+
+        final FakeCache<String, Serializable> cache = new FakeCache<>(CACHE_NAME);
+        cache.put("1", order);
+        cache.put("2", new Order("o-2", 1, List.of()));
+
+        final CacheEntryEvent<String, Serializable> event1 = new ImmutableCacheEntryEvent<>("1", fingerprint, new Order("o-1", 16, List.of()), CacheEntryEventType.UPDATED, CACHE_NAME);
+        event1.applyToReplicatedCache(cache, registry);
+        final CacheEntryEvent<String, Serializable> event2 = new ImmutableCacheEntryEvent<>("2", fingerprint, new Order("o-2", 2, List.of()), CacheEntryEventType.UPDATED, CACHE_NAME);
+        event2.applyToReplicatedCache(cache, registry);
+
+        assertEquals(new Order("o-1", 16, List.of()), cache.get("1").orElse(null), "Value must be replaced when fingerprint of old value matches local value");
+        assertTrue(cache.get("2").isEmpty(), "Value must be evicted when fingerprint of old value doesn't match local value");
+    }
+
+    @Test
+    public void testWhenEventCarriesFingerprintThenConflictsDetectedByFingerprint() {
+        final ValueCodecRegistry registry = ValueCodecRegistry.createDefault();
+        final FakeCache<String, Serializable> cache = new FakeCache<>(CACHE_NAME);
+        cache.put("1", "v1");
+        cache.put("2", "v2");
+        cache.put("3", "v3");
+
+        applyToReplicatedCache(cache, "1", ValueFingerprint.of("v1", registry), "v1-new");
+        applyToReplicatedCache(cache, "2", ValueFingerprint.of("other", registry), "v2-new");
+        applyToReplicatedCache(cache, "3", ValueFingerprint.of("other", registry), "v3");
+
+        assertEquals("v1-new", cache.get("1").orElse(null), "Value must be replaced when fingerprint of old value matches local value");
+        assertTrue(cache.get("2").isEmpty(), "Value must be evicted when fingerprint of old value doesn't match local value");
+        assertEquals("v3", cache.get("3").orElse(null), "Value must be kept when local value equals new value");
+
+        assertThrows(
+                InvalidCacheConfigurationException.class,
+                () -> ImmutableCacheConfiguration.builder()
+                                                    .setCacheName(CACHE_NAME)
+                                                    .setCacheType(CacheType.INVALIDATED)
+                                                    .useOldValueFingerprints(true)
+                                                 .build(),
+                "Fingerprints allowed only for replicated caches"
+        );
+    }
+
+    private void applyToReplicatedCache(
+            final FakeCache<String, Serializable> cache,
+            final String key,
+            final ValueFingerprint oldValueFingerprint,
+            final String newValue) {
+        final CacheEntryEvent<String, Serializable> event = new ImmutableCacheEntryEvent<>(key, oldValueFingerprint, newValue, CacheEntryEventType.UPDATED, CACHE_NAME);
+        event.applyToReplicatedCache(cache, ValueCodecRegistry.createDefault());
+    }
+
+    private record Order(String id, int count, List<String> tags) implements Serializable {
+    }
+}
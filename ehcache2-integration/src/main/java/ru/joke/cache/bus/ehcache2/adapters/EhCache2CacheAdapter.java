@@ -116,6 +116,34 @@ public final class EhCache2CacheAdapter<K extends Serializable, V extends Serial
         }
     }
 
+    @Nonnull
+    @Override
+    public Optional<V> computeIfPresent(@Nonnull K key, @Nonnull BiFunction<? super K, ? super V, ? extends V> valueFunction) {
+
+        Objects.requireNonNull(key, "key");
+        Objects.requireNonNull(valueFunction, "valueFunction");
+
+        this.cache.acquireWriteLockOnKey(key);
+        try {
+            final Element v = this.cache.get(key);
+            if (v == null || v.getObjectValue() == null) {
+                return Optional.empty();
+            }
+
+            final V oldValue = castValue(v.getObjectValue());
+            final V newValue = valueFunction.apply(key, oldValue);
+            if (newValue == null) {
+                this.cache.remove(key);
+            } else if (newValue != oldValue) {
+                this.cache.put(new Element(key, newValue), true);
+            }
+
+            return Optional.ofNullable(newValue);
+        } finally {
+            this.cache.releaseWriteLockOnKey(key);
+        }
+    }
+
     @Override
     public void registerEventListener(@Nonnull ru.joke.cache.bus.core.CacheEventListener<K, V> listener) {
 
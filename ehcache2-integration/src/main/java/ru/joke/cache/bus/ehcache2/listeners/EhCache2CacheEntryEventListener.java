@@ -4,7 +4,7 @@ import ru.joke.cache.bus.core.CacheBus;
 import ru.joke.cache.bus.core.CacheEntryEvent;
 import ru.joke.cache.bus.core.CacheEntryEventType;
 import ru.joke.cache.bus.core.CacheEventListener;
-import ru.joke.cache.bus.core.impl.ImmutableCacheEntryEvent;
+import ru.joke.cache.bus.core.impl.MutableCacheEntryEvent;
 import net.sf.ehcache.CacheException;
 import net.sf.ehcache.Ehcache;
 import net.sf.ehcache.Element;
@@ -22,6 +22,7 @@ final class EhCache2CacheEntryEventListener<K extends Serializable, V extends Se
 
     private final String listenerId;
     private final CacheBus cacheBus;
+    private final ThreadLocal<MutableCacheEntryEvent<Serializable, V>> eventCarriers = ThreadLocal.withInitial(MutableCacheEntryEvent::new);
 
     public EhCache2CacheEntryEventListener(@Nonnull String listenerId, @Nonnull CacheBus cacheBus) {
         this.cacheBus = Objects.requireNonNull(cacheBus, "cacheBus");
@@ -37,68 +38,63 @@ final class EhCache2CacheEntryEventListener<K extends Serializable, V extends Se
     public void notifyElementPut(@Nonnull Ehcache cache, @Nonnull Element element) throws CacheException {
         @SuppressWarnings("unchecked")
         final V newVal = (V) element.getObjectValue();
-        final CacheEntryEvent<?, V> event = composeCacheEntryEvent(
+        sendToBus(
                 (Serializable) element.getObjectKey(),
                 null,
                 newVal,
                 CacheEntryEventType.ADDED,
                 cache.getName()
         );
-        this.cacheBus.send(event);
     }
 
     @Override
     public void notifyElementUpdated(@Nonnull Ehcache cache, @Nonnull Element element) throws CacheException {
         @SuppressWarnings("unchecked")
         final V newVal = (V) element.getObjectValue();
-        final CacheEntryEvent<?, V> event = composeCacheEntryEvent(
+        sendToBus(
                 (Serializable) element.getObjectKey(),
                 null,
                 newVal,
                 CacheEntryEventType.UPDATED,
                 cache.getName()
         );
-        this.cacheBus.send(event);
     }
 
     @Override
     public void notifyElementExpired(@Nonnull Ehcache cache, @Nonnull Element element) {
         @SuppressWarnings("unchecked")
         final V oldVal = (V) element.getObjectValue();
-        final CacheEntryEvent<?, V> event = composeCacheEntryEvent(
+        sendToBus(
                 (Serializable) element.getObjectKey(),
                 oldVal,
                 null,
                 CacheEntryEventType.EXPIRED,
                 cache.getName()
         );
-        this.cacheBus.send(event);
     }
 
     @Override
     public void notifyElementEvicted(@Nonnull Ehcache cache, @Nonnull Element element) {
         @SuppressWarnings("unchecked")
         final V oldVal = (V) element.getObjectValue();
-        final CacheEntryEvent<?, V> event = composeCacheEntryEvent(
+        sendToBus(
                 (Serializable) element.getObjectKey(),
                 oldVal,
                 null,
                 CacheEntryEventType.EVICTED,
                 cache.getName()
         );
-        this.cacheBus.send(event);
     }
 
     @Override
     public void notifyRemoveAll(@Nonnull Ehcache cache) {
-        final CacheEntryEvent<?, V> event = composeCacheEntryEvent(
+        sendToBus(
                 CacheEntryEvent.ALL_ENTRIES_KEY,
                 null,
                 null,
                 CacheEntryEventType.EVICTED,
                 cache.getName()
         );
-        this.cacheBus.send(event);
     }
 
     @Override
@@ -128,14 +124,14 @@ final class EhCache2CacheEntryEventListener<K extends Serializable, V extends Se
                 '}';
     }
 
-    private CacheEntryEvent<Serializable, V> composeCacheEntryEvent(
+    private void sendToBus(
             final Serializable key,
             final V oldValue,
             final V newValue,
             final CacheEntryEventType eventType,
             final String cacheName) {
 
-        return new ImmutableCacheEntryEvent<>(
+        final MutableCacheEntryEvent<Serializable, V> busEvent = this.eventCarriers.get().fill(
                 key,
                 oldValue,
                 newValue,
@@ -143,5 +139,10 @@ final class EhCache2CacheEntryEventListener<K extends Serializable, V extends Se
                 eventType,
                 cacheName
         );
+        try {
+            this.cacheBus.send(busEvent);
+        } finally {
+            busEvent.clear();
+        }
     }
 }
@@ -28,9 +28,9 @@ public class EhCache2CacheEntryEventListenerTest extends BaseCacheEventListenerT
         callListener(ActionType.REMOVED_ALL, Collections.singletonList(new Element(null, null)));
 
         // checks
-        assertEquals(1, this.busEventCaptor.getAllValues().size(), "Count of sent to bus events must be 1");
+        assertEquals(1, this.sentBusEvents.size(), "Count of sent to bus events must be 1");
 
-        final var busEvent1 = this.busEventCaptor.getAllValues().get(0);
+        final var busEvent1 = this.sentBusEvents.get(0);
         makeResultBusEventChecks(busEvent1, CacheEntryEvent.ALL_ENTRIES_KEY, null, null, CacheEntryEventType.EVICTED);
     }
 
@@ -103,6 +103,28 @@ public final class EhCache3CacheAdapter<K extends Serializable, V extends Serial
         return Optional.ofNullable(v);
     }
 
+    @Nonnull
+    @Override
+    public Optional<V> computeIfPresent(@Nonnull K key, @Nonnull BiFunction<? super K, ? super V, ? extends V> valueFunction) {
+
+        Objects.requireNonNull(key, "key");
+        Objects.requireNonNull(valueFunction, "valueFunction");
+
+        final V oldValue = this.cache.get(key);
+        if (oldValue == null) {
+            return Optional.empty();
+        }
+
+        final V newValue = valueFunction.apply(key, oldValue);
+        if (newValue == oldValue) {
+            return Optional.of(oldValue);
+        } else if (newValue == null) {
+            return this.cache.remove(key, oldValue) ? Optional.empty() : Optional.ofNullable(this.cache.get(key));
+        }
+
+        return this.cache.replace(key, oldValue, newValue) ? Optional.of(newValue) : Optional.ofNullable(this.cache.get(key));
+    }
+
     @Override
     public void registerEventListener(@Nonnull ru.joke.cache.bus.core.CacheEventListener<K, V> listener) {
 
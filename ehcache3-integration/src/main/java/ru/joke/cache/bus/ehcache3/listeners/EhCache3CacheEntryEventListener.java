@@ -1,9 +1,8 @@
 package ru.joke.cache.bus.ehcache3.listeners;
 
 import ru.joke.cache.bus.core.CacheBus;
-import ru.joke.cache.bus.core.CacheEntryEvent;
 import ru.joke.cache.bus.core.CacheEntryEventType;
-import ru.joke.cache.bus.core.impl.ImmutableCacheEntryEvent;
+import ru.joke.cache.bus.core.impl.MutableCacheEntryEvent;
 import org.ehcache.event.CacheEvent;
 import org.ehcache.event.CacheEventListener;
 import org.ehcache.event.EventType;
@@ -21,6 +20,7 @@ final class EhCache3CacheEntryEventListener<K extends Serializable, V extends Se
     private final String listenerId;
     private final CacheBus cacheBus;
     private final String cacheName;
+    private final ThreadLocal<MutableCacheEntryEvent<K, V>> eventCarriers = ThreadLocal.withInitial(MutableCacheEntryEvent::new);
 
     public EhCache3CacheEntryEventListener(
             @Nonnull String listenerId,
@@ -33,7 +33,7 @@ final class EhCache3CacheEntryEventListener<K extends Serializable, V extends Se
 
     @Override
     public void onEvent(@Nonnull CacheEvent<? extends K, ? extends V> cacheEvent) {
-        final CacheEntryEvent<K, V> busEvent = new ImmutableCacheEntryEvent<>(
+        final MutableCacheEntryEvent<K, V> busEvent = this.eventCarriers.get().fill(
                 cacheEvent.getKey(),
                 cacheEvent.getOldValue(),
                 cacheEvent.getNewValue(),
@@ -41,7 +41,11 @@ final class EhCache3CacheEntryEventListener<K extends Serializable, V extends Se
                 convertEhCacheEventType2BusType(cacheEvent.getType()),
                 this.cacheName
         );
-        this.cacheBus.send(busEvent);
+        try {
+            this.cacheBus.send(busEvent);
+        } finally {
+            busEvent.clear();
+        }
     }
 
     @Override
@@ -75,6 +75,12 @@ public final class InfinispanCacheAdapter<K extends Serializable, V extends Seri
         return Optional.ofNullable(this.cache.computeIfAbsent(key, valueFunction));
     }
 
+    @Nonnull
+    @Override
+    public Optional<V> computeIfPresent(@Nonnull K key, @Nonnull BiFunction<? super K, ? super V, ? extends V> valueFunction) {
+        return Optional.ofNullable(this.cache.computeIfPresent(key, valueFunction));
+    }
+
     @Override
     public void registerEventListener(@Nonnull CacheEventListener<K, V> listener) {
         this.cache.addListener(listener);
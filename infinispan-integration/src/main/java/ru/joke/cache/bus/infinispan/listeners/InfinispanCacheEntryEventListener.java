@@ -3,13 +3,14 @@ package ru.joke.cache.bus.infinispan.listeners;
 import ru.joke.cache.bus.core.CacheBus;
 import ru.joke.cache.bus.core.CacheEntryEventType;
 import ru.joke.cache.bus.core.CacheEventListener;
-import ru.joke.cache.bus.core.impl.ImmutableCacheEntryEvent;
+import ru.joke.cache.bus.core.impl.MutableCacheEntryEvent;
 import org.infinispan.notifications.Listener;
 import org.infinispan.notifications.cachelistener.annotation.*;
 import org.infinispan.notifications.cachelistener.event.*;
 
 import javax.annotation.Nonnull;
 import java.io.Serializable;
+import java.util.Map;
 import java.util.Objects;
 
 @Listener
@@ -17,6 +18,7 @@ final class InfinispanCacheEntryEventListener<K extends Serializable, V extends
 
     private final String listenerId;
     private final CacheBus cacheBus;
+    private final ThreadLocal<MutableCacheEntryEvent<K, V>> eventCarriers = ThreadLocal.withInitial(MutableCacheEntryEvent::new);
 
     public InfinispanCacheEntryEventListener(@Nonnull String listenerId, @Nonnull CacheBus cacheBus) {
         this.listenerId = Objects.requireNonNull(listenerId, "listenerId");
@@ -50,18 +52,10 @@ final class InfinispanCacheEntryEventListener<K extends Serializable, V extends
 
     @CacheEntriesEvicted
     public void onEntriesEvicted(@Nonnull CacheEntriesEvictedEvent<K, V> event) {
-        event.getEntries().forEach((key, value) -> {
-
-            final ru.joke.cache.bus.core.CacheEntryEvent<K, V> busEvent = new ImmutableCacheEntryEvent<>(
-                    key,
-                    value,
-                    null,
-                    System.currentTimeMillis(),
-                    CacheEntryEventType.EVICTED,
-                    event.getCache().getName()
-            );
-            this.cacheBus.send(busEvent);
-        });
+        final String cacheName = event.getCache().getName();
+        for (final Map.Entry<K, V> entry : event.getEntries().entrySet()) {
+            sendToBus(entry.getKey(), entry.getValue(), null, CacheEntryEventType.EVICTED, cacheName);
+        }
     }
 
     @Override
@@ -96,15 +90,28 @@ final class InfinispanCacheEntryEventListener<K extends Serializable, V extends
             final V oldValue,
             final V newValue,
             final CacheEntryEventType eventType) {
+        sendToBus(event.getKey(), oldValue, newValue, eventType, event.getCache().getName());
+    }
 
-        final ru.joke.cache.bus.core.CacheEntryEvent<K, V> busEvent = new ImmutableCacheEntryEvent<>(
-                event.getKey(),
+    private void sendToBus(
+            final K key,
+            final V oldValue,
+            final V newValue,
+            final CacheEntryEventType eventType,
+            final String cacheName) {
+
+        final MutableCacheEntryEvent<K, V> busEvent = this.eventCarriers.get().fill(
+                key,
                 oldValue,
                 newValue,
                 System.currentTimeMillis(),
                 eventType,
-                event.getCache().getName()
+                cacheName
         );
-        this.cacheBus.send(busEvent);
+        try {
+            this.cacheBus.send(busEvent);
+        } finally {
+            busEvent.clear();
+        }
     }
 }
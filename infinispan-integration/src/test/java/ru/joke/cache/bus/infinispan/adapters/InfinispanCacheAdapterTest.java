@@ -481,7 +481,7 @@ public class InfinispanCacheAdapterTest extends BaseCacheTest {
 
             @Override
             public String computeIfPresent(String key, BiFunction<? super String, ? super String, ? extends String> remappingFunction) {
-                throw new UnsupportedOperationException();
+                return map.computeIfPresent(key, remappingFunction);
             }
 
             @Override
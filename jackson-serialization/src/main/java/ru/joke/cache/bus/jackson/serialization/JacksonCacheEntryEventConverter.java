@@ -1,38 +1,54 @@
 package ru.joke.cache.bus.jackson.serialization;
 
-import com.fasterxml.jackson.annotation.JsonFilter;
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.*;
+import com.fasterxml.jackson.databind.jsontype.TypeResolverBuilder;
 import com.fasterxml.jackson.databind.module.SimpleModule;
-import com.fasterxml.jackson.databind.ser.FilterProvider;
-import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
-import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
 import ru.joke.cache.bus.core.CacheEntryEvent;
+import ru.joke.cache.bus.core.configuration.ConfigurationException;
+import ru.joke.cache.bus.core.impl.ImmutableCacheEntryEvent;
+import ru.joke.cache.bus.core.transport.ByteBuffers;
 import ru.joke.cache.bus.core.transport.CacheEntryEventConverter;
+import ru.joke.cache.bus.core.transport.CacheEntryEventHeader;
+import ru.joke.cache.bus.core.transport.LazyCacheEntryEvent;
+import ru.joke.cache.bus.core.transport.ReusableByteArrayOutputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.NotThreadSafe;
 import javax.annotation.concurrent.ThreadSafe;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.Serializable;
-import java.util.Collections;
-import java.util.Set;
+import java.nio.ByteBuffer;
+import java.util.*;
 
 /**
  * Implementation of a converter for serializing/deserializing cache entry change events
- * based on the Jackson library. The conversion is done in JSON format.<br>
+ * based on the Jackson library. The event is written in the header-first format (see {@link CacheEntryEventHeader}),
+ * the body of the event (the key if it isn't a string and the values) is written in JSON format, so the events with the string keys
+ * are decoded into the flyweight without the JSON parsing until the values are accessed.
+ * The events are serialized into the thread-local reusable streams and the heap buffers are decoded in place.<br>
  * The converter requires specific settings from {@link ObjectMapper}, and if a pre-configured
  * {@link ObjectMapper} is needed, which is used for serializing objects used as cache keys and values,
  * the converter can be instantiated by calling {@linkplain JacksonCacheEntryEventConverter#create(ObjectMapper)}.
  * This factory method will create a copy of the {@linkplain ObjectMapper} and then configure it to the required state.
  * If the key and value objects are not serialized according to specific rules defined in the application's
  * {@link ObjectMapper}, it is better to use the method {@link JacksonCacheEntryEventConverter#create()}
- * to instantiate the converter.
+ * to instantiate the converter.<br>
+ * The {@linkplain JacksonCacheEntryEventConverter#builder() builder} of the converter allows to use the binary
+ * {@linkplain JacksonFormat formats} (Smile or CBOR) instead of the textual JSON, the Blackbird or Afterburner modules
+ * and the registered identifiers of the types, which are written instead of the fully qualified names of the classes.
  *
  * @author Alik
  * @see CacheEntryEventConverter
+ * @see Builder
  */
 @Immutable
 @ThreadSafe
@@ -40,50 +56,153 @@ public final class JacksonCacheEntryEventConverter implements CacheEntryEventCon
 
     private static final Logger logger = LoggerFactory.getLogger(JacksonCacheEntryEventConverter.class);
 
-    private static final String SKIP_VALUES_FILTER = "skipValuesFields";
+    private static final int BUF_SIZE = 512;
+    private static final int MAX_RETAINED_BUF_SIZE = 64 * 1024;
 
-    private final ObjectWriter objectWriterStd;
-    private final ObjectWriter objectWriterCompact;
+    private final ObjectWriter objectWriter;
     private final ObjectReader objectReader;
+    private final ThreadLocal<ReusableByteArrayOutputStream> outputs = ThreadLocal.withInitial(() -> new ReusableByteArrayOutputStream(BUF_SIZE, MAX_RETAINED_BUF_SIZE));
+    private final ThreadLocal<ParserDecoder> decoders = ThreadLocal.withInitial(ParserDecoder::new);
 
     private JacksonCacheEntryEventConverter(@Nonnull ObjectMapper objectMapper) {
-        this.objectWriterStd = objectMapper.writerFor(CacheEntryEvent.class)
-                                            .with(createStdFilterProvider());
-        this.objectWriterCompact = objectMapper.writerFor(CacheEntryEvent.class)
-                                                .with(createCompactFilterProvider());
-        this.objectReader = objectMapper.readerFor(CacheEntryEvent.class);
+        this.objectWriter = objectMapper.writerFor(Object.class);
+        this.objectReader = objectMapper.readerFor(Object.class);
     }
 
     @Nonnull
     @Override
     public <K extends Serializable, V extends Serializable> byte[] toBinary(@Nonnull CacheEntryEvent<K, V> event, boolean serializeValueFields) {
+        return write(event, serializeValueFields).toByteArray();
+    }
+
+    @Nonnull
+    @Override
+    public <K extends Serializable, V extends Serializable> ByteBuffer toBuffer(@Nonnull CacheEntryEvent<K, V> event, boolean serializeValueFields) {
+        return write(event, serializeValueFields).toByteBuffer();
+    }
+
+    @Nonnull
+    @Override
+    public <K extends Serializable, V extends Serializable> CacheEntryEvent<K, V> fromBinary(@Nonnull byte[] data) {
+        return read(data, 0, data.length);
+    }
+
+    @Nonnull
+    @Override
+    public <K extends Serializable, V extends Serializable> CacheEntryEvent<K, V> fromBuffer(@Nonnull ByteBuffer data) {
+        if (data.hasArray()) {
+            return read(data.array(), data.arrayOffset() + data.position(), data.remaining());
+        }
+
+        final byte[] array = ByteBuffers.toByteArray(data);
+        return read(array, 0, array.length);
+    }
+
+    @Nonnull
+    @Override
+    public <K extends Serializable, V extends Serializable> CacheEntryEvent<K, V> fromBinary(
+            @Nonnull byte[] data,
+            @Nonnull LazyCacheEntryEvent<K, V> flyweight) {
+        return readInto(data, 0, data.length, flyweight);
+    }
+
+    @Nonnull
+    @Override
+    public <K extends Serializable, V extends Serializable> CacheEntryEvent<K, V> fromBuffer(
+            @Nonnull ByteBuffer data,
+            @Nonnull LazyCacheEntryEvent<K, V> flyweight) {
+        if (data.hasArray()) {
+            return readInto(data.array(), data.arrayOffset() + data.position(), data.remaining(), flyweight);
+        }
+
+        final byte[] array = ByteBuffers.toByteArray(data);
+        return readInto(array, 0, array.length, flyweight);
+    }
+
+    private ReusableByteArrayOutputStream write(final CacheEntryEvent<?, ?> event, final boolean serializeValueFields) {
+
+        final ReusableByteArrayOutputStream bos = this.outputs.get();
+        bos.reset();
+
         try {
-            return serializeValueFields ? this.objectWriterStd.writeValueAsBytes(event) : this.objectWriterCompact.writeValueAsBytes(event);
+            CacheEntryEventHeader.write(new DataOutputStream(bos), event);
+
+            // The body is written as the sequence of the root JSON values: the key (if it isn't a string), the old value and the new value
+            final boolean stringKey = CacheEntryEventHeader.isStringKey(event.key());
+            if (!stringKey || serializeValueFields) {
+                try (final JsonGenerator generator = this.objectWriter.createGenerator(bos)) {
+                    if (!stringKey) {
+                        this.objectWriter.writeValue(generator, event.key());
+                    }
+
+                    this.objectWriter.writeValue(generator, serializeValueFields ? event.oldValue() : null);
+                    this.objectWriter.writeValue(generator, serializeValueFields ? event.newValue() : null);
+                }
+            }
+
+            return bos;
         } catch (IOException ex) {
             logger.error("Unable to serialize event: " + event, ex);
             throw new RuntimeException(ex);
         }
     }
 
-    @Nonnull
-    @Override
-    public <K extends Serializable, V extends Serializable> CacheEntryEvent<K, V> fromBinary(@Nonnull byte[] data) {
-        try {
-            return this.objectReader.readValue(data);
+    @SuppressWarnings("unchecked")
+    private <K extends Serializable, V extends Serializable> CacheEntryEvent<K, V> read(
+            final byte[] data,
+            final int offset,
+            final int length) {
+
+        final CacheEntryEventHeader header = new CacheEntryEventHeader().read(data, offset, length);
+        if (!header.hasBody()) {
+            return new ImmutableCacheEntryEvent<>((K) header.readStringKey(data), null, null, header.eventTime(), header.eventType(), header.cacheName());
+        }
+
+        try (final JsonParser parser = openBody(this.objectReader, data, header)) {
+            final K key = header.hasStringKey() ? (K) header.readStringKey(data) : this.objectReader.readValue(parser);
+
+            final V oldValue = this.objectReader.readValue(parser);
+            final V newValue = this.objectReader.readValue(parser);
+
+            return new ImmutableCacheEntryEvent<>(key, oldValue, newValue, header.eventTime(), header.eventType(), header.cacheName());
         } catch (IOException ex) {
             logger.error("Unable to deserialize event", ex);
             throw new RuntimeException(ex);
         }
     }
 
-    private FilterProvider createStdFilterProvider() {
-        return new SimpleFilterProvider()
-                    .setDefaultFilter(new SimpleBeanPropertyFilter.SerializeExceptFilter(Collections.emptySet()));
+    private <K extends Serializable, V extends Serializable> CacheEntryEvent<K, V> readInto(
+            final byte[] data,
+            final int offset,
+            final int length,
+            final LazyCacheEntryEvent<K, V> flyweight) {
+
+        final ParserDecoder threadDecoder = this.decoders.get();
+        // The decoder is still used by the flyweight of the outer event
+        final ParserDecoder decoder = threadDecoder.isInUse() ? new ParserDecoder() : threadDecoder;
+        try {
+            final CacheEntryEventHeader header = decoder.open(data, offset, length, this.objectReader);
+            return flyweight.wrap(data, header.eventTime(), header.eventType(), header.cacheName(), decoder);
+        } catch (RuntimeException ex) {
+            decoder.release();
+            logger.error("Unable to deserialize event", ex);
+            throw ex;
+        }
     }
 
-    private FilterProvider createCompactFilterProvider() {
-        return new SimpleFilterProvider()
-                    .addFilter(SKIP_VALUES_FILTER, new SimpleBeanPropertyFilter.SerializeExceptFilter(Set.of("oldValue", "newValue")));
+    private static JsonParser openBody(final ObjectReader objectReader, final byte[] data, final CacheEntryEventHeader header) throws IOException {
+        return objectReader.createParser(data, header.bodyOffset(), header.bodyLength());
+    }
+
+    /**
+     * Returns a builder for constructing the converter.
+     *
+     * @return cannot be {@code null}.
+     * @see Builder
+     */
+    @Nonnull
+    public static Builder builder() {
+        return new Builder();
     }
 
     /**
@@ -93,7 +212,7 @@ public final class JacksonCacheEntryEventConverter implements CacheEntryEventCon
      */
     @Nonnull
     public static CacheEntryEventConverter create() {
-        return new JacksonCacheEntryEventConverter(configureObjectMapper(new ObjectMapper()));
+        return builder().build();
     }
 
     /**
@@ -105,23 +224,262 @@ public final class JacksonCacheEntryEventConverter implements CacheEntryEventCon
      */
     @Nonnull
     public static CacheEntryEventConverter create(@Nonnull ObjectMapper mapper) {
-        return new JacksonCacheEntryEventConverter(configureObjectMapper(mapper.copy()));
+        return builder().setObjectMapper(mapper).build();
     }
 
-    private static ObjectMapper configureObjectMapper(final ObjectMapper mapper) {
+    @NotThreadSafe
+    public static class Builder {
 
-        return mapper
-                .findAndRegisterModules()
-                .registerModule(new SimpleModule("CacheBus"))
-                .setSerializationInclusion(JsonInclude.Include.NON_NULL)
-                .enable(SerializationFeature.WRITE_DATE_TIMESTAMPS_AS_NANOSECONDS)
-                .enable(DeserializationFeature.READ_DATE_TIMESTAMPS_AS_NANOSECONDS)
-                .setPropertyNamingStrategy(new PropertyNamingStrategy())
-                .addMixIn(CacheEntryEvent.class, DynamicMixIn.class)
-                .activateDefaultTyping(mapper.getPolymorphicTypeValidator(), ObjectMapper.DefaultTyping.EVERYTHING);
+        private static final String BLACKBIRD_MODULE = "com.fasterxml.jackson.module.blackbird.BlackbirdModule";
+        private static final String AFTERBURNER_MODULE = "com.fasterxml.jackson.module.afterburner.AfterburnerModule";
+        private static final Set<String> BYTECODE_MODULES = Set.of(BLACKBIRD_MODULE, AFTERBURNER_MODULE);
+
+        private final Map<Class<?>, Integer> registeredTypes = new LinkedHashMap<>();
+        private final Map<Integer, Class<?>> typesById = new HashMap<>();
+        private ObjectMapper objectMapper;
+        private JacksonFormat format;
+        private boolean blackbird;
+        private boolean afterburner;
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the pre-configured {@link ObjectMapper} used for serializing objects used as cache keys and values.
+         * A copy of the mapper is made and then configured to the required state, the original mapper is not modified.
+         * By default, the mapper with the default settings is used.
+         *
+         * @param objectMapper pre-configured {@link ObjectMapper}, cannot be {@code null}.
+         * @return the builder for further configuration, cannot be {@code null}.
+         */
+        @Nonnull
+        public Builder setObjectMapper(@Nonnull ObjectMapper objectMapper) {
+            this.objectMapper = Objects.requireNonNull(objectMapper, "objectMapper");
+            return this;
+        }
+
+        /**
+         * Sets the data format of the body of the event. The binary formats ({@linkplain JacksonFormat#SMILE Smile}
+         * and {@linkplain JacksonFormat#CBOR CBOR}) give much smaller payloads and faster parsing than the textual JSON.
+         * By default, the format of the {@linkplain #setObjectMapper(ObjectMapper) object mapper} is used (JSON if the mapper isn't set).<br>
+         * The binary formats require the optional dependencies (see {@link JacksonFormat}), the building of the converter
+         * fails with {@link ConfigurationException} if the dependency of the format is absent.
+         *
+         * @param format the data format, cannot be {@code null}.
+         * @return the builder for further configuration, cannot be {@code null}.
+         */
+        @Nonnull
+        public Builder setFormat(@Nonnull JacksonFormat format) {
+            this.format = Objects.requireNonNull(format, "format");
+            return this;
+        }
+
+        /**
+         * Sets whether the Blackbird module is used: the module replaces the reflective access to the properties of the beans
+         * with the generated lambdas. Can't be used together with the {@linkplain #useAfterburner(boolean) Afterburner} module.
+         * The bytecode modules are never registered implicitly, even if they are available in the classpath. By default, the module isn't used.<br>
+         * The module requires the optional dependency {@code com.fasterxml.jackson.module:jackson-module-blackbird},
+         * the building of the converter fails with {@link ConfigurationException} if the dependency is absent.
+         *
+         * @param blackbird whether the Blackbird module is used
+         * @return the builder for further configuration, cannot be {@code null}.
+         */
+        @Nonnull
+        public Builder useBlackbird(boolean blackbird) {
+            this.blackbird = blackbird;
+            return this;
+        }
+
+        /**
+         * Sets whether the Afterburner module is used: the module replaces the reflective access to the properties of the beans
+         * with the generated bytecode. It's recommended to use the {@linkplain #useBlackbird(boolean) Blackbird} module on the modern JDKs.
+         * By default, the module isn't used.<br>
+         * The module requires the optional dependency {@code com.fasterxml.jackson.module:jackson-module-afterburner},
+         * the building of the converter fails with {@link ConfigurationException} if the dependency is absent.
+         *
+         * @param afterburner whether the Afterburner module is used
+         * @return the builder for further configuration, cannot be {@code null}.
+         */
+        @Nonnull
+        public Builder useAfterburner(boolean afterburner) {
+            this.afterburner = afterburner;
+            return this;
+        }
+
+        /**
+         * Registers the type with the stable identifier: the identifier is written instead of the name of the class
+         * when the type information of the value is written. The same identifiers must be used for the types on all servers
+         * of the logical cluster. The serializers and the deserializers of the registered types are created when the converter is built.
+         *
+         * @param type the type, cannot be {@code null}.
+         * @param id   the identifier of the type, cannot be negative.
+         * @return the builder for further configuration, cannot be {@code null}.
+         * @throws ConfigurationException if the identifier is negative or the type or the identifier is already registered
+         */
+        @Nonnull
+        public Builder registerType(@Nonnull Class<?> type, @Nonnegative int id) {
+            Objects.requireNonNull(type, "type");
+            if (id < 0) {
+                throw new ConfigurationException("Type id must be not negative: " + id);
+            }
+
+            final Class<?> registeredType = this.typesById.putIfAbsent(id, type);
+            if (registeredType != null) {
+                throw new ConfigurationException("Type id " + id + " is already used by " + registeredType.getName());
+            }
+
+            if (this.registeredTypes.putIfAbsent(type, id) != null) {
+                this.typesById.remove(id);
+                throw new ConfigurationException("Type is already registered: " + type.getName());
+            }
+
+            return this;
+        }
+
+        /**
+         * Builds the converter.
+         *
+         * @return cannot be {@code null}.
+         */
+        @Nonnull
+        public CacheEntryEventConverter build() {
+            if (this.blackbird && this.afterburner) {
+                throw new ConfigurationException("Only one of Blackbird and Afterburner modules can be used");
+            }
+
+            final ObjectMapper mapper = configureObjectMapper(createObjectMapper());
+            precompile(mapper);
+
+            return new JacksonCacheEntryEventConverter(mapper);
+        }
+
+        private ObjectMapper createObjectMapper() {
+            if (this.objectMapper == null) {
+                return this.format == null ? new ObjectMapper() : new ObjectMapper(this.format.createFactory());
+            }
+
+            return this.format == null ? this.objectMapper.copy() : this.objectMapper.copyWith(this.format.createFactory());
+        }
+
+        private ObjectMapper configureObjectMapper(final ObjectMapper mapper) {
+
+            ObjectMapper.findModules()
+                        .stream()
+                        .filter(module -> !BYTECODE_MODULES.contains(module.getClass().getName()))
+                        .forEach(mapper::registerModule);
+
+            if (this.blackbird) {
+                mapper.registerModule(createModule(BLACKBIRD_MODULE, "com.fasterxml.jackson.module:jackson-module-blackbird"));
+            } else if (this.afterburner) {
+                mapper.registerModule(createModule(AFTERBURNER_MODULE, "com.fasterxml.jackson.module:jackson-module-afterburner"));
+            }
+
+            mapper
+                    .registerModule(new SimpleModule("CacheBus"))
+                    .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+                    .enable(SerializationFeature.WRITE_DATE_TIMESTAMPS_AS_NANOSECONDS)
+                    .enable(DeserializationFeature.READ_DATE_TIMESTAMPS_AS_NANOSECONDS)
+                    .setPropertyNamingStrategy(new PropertyNamingStrategy());
+
+            if (this.registeredTypes.isEmpty()) {
+                return mapper.activateDefaultTyping(mapper.getPolymorphicTypeValidator(), ObjectMapper.DefaultTyping.EVERYTHING);
+            }
+
+            final TypeResolverBuilder<?> typeResolverBuilder =
+                    new RegisteredTypeResolverBuilder(mapper.getPolymorphicTypeValidator(), this.registeredTypes)
+                            .init(JsonTypeInfo.Id.CLASS, null)
+                            .inclusion(JsonTypeInfo.As.WRAPPER_ARRAY);
+            return mapper.setDefaultTyping(typeResolverBuilder);
+        }
+
+        private com.fasterxml.jackson.databind.Module createModule(final String className, final String dependency) {
+            // The modules are optional dependencies, so they are created only by the name
+            OptionalDependencies.require(className, dependency);
+            try {
+                return (com.fasterxml.jackson.databind.Module) Class.forName(className).getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException ex) {
+                throw new ConfigurationException(ex);
+            }
+        }
+
+        private void precompile(final ObjectMapper mapper) {
+            // The serializers and the deserializers are cached by the mapper, so the registered types aren't introspected on the first events
+            final SerializerProvider serializerProvider = mapper.getSerializerProviderInstance();
+            for (final Class<?> type : this.registeredTypes.keySet()) {
+                try {
+                    serializerProvider.findTypedValueSerializer(type, true, null);
+                    mapper.readerFor(type);
+                } catch (IOException | RuntimeException ex) {
+                    throw new ConfigurationException("Unable to create serializers of type: " + type.getName() + ", reason: " + ex.getMessage());
+                }
+            }
+        }
     }
 
-    @JsonFilter(SKIP_VALUES_FILTER)
-    public static class DynamicMixIn {
+    @NotThreadSafe
+    private static final class ParserDecoder implements LazyCacheEntryEvent.Decoder {
+
+        private final CacheEntryEventHeader header = new CacheEntryEventHeader();
+        private ObjectReader objectReader;
+        private JsonParser parser;
+
+        private CacheEntryEventHeader open(
+                final byte[] data,
+                final int offset,
+                final int length,
+                final ObjectReader objectReader) {
+            this.objectReader = objectReader;
+            return this.header.read(data, offset, length);
+        }
+
+        private boolean isInUse() {
+            return this.objectReader != null;
+        }
+
+        @Nonnull
+        @Override
+        @SuppressWarnings("unchecked")
+        public <K extends Serializable> K decodeKey(@Nonnull byte[] data) {
+            return this.header.hasStringKey() ? (K) this.header.readStringKey(data) : readFromBody(data);
+        }
+
+        @Override
+        public <V extends Serializable> V decodeOldValue(@Nonnull byte[] data) {
+            return this.header.hasBody() ? readFromBody(data) : null;
+        }
+
+        @Override
+        public <V extends Serializable> V decodeNewValue(@Nonnull byte[] data) {
+            return this.header.hasBody() ? readFromBody(data) : null;
+        }
+
+        @Override
+        public void release() {
+            if (this.parser != null) {
+                try {
+                    this.parser.close();
+                } catch (IOException ex) {
+                    logger.warn("Unable to close parser", ex);
+                }
+            }
+
+            this.parser = null;
+            this.objectReader = null;
+            this.header.clear();
+        }
+
+        private <T extends Serializable> T readFromBody(final byte[] data) {
+            try {
+                // The parser is opened only on the first access to the body of the event
+                if (this.parser == null) {
+                    this.parser = openBody(this.objectReader, data, this.header);
+                }
+
+                return this.objectReader.readValue(this.parser);
+            } catch (IOException ex) {
+                logger.error("Unable to deserialize body of event", ex);
+                throw new RuntimeException(ex);
+            }
+        }
     }
 }
@@ -0,0 +1,102 @@
+package ru.joke.cache.bus.jackson.serialization;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.fasterxml.jackson.dataformat.smile.SmileParser;
+import ru.joke.cache.bus.core.configuration.ConfigurationException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Data format of the body of the event written by {@link JacksonCacheEntryEventConverter}.
+ * The servers of the logical cluster must use the same format.<br>
+ * The binary formats require the optional dependencies of the module ({@code com.fasterxml.jackson.dataformat:jackson-dataformat-smile}
+ * or {@code com.fasterxml.jackson.dataformat:jackson-dataformat-cbor}); if the dependency of the format is absent,
+ * the converter can't be built with the format.
+ *
+ * @author Alik
+ * @see JacksonCacheEntryEventConverter.Builder#setFormat(JacksonFormat)
+ */
+public enum JacksonFormat {
+
+    /**
+     * Textual JSON format.
+     */
+    JSON(null, null) {
+        @Nonnull
+        @Override
+        JsonFactory createFormatFactory() {
+            return new JsonFactory();
+        }
+    },
+
+    /**
+     * Binary JSON-compatible Smile format. The Smile header isn't written, because the body of the event
+     * is never read without the event header.
+     */
+    SMILE("com.fasterxml.jackson.dataformat.smile.SmileFactory", "com.fasterxml.jackson.dataformat:jackson-dataformat-smile") {
+        @Nonnull
+        @Override
+        JsonFactory createFormatFactory() {
+            return SmileFactories.create();
+        }
+    },
+
+    /**
+     * Binary CBOR format (RFC 8949).
+     */
+    CBOR("com.fasterxml.jackson.dataformat.cbor.CBORFactory", "com.fasterxml.jackson.dataformat:jackson-dataformat-cbor") {
+        @Nonnull
+        @Override
+        JsonFactory createFormatFactory() {
+            return CborFactories.create();
+        }
+    };
+
+    private final String factoryClassName;
+    private final String dependency;
+
+    JacksonFormat(@Nullable final String factoryClassName, @Nullable final String dependency) {
+        this.factoryClassName = factoryClassName;
+        this.dependency = dependency;
+    }
+
+    /**
+     * Creates the factory of the format.
+     *
+     * @return cannot be {@code null}.
+     * @throws ConfigurationException if the optional dependency of the format is absent
+     */
+    @Nonnull
+    JsonFactory createFactory() {
+        if (this.factoryClassName != null) {
+            OptionalDependencies.require(this.factoryClassName, this.dependency);
+        }
+
+        return createFormatFactory();
+    }
+
+    @Nonnull
+    abstract JsonFactory createFormatFactory();
+
+    // The classes of the optional formats are referenced only from the holders, so they are loaded only if the format is used
+    private static final class SmileFactories {
+
+        private static JsonFactory create() {
+            return SmileFactory.builder()
+                                .disable(SmileGenerator.Feature.WRITE_HEADER)
+                                .disable(SmileParser.Feature.REQUIRE_HEADER)
+                               .build();
+        }
+    }
+
+    private static final class CborFactories {
+
+        private static JsonFactory create() {
+            return new CBORFactory();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package ru.joke.cache.bus.jackson.serialization;
+
+import ru.joke.cache.bus.core.configuration.ConfigurationException;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Checks of the optional dependencies of the module. The binary formats and the bytecode modules of Jackson
+ * are declared as optional dependencies, so the application adds only the used ones.
+ *
+ * @author Alik
+ * @see JacksonFormat
+ * @see JacksonCacheEntryEventConverter.Builder
+ */
+final class OptionalDependencies {
+
+    /**
+     * Checks that the class of the optional dependency is available.
+     *
+     * @param className  the name of the class of the dependency, cannot be {@code null}.
+     * @param dependency the Maven coordinates of the dependency ({@code groupId:artifactId}), cannot be {@code null}.
+     * @throws ConfigurationException if the class isn't available
+     */
+    static void require(@Nonnull final String className, @Nonnull final String dependency) {
+        try {
+            Class.forName(className, false, OptionalDependencies.class.getClassLoader());
+        } catch (ClassNotFoundException | LinkageError ex) {
+            throw new ConfigurationException("Class " + className + " isn't found, dependency " + dependency + " must be added to the classpath");
+        }
+    }
+
+    private OptionalDependencies() {
+    }
+}
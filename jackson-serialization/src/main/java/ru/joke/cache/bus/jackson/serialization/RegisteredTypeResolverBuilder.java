@@ -0,0 +1,90 @@
+package ru.joke.cache.bus.jackson.serialization;
+
+import com.fasterxml.jackson.databind.DatabindContext;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.cfg.MapperConfig;
+import com.fasterxml.jackson.databind.jsontype.NamedType;
+import com.fasterxml.jackson.databind.jsontype.PolymorphicTypeValidator;
+import com.fasterxml.jackson.databind.jsontype.TypeIdResolver;
+import com.fasterxml.jackson.databind.jsontype.impl.ClassNameIdResolver;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Builder of the default typing resolvers that write the registered identifiers of the types
+ * instead of the names of the classes. The identifiers are written as the decimal numbers, so they never clash
+ * with the names of the unregistered classes, which are still written as is.
+ *
+ * @author Alik
+ * @see JacksonCacheEntryEventConverter.Builder#registerType(Class, int)
+ */
+final class RegisteredTypeResolverBuilder extends ObjectMapper.DefaultTypeResolverBuilder {
+
+    private final Map<Class<?>, String> typeIds;
+    private final Map<String, Class<?>> typesById;
+
+    RegisteredTypeResolverBuilder(
+            @Nonnull PolymorphicTypeValidator typeValidator,
+            @Nonnull Map<Class<?>, Integer> registeredTypes) {
+        super(ObjectMapper.DefaultTyping.EVERYTHING, typeValidator);
+        this.typeIds = new HashMap<>(registeredTypes.size());
+        this.typesById = new HashMap<>(registeredTypes.size());
+
+        registeredTypes.forEach((type, id) -> {
+            this.typeIds.put(type, String.valueOf(id));
+            this.typesById.put(String.valueOf(id), type);
+        });
+    }
+
+    private RegisteredTypeResolverBuilder(
+            @Nonnull RegisteredTypeResolverBuilder base,
+            @Nonnull Class<?> defaultImpl) {
+        super(base, defaultImpl);
+        this.typeIds = base.typeIds;
+        this.typesById = base.typesById;
+    }
+
+    @Override
+    public ObjectMapper.DefaultTypeResolverBuilder withDefaultImpl(Class<?> defaultImpl) {
+        return this._defaultImpl == defaultImpl ? this : new RegisteredTypeResolverBuilder(this, defaultImpl);
+    }
+
+    @Override
+    protected TypeIdResolver idResolver(
+            MapperConfig<?> config,
+            JavaType baseType,
+            PolymorphicTypeValidator subtypeValidator,
+            Collection<NamedType> subtypes,
+            boolean forSer,
+            boolean forDeser) {
+        return new RegisteredTypeIdResolver(baseType, config.getTypeFactory(), subtypeValidator);
+    }
+
+    private final class RegisteredTypeIdResolver extends ClassNameIdResolver {
+
+        private RegisteredTypeIdResolver(
+                final JavaType baseType,
+                final TypeFactory typeFactory,
+                final PolymorphicTypeValidator typeValidator) {
+            super(baseType, typeFactory, typeValidator);
+        }
+
+        @Override
+        protected String _idFrom(Object value, Class<?> type, TypeFactory typeFactory) {
+            final String id = typeIds.get(type);
+            return id == null ? super._idFrom(value, type, typeFactory) : id;
+        }
+
+        @Override
+        protected JavaType _typeFromId(String id, DatabindContext context) throws IOException {
+            final Class<?> type = typesById.get(id);
+            return type == null ? super._typeFromId(id, context) : context.constructSpecializedType(this._baseType, type);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package ru.joke.cache.bus.jackson.serialization;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ru.joke.cache.bus.core.testing.transport.BaseCacheEntryEventConverterTest;
+import ru.joke.cache.bus.core.transport.CacheEntryEventConverter;
+
+import javax.annotation.Nonnull;
+
+public class JacksonCborCacheEntryEventConverterTest extends BaseCacheEntryEventConverterTest {
+
+    @Nonnull
+    @Override
+    protected CacheEntryEventConverter createConverter() {
+        return JacksonCacheEntryEventConverter.builder()
+                                                .setObjectMapper(new ObjectMapper())
+                                                .setFormat(JacksonFormat.CBOR)
+                                                .useAfterburner(true)
+                                              .build();
+    }
+}
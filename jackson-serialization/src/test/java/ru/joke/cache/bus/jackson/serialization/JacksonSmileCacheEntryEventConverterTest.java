@@ -0,0 +1,88 @@
+package ru.joke.cache.bus.jackson.serialization;
+
+import org.junit.jupiter.api.Test;
+import ru.joke.cache.bus.core.CacheEntryEvent;
+import ru.joke.cache.bus.core.CacheEntryEventType;
+import ru.joke.cache.bus.core.configuration.ConfigurationException;
+import ru.joke.cache.bus.core.impl.ImmutableCacheEntryEvent;
+import ru.joke.cache.bus.core.testing.transport.BaseCacheEntryEventConverterTest;
+import ru.joke.cache.bus.core.transport.CacheEntryEventConverter;
+
+import javax.annotation.Nonnull;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JacksonSmileCacheEntryEventConverterTest extends BaseCacheEntryEventConverterTest {
+
+    @Test
+    public void testWhenTypesRegisteredThenIdsWrittenInsteadOfClassNames() {
+        final CacheEntryEvent<Item, Payload> event = composeEvent();
+
+        final CacheEntryEventConverter converter = createConverter();
+        final byte[] registeredData = converter.toBinary(event, true);
+        final byte[] smileData = JacksonCacheEntryEventConverter.builder().setFormat(JacksonFormat.SMILE).build().toBinary(event, true);
+        final byte[] jsonData = JacksonCacheEntryEventConverter.create().toBinary(event, true);
+
+        assertEquals(event, converter.fromBinary(registeredData), "Source and deserialized event must be equal");
+        assertFalse(new String(registeredData, StandardCharsets.ISO_8859_1).contains(Payload.class.getName()), "Registered class name must not be written");
+        assertTrue(registeredData.length < smileData.length, "Event with registered types must be more compact than with class names");
+        assertTrue(smileData.length < jsonData.length, "Smile event must be more compact than JSON one");
+
+        // The unregistered types are still written with the class names
+        final CacheEntryEvent<String, ArrayList<String>> unregisteredEvent = new ImmutableCacheEntryEvent<>("k", null, new ArrayList<>(List.of("v")), System.currentTimeMillis(), CacheEntryEventType.ADDED, "test");
+        assertEquals(unregisteredEvent, converter.fromBinary(converter.toBinary(unregisteredEvent, true)), "Source and deserialized event must be equal");
+
+        final CacheEntryEventConverter otherConverter =
+                JacksonCacheEntryEventConverter.builder()
+                                                    .setFormat(JacksonFormat.SMILE)
+                                                    .registerType(Item.class, 1)
+                                                .build();
+        assertThrows(RuntimeException.class, () -> otherConverter.fromBinary(registeredData), "Unknown type id must be rejected");
+    }
+
+    @Test
+    public void testWhenInvalidConfigurationThenException() {
+        assertThrows(ConfigurationException.class, () -> JacksonCacheEntryEventConverter.builder().registerType(Item.class, -1));
+        assertThrows(ConfigurationException.class, () -> JacksonCacheEntryEventConverter.builder().registerType(Item.class, 1).registerType(Payload.class, 1));
+        assertThrows(ConfigurationException.class, () -> JacksonCacheEntryEventConverter.builder().registerType(Item.class, 1).registerType(Item.class, 2));
+        assertThrows(ConfigurationException.class, () -> JacksonCacheEntryEventConverter.builder().useBlackbird(true).useAfterburner(true).build());
+        assertThrows(ConfigurationException.class, () -> OptionalDependencies.require("com.fasterxml.jackson.dataformat.absent.AbsentFactory", "com.fasterxml.jackson.dataformat:jackson-dataformat-absent"), "Absent optional dependency must be rejected");
+        assertDoesNotThrow(() -> OptionalDependencies.require("com.fasterxml.jackson.dataformat.smile.SmileFactory", "com.fasterxml.jackson.dataformat:jackson-dataformat-smile"), "Present optional dependency must be accepted");
+    }
+
+    @Nonnull
+    @Override
+    protected CacheEntryEventConverter createConverter() {
+        return JacksonCacheEntryEventConverter.builder()
+                                                .setFormat(JacksonFormat.SMILE)
+                                                .useBlackbird(true)
+                                                .registerType(Item.class, 1)
+                                                .registerType(Payload.class, 2)
+                                              .build();
+    }
+
+    private static CacheEntryEvent<Item, Payload> composeEvent() {
+        return new ImmutableCacheEntryEvent<>(
+                new Item("k1", 1),
+                new Payload("v1", 2, 13.5, new Item("k2", 2)),
+                new Payload("v2", 3, 14.5, null),
+                System.currentTimeMillis(),
+                CacheEntryEventType.UPDATED,
+                "test"
+        );
+    }
+
+    private record Item(String name, long id) implements Serializable {
+    }
+
+    private record Payload(
+            String title,
+            int count,
+            double price,
+            Item item) implements Serializable {
+    }
+}
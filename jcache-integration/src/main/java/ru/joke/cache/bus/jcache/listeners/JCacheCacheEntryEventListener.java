@@ -3,7 +3,7 @@ package ru.joke.cache.bus.jcache.listeners;
 import ru.joke.cache.bus.core.CacheBus;
 import ru.joke.cache.bus.core.CacheEntryEventType;
 import ru.joke.cache.bus.core.CacheEventListener;
-import ru.joke.cache.bus.core.impl.ImmutableCacheEntryEvent;
+import ru.joke.cache.bus.core.impl.MutableCacheEntryEvent;
 
 import javax.annotation.Nonnull;
 import javax.annotation.concurrent.Immutable;
@@ -20,6 +20,7 @@ final class JCacheCacheEntryEventListener<K extends Serializable, V extends Seri
 
     private final String listenerId;
     private final CacheBus cacheBus;
+    private final ThreadLocal<MutableCacheEntryEvent<K, V>> eventCarriers = ThreadLocal.withInitial(MutableCacheEntryEvent::new);
 
     public JCacheCacheEntryEventListener(@Nonnull String listenerId, @Nonnull CacheBus cacheBus) {
         this.cacheBus = Objects.requireNonNull(cacheBus, "cacheBus");
@@ -75,9 +76,10 @@ final class JCacheCacheEntryEventListener<K extends Serializable, V extends Seri
 
     private void sendToBus(final Iterable<CacheEntryEvent<? extends K, ? extends V>> iterable) {
 
-        iterable.forEach(cacheEvent -> {
+        final MutableCacheEntryEvent<K, V> carrier = this.eventCarriers.get();
+        for (final CacheEntryEvent<? extends K, ? extends V> cacheEvent : iterable) {
 
-            final ru.joke.cache.bus.core.CacheEntryEvent<K, V> busEvent = new ImmutableCacheEntryEvent<>(
+            final MutableCacheEntryEvent<K, V> busEvent = carrier.fill(
                     cacheEvent.getKey(),
                     cacheEvent.getOldValue(),
                     cacheEvent.getValue(),
@@ -85,8 +87,12 @@ final class JCacheCacheEntryEventListener<K extends Serializable, V extends Seri
                     convertJCacheEventType2BusType(cacheEvent.getEventType()),
                     cacheEvent.getSource().getName()
             );
-            this.cacheBus.send(busEvent);
-        });
+            try {
+                this.cacheBus.send(busEvent);
+            } finally {
+                busEvent.clear();
+            }
+        }
     }
 
     private CacheEntryEventType convertJCacheEventType2BusType(final EventType eventType) {
@@ -1,22 +1,32 @@
 package ru.joke.cache.bus.jdk.serialization;
 
 import ru.joke.cache.bus.core.CacheEntryEvent;
-import ru.joke.cache.bus.core.CacheEntryEventType;
 import ru.joke.cache.bus.core.impl.ImmutableCacheEntryEvent;
+import ru.joke.cache.bus.core.transport.ByteBuffers;
 import ru.joke.cache.bus.core.transport.CacheEntryEventConverter;
+import ru.joke.cache.bus.core.transport.CacheEntryEventHeader;
+import ru.joke.cache.bus.core.transport.LazyCacheEntryEvent;
+import ru.joke.cache.bus.core.transport.ReusableByteArrayOutputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
 import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.NotThreadSafe;
 import javax.annotation.concurrent.ThreadSafe;
 import java.io.*;
+import java.nio.ByteBuffer;
 
 /**
  * Implementation of a converter based on the standard JDK serialization.
  * Not recommended for use in case a replicable cache with complex value structure is used or if caching keys have a complex structure.
  * By "complex" structure, we mean a structure that can change frequently or contains non-serializable fields.<br>
- * The transport format has all the disadvantages of the regular JDK serialization format.
+ * The transport format has all the disadvantages of the regular JDK serialization format.<br>
+ * The event is written in the header-first format (see {@link CacheEntryEventHeader}): the object streams are used only for the body
+ * of the event, so the events with the string keys and without the values are decoded without the object streams, and when decoding
+ * into the flyweight, the body of the event is deserialized only on the first access to it.<br>
+ * The events are serialized into the thread-local reusable streams, so {@linkplain #toBuffer(CacheEntryEvent, boolean)} doesn't copy
+ * the serialized event, and the heap buffers passed to {@linkplain #fromBuffer(ByteBuffer)} are decoded in place.
  *
  * @author Alik
  * @see CacheEntryEventConverter
@@ -28,73 +38,198 @@ public final class JdkCacheEntryEventConverter implements CacheEntryEventConvert
     private static final Logger logger = LoggerFactory.getLogger(JdkCacheEntryEventConverter.class);
 
     private static final int BUF_SIZE = 512;
+    private static final int MAX_RETAINED_BUF_SIZE = 64 * 1024;
+
+    private final ThreadLocal<ReusableByteArrayOutputStream> outputs = ThreadLocal.withInitial(() -> new ReusableByteArrayOutputStream(BUF_SIZE, MAX_RETAINED_BUF_SIZE));
+    private final ThreadLocal<StreamDecoder> decoders = ThreadLocal.withInitial(StreamDecoder::new);
 
     @Nonnull
     @Override
     public <K extends Serializable, V extends Serializable> byte[] toBinary(@Nonnull CacheEntryEvent<K, V> event, boolean serializeValueFields) {
+        return write(event, serializeValueFields).toByteArray();
+    }
 
-        try (final var bos = new ByteArrayOutputStream(BUF_SIZE);
-             final var oos = new ObjectOutputStream(bos)) {
-            writeTo(oos, event, serializeValueFields);
+    @Nonnull
+    @Override
+    public <K extends Serializable, V extends Serializable> ByteBuffer toBuffer(@Nonnull CacheEntryEvent<K, V> event, boolean serializeValueFields) {
+        return write(event, serializeValueFields).toByteBuffer();
+    }
 
-            return bos.toByteArray();
-        } catch (IOException ex) {
-            logger.error("Unable to serialize event: " + event, ex);
-            throw new RuntimeException(ex);
+    @Nonnull
+    @Override
+    public <K extends Serializable, V extends Serializable> CacheEntryEvent<K, V> fromBinary(@Nonnull byte[] data) {
+        return read(data, 0, data.length);
+    }
+
+    @Nonnull
+    @Override
+    public <K extends Serializable, V extends Serializable> CacheEntryEvent<K, V> fromBuffer(@Nonnull ByteBuffer data) {
+        if (data.hasArray()) {
+            return read(data.array(), data.arrayOffset() + data.position(), data.remaining());
         }
+
+        final byte[] array = ByteBuffers.toByteArray(data);
+        return read(array, 0, array.length);
     }
 
     @Nonnull
     @Override
-    @SuppressWarnings("unchecked")
-    public <K extends Serializable, V extends Serializable> CacheEntryEvent<K, V> fromBinary(@Nonnull byte[] data) {
+    public <K extends Serializable, V extends Serializable> CacheEntryEvent<K, V> fromBinary(
+            @Nonnull byte[] data,
+            @Nonnull LazyCacheEntryEvent<K, V> flyweight) {
+        return readInto(data, 0, data.length, flyweight);
+    }
+
+    @Nonnull
+    @Override
+    public <K extends Serializable, V extends Serializable> CacheEntryEvent<K, V> fromBuffer(
+            @Nonnull ByteBuffer data,
+            @Nonnull LazyCacheEntryEvent<K, V> flyweight) {
+        if (data.hasArray()) {
+            return readInto(data.array(), data.arrayOffset() + data.position(), data.remaining(), flyweight);
+        }
 
-        try (final var bis = new ByteArrayInputStream(data);
-             final var ois = new ObjectInputStream(bis)) {
-            final byte keyType = ois.readByte();
-            final K key = (K) (keyType == 1 ? ois.readUTF() : ois.readObject());
-            final long eventTime = ois.readLong();
-            final CacheEntryEventType eventType = CacheEntryEventType.valueOf(ois.readByte());
-            if (eventType == null) {
-                throw new NullPointerException();
+        final byte[] array = ByteBuffers.toByteArray(data);
+        return readInto(array, 0, array.length, flyweight);
+    }
+
+    private ReusableByteArrayOutputStream write(final CacheEntryEvent<?, ?> event, final boolean serializeValueFields) {
+
+        final ReusableByteArrayOutputStream bos = this.outputs.get();
+        bos.reset();
+
+        try {
+            CacheEntryEventHeader.write(new DataOutputStream(bos), event);
+
+            // The object stream is created only if the body isn't empty: the string key is written to the header
+            final boolean stringKey = CacheEntryEventHeader.isStringKey(event.key());
+            if (!stringKey || serializeValueFields) {
+                try (final var oos = new ObjectOutputStream(bos)) {
+                    writeBodyTo(oos, event, stringKey, serializeValueFields);
+                }
             }
 
-            final String cacheName = ois.readUTF();
+            return bos;
+        } catch (IOException ex) {
+            logger.error("Unable to serialize event: " + event, ex);
+            throw new RuntimeException(ex);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <K extends Serializable, V extends Serializable> CacheEntryEvent<K, V> read(
+            final byte[] data,
+            final int offset,
+            final int length) {
+
+        final CacheEntryEventHeader header = new CacheEntryEventHeader().read(data, offset, length);
+        if (!header.hasBody()) {
+            return new ImmutableCacheEntryEvent<>((K) header.readStringKey(data), null, null, header.eventTime(), header.eventType(), header.cacheName());
+        }
+
+        try (final var ois = openBody(data, header)) {
+            final K key = (K) (header.hasStringKey() ? header.readStringKey(data) : ois.readObject());
 
             final V oldValue = (V) ois.readObject();
             final V newValue = (V) ois.readObject();
 
-            return new ImmutableCacheEntryEvent<>(key, oldValue, newValue, eventTime, eventType, cacheName);
+            return new ImmutableCacheEntryEvent<>(key, oldValue, newValue, header.eventTime(), header.eventType(), header.cacheName());
         } catch (IOException | ClassNotFoundException e) {
             logger.error("Unable to deserialize from binary event", e);
             throw new RuntimeException(e);
         }
     }
 
-    private void writeTo(
+    private <K extends Serializable, V extends Serializable> CacheEntryEvent<K, V> readInto(
+            final byte[] data,
+            final int offset,
+            final int length,
+            final LazyCacheEntryEvent<K, V> flyweight) {
+
+        final StreamDecoder threadDecoder = this.decoders.get();
+        // The decoder is still used by the flyweight of the outer event
+        final StreamDecoder decoder = threadDecoder.isInUse() ? new StreamDecoder() : threadDecoder;
+        try {
+            final CacheEntryEventHeader header = decoder.open(data, offset, length);
+            return flyweight.wrap(data, header.eventTime(), header.eventType(), header.cacheName(), decoder);
+        } catch (RuntimeException e) {
+            decoder.release();
+            logger.error("Unable to deserialize from binary event", e);
+            throw e;
+        }
+    }
+
+    private static ObjectInputStream openBody(final byte[] data, final CacheEntryEventHeader header) throws IOException {
+        return new ObjectInputStream(new ByteArrayInputStream(data, header.bodyOffset(), header.bodyLength()));
+    }
+
+    private void writeBodyTo(
             final ObjectOutput output,
             final CacheEntryEvent<?, ?> event,
+            final boolean stringKey,
             final boolean serializeValueFields) throws IOException {
-        // A small optimization for strings: the vast majority of cache keys are strings. readUTF is more efficient than readObject for strings.
-        final int keyType = getKeyType(event.key());
-        output.writeByte(keyType);
 
-        if (keyType == 1) {
-            output.writeUTF(event.key().toString());
-        } else {
+        if (!stringKey) {
             output.writeObject(event.key());
         }
 
-        output.writeLong(event.eventTime());
-
-        output.writeByte(event.eventType().getId());
-        output.writeUTF(event.cacheName());
-
         output.writeObject(serializeValueFields ? event.oldValue() : null);
         output.writeObject(serializeValueFields ? event.newValue() : null);
     }
 
-    private int getKeyType(final Object key) {
-        return key.getClass() == String.class ? 1 : 2;
+    @NotThreadSafe
+    private static final class StreamDecoder implements LazyCacheEntryEvent.Decoder {
+
+        private final CacheEntryEventHeader header = new CacheEntryEventHeader();
+        private boolean inUse;
+        private ObjectInputStream input;
+
+        private CacheEntryEventHeader open(final byte[] data, final int offset, final int length) {
+            this.inUse = true;
+            return this.header.read(data, offset, length);
+        }
+
+        private boolean isInUse() {
+            return this.inUse;
+        }
+
+        @Nonnull
+        @Override
+        @SuppressWarnings("unchecked")
+        public <K extends Serializable> K decodeKey(@Nonnull byte[] data) {
+            return this.header.hasStringKey() ? (K) this.header.readStringKey(data) : readFromBody(data);
+        }
+
+        @Override
+        public <V extends Serializable> V decodeOldValue(@Nonnull byte[] data) {
+            return this.header.hasBody() ? readFromBody(data) : null;
+        }
+
+        @Override
+        public <V extends Serializable> V decodeNewValue(@Nonnull byte[] data) {
+            return this.header.hasBody() ? readFromBody(data) : null;
+        }
+
+        @Override
+        public void release() {
+            this.inUse = false;
+            this.input = null;
+            this.header.clear();
+        }
+
+        @SuppressWarnings("unchecked")
+        private <T extends Serializable> T readFromBody(final byte[] data) {
+            try {
+                // The object stream is opened only on the first access to the body of the event
+                if (this.input == null) {
+                    this.input = openBody(data, this.header);
+                }
+
+                return (T) this.input.readObject();
+            } catch (IOException | ClassNotFoundException e) {
+                logger.error("Unable to deserialize body of binary event", e);
+                throw new RuntimeException(e);
+            }
+        }
     }
 }
@@ -5,6 +5,7 @@ import ru.joke.cache.bus.core.impl.ImmutableComponentState;
 import ru.joke.cache.bus.core.metrics.*;
 import ru.joke.cache.bus.core.state.ComponentState;
 import ru.joke.cache.bus.core.transport.CacheBusMessageChannel;
+import ru.joke.cache.bus.core.transport.CacheEntryOutputBatchMessage;
 import ru.joke.cache.bus.core.transport.CacheEntryOutputMessage;
 import ru.joke.cache.bus.core.transport.MessageChannelException;
 import ru.joke.cache.bus.jms.configuration.JmsCacheBusMessageChannelConfiguration;
@@ -75,6 +76,19 @@ public final class JmsCacheBusMessageChannel implements CacheBusMessageChannel<J
 
     @Override
     public void send(@Nonnull CacheEntryOutputMessage eventOutputMessage) {
+        send(MESSAGE_TYPE, eventOutputMessage.messageHashKey(), eventOutputMessage.cacheEntryMessageBody(), eventOutputMessage);
+    }
+
+    @Override
+    public void sendBatch(@Nonnull CacheEntryOutputBatchMessage batchOutputMessage) {
+        send(BATCH_MESSAGE_TYPE, batchOutputMessage.messageHashKey(), batchOutputMessage.batchMessageBody(), batchOutputMessage);
+    }
+
+    private void send(
+            final String messageType,
+            final int messageHashKey,
+            final byte[] messageBody,
+            final Object outputMessage) {
 
         final var senderConfigs = this.producerConfigurations;
         if (senderConfigs == null) {
@@ -96,7 +110,7 @@ public final class JmsCacheBusMessageChannel implements CacheBusMessageChannel<J
                     return;
                 }
 
-                sendMessage(eventOutputMessage, sessionConfiguration);
+                sendMessage(messageType, messageHashKey, messageBody, outputMessage, sessionConfiguration);
             } catch (JMSRuntimeException ex) {
                 recoverProducerSession(ex, sessionConfiguration);
                 retry = true;
@@ -243,22 +257,24 @@ public final class JmsCacheBusMessageChannel implements CacheBusMessageChannel<J
     }
 
     private void sendMessage(
-            final CacheEntryOutputMessage eventOutputMessage,
+            final String messageType,
+            final int messageHashKey,
+            final byte[] messageBody,
+            final Object outputMessage,
             final JmsProducerSessionConfiguration sessionConfiguration) {
 
         final JMSContext context = sessionConfiguration.session;
         final JMSProducer producer = context.createProducer()
-                                                .setJMSType(MESSAGE_TYPE)
+                                                .setJMSType(messageType)
                                                 .setDisableMessageID(true)
                                                 .setDisableMessageTimestamp(true)
                                                 .setDeliveryMode(DeliveryMode.PERSISTENT);
-        injectProperties(producer, eventOutputMessage, sessionConfiguration);
+        injectProperties(producer, messageHashKey, sessionConfiguration);
 
         final Topic endpoint = sessionConfiguration.endpoint;
-        final byte[] body = eventOutputMessage.cacheEntryMessageBody();
-        producer.send(endpoint, body);
+        producer.send(endpoint, messageBody);
 
-        logger.debug("Message {} was sent to topic: {}", eventOutputMessage, endpoint);
+        logger.debug("Message {} was sent to topic: {}", outputMessage, endpoint);
     }
 
     private void listenUntilNotClosed(final CacheEventMessageConsumer consumer) {
@@ -275,6 +291,11 @@ public final class JmsCacheBusMessageChannel implements CacheBusMessageChannel<J
                 }
 
                 final byte[] messageBody = bytesMessage.getBody(byte[].class);
+                if (BATCH_MESSAGE_TYPE.equals(bytesMessage.getJMSType())) {
+                    consumer.acceptBatch(messageBody);
+                    continue;
+                }
+
                 final int messageHash = bytesMessage.getIntProperty(HASH_KEY_PROPERTY);
 
                 // the error will never happen, so we can use auto ack
@@ -328,10 +349,10 @@ public final class JmsCacheBusMessageChannel implements CacheBusMessageChannel<J
 
     private void injectProperties(
             final JMSProducer producer,
-            final CacheEntryOutputMessage outputMessage,
+            final int messageHashKey,
             final JmsProducerSessionConfiguration senderSessionConfiguration) {
         producer.setProperty(HOST_PROPERTY, senderSessionConfiguration.hostName);
-        producer.setProperty(HASH_KEY_PROPERTY, outputMessage.messageHashKey());
+        producer.setProperty(HASH_KEY_PROPERTY, messageHashKey);
     }
 
     private void handleInterruptionOfThread(final InterruptedException ex) {
@@ -375,7 +396,7 @@ public final class JmsCacheBusMessageChannel implements CacheBusMessageChannel<J
         }
 
         private String createMessageSelector() {
-            return "JMSType='" + MESSAGE_TYPE + "' AND " + HOST_PROPERTY + "<>'" + this.hostName + "'";
+            return "JMSType IN ('" + MESSAGE_TYPE + "', '" + BATCH_MESSAGE_TYPE + "') AND " + HOST_PROPERTY + "<>'" + this.hostName + "'";
         }
     }
 
@@ -2,6 +2,7 @@ package ru.joke.cache.bus.jms.configuration;
 
 import ru.joke.cache.bus.core.configuration.CacheBusMessageChannelConfiguration;
 import ru.joke.cache.bus.core.configuration.ConfigurationException;
+import ru.joke.cache.bus.core.configuration.VirtualThreadPools;
 import ru.joke.cache.bus.core.impl.resolvers.StdHostNameResolver;
 import ru.joke.cache.bus.core.transport.HostNameResolver;
 import ru.joke.cache.bus.transport.ChannelConstants;
@@ -100,11 +101,14 @@ public record JmsCacheBusMessageChannelConfiguration(
 
     public static class Builder {
 
+        private static final String SUBSCRIBING_THREAD_NAME_PREFIX = "cache-bus-jms-subscriber-";
+
         private ConnectionFactory connectionFactory;
         private int availableConnectionsCount = DEFAULT_CONNECTIONS_COUNT;
         private long reconnectTimeoutMs = RECONNECT_RETRY_TIMEOUT_UNITS.toMillis(RECONNECT_RETRY_TIMEOUT);
         private String channel;
         private ExecutorService subscribingPool;
+        private boolean useVirtualThreads;
         private HostNameResolver hostNameResolver = new StdHostNameResolver();
 
         /**
@@ -173,6 +177,21 @@ public record JmsCacheBusMessageChannelConfiguration(
             return this;
         }
 
+        /**
+         * Sets the flag indicating whether messages should be retrieved from the channel on a virtual thread.<br>
+         * If enabled and the subscribing pool is not set explicitly, the pool that starts a new virtual thread
+         * for each task will be used, so the listener of the channel does not hold a platform thread while waiting for messages.
+         * By default, virtual threads are not used.
+         *
+         * @param useVirtualThreads the flag indicating whether to use virtual threads.
+         * @return cannot be {@code null}.
+         */
+        @Nonnull
+        public Builder useVirtualThreads(boolean useVirtualThreads) {
+            this.useVirtualThreads = useVirtualThreads;
+            return this;
+        }
+
         /**
          * Sets the host resolver. If not specified, the default implementation {@link StdHostNameResolver} will be used.
          *
@@ -198,7 +217,9 @@ public record JmsCacheBusMessageChannelConfiguration(
                     this.availableConnectionsCount,
                     this.reconnectTimeoutMs,
                     this.channel,
-                    this.subscribingPool,
+                    this.subscribingPool == null && this.useVirtualThreads
+                            ? VirtualThreadPools.create(SUBSCRIBING_THREAD_NAME_PREFIX)
+                            : this.subscribingPool,
                     this.hostNameResolver
             );
         }
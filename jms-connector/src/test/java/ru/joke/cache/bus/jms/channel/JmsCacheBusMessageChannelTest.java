@@ -5,9 +5,11 @@ import ru.joke.cache.bus.core.CacheEntryEventType;
 import ru.joke.cache.bus.core.CacheEventMessageConsumer;
 import ru.joke.cache.bus.core.impl.ImmutableComponentState;
 import ru.joke.cache.bus.core.impl.ImmutableCacheEntryEvent;
+import ru.joke.cache.bus.core.impl.internal.ImmutableCacheEntryOutputBatchMessage;
 import ru.joke.cache.bus.core.impl.internal.ImmutableCacheEntryOutputMessage;
 import ru.joke.cache.bus.core.impl.resolvers.StaticHostNameResolver;
 import ru.joke.cache.bus.core.state.ComponentState;
+import ru.joke.cache.bus.core.transport.CacheEntryOutputBatchMessage;
 import ru.joke.cache.bus.core.transport.CacheEntryOutputMessage;
 import ru.joke.cache.bus.core.transport.MessageChannelException;
 import ru.joke.cache.bus.jms.configuration.JmsCacheBusMessageChannelConfiguration;
@@ -29,6 +31,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executors;
 
+import static ru.joke.cache.bus.transport.ChannelConstants.BATCH_MESSAGE_TYPE;
 import static ru.joke.cache.bus.transport.ChannelConstants.MESSAGE_TYPE;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.eq;
@@ -89,6 +92,70 @@ public class JmsCacheBusMessageChannelTest {
         assertEquals(ComponentState.Status.UP_NOT_READY, channel.state().status(), "State must be UP_NOT_READY (no subscribing detected)");
     }
 
+    @Test
+    public void testSendBatchToChannelAfterActivation() {
+        // preparation
+        final JmsCacheBusMessageChannel channel = new JmsCacheBusMessageChannel();
+        activateChannel(channel);
+
+        final CacheEntryEvent<String, String> event1 = new ImmutableCacheEntryEvent<>("1", null, "v1", CacheEntryEventType.ADDED, "test1");
+        final CacheEntryEvent<String, String> event2 = new ImmutableCacheEntryEvent<>("2", null, "v2", CacheEntryEventType.ADDED, "test1");
+        final CacheEntryOutputBatchMessage batchMessage = new ImmutableCacheEntryOutputBatchMessage(
+                List.of(
+                        new ImmutableCacheEntryOutputMessage(event1, event1.key().getBytes()),
+                        new ImmutableCacheEntryOutputMessage(event2, event2.key().getBytes())
+                ),
+                1
+        );
+
+        // action
+        channel.sendBatch(batchMessage);
+
+        // checks
+        assertEquals(BATCH_MESSAGE_TYPE, this.producer.getJMSType(), "JMSType must be equal");
+        assertEquals(batchMessage.messageHashKey(), this.producer.getIntProperty(JmsCacheBusMessageChannel.HASH_KEY_PROPERTY), "Hash property must be equal");
+
+        final List<byte[]> binaryMessages = this.producer.binaryMessages.get(this.destination);
+        assertEquals(1, binaryMessages.size(), "Batch must be sent as a single message");
+        assertEquals(batchMessage.batchMessageBody(), binaryMessages.get(0), "Sent message body must be equal to frame");
+    }
+
+    @Test
+    public void testSubscribingToChannelWhenBatchMessageReceived() throws JMSException, InterruptedException {
+
+        // preparation
+        final JmsCacheBusMessageChannel channel = new JmsCacheBusMessageChannel();
+        activateChannel(channel);
+        try (final TestMessageConsumer consumer = new TestMessageConsumer()) {
+
+            final CacheEntryEvent<String, String> event1 = new ImmutableCacheEntryEvent<>("1", null, "v1", CacheEntryEventType.ADDED, "test1");
+            final CacheEntryEvent<String, String> event2 = new ImmutableCacheEntryEvent<>("2", null, "v2", CacheEntryEventType.ADDED, "test1");
+            final List<CacheEntryOutputMessage> messages = List.of(
+                    new ImmutableCacheEntryOutputMessage(event1, event1.key().getBytes()),
+                    new ImmutableCacheEntryOutputMessage(event2, event2.key().getBytes())
+            );
+            final CacheEntryOutputBatchMessage batchMessage = new ImmutableCacheEntryOutputBatchMessage(messages, 1);
+
+            final BytesMessage message = mock(BytesMessage.class);
+            when(message.getBody(byte[].class)).thenReturn(batchMessage.batchMessageBody());
+            when(message.getJMSType()).thenReturn(BATCH_MESSAGE_TYPE);
+
+            // action
+            channel.subscribe(consumer);
+            this.consumer.messages.offer(message);
+            while (consumer.bodyMap.size() < messages.size()) {
+                Thread.sleep(Duration.ofMillis(1));
+            }
+
+            // checks
+            for (final CacheEntryOutputMessage outputMessage : messages) {
+                assertArrayEquals(outputMessage.cacheEntryMessageBody(), consumer.bodyMap.get(outputMessage.messageHashKey()), "Message body must be equal");
+            }
+
+            channel.close();
+        }
+    }
+
     @Test
     public void testRecoveryOfSendingConnectionAfterFailure() {
         // preparation
@@ -166,6 +233,34 @@ public class JmsCacheBusMessageChannelTest {
         }
     }
 
+    @Test
+    public void testSubscribingToChannelOnVirtualThread() throws JMSException, InterruptedException {
+
+        // preparation
+        final JmsCacheBusMessageChannel channel = new JmsCacheBusMessageChannel();
+        activateChannel(channel, true);
+        try (final TestMessageConsumer consumer = new TestMessageConsumer()) {
+
+            final byte[] body = "1".getBytes();
+            final int hash = Arrays.hashCode(body);
+
+            final BytesMessage message = createMockMessage(body, hash);
+
+            // action
+            channel.subscribe(consumer);
+            this.consumer.messages.offer(message);
+            while (consumer.bodyMap.isEmpty()) {
+                Thread.sleep(Duration.ofMillis(1));
+            }
+
+            // checks
+            assertEquals(body, consumer.bodyMap.get(hash), "Message body must be equal");
+            assertTrue(consumer.receivedOnVirtualThread, "Message must be received on virtual thread");
+
+            channel.close();
+        }
+    }
+
     @Test
     public void testClosureFromChannelAfterActivationAndSubscribing() {
         // preparation
@@ -205,24 +300,33 @@ public class JmsCacheBusMessageChannelTest {
     }
 
     private void activateChannel(final JmsCacheBusMessageChannel channel) {
-        final JmsCacheBusMessageChannelConfiguration configuration =
+        activateChannel(channel, false);
+    }
+
+    private void activateChannel(final JmsCacheBusMessageChannel channel, final boolean useVirtualThreads) {
+        final JmsCacheBusMessageChannelConfiguration.Builder builder =
                 JmsCacheBusMessageChannelConfiguration.builder()
                                                         .setChannel(CHANNEL_NAME)
                                                         .setAvailableConnectionsCount(CONNECTIONS_COUNT)
                                                         .setReconnectTimeoutMs(1_000)
                                                         .setConnectionFactory(this.connectionFactory)
-                                                        .setSubscribingPool(Executors.newSingleThreadExecutor())
                                                         .setHostNameResolver(new StaticHostNameResolver(HOST_NAME))
-                                                      .build();
-        channel.activate(configuration);
+                                                        .useVirtualThreads(useVirtualThreads);
+        if (!useVirtualThreads) {
+            builder.setSubscribingPool(Executors.newSingleThreadExecutor());
+        }
+
+        channel.activate(builder.build());
     }
 
     private static class TestMessageConsumer implements CacheEventMessageConsumer {
 
         private final Map<Integer, byte[]> bodyMap = new ConcurrentHashMap<>();
+        private volatile boolean receivedOnVirtualThread;
 
         @Override
         public void accept(int messageHash, @Nonnull byte[] messageBody) {
+            this.receivedOnVirtualThread = Thread.currentThread().isVirtual();
             this.bodyMap.put(messageHash, messageBody);
         }
 
@@ -7,6 +7,7 @@ import ru.joke.cache.bus.core.impl.ImmutableComponentState;
 import ru.joke.cache.bus.core.metrics.*;
 import ru.joke.cache.bus.core.state.ComponentState;
 import ru.joke.cache.bus.core.transport.CacheBusMessageChannel;
+import ru.joke.cache.bus.core.transport.CacheEntryOutputBatchMessage;
 import ru.joke.cache.bus.core.transport.CacheEntryOutputMessage;
 import ru.joke.cache.bus.core.transport.MessageChannelException;
 import ru.joke.cache.bus.kafka.configuration.KafkaCacheBusMessageChannelConfiguration;
@@ -34,7 +35,10 @@ import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 
+import static ru.joke.cache.bus.transport.ChannelConstants.BATCH_MESSAGE_TYPE;
 import static ru.joke.cache.bus.transport.ChannelConstants.MESSAGE_TYPE;
 
 /**
@@ -50,11 +54,13 @@ public final class KafkaCacheBusMessageChannel implements CacheBusMessageChannel
     private static final Logger logger = LoggerFactory.getLogger(KafkaCacheBusMessageChannel.class);
 
     private static final byte[] MESSAGE_TYPE_BYTES = MESSAGE_TYPE.getBytes(StandardCharsets.UTF_8);
+    private static final byte[] BATCH_MESSAGE_TYPE_BYTES = BATCH_MESSAGE_TYPE.getBytes(StandardCharsets.UTF_8);
 
     private static final String CHANNEL_ID = "kafka-channel";
     private static final String MESSAGE_TYPE_HEADER = "type";
     private static final String HOST_HEADER = "host";
 
+    private final AtomicReference<Exception> sendingFailure = new AtomicReference<>();
     private volatile ChannelState channelState;
     private volatile KafkaProducerSessionConfiguration producerSessionConfiguration;
     private volatile KafkaConsumerSessionConfiguration consumerSessionConfiguration;
@@ -82,33 +88,31 @@ public final class KafkaCacheBusMessageChannel implements CacheBusMessageChannel
 
     @Override
     public void send(@Nonnull CacheEntryOutputMessage eventOutputMessage) {
+        sendRecord(eventOutputMessage.messageHashKey(), eventOutputMessage.cacheEntryMessageBody(), false);
+    }
 
-        KafkaProducerSessionConfiguration configuration = this.producerSessionConfiguration;
+    @Override
+    public void sendBatch(@Nonnull CacheEntryOutputBatchMessage batchOutputMessage) {
+        sendRecord(batchOutputMessage.messageHashKey(), batchOutputMessage.batchMessageBody(), true);
+    }
+
+    @Override
+    public void flush() {
+
+        final KafkaProducerSessionConfiguration configuration = this.producerSessionConfiguration;
         if (configuration == null) {
             throw new MessageChannelException("Channel not activated");
         }
 
-        while ((configuration = this.producerSessionConfiguration) != null) {
-
-            final ProducerRecord<Integer, byte[]> record = new ProducerRecord<>(
-                    configuration.sharedConfiguration.channel(),
-                    null,
-                    eventOutputMessage.messageHashKey(),
-                    eventOutputMessage.cacheEntryMessageBody(),
-                    configuration.headers
-            );
-
-            try {
-                configuration.kafkaProducer.send(record, (recordMetadata, e) -> {
-                    if (e != null) {
-                        logger.error("Unable to send message", e);
-                    }
-                });
+        try {
+            configuration.kafkaProducer.flush();
+        } catch (KafkaException ex) {
+            throw new MessageChannelException(ex);
+        }
 
-                break;
-            } catch (RetriableException | BrokerNotAvailableException ex) {
-                recoverProducerSession(ex, configuration);
-            }
+        final Exception sendingFailure = this.sendingFailure.getAndSet(null);
+        if (sendingFailure != null) {
+            throw new MessageChannelException("Delivery of sent messages is not confirmed", sendingFailure);
         }
     }
 
@@ -172,6 +176,38 @@ public final class KafkaCacheBusMessageChannel implements CacheBusMessageChannel
         return new ImmutableComponentState(CHANNEL_ID, status, severities);
     }
 
+    private void sendRecord(final int messageHashKey, final byte[] messageBody, final boolean batch) {
+
+        KafkaProducerSessionConfiguration configuration = this.producerSessionConfiguration;
+        if (configuration == null) {
+            throw new MessageChannelException("Channel not activated");
+        }
+
+        while ((configuration = this.producerSessionConfiguration) != null) {
+
+            final ProducerRecord<Integer, byte[]> record = new ProducerRecord<>(
+                    configuration.sharedConfiguration.channel(),
+                    null,
+                    messageHashKey,
+                    messageBody,
+                    batch ? configuration.batchHeaders : configuration.headers
+            );
+
+            try {
+                configuration.kafkaProducer.send(record, (recordMetadata, e) -> {
+                    if (e != null) {
+                        logger.error("Unable to send message", e);
+                        this.sendingFailure.compareAndSet(null, e);
+                    }
+                });
+
+                break;
+            } catch (RetriableException | BrokerNotAvailableException ex) {
+                recoverProducerSession(ex, configuration);
+            }
+        }
+    }
+
     private void listenUntilNotClosed(final CacheEventMessageConsumer messageConsumer) {
         logger.info("Subscribe was called");
 
@@ -190,14 +226,20 @@ public final class KafkaCacheBusMessageChannel implements CacheBusMessageChannel
 
                     final Header messageTypeHeader = record.headers().lastHeader(MESSAGE_TYPE_HEADER);
                     final Header hostHeader = record.headers().lastHeader(HOST_HEADER);
+                    final boolean isBatch = messageTypeHeader != null && Arrays.equals(BATCH_MESSAGE_TYPE_BYTES, messageTypeHeader.value());
                     if (messageTypeHeader == null
                             || hostHeader == null
-                            || !Arrays.equals(MESSAGE_TYPE_BYTES, messageTypeHeader.value())
+                            || !isBatch && !Arrays.equals(MESSAGE_TYPE_BYTES, messageTypeHeader.value())
                             || Arrays.equals(sessionConfiguration.hostNameBytes, hostHeader.value())) {
                         return;
                     }
 
                     final byte[] messageBody = record.value();
+                    if (isBatch) {
+                        messageConsumer.acceptBatch(messageBody);
+                        continue;
+                    }
+
                     final int messageHash = record.key();
 
                     messageConsumer.accept(messageHash, messageBody);
@@ -246,8 +288,10 @@ public final class KafkaCacheBusMessageChannel implements CacheBusMessageChannel
             return;
         }
 
-        // Synchronization on the configuration object in case of parallel message sending threads
-        synchronized (sessionConfiguration) {
+        // Locking of the configuration object in case of parallel message sending threads;
+        // unlike a monitor, the lock does not pin the carrier thread if the sending thread is virtual
+        sessionConfiguration.recoveryLock.lock();
+        try {
 
             // If it doesn't match, it means another thread has already restored the connection => it's safe to attempt message sending
             if (this.producerSessionConfiguration != sessionConfiguration) {
@@ -275,6 +319,8 @@ public final class KafkaCacheBusMessageChannel implements CacheBusMessageChannel
                 channelState.decreaseCountProducersInRecoveryState();
                 this.metrics.decrementCounter(KnownMetrics.PRODUCERS_IN_RECOVERY_COUNT);
             }
+        } finally {
+            sessionConfiguration.recoveryLock.unlock();
         }
     }
 
@@ -329,22 +375,25 @@ public final class KafkaCacheBusMessageChannel implements CacheBusMessageChannel
     private static abstract class KafkaSessionConfiguration implements AutoCloseable {
 
         protected final KafkaCacheBusMessageChannelConfiguration sharedConfiguration;
+        protected final ReentrantLock recoveryLock = new ReentrantLock();
         protected final byte[] hostNameBytes;
         protected final List<Header> headers;
+        protected final List<Header> batchHeaders;
 
         private KafkaSessionConfiguration(final KafkaCacheBusMessageChannelConfiguration sharedConfiguration) {
             this.sharedConfiguration = sharedConfiguration;
             final String hostName = sharedConfiguration.hostNameResolver().resolve();
             this.hostNameBytes = hostName.getBytes(StandardCharsets.UTF_8);
-            this.headers = createMessageHeaders();
+            this.headers = createMessageHeaders(MESSAGE_TYPE_BYTES);
+            this.batchHeaders = createMessageHeaders(BATCH_MESSAGE_TYPE_BYTES);
         }
 
         @Override
         public abstract void close();
 
-        private List<Header> createMessageHeaders() {
+        private List<Header> createMessageHeaders(final byte[] messageType) {
             final List<Header> headers = new ArrayList<>(2);
-            headers.add(new RecordHeader(MESSAGE_TYPE_HEADER, MESSAGE_TYPE_BYTES));
+            headers.add(new RecordHeader(MESSAGE_TYPE_HEADER, messageType));
             headers.add(new RecordHeader(HOST_HEADER, this.hostNameBytes));
 
             return headers;
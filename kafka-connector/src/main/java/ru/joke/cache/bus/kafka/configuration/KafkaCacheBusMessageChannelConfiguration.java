@@ -2,6 +2,7 @@ package ru.joke.cache.bus.kafka.configuration;
 
 import ru.joke.cache.bus.core.configuration.CacheBusMessageChannelConfiguration;
 import ru.joke.cache.bus.core.configuration.ConfigurationException;
+import ru.joke.cache.bus.core.configuration.VirtualThreadPools;
 import ru.joke.cache.bus.core.impl.resolvers.StdHostNameResolver;
 import ru.joke.cache.bus.core.transport.HostNameResolver;
 import ru.joke.cache.bus.transport.ChannelConstants;
@@ -97,12 +98,15 @@ public record KafkaCacheBusMessageChannelConfiguration(
     @NotThreadSafe
     public static class Builder {
 
+        private static final String SUBSCRIBING_THREAD_NAME_PREFIX = "cache-bus-kafka-subscriber-";
+
         private final Map<String, Object> producerProperties = new HashMap<>();
         private final Map<String, Object> consumerProperties = new HashMap<>();
         private long reconnectTimeoutMs = RECONNECT_RETRY_TIMEOUT_UNITS.toMillis(RECONNECT_RETRY_TIMEOUT);
         private String channel;
         private HostNameResolver hostNameResolver;
         private ExecutorService subscribingPool;
+        private boolean useVirtualThreads;
 
         /**
          * Sets the main properties for the Kafka producer.<br>
@@ -189,6 +193,21 @@ public record KafkaCacheBusMessageChannelConfiguration(
             return this;
         }
 
+        /**
+         * Sets the flag indicating whether messages should be retrieved from the channel on a virtual thread.<br>
+         * If enabled and the subscribing pool is not set explicitly, the pool that starts a new virtual thread
+         * for each task will be used, so the listener of the channel does not hold a platform thread while waiting for messages.
+         * By default, virtual threads are not used.
+         *
+         * @param useVirtualThreads the flag indicating whether to use virtual threads.
+         * @return cannot be {@code null}.
+         */
+        @Nonnull
+        public Builder useVirtualThreads(boolean useVirtualThreads) {
+            this.useVirtualThreads = useVirtualThreads;
+            return this;
+        }
+
         /**
          * Constructs a {@link KafkaCacheBusMessageChannel} object based on the data provided during the object's construction.
          *
@@ -202,7 +221,9 @@ public record KafkaCacheBusMessageChannelConfiguration(
                     new HashMap<>(this.consumerProperties),
                     this.reconnectTimeoutMs,
                     this.channel,
-                    this.subscribingPool,
+                    this.subscribingPool == null && this.useVirtualThreads
+                            ? VirtualThreadPools.create(SUBSCRIBING_THREAD_NAME_PREFIX)
+                            : this.subscribingPool,
                     this.hostNameResolver
             );
         }
@@ -0,0 +1,479 @@
+package ru.joke.cache.bus.kryo.serialization;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.unsafe.UnsafeInput;
+import com.esotericsoftware.kryo.unsafe.UnsafeOutput;
+import com.esotericsoftware.kryo.util.DefaultInstantiatorStrategy;
+import com.esotericsoftware.kryo.util.Pool;
+import org.objenesis.strategy.StdInstantiatorStrategy;
+import ru.joke.cache.bus.core.CacheEntryEvent;
+import ru.joke.cache.bus.core.configuration.ConfigurationException;
+import ru.joke.cache.bus.core.impl.ImmutableCacheEntryEvent;
+import ru.joke.cache.bus.core.transport.ByteBuffers;
+import ru.joke.cache.bus.core.transport.CacheEntryEventConverter;
+import ru.joke.cache.bus.core.transport.CacheEntryEventHeader;
+import ru.joke.cache.bus.core.transport.LazyCacheEntryEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.NotThreadSafe;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Implementation of a converter based on the <a href="https://github.com/EsotericSoftware/kryo">Kryo</a> library.
+ * Unlike the JDK serialization and the Jackson converter with the default typing, the classes of the objects can be
+ * {@linkplain Builder#registerClass(Class, int) registered} with the stable identifiers, so only the small identifier
+ * of the class is written instead of the name of the class.<br>
+ * The event is written in the header-first format (see {@link CacheEntryEventHeader}): Kryo is used only for the body
+ * of the event, so the events with the string keys and without the values are decoded without Kryo, and when decoding
+ * into the flyweight, the body of the event is deserialized only on the first access to it.<br>
+ * Kryo instances are not thread-safe, so the configured instances are kept in the pool and obtained for each conversion;
+ * the events are serialized into the thread-local reusable outputs, so {@linkplain #toBuffer(CacheEntryEvent, boolean)} doesn't copy
+ * the serialized event, and the heap buffers passed to {@linkplain #fromBuffer(ByteBuffer)} are decoded in place.<br>
+ * All servers of the logical cluster must use the same configuration of the converter (the registered classes,
+ * the reference tracking and the kind of the streams).
+ *
+ * @author Alik
+ * @see CacheEntryEventConverter
+ * @see Builder
+ */
+@ThreadSafe
+@Immutable
+public final class KryoCacheEntryEventConverter implements CacheEntryEventConverter {
+
+    private static final Logger logger = LoggerFactory.getLogger(KryoCacheEntryEventConverter.class);
+
+    private static final int BUF_SIZE = 512;
+    private static final int MAX_RETAINED_BUF_SIZE = 64 * 1024;
+    private static final byte[] EMPTY_DATA = new byte[0];
+
+    private final boolean unsafeStreams;
+    private final Pool<Kryo> kryoPool;
+    private final ThreadLocal<KryoOutput> outputs;
+    private final ThreadLocal<KryoDecoder> decoders;
+
+    private KryoCacheEntryEventConverter(@Nonnull Builder builder) {
+        this.unsafeStreams = builder.unsafeStreams;
+
+        final Map<Class<?>, Integer> registeredClasses = new LinkedHashMap<>(builder.registeredClasses);
+        final boolean registrationRequired = builder.registrationRequired;
+        final boolean references = builder.references;
+        this.kryoPool = new Pool<>(true, false, builder.maxPoolSize) {
+            @Override
+            protected Kryo create() {
+                return createKryo(registeredClasses, registrationRequired, references);
+            }
+        };
+        this.outputs = ThreadLocal.withInitial(() -> new KryoOutput(this.unsafeStreams));
+        this.decoders = ThreadLocal.withInitial(this::createDecoder);
+    }
+
+    @Nonnull
+    @Override
+    public <K extends Serializable, V extends Serializable> byte[] toBinary(@Nonnull CacheEntryEvent<K, V> event, boolean serializeValueFields) {
+        return write(event, serializeValueFields).toBytes();
+    }
+
+    @Nonnull
+    @Override
+    public <K extends Serializable, V extends Serializable> ByteBuffer toBuffer(@Nonnull CacheEntryEvent<K, V> event, boolean serializeValueFields) {
+        final Output output = write(event, serializeValueFields);
+        return ByteBuffer.wrap(output.getBuffer(), 0, output.position());
+    }
+
+    @Nonnull
+    @Override
+    public <K extends Serializable, V extends Serializable> CacheEntryEvent<K, V> fromBinary(@Nonnull byte[] data) {
+        return read(data, 0, data.length);
+    }
+
+    @Nonnull
+    @Override
+    public <K extends Serializable, V extends Serializable> CacheEntryEvent<K, V> fromBuffer(@Nonnull ByteBuffer data) {
+        if (data.hasArray()) {
+            return read(data.array(), data.arrayOffset() + data.position(), data.remaining());
+        }
+
+        final byte[] array = ByteBuffers.toByteArray(data);
+        return read(array, 0, array.length);
+    }
+
+    @Nonnull
+    @Override
+    public <K extends Serializable, V extends Serializable> CacheEntryEvent<K, V> fromBinary(
+            @Nonnull byte[] data,
+            @Nonnull LazyCacheEntryEvent<K, V> flyweight) {
+        return readInto(data, 0, data.length, flyweight);
+    }
+
+    @Nonnull
+    @Override
+    public <K extends Serializable, V extends Serializable> CacheEntryEvent<K, V> fromBuffer(
+            @Nonnull ByteBuffer data,
+            @Nonnull LazyCacheEntryEvent<K, V> flyweight) {
+        if (data.hasArray()) {
+            return readInto(data.array(), data.arrayOffset() + data.position(), data.remaining(), flyweight);
+        }
+
+        final byte[] array = ByteBuffers.toByteArray(data);
+        return readInto(array, 0, array.length, flyweight);
+    }
+
+    @Override
+    public String toString() {
+        return "KryoCacheEntryEventConverter{" + "unsafeStreams=" + unsafeStreams + '}';
+    }
+
+    private Output write(final CacheEntryEvent<?, ?> event, final boolean serializeValueFields) {
+
+        final KryoOutput kryoOutput = this.outputs.get();
+        final Output output = kryoOutput.reset();
+
+        try {
+            CacheEntryEventHeader.write(kryoOutput.data, event);
+
+            // Kryo is obtained only if the body isn't empty: the string key is written to the header
+            final boolean stringKey = CacheEntryEventHeader.isStringKey(event.key());
+            if (!stringKey || serializeValueFields) {
+                final Kryo kryo = this.kryoPool.obtain();
+                try {
+                    if (!stringKey) {
+                        kryo.writeClassAndObject(output, event.key());
+                    }
+
+                    kryo.writeClassAndObject(output, serializeValueFields ? event.oldValue() : null);
+                    kryo.writeClassAndObject(output, serializeValueFields ? event.newValue() : null);
+                } finally {
+                    this.kryoPool.free(kryo);
+                }
+            }
+
+            return output;
+        } catch (IOException | KryoException ex) {
+            logger.error("Unable to serialize event: " + event, ex);
+            throw new RuntimeException(ex);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <K extends Serializable, V extends Serializable> CacheEntryEvent<K, V> read(
+            final byte[] data,
+            final int offset,
+            final int length) {
+
+        final KryoDecoder decoder = acquireDecoder();
+        try {
+            final CacheEntryEventHeader header = decoder.open(data, offset, length);
+            if (!header.hasBody()) {
+                return new ImmutableCacheEntryEvent<>((K) header.readStringKey(data), null, null, header.eventTime(), header.eventType(), header.cacheName());
+            }
+
+            final K key = decoder.decodeKey(data);
+            final V oldValue = decoder.decodeOldValue(data);
+            final V newValue = decoder.decodeNewValue(data);
+
+            return new ImmutableCacheEntryEvent<>(key, oldValue, newValue, header.eventTime(), header.eventType(), header.cacheName());
+        } catch (IllegalArgumentException ex) {
+            logger.error("Unable to deserialize from binary event", ex);
+            throw ex;
+        } finally {
+            decoder.release();
+        }
+    }
+
+    private <K extends Serializable, V extends Serializable> CacheEntryEvent<K, V> readInto(
+            final byte[] data,
+            final int offset,
+            final int length,
+            final LazyCacheEntryEvent<K, V> flyweight) {
+
+        final KryoDecoder decoder = acquireDecoder();
+        try {
+            final CacheEntryEventHeader header = decoder.open(data, offset, length);
+            return flyweight.wrap(data, header.eventTime(), header.eventType(), header.cacheName(), decoder);
+        } catch (RuntimeException e) {
+            decoder.release();
+            logger.error("Unable to deserialize from binary event", e);
+            throw e;
+        }
+    }
+
+    private KryoDecoder acquireDecoder() {
+        final KryoDecoder threadDecoder = this.decoders.get();
+        // The decoder is still used by the flyweight of the outer event
+        return threadDecoder.isInUse() ? createDecoder() : threadDecoder;
+    }
+
+    private KryoDecoder createDecoder() {
+        return new KryoDecoder(this.unsafeStreams ? new UnsafeInput() : new Input());
+    }
+
+    private static Kryo createKryo(
+            final Map<Class<?>, Integer> registeredClasses,
+            final boolean registrationRequired,
+            final boolean references) {
+
+        final Kryo kryo = new Kryo();
+        kryo.setRegistrationRequired(registrationRequired);
+        kryo.setReferences(references);
+        // The classes of the cache values often have no no-arg constructors
+        kryo.setInstantiatorStrategy(new DefaultInstantiatorStrategy(new StdInstantiatorStrategy()));
+        registeredClasses.forEach(kryo::register);
+
+        return kryo;
+    }
+
+    /**
+     * Returns a builder for constructing the converter.
+     *
+     * @return cannot be {@code null}.
+     * @see Builder
+     */
+    @Nonnull
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Creates the converter with the default configuration: the registration of the classes isn't required,
+     * the reference tracking is disabled, the safe streams are used.
+     *
+     * @return cannot be {@code null}.
+     */
+    @Nonnull
+    public static CacheEntryEventConverter create() {
+        return builder().build();
+    }
+
+    @NotThreadSafe
+    public static class Builder {
+
+        /**
+         * Minimal identifier of the registered class: the smaller identifiers are used by Kryo for the primitive types and the strings.
+         */
+        public static final int MIN_CLASS_ID = 10;
+
+        private final Map<Class<?>, Integer> registeredClasses = new LinkedHashMap<>();
+        private final Map<Integer, Class<?>> classesById = new HashMap<>();
+        private boolean registrationRequired;
+        private boolean references;
+        private boolean unsafeStreams;
+        private int maxPoolSize = Runtime.getRuntime().availableProcessors() * 2;
+
+        private Builder() {
+        }
+
+        /**
+         * Registers the class with the stable identifier: the identifier is written instead of the name of the class.
+         * The same identifiers must be used for the classes on all servers of the logical cluster.
+         *
+         * @param type the class, cannot be {@code null}.
+         * @param id   the identifier of the class, must be not less than {@linkplain #MIN_CLASS_ID}.
+         * @return the builder for further configuration, cannot be {@code null}.
+         * @throws ConfigurationException if the identifier is invalid or the class or the identifier is already registered
+         */
+        @Nonnull
+        public Builder registerClass(@Nonnull Class<?> type, @Nonnegative int id) {
+            Objects.requireNonNull(type, "type");
+            if (id < MIN_CLASS_ID) {
+                throw new ConfigurationException("Class id must be not less than " + MIN_CLASS_ID + ": " + id);
+            }
+
+            final Class<?> registeredType = this.classesById.putIfAbsent(id, type);
+            if (registeredType != null) {
+                throw new ConfigurationException("Class id " + id + " is already used by " + registeredType.getName());
+            }
+
+            if (this.registeredClasses.putIfAbsent(type, id) != null) {
+                this.classesById.remove(id);
+                throw new ConfigurationException("Class is already registered: " + type.getName());
+            }
+
+            return this;
+        }
+
+        /**
+         * Sets whether the registration of the classes is required. If the registration is required, the serialization of the objects
+         * of the unregistered classes fails, so the names of the classes are never written. By default, the registration isn't required.
+         *
+         * @param registrationRequired whether the registration of the classes is required
+         * @return the builder for further configuration, cannot be {@code null}.
+         * @see #registerClass(Class, int)
+         */
+        @Nonnull
+        public Builder useRegistrationRequired(boolean registrationRequired) {
+            this.registrationRequired = registrationRequired;
+            return this;
+        }
+
+        /**
+         * Sets whether the reference tracking is enabled. The reference tracking is required for the values with the shared objects
+         * or the cyclic references, but it makes the serialization slower. By default, the reference tracking is disabled.
+         *
+         * @param references whether the reference tracking is enabled
+         * @return the builder for further configuration, cannot be {@code null}.
+         */
+        @Nonnull
+        public Builder useReferences(boolean references) {
+            this.references = references;
+            return this;
+        }
+
+        /**
+         * Sets whether the unsafe-backed streams are used for the body of the event. The unsafe streams are faster
+         * for the values with many numbers and arrays of the primitives, but they write the numbers with the fixed length
+         * and the native byte order, so they can be used only if all servers of the logical cluster have the same byte order.
+         * By default, the safe streams are used.
+         *
+         * @param unsafeStreams whether the unsafe streams are used
+         * @return the builder for further configuration, cannot be {@code null}.
+         */
+        @Nonnull
+        public Builder useUnsafeStreams(boolean unsafeStreams) {
+            this.unsafeStreams = unsafeStreams;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of the free Kryo instances kept in the pool.
+         * By default, it's twice the number of the available processors.
+         *
+         * @param maxPoolSize the maximum number of the pooled instances, must be positive.
+         * @return the builder for further configuration, cannot be {@code null}.
+         */
+        @Nonnull
+        public Builder setMaxPoolSize(@Nonnegative int maxPoolSize) {
+            this.maxPoolSize = maxPoolSize;
+            return this;
+        }
+
+        /**
+         * Builds the converter.
+         *
+         * @return cannot be {@code null}.
+         */
+        @Nonnull
+        public CacheEntryEventConverter build() {
+            if (this.maxPoolSize <= 0) {
+                throw new ConfigurationException("Max pool size must be positive");
+            }
+
+            return new KryoCacheEntryEventConverter(this);
+        }
+    }
+
+    @NotThreadSafe
+    private static final class KryoOutput {
+
+        private final Output output;
+        private final DataOutputStream data;
+
+        private KryoOutput(final boolean unsafeStreams) {
+            this.output = unsafeStreams ? new UnsafeOutput(BUF_SIZE, -1) : new Output(BUF_SIZE, -1);
+            this.data = new DataOutputStream(this.output);
+        }
+
+        private Output reset() {
+            // The buffer grown by the large event isn't retained
+            if (this.output.getBuffer().length > MAX_RETAINED_BUF_SIZE) {
+                this.output.setBuffer(new byte[BUF_SIZE], -1);
+            }
+
+            this.output.reset();
+            return this.output;
+        }
+    }
+
+    @NotThreadSafe
+    private final class KryoDecoder implements LazyCacheEntryEvent.Decoder {
+
+        private final CacheEntryEventHeader header = new CacheEntryEventHeader();
+        private final Input input;
+        private boolean inUse;
+        private boolean bodyOpened;
+
+        private KryoDecoder(final Input input) {
+            this.input = input;
+        }
+
+        private CacheEntryEventHeader open(final byte[] data, final int offset, final int length) {
+            this.inUse = true;
+            return this.header.read(data, offset, length);
+        }
+
+        private boolean isInUse() {
+            return this.inUse;
+        }
+
+        @Nonnull
+        @Override
+        @SuppressWarnings("unchecked")
+        public <K extends Serializable> K decodeKey(@Nonnull byte[] data) {
+            return this.header.hasStringKey() ? (K) this.header.readStringKey(data) : readFromBody(data);
+        }
+
+        @Override
+        public <V extends Serializable> V decodeOldValue(@Nonnull byte[] data) {
+            return this.header.hasBody() ? readFromBody(data) : null;
+        }
+
+        @Override
+        public <V extends Serializable> V decodeNewValue(@Nonnull byte[] data) {
+            if (!this.header.hasBody()) {
+                return null;
+            }
+
+            final V newValue = readFromBody(data);
+            // Kryo reads the corrupted bytes leniently (for example, as nulls), so the body must be consumed entirely
+            if (this.input.position() != this.input.limit()) {
+                final KryoException ex = new KryoException("Body of binary event has unexpected trailing bytes: " + (this.input.limit() - this.input.position()));
+                logger.error("Unable to deserialize body of binary event", ex);
+                throw new RuntimeException(ex);
+            }
+
+            return newValue;
+        }
+
+        @Override
+        public void release() {
+            this.inUse = false;
+            this.bodyOpened = false;
+            this.input.setBuffer(EMPTY_DATA);
+            this.header.clear();
+        }
+
+        @SuppressWarnings("unchecked")
+        private <T extends Serializable> T readFromBody(final byte[] data) {
+            // The input is pointed to the body only on the first access to the body of the event
+            if (!this.bodyOpened) {
+                this.input.setBuffer(data, this.header.bodyOffset(), this.header.bodyLength());
+                this.bodyOpened = true;
+            }
+
+            final Pool<Kryo> kryoPool = KryoCacheEntryEventConverter.this.kryoPool;
+            final Kryo kryo = kryoPool.obtain();
+            try {
+                return (T) kryo.readClassAndObject(this.input);
+            } catch (KryoException | ClassCastException e) {
+                logger.error("Unable to deserialize body of binary event", e);
+                throw new RuntimeException(e);
+            } finally {
+                kryoPool.free(kryo);
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package ru.joke.cache.bus.kryo.serialization;
+
+import org.junit.jupiter.api.Test;
+import ru.joke.cache.bus.core.CacheEntryEvent;
+import ru.joke.cache.bus.core.CacheEntryEventType;
+import ru.joke.cache.bus.core.configuration.ConfigurationException;
+import ru.joke.cache.bus.core.impl.ImmutableCacheEntryEvent;
+import ru.joke.cache.bus.core.testing.transport.BaseCacheEntryEventConverterTest;
+import ru.joke.cache.bus.core.transport.CacheEntryEventConverter;
+import ru.joke.cache.bus.jdk.serialization.JdkCacheEntryEventConverter;
+
+import javax.annotation.Nonnull;
+import java.io.Serializable;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KryoCacheEntryEventConverterTest extends BaseCacheEntryEventConverterTest {
+
+    @Test
+    public void testWhenClassesRegisteredThenEventIsMoreCompact() {
+        final CacheEntryEvent<Item, Payload> event = new ImmutableCacheEntryEvent<>(
+                new Item("k1", 1, new Item("k2", 2, null)),
+                new Payload("v1", 2, 13.5, new HashSet<>(Set.of(new Date(1002))), true, null),
+                new Payload("v2", 3, 14.5, null, false, new Payload("v3", 4, null, null, true, null)),
+                System.currentTimeMillis(),
+                CacheEntryEventType.UPDATED,
+                "test"
+        );
+
+        final CacheEntryEventConverter registeringConverter =
+                KryoCacheEntryEventConverter.builder()
+                                                .registerClass(Item.class, 10)
+                                                .registerClass(Payload.class, 11)
+                                                .registerClass(HashSet.class, 12)
+                                                .registerClass(Date.class, 13)
+                                                .useRegistrationRequired(true)
+                                            .build();
+        final byte[] registeredData = registeringConverter.toBinary(event, true);
+        final byte[] data = createConverter().toBinary(event, true);
+        final byte[] jdkData = new JdkCacheEntryEventConverter().toBinary(event, true);
+
+        assertEquals(event, registeringConverter.fromBinary(registeredData), "Source and deserialized event must be equal");
+        assertTrue(registeredData.length < data.length, "Event with registered classes must be more compact than with class names");
+        assertTrue(data.length < jdkData.length, "Event must be more compact than with JDK serialization");
+    }
+
+    @Test
+    public void testWhenSharedObjectsAndReferencesEnabledThenIdentityIsPreserved() {
+        final CacheEntryEventConverter converter = KryoCacheEntryEventConverter.builder().useReferences(true).build();
+
+        final Item sharedItem = new Item("k", 1, null);
+        final ArrayList<Item> value = new ArrayList<>(List.of(sharedItem, sharedItem));
+        final CacheEntryEvent<String, ArrayList<Item>> event = new ImmutableCacheEntryEvent<>("k", null, value, System.currentTimeMillis(), CacheEntryEventType.ADDED, "test");
+
+        final CacheEntryEvent<String, ArrayList<Item>> result = converter.fromBinary(converter.toBinary(event, true));
+
+        assertEquals(event, result, "Source and deserialized event must be equal");
+        assertSame(result.newValue().get(0), result.newValue().get(1), "Shared object must be deserialized once");
+    }
+
+    @Test
+    public void testWhenInvalidConfigurationThenException() {
+        assertThrows(ConfigurationException.class, () -> KryoCacheEntryEventConverter.builder().registerClass(Key.class, 9));
+        assertThrows(ConfigurationException.class, () -> KryoCacheEntryEventConverter.builder().registerClass(Key.class, 10).registerClass(Value.class, 10));
+        assertThrows(ConfigurationException.class, () -> KryoCacheEntryEventConverter.builder().registerClass(Key.class, 10).registerClass(Key.class, 11));
+        assertThrows(ConfigurationException.class, () -> KryoCacheEntryEventConverter.builder().setMaxPoolSize(0).build());
+    }
+
+    @Nonnull
+    @Override
+    protected CacheEntryEventConverter createConverter() {
+        return KryoCacheEntryEventConverter.create();
+    }
+
+    private record Item(String name, long id, Item parent) implements Serializable {
+    }
+
+    private record Payload(
+            String title,
+            int count,
+            Double price,
+            Set<Date> dates,
+            boolean active,
+            Payload nested) implements Serializable {
+    }
+}
@@ -0,0 +1,42 @@
+package ru.joke.cache.bus.kryo.serialization;
+
+import org.junit.jupiter.api.Test;
+import ru.joke.cache.bus.core.CacheEntryEvent;
+import ru.joke.cache.bus.core.CacheEntryEventType;
+import ru.joke.cache.bus.core.impl.ImmutableCacheEntryEvent;
+import ru.joke.cache.bus.core.testing.transport.BaseCacheEntryEventConverterTest;
+import ru.joke.cache.bus.core.transport.CacheEntryEventConverter;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class KryoCacheEntryEventConverterWithRegistrationTest extends BaseCacheEntryEventConverterTest {
+
+    @Test
+    public void testWhenClassIsNotRegisteredThenException() {
+        final CacheEntryEvent<String, ArrayList<String>> event = new ImmutableCacheEntryEvent<>("k", null, new ArrayList<>(), System.currentTimeMillis(), CacheEntryEventType.ADDED, "test");
+        assertThrows(RuntimeException.class, () -> createConverter().toBinary(event, true));
+    }
+
+    @Nonnull
+    @Override
+    protected CacheEntryEventConverter createConverter() {
+        return createRegisteringConverter();
+    }
+
+    static CacheEntryEventConverter createRegisteringConverter() {
+        return KryoCacheEntryEventConverter.builder()
+                                                .registerClass(Key.class, 10)
+                                                .registerClass(Value.class, 11)
+                                                .registerClass(HashSet.class, 12)
+                                                .registerClass(Date.class, 13)
+                                                .useRegistrationRequired(true)
+                                                .useUnsafeStreams(true)
+                                                .setMaxPoolSize(2)
+                                           .build();
+    }
+}
@@ -5,12 +5,14 @@ import ru.joke.cache.bus.core.metrics.CacheBusMetricsRegistry;
 import ru.joke.cache.bus.core.metrics.KnownMetrics;
 import ru.joke.cache.bus.core.metrics.Metrics;
 
+import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Implementation of a metrics registry for the cache bus based on the Micrometer Metrics library.
@@ -110,6 +112,11 @@ public final class MicrometerCacheBusMetricsRegistry implements CacheBusMetricsR
         return findTimer(metric.id()).recordCallable(action);
     }
 
+    @Override
+    public void recordExecutionTime(@Nonnull KnownMetrics metric, @Nonnegative long duration, @Nonnull TimeUnit unit) {
+        findTimer(metric.id()).record(duration, unit);
+    }
+
     private Timer findTimer(final String timerId) {
         return Objects.requireNonNull(this.timersMap.get(timerId), "Timer must be registered before use");
     }
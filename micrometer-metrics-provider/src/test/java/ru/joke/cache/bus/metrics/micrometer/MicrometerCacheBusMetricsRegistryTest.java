@@ -118,6 +118,11 @@ public class MicrometerCacheBusMetricsRegistryTest {
         final int probableExecutionTimeWithMeasurementError = sleepTime + 50;
         assertTrue(sleepTime <= maxExecutionTimeToCompare && probableExecutionTimeWithMeasurementError > maxExecutionTimeToCompare, "Execution time of longest task must be approximately equal, taking into account the error");
         assertEquals(2, micrometerTimer.count(), "Count of invocations must be equal");
+
+        registry.recordExecutionTime(KnownMetrics.CONSUMER_CONNECTION_RECOVERY_TIME, 500, TimeUnit.MILLISECONDS);
+
+        assertEquals(500, micrometerTimer.max(TimeUnit.MILLISECONDS), "Max execution time must be equal to measured time");
+        assertEquals(3, micrometerTimer.count(), "Count of invocations must be equal");
     }
 
     @Test
@@ -1,25 +1,39 @@
 package ru.joke.cache.bus.onenio.serialization;
 
 import ru.joke.cache.bus.core.CacheEntryEvent;
-import ru.joke.cache.bus.core.CacheEntryEventType;
 import ru.joke.cache.bus.core.impl.ImmutableCacheEntryEvent;
+import ru.joke.cache.bus.core.transport.ByteBuffers;
 import ru.joke.cache.bus.core.transport.CacheEntryEventConverter;
+import ru.joke.cache.bus.core.transport.CacheEntryEventHeader;
+import ru.joke.cache.bus.core.transport.LazyCacheEntryEvent;
 import one.nio.serial.CalcSizeStream;
 import one.nio.serial.DeserializeStream;
 import one.nio.serial.SerializeStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.NotThreadSafe;
 import javax.annotation.concurrent.ThreadSafe;
 import java.io.IOException;
 import java.io.ObjectOutput;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 /**
  * Implementation of a converter based on the OneNio library.
- * It is the default recommended implementation due to its speed and compactness of the format.
+ * It is the default recommended implementation due to its speed and compactness of the format.<br>
+ * The event is written in the header-first format (see {@link CacheEntryEventHeader}), the body of the event
+ * (the key if it isn't a string and the values) is written in the OneNio serialization format and, when decoding
+ * into the flyweight, is deserialized only on the first access to it.<br>
+ * By default, the event is serialized in a single pass into the thread-local buffer that grows up to
+ * the {@linkplain #OneNioCacheEntryEventConverter(int) max retained buffer size}, and then the written bytes are copied
+ * once into the result array ({@linkplain #toBinary(CacheEntryEvent, boolean)}) or exposed without copying
+ * ({@linkplain #toBuffer(CacheEntryEvent, boolean)}). Only the events that don't fit into the buffer are measured first
+ * and serialized into the exactly sized array. The received events are decoded with the thread-local decoders.
  *
  * @author Alik
  * @see CacheEntryEventConverter
@@ -30,9 +44,113 @@ public final class OneNioCacheEntryEventConverter implements CacheEntryEventConv
 
     private static final Logger logger = LoggerFactory.getLogger(OneNioCacheEntryEventConverter.class);
 
+    private static final int INITIAL_BUF_SIZE = 512;
+    private static final int DEFAULT_MAX_RETAINED_BUF_SIZE = 64 * 1024;
+
+    private final int maxRetainedBufferSize;
+    private final ThreadLocal<OutputBuffer> outputBuffers;
+    private final ThreadLocal<StreamDecoder> decoders = ThreadLocal.withInitial(StreamDecoder::new);
+
+    /**
+     * Creates the converter with the single-pass serialization into the thread-local buffers
+     * of the default max retained size (64 KB).
+     */
+    public OneNioCacheEntryEventConverter() {
+        this(DEFAULT_MAX_RETAINED_BUF_SIZE);
+    }
+
+    /**
+     * Creates the converter with the specified max retained size of the thread-local buffers.
+     *
+     * @param maxRetainedBufferSize the max size of the thread-local buffer used for the single-pass serialization;
+     *                              the events of the larger size are measured first and serialized into the exactly sized arrays.
+     *                              If {@code 0}, the thread-local buffers aren't used and all events are serialized in two passes.
+     */
+    public OneNioCacheEntryEventConverter(@Nonnegative int maxRetainedBufferSize) {
+        if (maxRetainedBufferSize < 0) {
+            throw new IllegalArgumentException("maxRetainedBufferSize must be non-negative");
+        }
+
+        this.maxRetainedBufferSize = maxRetainedBufferSize;
+        this.outputBuffers = ThreadLocal.withInitial(() -> new OutputBuffer(new byte[Math.min(INITIAL_BUF_SIZE, maxRetainedBufferSize)], true));
+    }
+
     @Nonnull
     @Override
     public <K extends Serializable, V extends Serializable> byte[] toBinary(@Nonnull CacheEntryEvent<K, V> event, boolean serializeValueFields) {
+        return write(event, serializeValueFields).toByteArray();
+    }
+
+    @Nonnull
+    @Override
+    public <K extends Serializable, V extends Serializable> ByteBuffer toBuffer(@Nonnull CacheEntryEvent<K, V> event, boolean serializeValueFields) {
+        return write(event, serializeValueFields).toByteBuffer();
+    }
+
+    @Nonnull
+    @Override
+    public <K extends Serializable, V extends Serializable> CacheEntryEvent<K, V> fromBinary(@Nonnull byte[] data) {
+        return read(data, 0, data.length);
+    }
+
+    @Nonnull
+    @Override
+    public <K extends Serializable, V extends Serializable> CacheEntryEvent<K, V> fromBuffer(@Nonnull ByteBuffer data) {
+        if (data.hasArray()) {
+            return read(data.array(), data.arrayOffset() + data.position(), data.remaining());
+        }
+
+        final byte[] array = ByteBuffers.toByteArray(data);
+        return read(array, 0, array.length);
+    }
+
+    @Nonnull
+    @Override
+    public <K extends Serializable, V extends Serializable> CacheEntryEvent<K, V> fromBinary(
+            @Nonnull byte[] data,
+            @Nonnull LazyCacheEntryEvent<K, V> flyweight) {
+        return readInto(data, 0, data.length, flyweight);
+    }
+
+    @Nonnull
+    @Override
+    public <K extends Serializable, V extends Serializable> CacheEntryEvent<K, V> fromBuffer(
+            @Nonnull ByteBuffer data,
+            @Nonnull LazyCacheEntryEvent<K, V> flyweight) {
+        if (data.hasArray()) {
+            return readInto(data.array(), data.arrayOffset() + data.position(), data.remaining(), flyweight);
+        }
+
+        final byte[] array = ByteBuffers.toByteArray(data);
+        return readInto(array, 0, array.length, flyweight);
+    }
+
+    private OutputBuffer write(final CacheEntryEvent<?, ?> event, final boolean serializeValueFields) {
+
+        try {
+            if (this.maxRetainedBufferSize == 0) {
+                return new OutputBuffer(writeExactly(event, serializeValueFields), false);
+            }
+
+            final OutputBuffer buffer = this.outputBuffers.get();
+            try (final SerializeStream out = new SerializeStream(buffer.array)) {
+                writeTo(out, event, serializeValueFields);
+                buffer.count = out.count();
+                return buffer;
+            } catch (IndexOutOfBoundsException ex) {
+                // The event doesn't fit into the buffer: the event is measured and serialized into the exactly sized array,
+                // the buffer grows (up to the max retained size) for the next events
+                final byte[] data = writeExactly(event, serializeValueFields);
+                buffer.growFor(data.length, this.maxRetainedBufferSize);
+                return new OutputBuffer(data, false);
+            }
+        } catch (IOException ex) {
+            logger.error("Unable to serialize event: " + event, ex);
+            throw new RuntimeException(ex);
+        }
+    }
+
+    private byte[] writeExactly(final CacheEntryEvent<?, ?> event, final boolean serializeValueFields) throws IOException {
 
         try (final CalcSizeStream css = new CalcSizeStream()) {
             writeTo(css, event, serializeValueFields);
@@ -43,63 +161,163 @@ public final class OneNioCacheEntryEventConverter implements CacheEntryEventConv
             }
 
             return buf;
-        } catch (IOException ex) {
-            logger.error("Unable to serialize event: " + event, ex);
-            throw new RuntimeException(ex);
         }
     }
 
-    @Nonnull
-    @Override
-    @SuppressWarnings("unchecked")
-    public <K extends Serializable, V extends Serializable> CacheEntryEvent<K, V> fromBinary(@Nonnull byte[] data) {
+    private <K extends Serializable, V extends Serializable> CacheEntryEvent<K, V> read(
+            final byte[] data,
+            final int offset,
+            final int length) {
 
-        try (final DeserializeStream in = new DeserializeStream(data)) {
-            final byte keyType = in.readByte();
-            final K key = (K) (keyType == 1 ? in.readUTF() : in.readObject());
-            final long eventTime = in.readLong();
+        final StreamDecoder decoder = acquireDecoder();
+        try {
+            final CacheEntryEventHeader header = decoder.open(data, offset, length);
 
-            final CacheEntryEventType eventType = CacheEntryEventType.valueOf(in.readByte());
-            if (eventType == null) {
-                throw new NullPointerException();
-            }
+            final K key = decoder.decodeKey(data);
+            final V oldValue = decoder.decodeOldValue(data);
+            final V newValue = decoder.decodeNewValue(data);
 
-            final String cacheName = in.readUTF();
+            return new ImmutableCacheEntryEvent<>(key, oldValue, newValue, header.eventTime(), header.eventType(), header.cacheName());
+        } catch (IllegalArgumentException e) {
+            logger.error("Unable to deserialize from binary event", e);
+            throw e;
+        } finally {
+            decoder.release();
+        }
+    }
 
-            final V oldValue = (V) in.readObject();
-            final V newValue = (V) in.readObject();
+    private <K extends Serializable, V extends Serializable> CacheEntryEvent<K, V> readInto(
+            final byte[] data,
+            final int offset,
+            final int length,
+            final LazyCacheEntryEvent<K, V> flyweight) {
 
-            return new ImmutableCacheEntryEvent<>(key, oldValue, newValue, eventTime, eventType, cacheName);
-        } catch (IOException | ClassNotFoundException e) {
+        final StreamDecoder decoder = acquireDecoder();
+        try {
+            final CacheEntryEventHeader header = decoder.open(data, offset, length);
+            return flyweight.wrap(data, header.eventTime(), header.eventType(), header.cacheName(), decoder);
+        } catch (RuntimeException e) {
+            decoder.release();
             logger.error("Unable to deserialize from binary event", e);
-            throw new RuntimeException(e);
+            throw e;
         }
     }
 
+    private StreamDecoder acquireDecoder() {
+        final StreamDecoder threadDecoder = this.decoders.get();
+        // The decoder is still used by the flyweight of the outer event
+        return threadDecoder.isInUse() ? new StreamDecoder() : threadDecoder;
+    }
+
+    private static DeserializeStream openBody(final byte[] data, final CacheEntryEventHeader header) throws IOException {
+        // The body offset is the offset in the array, the bytes after the body (if any) are never read
+        final DeserializeStream in = new DeserializeStream(data);
+        in.skipBytes(header.bodyOffset());
+        return in;
+    }
+
     private void writeTo(
             final ObjectOutput output,
             final CacheEntryEvent<?, ?> event,
             final boolean serializeValueFields) throws IOException {
-        // A small optimization for strings: the vast majority of cache keys are strings. readUTF is more efficient than readObject for strings.
-        final int keyType = getKeyType(event.key());
-        output.writeByte(keyType);
 
-        if (keyType == 1) {
-            output.writeUTF(event.key().toString());
-        } else {
-            output.writeObject(event.key());
-        }
+        CacheEntryEventHeader.write(output, event);
 
-        output.writeLong(event.eventTime());
+        // The body is written only if it isn't empty: the string key is written to the header
+        final boolean stringKey = CacheEntryEventHeader.isStringKey(event.key());
+        if (stringKey && !serializeValueFields) {
+            return;
+        }
 
-        output.writeByte(event.eventType().getId());
-        output.writeUTF(event.cacheName());
+        if (!stringKey) {
+            output.writeObject(event.key());
+        }
 
         output.writeObject(serializeValueFields ? event.oldValue() : null);
         output.writeObject(serializeValueFields ? event.newValue() : null);
     }
 
-    private int getKeyType(final Object key) {
-        return key.getClass() == String.class ? 1 : 2;
+    @NotThreadSafe
+    private static final class OutputBuffer {
+
+        private final boolean pooled;
+        private byte[] array;
+        private int count;
+
+        private OutputBuffer(final byte[] array, final boolean pooled) {
+            this.array = array;
+            this.count = array.length;
+            this.pooled = pooled;
+        }
+
+        private byte[] toByteArray() {
+            return this.pooled ? Arrays.copyOf(this.array, this.count) : this.array;
+        }
+
+        private ByteBuffer toByteBuffer() {
+            return ByteBuffer.wrap(this.array, 0, this.count);
+        }
+
+        private void growFor(final int size, final int maxSize) {
+            if (size <= maxSize) {
+                this.array = new byte[Math.min(Math.max(size, this.array.length * 2), maxSize)];
+            }
+        }
+    }
+
+    @NotThreadSafe
+    private static final class StreamDecoder implements LazyCacheEntryEvent.Decoder {
+
+        private final CacheEntryEventHeader header = new CacheEntryEventHeader();
+        private boolean inUse;
+        private DeserializeStream input;
+
+        private CacheEntryEventHeader open(final byte[] data, final int offset, final int length) {
+            this.inUse = true;
+            return this.header.read(data, offset, length);
+        }
+
+        private boolean isInUse() {
+            return this.inUse;
+        }
+
+        @Nonnull
+        @Override
+        @SuppressWarnings("unchecked")
+        public <K extends Serializable> K decodeKey(@Nonnull byte[] data) {
+            return this.header.hasStringKey() ? (K) this.header.readStringKey(data) : readFromBody(data);
+        }
+
+        @Override
+        public <V extends Serializable> V decodeOldValue(@Nonnull byte[] data) {
+            return this.header.hasBody() ? readFromBody(data) : null;
+        }
+
+        @Override
+        public <V extends Serializable> V decodeNewValue(@Nonnull byte[] data) {
+            return this.header.hasBody() ? readFromBody(data) : null;
+        }
+
+        @Override
+        public void release() {
+            this.inUse = false;
+            this.input = null;
+            this.header.clear();
+        }
+
+        @SuppressWarnings("unchecked")
+        private <T extends Serializable> T readFromBody(final byte[] data) {
+            try {
+                // The stream is opened only on the first access to the body of the event
+                if (this.input == null) {
+                    this.input = openBody(data, this.header);
+                }
+
+                return (T) this.input.readObject();
+            } catch (IOException | ClassNotFoundException e) {
+                logger.error("Unable to deserialize body of binary event", e);
+                throw new RuntimeException(e);
+            }
+        }
     }
 }
@@ -0,0 +1,16 @@
+package ru.joke.cache.bus.onenio.serialization;
+
+import ru.joke.cache.bus.core.testing.transport.BaseCacheEntryEventConverterTest;
+import ru.joke.cache.bus.core.transport.CacheEntryEventConverter;
+
+import javax.annotation.Nonnull;
+
+public class OneNioCacheEntryEventConverterWithSmallBufferTest extends BaseCacheEntryEventConverterTest {
+
+    @Nonnull
+    @Override
+    protected CacheEntryEventConverter createConverter() {
+        // Most of the events don't fit into the thread-local buffer, so they are measured and serialized in two passes
+        return new OneNioCacheEntryEventConverter(64);
+    }
+}
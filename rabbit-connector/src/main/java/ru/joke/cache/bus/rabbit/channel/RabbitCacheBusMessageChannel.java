@@ -6,6 +6,7 @@ import ru.joke.cache.bus.core.impl.ImmutableComponentState;
 import ru.joke.cache.bus.core.metrics.*;
 import ru.joke.cache.bus.core.state.ComponentState;
 import ru.joke.cache.bus.core.transport.CacheBusMessageChannel;
+import ru.joke.cache.bus.core.transport.CacheEntryOutputBatchMessage;
 import ru.joke.cache.bus.core.transport.CacheEntryOutputMessage;
 import ru.joke.cache.bus.core.transport.MessageChannelException;
 import ru.joke.cache.bus.rabbit.configuration.RabbitCacheBusMessageChannelConfiguration;
@@ -21,6 +22,7 @@ import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
 
 import static ru.joke.cache.bus.transport.ChannelConstants.*;
 
@@ -63,13 +65,26 @@ public final class RabbitCacheBusMessageChannel implements CacheBusMessageChanne
 
     @Override
     public void send(@Nonnull CacheEntryOutputMessage eventOutputMessage) {
+        publish(MESSAGE_TYPE, eventOutputMessage.messageHashKey(), eventOutputMessage.cacheEntryMessageBody(), eventOutputMessage);
+    }
+
+    @Override
+    public void sendBatch(@Nonnull CacheEntryOutputBatchMessage batchOutputMessage) {
+        publish(BATCH_MESSAGE_TYPE, batchOutputMessage.messageHashKey(), batchOutputMessage.batchMessageBody(), batchOutputMessage);
+    }
+
+    private void publish(
+            final String messageType,
+            final int messageHashKey,
+            final byte[] messageBody,
+            final Object outputMessage) {
 
         RabbitProducerSessionConfiguration sessionConfiguration = this.producerSessionConfiguration;
         if (sessionConfiguration == null) {
             throw new MessageChannelException("Channel not activated");
         }
 
-        final AMQP.BasicProperties basicProperties = createProducerProperties(sessionConfiguration, eventOutputMessage.messageHashKey());
+        final AMQP.BasicProperties basicProperties = createProducerProperties(sessionConfiguration, messageType, messageHashKey);
 
         boolean retry;
         do {
@@ -92,10 +107,10 @@ public final class RabbitCacheBusMessageChannel implements CacheBusMessageChanne
                         "",
                         channelName,
                         basicProperties,
-                        eventOutputMessage.cacheEntryMessageBody()
+                        messageBody
                 );
 
-                logger.info("Message {} was sent to topic: {}", eventOutputMessage, channelName);
+                logger.info("Message {} was sent to topic: {}", outputMessage, channelName);
             } catch (IOException ex) {
                 recoverProducerSession(ex, sessionConfiguration);
                 retry = true;
@@ -227,11 +242,17 @@ public final class RabbitCacheBusMessageChannel implements CacheBusMessageChanne
                         final byte[] body) {
 
                     final Map<String, Object> headers = properties.getHeaders();
-                    if (!MESSAGE_TYPE.equals(properties.getType())
+                    final boolean isBatch = BATCH_MESSAGE_TYPE.equals(properties.getType());
+                    if (!isBatch && !MESSAGE_TYPE.equals(properties.getType())
                             || !hostName.equals(headers.get(HOST_PROPERTY))) {
                         return;
                     }
 
+                    if (isBatch) {
+                        messageConsumer.acceptBatch(body);
+                        return;
+                    }
+
                     final Integer messageHash = (Integer) headers.get(HASH_KEY_PROPERTY);
                     messageConsumer.accept(messageHash, body);
                 }
@@ -256,6 +277,7 @@ public final class RabbitCacheBusMessageChannel implements CacheBusMessageChanne
 
     private AMQP.BasicProperties createProducerProperties(
             final RabbitSessionConfiguration sessionConfiguration,
+            final String messageType,
             final int messageHashKey) {
 
         return new AMQP.BasicProperties()
@@ -266,7 +288,7 @@ public final class RabbitCacheBusMessageChannel implements CacheBusMessageChanne
                                             HASH_KEY_PROPERTY, messageHashKey
                                     )
                             )
-                            .type(MESSAGE_TYPE)
+                            .type(messageType)
                             .deliveryMode(2)
                             .build();
     }
@@ -307,8 +329,10 @@ public final class RabbitCacheBusMessageChannel implements CacheBusMessageChanne
             return;
         }
 
-        // Synchronization on the configuration object in case of parallel message sending threads
-        synchronized (sessionConfiguration) {
+        // Locking of the configuration object in case of parallel message sending threads;
+        // unlike a monitor, the lock does not pin the carrier thread if the sending thread is virtual
+        sessionConfiguration.recoveryLock.lock();
+        try {
 
             // If it doesn't match, it means another thread has already restored the connection => it's safe to attempt message sending
             if (this.producerSessionConfiguration != sessionConfiguration) {
@@ -338,6 +362,8 @@ public final class RabbitCacheBusMessageChannel implements CacheBusMessageChanne
                 channelState.decreaseCountProducersInRecoveryState();
                 this.metrics.incrementCounter(KnownMetrics.CONSUMERS_IN_RECOVERY_COUNT);
             }
+        } finally {
+            sessionConfiguration.recoveryLock.unlock();
         }
     }
 
@@ -387,6 +413,7 @@ public final class RabbitCacheBusMessageChannel implements CacheBusMessageChanne
         protected final Connection rabbitConnection;
         protected final String hostName;
         protected final RabbitCacheBusMessageChannelConfiguration sharedConfiguration;
+        protected final ReentrantLock recoveryLock = new ReentrantLock();
 
         private RabbitSessionConfiguration(@Nonnull final RabbitCacheBusMessageChannelConfiguration sharedConfiguration) throws IOException, TimeoutException {
             this.sharedConfiguration = sharedConfiguration;
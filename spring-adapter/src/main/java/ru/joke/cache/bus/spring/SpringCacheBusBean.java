@@ -1,6 +1,7 @@
 package ru.joke.cache.bus.spring;
 
 import ru.joke.cache.bus.core.CacheBus;
+import ru.joke.cache.bus.core.CacheEntryDelta;
 import ru.joke.cache.bus.core.CacheEntryEvent;
 import ru.joke.cache.bus.core.ExtendedCacheBus;
 import ru.joke.cache.bus.core.LifecycleException;
@@ -15,6 +16,8 @@ import ru.joke.cache.bus.core.impl.configuration.ImmutableCacheBusConfiguration;
 import javax.annotation.Nonnull;
 import java.beans.ConstructorProperties;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -78,11 +81,26 @@ public class SpringCacheBusBean implements CacheBus, SmartLifecycle {
         this.delegateCacheBus.send(event);
     }
 
+    @Override
+    public <K extends Serializable> boolean applyDelta(@Nonnull String cacheName, @Nonnull K key, @Nonnull CacheEntryDelta delta) {
+        return this.delegateCacheBus.applyDelta(cacheName, key, delta);
+    }
+
     @Override
     public void receive(@Nonnull byte[] binaryEventData) {
         this.delegateCacheBus.receive(binaryEventData);
     }
 
+    @Override
+    public void receive(@Nonnull ByteBuffer binaryEventData) {
+        this.delegateCacheBus.receive(binaryEventData);
+    }
+
+    @Override
+    public void receiveAll(@Nonnull List<byte[]> binaryEventsData) {
+        this.delegateCacheBus.receiveAll(binaryEventsData);
+    }
+
     /**
      * {@inheritDoc}
      *
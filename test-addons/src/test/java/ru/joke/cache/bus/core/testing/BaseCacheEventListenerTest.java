@@ -3,20 +3,21 @@ package ru.joke.cache.bus.core.testing;
 import ru.joke.cache.bus.core.CacheBus;
 import ru.joke.cache.bus.core.CacheEntryEvent;
 import ru.joke.cache.bus.core.CacheEntryEventType;
+import ru.joke.cache.bus.core.impl.ImmutableCacheEntryEvent;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.api.parallel.Execution;
 import org.junit.jupiter.api.parallel.ExecutionMode;
-import org.mockito.ArgumentCaptor;
-import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.mockito.Mockito.doNothing;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 
 @ExtendWith(MockitoExtension.class)
 @Execution(ExecutionMode.CONCURRENT)
@@ -31,12 +32,16 @@ public abstract class BaseCacheEventListenerTest<T, E> {
 
     @Mock
     protected CacheBus cacheBus;
-    @Captor
-    protected ArgumentCaptor<CacheEntryEvent<String, String>> busEventCaptor;
+    protected final List<CacheEntryEvent<String, String>> sentBusEvents = new ArrayList<>();
 
     @BeforeEach
     public void prepareMocks() {
-        doNothing().when(this.cacheBus).send(this.busEventCaptor.capture());
+        // The listeners reuse the event objects after the sending, so the copies of the events are kept
+        doAnswer(invocation -> {
+            final CacheEntryEvent<String, String> event = invocation.getArgument(0);
+            this.sentBusEvents.add(new ImmutableCacheEntryEvent<>(event.key(), event.oldValue(), event.newValue(), event.eventTime(), event.eventType(), event.cacheName()));
+            return null;
+        }).when(this.cacheBus).send(any());
         makePreparationActions();
     }
 
@@ -50,12 +55,12 @@ public abstract class BaseCacheEventListenerTest<T, E> {
         callListener(createdEventType(), List.of(event1, event2));
 
         // checks
-        assertEquals(2, this.busEventCaptor.getAllValues().size(), "Count of sent to bus events must be 2");
+        assertEquals(2, this.sentBusEvents.size(), "Count of sent to bus events must be 2");
 
-        final var busEvent1 = this.busEventCaptor.getAllValues().get(0);
+        final var busEvent1 = this.sentBusEvents.get(0);
         makeResultBusEventChecks(busEvent1, KEY_1, VAL_1, null, CacheEntryEventType.ADDED);
 
-        final var busEvent2 = this.busEventCaptor.getAllValues().get(1);
+        final var busEvent2 = this.sentBusEvents.get(1);
         makeResultBusEventChecks(busEvent2, KEY_2, VAL_2, null, CacheEntryEventType.ADDED);
     }
 
@@ -69,12 +74,12 @@ public abstract class BaseCacheEventListenerTest<T, E> {
         callListener(modifiedEventType(), List.of(event1, event2));
 
         // checks
-        assertEquals(2, this.busEventCaptor.getAllValues().size(), "Count of sent to bus events must be 2");
+        assertEquals(2, this.sentBusEvents.size(), "Count of sent to bus events must be 2");
 
-        final var busEvent1 = this.busEventCaptor.getAllValues().get(0);
+        final var busEvent1 = this.sentBusEvents.get(0);
         makeResultBusEventChecks(busEvent1, KEY_1, VAL_2, VAL_1, CacheEntryEventType.UPDATED);
 
-        final var busEvent2 = this.busEventCaptor.getAllValues().get(1);
+        final var busEvent2 = this.sentBusEvents.get(1);
         makeResultBusEventChecks(busEvent2, KEY_2, VAL_1, VAL_2, CacheEntryEventType.UPDATED);
     }
 
@@ -102,12 +107,12 @@ public abstract class BaseCacheEventListenerTest<T, E> {
         callListener(eventType, List.of(event1, event2));
 
         // checks
-        assertEquals(2, this.busEventCaptor.getAllValues().size(), "Count of sent to bus events must be 2");
+        assertEquals(2, this.sentBusEvents.size(), "Count of sent to bus events must be 2");
 
-        final var busEvent1 = this.busEventCaptor.getAllValues().get(0);
+        final var busEvent1 = this.sentBusEvents.get(0);
         makeResultBusEventChecks(busEvent1, KEY_1, null, VAL_1, busEventType);
 
-        final var busEvent2 = this.busEventCaptor.getAllValues().get(1);
+        final var busEvent2 = this.sentBusEvents.get(1);
         makeResultBusEventChecks(busEvent2, KEY_2, null, VAL_2, busEventType);
     }
 
@@ -84,6 +84,18 @@ public abstract class BaseCacheTest {
         assertTrue(this.cache.computeIfAbsent(KEY_3_NO_VALUE, key -> VAL_1).filter(VAL_1::equals).isPresent(), "New value must be returned");
     }
 
+    @Test
+    public void testComputeIfPresentOperation() {
+        assertTrue(this.cache.computeIfPresent(KEY_1, (key, value) -> VAL_2).filter(VAL_2::equals).isPresent(), "New value must be returned");
+        assertTrue(this.cache.get(KEY_1).filter(VAL_2::equals).isPresent(), "New value must be stored");
+
+        assertTrue(this.cache.computeIfPresent(KEY_3_NO_VALUE, (key, value) -> VAL_1).isEmpty(), "Empty value must be returned for absent element");
+        assertTrue(this.cache.get(KEY_3_NO_VALUE).isEmpty(), "Absent element must not be added");
+
+        assertTrue(this.cache.computeIfPresent(KEY_1, (key, value) -> null).isEmpty(), "Empty value must be returned for removed element");
+        assertTrue(this.cache.get(KEY_1).isEmpty(), "Element must be removed");
+    }
+
     @Test
     public void testMergeOperation() {
         this.cache.merge(KEY_3_NO_VALUE, VAL_2, (v1, v2) -> VAL_1.equals(v1) ? v2 : null);
@@ -3,13 +3,17 @@ package ru.joke.cache.bus.core.testing.transport;
 import ru.joke.cache.bus.core.CacheEntryEvent;
 import ru.joke.cache.bus.core.CacheEntryEventType;
 import ru.joke.cache.bus.core.impl.ImmutableCacheEntryEvent;
+import ru.joke.cache.bus.core.impl.MutableCacheEntryEvent;
 import ru.joke.cache.bus.core.transport.CacheEntryEventConverter;
+import ru.joke.cache.bus.core.transport.CacheEntryEventHeader;
+import ru.joke.cache.bus.core.transport.LazyCacheEntryEvent;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.parallel.Execution;
 import org.junit.jupiter.api.parallel.ExecutionMode;
 
 import javax.annotation.Nonnull;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -87,9 +91,158 @@ public abstract class BaseCacheEntryEventConverterTest {
         assertEquals(event, deserializedEvent, "Source and deserialized event must be equal");
     }
 
+    @Test
+    public void testWhenEventIsReusableCarrierThenConversionSuccess() {
+        final CacheEntryEvent<String, Value> event = composeEvent(
+                "test1",
+                new Value("v1", 2, 13.5, null, true, null),
+                new Value("v2", 3, 14.5, null, false, null),
+                System.currentTimeMillis(),
+                CacheEntryEventType.UPDATED
+        );
+        final MutableCacheEntryEvent<String, Value> carrier = new MutableCacheEntryEvent<String, Value>().fill(
+                event.key(),
+                event.oldValue(),
+                event.newValue(),
+                event.eventTime(),
+                event.eventType(),
+                event.cacheName()
+        );
+
+        final byte[] eventSerialized = converter.toBinary(carrier, true);
+        carrier.clear();
+
+        final CacheEntryEvent<String, Value> deserializedEvent = converter.fromBinary(eventSerialized);
+        assertEquals(event, deserializedEvent, "Source and deserialized event must be equal");
+    }
+
+    @Test
+    public void testWhenEventDecodedIntoFlyweightThenConversionSuccess() {
+        final CacheEntryEvent<Serializable, Serializable> event1 = composeEvent(
+                new Key("123", 23, null),
+                new Value("v1", 2, 13.5, null, true, null),
+                new Value("v2", 4, 413.5, new HashSet<>(Set.of(new Date(2001))), false, null),
+                System.currentTimeMillis(),
+                CacheEntryEventType.UPDATED
+        );
+        final CacheEntryEvent<Serializable, Serializable> event2 = composeEvent(
+                "test2",
+                null,
+                null,
+                System.currentTimeMillis() - 100,
+                CacheEntryEventType.EVICTED
+        );
+
+        final LazyCacheEntryEvent<Serializable, Serializable> flyweight = new LazyCacheEntryEvent<>();
+
+        final CacheEntryEvent<Serializable, Serializable> decodedEvent1 = converter.fromBinary(converter.toBinary(event1, true), flyweight);
+        // The flyweight is still in use, so the second event must not overwrite the first one
+        final CacheEntryEvent<Serializable, Serializable> decodedEvent2 = converter.fromBinary(converter.toBinary(event2, false), flyweight);
+
+        assertNotSame(decodedEvent1, decodedEvent2, "Flyweight in use must not be reused");
+        assertEquals(event2, copyOf(decodedEvent2), "Source and decoded event must be equal");
+        assertEquals(event1, copyOf(decodedEvent1), "Source and decoded event must be equal");
+
+        flyweight.clear();
+
+        final CacheEntryEvent<Serializable, Serializable> decodedEvent3 = converter.fromBinary(converter.toBinary(event2, true), flyweight);
+        assertEquals(event2, copyOf(decodedEvent3), "Source and decoded event must be equal after reuse of flyweight");
+    }
+
+    @Test
+    public void testWhenEventDecodedIntoFlyweightThenBodyDecodedOnlyOnAccess() {
+        final CacheEntryEvent<String, Value> event = composeEvent(
+                "test1",
+                new Value("v1", 2, 13.5, null, true, null),
+                new Value("v2", 3, 14.5, null, false, null),
+                System.currentTimeMillis(),
+                CacheEntryEventType.UPDATED
+        );
+
+        final byte[] data = converter.toBinary(event, true);
+        final CacheEntryEventHeader header = new CacheEntryEventHeader().read(data);
+        assertTrue(header.hasStringKey(), "String key must be written to header");
+
+        // The corrupted body must not affect the decoding of the header and the key
+        Arrays.fill(data, header.bodyOffset(), data.length, (byte) -1);
+
+        final LazyCacheEntryEvent<String, Value> flyweight = new LazyCacheEntryEvent<>();
+        final CacheEntryEvent<String, Value> decodedEvent = converter.fromBinary(data, flyweight);
+
+        assertEquals(event.cacheName(), decodedEvent.cacheName(), "Cache name must be equal");
+        assertEquals(event.eventType(), decodedEvent.eventType(), "Event type must be equal");
+        assertEquals(event.eventTime(), decodedEvent.eventTime(), "Event time must be equal");
+        assertEquals(event.key(), decodedEvent.key(), "Cache key must be equal");
+        assertThrows(RuntimeException.class, decodedEvent::oldValue);
+
+        flyweight.clear();
+    }
+
+    @Test
+    public void testWhenEventConvertedWithBuffersThenConversionSuccess() {
+        final CacheEntryEvent<Key, Value> event = composeEvent(
+                new Key("123", 23, null),
+                new Value("v1", 2, 13.5, null, true, null),
+                new Value("v2", 4, 413.5, new HashSet<>(Set.of(new Date(2001))), false, null),
+                System.currentTimeMillis(),
+                CacheEntryEventType.UPDATED
+        );
+
+        final ByteBuffer buffer = converter.toBuffer(event, true);
+        final int position = buffer.position();
+        final byte[] data = new byte[buffer.remaining()];
+        buffer.get(position, data);
+
+        assertArrayEquals(converter.toBinary(event, true), data, "Binary representations from buffer and array must be equal");
+
+        // The event occupies the part of the received heap buffer
+        final ByteBuffer heapBuffer = ByteBuffer.allocate(data.length + 16).position(7);
+        heapBuffer.put(data).flip().position(7);
+        final ByteBuffer slice = heapBuffer.slice();
+
+        final ByteBuffer directBuffer = ByteBuffer.allocateDirect(data.length).put(data).flip();
+
+        assertEquals(event, converter.fromBuffer(heapBuffer), "Source and deserialized event must be equal");
+        assertEquals(event, converter.fromBuffer(slice), "Source and deserialized event must be equal");
+        assertEquals(event, converter.fromBuffer(directBuffer), "Source and deserialized event must be equal");
+
+        assertEquals(7, heapBuffer.position(), "Position of buffer must not be changed");
+        assertEquals(0, directBuffer.position(), "Position of buffer must not be changed");
+    }
+
+    @Test
+    public void testWhenEventDecodedFromBufferIntoFlyweightThenConversionSuccess() {
+        final CacheEntryEvent<String, Value> event = composeEvent(
+                "test1",
+                new Value("v1", 2, 13.5, null, true, null),
+                new Value("v2", 3, 14.5, null, false, null),
+                System.currentTimeMillis(),
+                CacheEntryEventType.UPDATED
+        );
+
+        final byte[] data = converter.toBinary(event, true);
+        final ByteBuffer heapBuffer = ByteBuffer.allocate(data.length + 10).position(3);
+        heapBuffer.put(data).flip().position(3);
+        final ByteBuffer directBuffer = ByteBuffer.allocateDirect(data.length).put(data).flip();
+
+        final LazyCacheEntryEvent<String, Value> flyweight = new LazyCacheEntryEvent<>();
+
+        final CacheEntryEvent<String, Value> decodedEvent1 = converter.fromBuffer(heapBuffer, flyweight);
+        assertEquals(event, copyOf(decodedEvent1), "Source and decoded event must be equal");
+        flyweight.clear();
+
+        final CacheEntryEvent<String, Value> decodedEvent2 = converter.fromBuffer(directBuffer, flyweight);
+        assertEquals(event, copyOf(decodedEvent2), "Source and decoded event must be equal");
+        flyweight.clear();
+    }
+
     @Nonnull
     protected abstract CacheEntryEventConverter createConverter();
 
+    private <K extends Serializable, V extends Serializable> CacheEntryEvent<K, V> copyOf(final CacheEntryEvent<K, V> event) {
+        return new ImmutableCacheEntryEvent<>(event.key(), event.oldValue(), event.newValue(), event.eventTime(), event.eventType(), event.cacheName());
+    }
+
     private <K extends Serializable, V extends Serializable> CacheEntryEvent<K, V> composeEvent(
             final K key,
             final V oldValue,
@@ -14,6 +14,11 @@ public abstract class ChannelConstants {
      */
     public static final String MESSAGE_TYPE = "CacheEvent";
 
+    /**
+     * Type of message for batch (multi-event frame) of cache change events.
+     */
+    public static final String BATCH_MESSAGE_TYPE = "CacheEventsBatch";
+
     /**
      * Timeout for obtaining a connection to the channel.
      */
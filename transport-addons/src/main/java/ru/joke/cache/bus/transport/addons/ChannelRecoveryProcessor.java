@@ -9,7 +9,9 @@ import java.util.Objects;
 import java.util.Random;
 
 /**
- * Handler for reconnecting to the message bus cache channel.
+ * Handler for reconnecting to the message bus cache channel.<br>
+ * Recovery is performed in the calling thread (the channel listener or the sending thread, which can be virtual);
+ * the pauses between the attempts do not hold monitors, so they do not pin the carrier thread of a virtual thread.
  *
  * @author Alik
  */
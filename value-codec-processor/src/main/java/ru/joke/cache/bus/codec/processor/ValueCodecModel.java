@@ -0,0 +1,50 @@
+package ru.joke.cache.bus.codec.processor;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+import javax.lang.model.type.TypeMirror;
+import java.util.List;
+
+/**
+ * Model of the generated codec: the type encoded by the codec and its components in the order of writing.
+ *
+ * @param packageName the package of the encoded type and of the generated codec, cannot be {@code null}.
+ * @param codecName   the simple name of the generated codec, cannot be {@code null}.
+ * @param typeName    the canonical name of the encoded type, cannot be {@code null}.
+ * @param id          the identifier of the codec.
+ * @param components  the components of the encoded type in the order of the parameters of its constructor, cannot be {@code null}.
+ * @author Alik
+ * @see ValueCodecProcessor
+ */
+@Immutable
+record ValueCodecModel(
+        @Nonnull String packageName,
+        @Nonnull String codecName,
+        @Nonnull String typeName,
+        int id,
+        @Nonnull List<Component> components) {
+
+    /**
+     * Returns the fully qualified name of the generated codec.
+     *
+     * @return cannot be {@code null}.
+     */
+    @Nonnull
+    String qualifiedCodecName() {
+        return this.packageName.isEmpty() ? this.codecName : this.packageName + "." + this.codecName;
+    }
+
+    /**
+     * Component of the encoded type.
+     *
+     * @param name     the name of the component, cannot be {@code null}.
+     * @param type     the declared type of the component, cannot be {@code null}.
+     * @param accessor the expression returning the component from the object (without the object itself), e.g. {@code name()}, cannot be {@code null}.
+     */
+    @Immutable
+    record Component(
+            @Nonnull String name,
+            @Nonnull TypeMirror type,
+            @Nonnull String accessor) {
+    }
+}
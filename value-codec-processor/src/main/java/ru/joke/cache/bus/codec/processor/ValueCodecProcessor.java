@@ -0,0 +1,286 @@
+package ru.joke.cache.bus.codec.processor;
+
+import ru.joke.cache.bus.core.transport.GenerateValueCodec;
+import ru.joke.cache.bus.core.transport.ValueCodec;
+import ru.joke.cache.bus.core.transport.ValueCodecs;
+
+import javax.annotation.processing.*;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Annotation processor generating the {@linkplain ValueCodec codecs} of the types annotated with {@link GenerateValueCodec}.<br>
+ * For each annotated type the processor generates the public codec {@code <TypeName>ValueCodec} (for the nested types the names
+ * of the enclosing types are joined with {@code _}) in the package of the type and declares the generated codecs
+ * in {@code META-INF/services/ru.joke.cache.bus.core.transport.ValueCodec}, so the codecs are registered in the registry
+ * with {@code ValueCodecRegistry.Builder#registerInstalled()}.<br>
+ * The generated codecs access the components of the objects and create the objects directly, without the reflection,
+ * and write the objects in the same binary format as the codecs of the records registered with
+ * {@code ValueCodecRegistry.Builder#registerRecord(int, Class)}.<br>
+ * The processor is discovered by the compiler automatically when the module is on the classpath of the compilation
+ * (or it can be configured explicitly on the processor path together with the {@code ru.joke.cache-bus:core} module).
+ *
+ * @author Alik
+ * @see GenerateValueCodec
+ */
+@SupportedAnnotationTypes(ValueCodecProcessor.ANNOTATION_TYPE)
+public final class ValueCodecProcessor extends AbstractProcessor {
+
+    static final String ANNOTATION_TYPE = "ru.joke.cache.bus.core.transport.GenerateValueCodec";
+
+    private static final String SERVICES_FILE = "META-INF/services/" + ValueCodec.class.getName();
+    private static final String CODEC_SUFFIX = "ValueCodec";
+
+    private final Map<Integer, String> typesByCodecId = new HashMap<>();
+    private final Set<String> generatedCodecs = new TreeSet<>();
+
+    private Elements elements;
+    private Types types;
+    private Messager messager;
+    private Filer filer;
+    private ValueCodecSourceWriter sourceWriter;
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        this.elements = processingEnv.getElementUtils();
+        this.types = processingEnv.getTypeUtils();
+        this.messager = processingEnv.getMessager();
+        this.filer = processingEnv.getFiler();
+        this.sourceWriter = new ValueCodecSourceWriter(this.types);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (final Element element : roundEnv.getElementsAnnotatedWith(GenerateValueCodec.class)) {
+            final ValueCodecModel model = composeModel(element);
+            if (model != null) {
+                generate(model, (TypeElement) element);
+            }
+        }
+
+        if (roundEnv.processingOver() && !this.generatedCodecs.isEmpty()) {
+            writeServices();
+        }
+
+        return true;
+    }
+
+    private ValueCodecModel composeModel(final Element element) {
+        if (element.getKind() != ElementKind.CLASS && element.getKind() != ElementKind.RECORD) {
+            return error(element, "Codec can be generated only for class or record");
+        }
+
+        final TypeElement type = (TypeElement) element;
+        final Set<Modifier> modifiers = type.getModifiers();
+        if (modifiers.contains(Modifier.ABSTRACT) || modifiers.contains(Modifier.PRIVATE)) {
+            return error(element, "Codec can't be generated for abstract or private type");
+        } else if (!type.getTypeParameters().isEmpty()) {
+            return error(element, "Codec can't be generated for generic type");
+        } else if (type.getNestingKind() == NestingKind.MEMBER && !modifiers.contains(Modifier.STATIC)) {
+            return error(element, "Codec can't be generated for inner (non-static) class");
+        } else if (type.getNestingKind() != NestingKind.TOP_LEVEL && type.getNestingKind() != NestingKind.MEMBER) {
+            return error(element, "Codec can't be generated for local or anonymous class");
+        }
+
+        final int id = type.getAnnotation(GenerateValueCodec.class).id();
+        if (id <= ValueCodecs.MAX_RESERVED_ID || id > ValueCodecs.MAX_ID) {
+            return error(element, "Codec id must be in range (" + ValueCodecs.MAX_RESERVED_ID + ", " + ValueCodecs.MAX_ID + "]: " + id);
+        }
+
+        final String typeName = type.getQualifiedName().toString();
+        final String prevType = this.typesByCodecId.putIfAbsent(id, typeName);
+        if (prevType != null && !prevType.equals(typeName)) {
+            return error(element, "Codec with id " + id + " already generated for type " + prevType);
+        }
+
+        final List<ValueCodecModel.Component> components =
+                type.getKind() == ElementKind.RECORD
+                        ? composeRecordComponents(type)
+                        : composeClassComponents(type);
+        if (components == null) {
+            return null;
+        }
+
+        final String packageName = this.elements.getPackageOf(type).getQualifiedName().toString();
+        return new ValueCodecModel(packageName, composeCodecName(type), typeName, id, components);
+    }
+
+    private List<ValueCodecModel.Component> composeRecordComponents(final TypeElement type) {
+        final ExecutableElement constructor = findCanonicalConstructor(type);
+        if (constructor == null || constructor.getModifiers().contains(Modifier.PRIVATE)) {
+            return error(type, "Canonical constructor of record must not be private");
+        }
+
+        final List<ValueCodecModel.Component> components = new ArrayList<>();
+        for (final RecordComponentElement component : type.getRecordComponents()) {
+            final String name = component.getSimpleName().toString();
+            components.add(new ValueCodecModel.Component(name, component.asType(), name + "()"));
+        }
+
+        return components;
+    }
+
+    private List<ValueCodecModel.Component> composeClassComponents(final TypeElement type) {
+        ExecutableElement constructor = null;
+        boolean ambiguous = false;
+        for (final ExecutableElement candidate : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (candidate.getModifiers().contains(Modifier.PRIVATE)) {
+                continue;
+            }
+
+            final int params = candidate.getParameters().size();
+            if (constructor == null || params > constructor.getParameters().size()) {
+                constructor = candidate;
+                ambiguous = false;
+            } else if (params == constructor.getParameters().size()) {
+                ambiguous = true;
+            }
+        }
+
+        if (constructor == null) {
+            return error(type, "Class must have non-private constructor");
+        } else if (ambiguous) {
+            return error(type, "Class must have single non-private constructor with max number of parameters");
+        }
+
+        final List<ValueCodecModel.Component> components = new ArrayList<>();
+        for (final VariableElement parameter : constructor.getParameters()) {
+            final String name = parameter.getSimpleName().toString();
+            final String accessor = findAccessor(type, name, parameter.asType());
+            if (accessor == null) {
+                return error(parameter, "Non-private accessor method or field not found for parameter " + name + " of constructor");
+            }
+
+            components.add(new ValueCodecModel.Component(name, parameter.asType(), accessor));
+        }
+
+        return components;
+    }
+
+    private ExecutableElement findCanonicalConstructor(final TypeElement type) {
+        final List<? extends RecordComponentElement> components = type.getRecordComponents();
+        for (final ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            final List<? extends VariableElement> parameters = constructor.getParameters();
+            if (parameters.size() != components.size()) {
+                continue;
+            }
+
+            boolean canonical = true;
+            for (int i = 0; i < parameters.size() && canonical; i++) {
+                canonical = this.types.isSameType(parameters.get(i).asType(), components.get(i).asType());
+            }
+
+            if (canonical) {
+                return constructor;
+            }
+        }
+
+        return null;
+    }
+
+    private String findAccessor(final TypeElement type, final String name, final TypeMirror componentType) {
+        final String capitalizedName = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        final Set<String> methodNames = Set.of(name, "get" + capitalizedName, "is" + capitalizedName);
+
+        final List<? extends Element> members = this.elements.getAllMembers(type);
+        for (final ExecutableElement method : ElementFilter.methodsIn(members)) {
+            if (method.getParameters().isEmpty()
+                    && methodNames.contains(method.getSimpleName().toString())
+                    && isAccessible(type, method)
+                    && this.types.isSameType(method.getReturnType(), componentType)) {
+                return method.getSimpleName() + "()";
+            }
+        }
+
+        for (final VariableElement field : ElementFilter.fieldsIn(members)) {
+            if (field.getSimpleName().contentEquals(name)
+                    && isAccessible(type, field)
+                    && this.types.isSameType(field.asType(), componentType)) {
+                return name;
+            }
+        }
+
+        return null;
+    }
+
+    private boolean isAccessible(final TypeElement type, final Element member) {
+        final Set<Modifier> modifiers = member.getModifiers();
+        if (modifiers.contains(Modifier.PRIVATE) || modifiers.contains(Modifier.STATIC)) {
+            return false;
+        }
+
+        return modifiers.contains(Modifier.PUBLIC) || this.elements.getPackageOf(member).equals(this.elements.getPackageOf(type));
+    }
+
+    private String composeCodecName(final TypeElement type) {
+        final StringBuilder name = new StringBuilder(type.getSimpleName());
+        for (Element enclosing = type.getEnclosingElement(); enclosing instanceof TypeElement; enclosing = enclosing.getEnclosingElement()) {
+            name.insert(0, '_').insert(0, enclosing.getSimpleName());
+        }
+
+        return name.append(CODEC_SUFFIX).toString();
+    }
+
+    private void generate(final ValueCodecModel model, final TypeElement type) {
+        try {
+            final JavaFileObject source = this.filer.createSourceFile(model.qualifiedCodecName(), type);
+            try (final Writer writer = source.openWriter()) {
+                this.sourceWriter.write(model, writer);
+            }
+
+            this.generatedCodecs.add(model.qualifiedCodecName());
+        } catch (IOException ex) {
+            error(type, "Unable to generate codec " + model.qualifiedCodecName() + ": " + ex.getMessage());
+        }
+    }
+
+    private void writeServices() {
+        final Set<String> codecs = new TreeSet<>(this.generatedCodecs);
+        try {
+            // Codecs of the previous (incremental) compilations of the same output
+            final FileObject existing = this.filer.getResource(StandardLocation.CLASS_OUTPUT, "", SERVICES_FILE);
+            try (final BufferedReader reader = new BufferedReader(new InputStreamReader(existing.openInputStream(), StandardCharsets.UTF_8))) {
+                reader.lines()
+                        .map(String::trim)
+                        .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                        .forEach(codecs::add);
+            }
+        } catch (IOException ex) {
+            // no services file yet
+        }
+
+        try {
+            final FileObject services = this.filer.createResource(StandardLocation.CLASS_OUTPUT, "", SERVICES_FILE);
+            try (final Writer writer = new OutputStreamWriter(services.openOutputStream(), StandardCharsets.UTF_8)) {
+                for (final String codec : codecs) {
+                    writer.write(codec);
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException ex) {
+            this.messager.printMessage(Diagnostic.Kind.ERROR, "Unable to write " + SERVICES_FILE + ": " + ex.getMessage());
+        }
+    }
+
+    private <T> T error(final Element element, final String message) {
+        this.messager.printMessage(Diagnostic.Kind.ERROR, message, element);
+        return null;
+    }
+}
@@ -0,0 +1,221 @@
+package ru.joke.cache.bus.codec.processor;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Types;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writer of the source code of the generated codec.<br>
+ * The generated codec writes the components in the same binary format as the codec of the record registered
+ * with {@code ValueCodecRegistry.Builder#registerRecord(int, Class)}: the primitive components are written directly,
+ * the components of the types of the {@code ValueCodecs#builtIn()} codecs are written with these codecs without the lookup
+ * of the codec by the type of the component, other components are written with the codecs of the registry of the codec.
+ *
+ * @author Alik
+ * @see ValueCodecProcessor
+ */
+@ThreadSafe
+final class ValueCodecSourceWriter {
+
+    private static final Map<String, String> BUILT_IN_CODECS = Map.of(
+            String.class.getName(), "STRING",
+            Long.class.getName(), "LONG",
+            Integer.class.getName(), "INTEGER",
+            java.util.UUID.class.getName(), "UUID_CODEC",
+            Short.class.getName(), "SHORT",
+            Byte.class.getName(), "BYTE",
+            Boolean.class.getName(), "BOOLEAN",
+            Character.class.getName(), "CHARACTER",
+            Double.class.getName(), "DOUBLE",
+            Float.class.getName(), "FLOAT"
+    );
+
+    private final Types types;
+
+    ValueCodecSourceWriter(@Nonnull Types types) {
+        this.types = types;
+    }
+
+    /**
+     * Writes the source code of the codec.
+     *
+     * @param model  the model of the codec, cannot be {@code null}.
+     * @param writer the writer of the source file, cannot be {@code null}.
+     * @throws IOException if an I/O error occurs.
+     */
+    void write(@Nonnull ValueCodecModel model, @Nonnull Writer writer) throws IOException {
+        final PrintWriter out = new PrintWriter(writer);
+        final String type = model.typeName();
+        final List<ValueCodecModel.Component> components = model.components();
+
+        if (!model.packageName().isEmpty()) {
+            out.println("package " + model.packageName() + ";");
+            out.println();
+        }
+
+        out.println("import ru.joke.cache.bus.core.transport.ValueCodec;");
+        out.println("import ru.joke.cache.bus.core.transport.ValueCodecRegistry;");
+        out.println("import ru.joke.cache.bus.core.transport.ValueCodecs;");
+        out.println("import ru.joke.cache.bus.core.transport.VarInts;");
+        out.println();
+        out.println("import javax.annotation.Nonnull;");
+        out.println("import javax.annotation.processing.Generated;");
+        out.println("import java.io.DataInput;");
+        out.println("import java.io.DataOutput;");
+        out.println("import java.io.IOException;");
+        out.println();
+        out.println("/**");
+        out.println(" * Generated codec of the {@link " + type + "}.");
+        out.println(" */");
+        out.println("@Generated(\"" + ValueCodecProcessor.class.getName() + "\")");
+        out.println("public final class " + model.codecName() + " implements ValueCodec<" + type + "> {");
+        out.println();
+        out.println("    private static final int ID = " + model.id() + ";");
+        out.println();
+        out.println("    private volatile ValueCodecRegistry registry;");
+        out.println();
+        out.println("    @Override");
+        out.println("    public int id() {");
+        out.println("        return ID;");
+        out.println("    }");
+        out.println();
+        out.println("    @Nonnull");
+        out.println("    @Override");
+        out.println("    public Class<" + type + "> type() {");
+        out.println("        return " + type + ".class;");
+        out.println("    }");
+        out.println();
+        out.println("    @Override");
+        out.println("    public void encode(@Nonnull " + type + " value, @Nonnull DataOutput output) throws IOException {");
+        for (int i = 0; i < components.size(); i++) {
+            writeEncoding(out, components.get(i), "c" + i);
+        }
+        out.println("    }");
+        out.println();
+        out.println("    @Nonnull");
+        out.println("    @Override");
+        out.println("    @SuppressWarnings(\"unchecked\")");
+        out.println("    public " + type + " decode(@Nonnull DataInput input) throws IOException {");
+        final StringBuilder arguments = new StringBuilder();
+        for (int i = 0; i < components.size(); i++) {
+            final ValueCodecModel.Component component = components.get(i);
+            final String variable = "c" + i;
+            writeDecoding(out, component, variable);
+
+            arguments.append(i == 0 ? "" : ", ");
+            if (component.type().getKind().isPrimitive() || BUILT_IN_CODECS.containsKey(component.type().toString())) {
+                arguments.append(variable);
+            } else {
+                arguments.append('(').append(component.type()).append(") ").append(variable);
+            }
+        }
+        out.println("        return new " + type + "(" + arguments + ");");
+        out.println("    }");
+        out.println();
+        out.println("    @Override");
+        out.println("    public void bind(@Nonnull ValueCodecRegistry registry) {");
+        out.println("        this.registry = registry;");
+        out.println("    }");
+        out.println();
+        out.println("    @Override");
+        out.println("    public String toString() {");
+        out.println("        return \"" + model.codecName() + "{\" + \"id=\" + ID + \", type=" + type + "}\";");
+        out.println("    }");
+        out.println();
+        out.println("    private ValueCodecRegistry registry() throws IOException {");
+        out.println("        final ValueCodecRegistry registry = this.registry;");
+        out.println("        if (registry == null) {");
+        out.println("            throw new IOException(\"Codec isn't bound to registry: \" + this);");
+        out.println("        }");
+        out.println();
+        out.println("        return registry;");
+        out.println("    }");
+        out.println("}");
+        out.flush();
+
+        if (out.checkError()) {
+            throw new IOException("Unable to write source of codec " + model.qualifiedCodecName());
+        }
+    }
+
+    private void writeEncoding(final PrintWriter out, final ValueCodecModel.Component component, final String variable) {
+        final String value = "value." + component.accessor();
+        final TypeMirror type = component.type();
+        final String builtInCodec = BUILT_IN_CODECS.get(type.toString());
+
+        if (type.getKind().isPrimitive()) {
+            out.println("        " + primitiveWriting(type.getKind(), value) + ";");
+        } else if (builtInCodec != null) {
+            out.println("        final " + type + " " + variable + " = " + value + ";");
+            out.println("        if (" + variable + " == null) {");
+            out.println("            VarInts.writeUnsignedVarInt(output, ValueCodecs.NULL_ID);");
+            out.println("        } else {");
+            out.println("            VarInts.writeUnsignedVarInt(output, ValueCodecs." + builtInCodec + ".id());");
+            out.println("            ValueCodecs." + builtInCodec + ".encode(" + variable + ", output);");
+            out.println("        }");
+        } else {
+            out.println("        registry().write(" + value + ", output);");
+        }
+    }
+
+    private void writeDecoding(final PrintWriter out, final ValueCodecModel.Component component, final String variable) {
+        final TypeMirror type = component.type();
+        final String builtInCodec = BUILT_IN_CODECS.get(type.toString());
+
+        if (type.getKind().isPrimitive()) {
+            out.println("        final " + type + " " + variable + " = " + primitiveReading(type.getKind()) + ";");
+        } else if (builtInCodec != null) {
+            out.println("        final " + type + " " + variable + ";");
+            out.println("        final int " + variable + "Id = VarInts.readUnsignedVarInt(input);");
+            out.println("        if (" + variable + "Id == ValueCodecs.NULL_ID) {");
+            out.println("            " + variable + " = null;");
+            out.println("        } else if (" + variable + "Id == ValueCodecs." + builtInCodec + ".id()) {");
+            out.println("            " + variable + " = ValueCodecs." + builtInCodec + ".decode(input);");
+            out.println("        } else {");
+            out.println("            throw new IOException(\"Unexpected codec of component " + component.name() + ": \" + " + variable + "Id);");
+            out.println("        }");
+            out.println();
+        } else {
+            final TypeMirror erasure = this.types.erasure(type);
+            out.println("        final Object " + variable + " = registry().read(input);");
+            out.println("        if (" + variable + " != null && !(" + variable + " instanceof " + erasure + ")) {");
+            out.println("            throw new IOException(\"Unexpected type of component " + component.name() + ": \" + " + variable + ".getClass());");
+            out.println("        }");
+            out.println();
+        }
+    }
+
+    private static String primitiveWriting(final TypeKind kind, final String value) {
+        return switch (kind) {
+            case INT, SHORT -> "VarInts.writeVarInt(output, " + value + ")";
+            case LONG -> "VarInts.writeVarLong(output, " + value + ")";
+            case BOOLEAN -> "output.writeBoolean(" + value + ")";
+            case DOUBLE -> "output.writeDouble(" + value + ")";
+            case FLOAT -> "output.writeFloat(" + value + ")";
+            case BYTE -> "output.writeByte(" + value + ")";
+            case CHAR -> "output.writeChar(" + value + ")";
+            default -> throw new IllegalArgumentException("Unsupported primitive type: " + kind);
+        };
+    }
+
+    private static String primitiveReading(final TypeKind kind) {
+        return switch (kind) {
+            case INT -> "VarInts.readVarInt(input)";
+            case SHORT -> "(short) VarInts.readVarInt(input)";
+            case LONG -> "VarInts.readVarLong(input)";
+            case BOOLEAN -> "input.readBoolean()";
+            case DOUBLE -> "input.readDouble()";
+            case FLOAT -> "input.readFloat()";
+            case BYTE -> "input.readByte()";
+            case CHAR -> "input.readChar()";
+            default -> throw new IllegalArgumentException("Unsupported primitive type: " + kind);
+        };
+    }
+}
@@ -0,0 +1,265 @@
+package ru.joke.cache.bus.codec.processor;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.joke.cache.bus.core.transport.GenerateValueCodec;
+import ru.joke.cache.bus.core.transport.ValueCodec;
+import ru.joke.cache.bus.core.transport.ValueCodecRegistry;
+
+import javax.annotation.Nonnull;
+import javax.tools.*;
+import java.io.*;
+import java.lang.reflect.Constructor;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.Callable;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ValueCodecProcessorTest {
+
+    private static final String ORDER_KEY_SOURCE = """
+            package test.model;
+
+            import ru.joke.cache.bus.core.transport.GenerateValueCodec;
+            import java.io.Serializable;
+            import java.util.List;
+
+            @GenerateValueCodec(id = 40)
+            public record OrderKey(String tenant, long id, boolean active, char type, Integer version, List<String> tags, Account account) implements Serializable {
+
+                @GenerateValueCodec(id = 41)
+                public record Account(String name, short region, byte[] hash) implements Serializable {
+
+                    @Override
+                    public boolean equals(Object o) {
+                        return o instanceof Account a && name.equals(a.name) && region == a.region && java.util.Arrays.equals(hash, a.hash);
+                    }
+
+                    @Override
+                    public int hashCode() {
+                        return name.hashCode();
+                    }
+                }
+            }
+            """;
+
+    private static final String PRICE_SOURCE = """
+            package test.model;
+
+            import ru.joke.cache.bus.core.transport.GenerateValueCodec;
+            import java.io.Serializable;
+            import java.util.Objects;
+
+            @GenerateValueCodec(id = 42)
+            public final class Price implements Serializable {
+
+                final String currency;
+                private final double amount;
+                private final boolean gross;
+
+                public Price(String currency, double amount, boolean gross) {
+                    this.currency = currency;
+                    this.amount = amount;
+                    this.gross = gross;
+                }
+
+                public Price(String currency) {
+                    this(currency, 0, false);
+                }
+
+                public double getAmount() {
+                    return amount;
+                }
+
+                public boolean isGross() {
+                    return gross;
+                }
+
+                @Override
+                public boolean equals(Object o) {
+                    return o instanceof Price p && currency.equals(p.currency) && amount == p.amount && gross == p.gross;
+                }
+
+                @Override
+                public int hashCode() {
+                    return Objects.hash(currency, amount, gross);
+                }
+            }
+            """;
+
+    @TempDir
+    private Path outputDir;
+
+    @Test
+    public void testWhenTypesAnnotatedThenCodecsGeneratedAndInstalled() throws Exception {
+        final CompilationResult result = compile(Map.of("test/model/OrderKey.java", ORDER_KEY_SOURCE, "test/model/Price.java", PRICE_SOURCE));
+        assertTrue(result.success(), "Compilation must be successful: " + result.diagnostics());
+
+        final Path servicesFile = this.outputDir.resolve("META-INF/services/" + ValueCodec.class.getName());
+        assertEquals(
+                List.of("test.model.OrderKeyValueCodec", "test.model.OrderKey_AccountValueCodec", "test.model.PriceValueCodec"),
+                Files.readAllLines(servicesFile),
+                "Generated codecs must be declared as services"
+        );
+
+        try (final URLClassLoader classLoader = createClassLoader()) {
+            final ValueCodecRegistry registry = withContextClassLoader(classLoader, () -> ValueCodecRegistry.builder().registerInstalled().build());
+
+            final Class<?> orderKeyType = classLoader.loadClass("test.model.OrderKey");
+            final Class<?> accountType = classLoader.loadClass("test.model.OrderKey$Account");
+            final Class<?> priceType = classLoader.loadClass("test.model.Price");
+
+            final ValueCodec<?> orderKeyCodec = registry.findByType(orderKeyType);
+            assertNotNull(orderKeyCodec, "Generated codec must be registered");
+            assertEquals(40, orderKeyCodec.id(), "Id of codec must be equal to id from annotation");
+            assertEquals("test.model.OrderKeyValueCodec", orderKeyCodec.getClass().getName(), "Codec must be generated");
+            assertSame(registry.findById(41), registry.findByType(accountType), "Codec of nested type must be registered");
+
+            final Object account = newInstance(accountType, "acc", (short) 3, new byte[] { 1, 2 });
+            final Object orderKey = newInstance(orderKeyType, "tenant", 15L, true, 'x', null, List.of("a", "b"), account);
+            final Object price = newInstance(priceType, "EUR", 10.5, true);
+
+            assertEquals(orderKey, readBack(registry, write(registry, orderKey)), "Record must be equal after reading");
+            assertEquals(price, readBack(registry, write(registry, price)), "Class must be equal after reading");
+            assertNull(readBack(registry, write(registry, null)), "Null must be read as null");
+
+            // The generated codecs are compatible with the reflective codecs of the records
+            final ValueCodecRegistry reflectiveRegistry =
+                    ValueCodecRegistry.builder()
+                                        .registerRecord(40, orderKeyType.asSubclass(Record.class))
+                                        .registerRecord(41, accountType.asSubclass(Record.class))
+                                      .build();
+            assertArrayEquals(write(reflectiveRegistry, orderKey), write(registry, orderKey), "Binary representation must be equal to representation of record codec");
+            assertEquals(orderKey, readBack(reflectiveRegistry, write(registry, orderKey)), "Record must be read by record codec");
+        }
+    }
+
+    @Test
+    public void testWhenAnnotatedTypesInvalidThenCompilationFails() {
+        final String invalidSource = """
+                package test.invalid;
+
+                import ru.joke.cache.bus.core.transport.GenerateValueCodec;
+
+                public class Invalid {
+
+                    @GenerateValueCodec(id = 5)
+                    public record ReservedId(String name) {
+                    }
+
+                    @GenerateValueCodec(id = 50)
+                    public record First(String name) {
+                    }
+
+                    @GenerateValueCodec(id = 50)
+                    public record Second(String name) {
+                    }
+
+                    @GenerateValueCodec(id = 51)
+                    public static class WithoutAccessor {
+
+                        private final String name;
+
+                        public WithoutAccessor(String name) {
+                            this.name = name;
+                        }
+                    }
+
+                    @GenerateValueCodec(id = 52)
+                    public static class Generic<T> {
+                    }
+                }
+                """;
+
+        final CompilationResult result = compile(Map.of("test/invalid/Invalid.java", invalidSource));
+        assertFalse(result.success(), "Compilation must fail");
+
+        final String diagnostics = result.diagnostics().toString();
+        assertTrue(diagnostics.contains("Codec id must be in range"), "Reserved id must be rejected: " + diagnostics);
+        assertTrue(diagnostics.contains("Codec with id 50 already generated"), "Duplicate id must be rejected: " + diagnostics);
+        assertTrue(diagnostics.contains("accessor method or field not found for parameter name"), "Class without accessor must be rejected: " + diagnostics);
+        assertTrue(diagnostics.contains("generic type"), "Generic type must be rejected: " + diagnostics);
+    }
+
+    private CompilationResult compile(final Map<String, String> sources) {
+        try {
+            final Path sourceDir = Files.createDirectories(this.outputDir.resolve("sources"));
+            final List<File> sourceFiles = new ArrayList<>();
+            for (final Map.Entry<String, String> source : sources.entrySet()) {
+                final Path sourceFile = sourceDir.resolve(source.getKey());
+                Files.createDirectories(sourceFile.getParent());
+                Files.writeString(sourceFile, source.getValue());
+                sourceFiles.add(sourceFile.toFile());
+            }
+
+            final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+            final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+            try (final StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, Locale.ROOT, StandardCharsets.UTF_8)) {
+                final String classpath = locationOf(GenerateValueCodec.class) + File.pathSeparator + locationOf(Nonnull.class);
+                final List<String> options = List.of("-classpath", classpath, "-d", this.outputDir.toString(), "-s", sourceDir.toString());
+
+                final JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics, options, null, fileManager.getJavaFileObjectsFromFiles(sourceFiles));
+                task.setProcessors(List.of(new ValueCodecProcessor()));
+
+                return new CompilationResult(task.call(), diagnostics.getDiagnostics());
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private URLClassLoader createClassLoader() throws IOException {
+        return new URLClassLoader(new URL[] { this.outputDir.toUri().toURL() }, getClass().getClassLoader());
+    }
+
+    private <T> T withContextClassLoader(final ClassLoader classLoader, final Callable<T> action) throws Exception {
+        final ClassLoader prevClassLoader = Thread.currentThread().getContextClassLoader();
+        Thread.currentThread().setContextClassLoader(classLoader);
+        try {
+            return action.call();
+        } finally {
+            Thread.currentThread().setContextClassLoader(prevClassLoader);
+        }
+    }
+
+    private Object newInstance(final Class<?> type, final Object... args) throws ReflectiveOperationException {
+        for (final Constructor<?> constructor : type.getConstructors()) {
+            if (constructor.getParameterCount() == args.length) {
+                return constructor.newInstance(args);
+            }
+        }
+
+        throw new NoSuchMethodException(type.getName());
+    }
+
+    private byte[] write(final ValueCodecRegistry registry, final Object value) throws IOException {
+        final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        registry.write(value, new DataOutputStream(bos));
+        return bos.toByteArray();
+    }
+
+    private Object readBack(final ValueCodecRegistry registry, final byte[] data) throws IOException {
+        final DataInputStream input = new DataInputStream(new ByteArrayInputStream(data));
+        final Object result = registry.read(input);
+        assertEquals(-1, input.read(), "All bytes must be read");
+
+        return result;
+    }
+
+    private static String locationOf(final Class<?> type) {
+        try {
+            return Path.of(type.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+        } catch (URISyntaxException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private record CompilationResult(boolean success, List<Diagnostic<? extends JavaFileObject>> diagnostics) {
+    }
+}